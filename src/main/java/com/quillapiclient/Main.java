@@ -3,6 +3,9 @@ package com.quillapiclient;
 import com.formdev.flatlaf.FlatDarculaLaf;
 import com.quillapiclient.controller.ApiController;
 import com.quillapiclient.db.LiteConnection;
+import com.quillapiclient.db.ResponseRetention;
+import com.quillapiclient.db.VariableUsageDao;
+import com.quillapiclient.scripting.VariableScopeCache;
 import com.quillapiclient.utility.AppColorTheme;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
@@ -27,7 +30,31 @@ public class Main {
                 com.quillapiclient.db.DatabaseSchema.initializeSchema();
             } else {
                 com.quillapiclient.db.DatabaseSchema.migrateEventsTable();
+                com.quillapiclient.db.DatabaseSchema.migrateResponsesTable();
+                com.quillapiclient.db.DatabaseSchema.migrateBlobStore();
+                com.quillapiclient.db.DatabaseSchema.migrateResponseRollups();
+                com.quillapiclient.db.DatabaseSchema.migrateVariableKeys();
+                com.quillapiclient.db.DatabaseSchema.migrateVariableUsages();
+                com.quillapiclient.db.DatabaseSchema.migrateRuns();
+                com.quillapiclient.db.DatabaseSchema.migrateRetryPolicies();
             }
+            // Compact legacy response rows and apply retention in the background
+            ResponseRetention.scheduleMaintenance();
+            // Index variable references of requests saved before the index
+            Thread usages = new Thread(
+                () ->
+                    LiteConnection.runWithNewConnection(conn -> {
+                        int indexed = VariableUsageDao.backfillIfPending();
+                        if (indexed > 0) {
+                            System.out.println(
+                                "Indexed variables of " + indexed + " request(s)"
+                            );
+                        }
+                    }),
+                "variable-usages"
+            );
+            usages.setDaemon(true);
+            usages.start();
         } catch (Exception ex) {
             System.err.println("Failed to initialize database schema");
             ex.printStackTrace();
@@ -38,6 +65,9 @@ public class Main {
             new Thread(() -> {
                 // Shutdown executor service gracefully (wait up to 5 seconds)
                 ApiController.shutdownGracefully(5);
+                ResponseRetention.shutdown(2);
+                // Write variable changes still queued by scripts
+                VariableScopeCache.getDefault().shutdown(2);
 
                 // Close database connection
                 LiteConnection.closeConnection();
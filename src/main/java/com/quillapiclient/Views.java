@@ -1,8 +1,11 @@
 package com.quillapiclient;
 
+import com.quillapiclient.components.EnvironmentComparisonWindow;
+import com.quillapiclient.components.JsonDiffWindow;
 import com.quillapiclient.components.LeftPanel;
 import com.quillapiclient.components.MainWindow;
 import com.quillapiclient.components.RequestPanel;
+import com.quillapiclient.components.ResponseHistoryWindow;
 import com.quillapiclient.components.ResponsePanel;
 import com.quillapiclient.controller.ApiController;
 import com.quillapiclient.controller.CollectionTreeManager;
@@ -11,11 +14,11 @@ import com.quillapiclient.controller.RequestController;
 import com.quillapiclient.db.LiteConnection;
 import com.quillapiclient.objects.ExecutionRequest;
 import com.quillapiclient.objects.Request;
-import com.quillapiclient.server.ApiResponse;
 import com.quillapiclient.utility.OpenFileAction;
-import com.quillapiclient.utility.ResponseFormatter;
 import com.quillapiclient.utility.TableEditUtil;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import javax.swing.JOptionPane;
 import javax.swing.SwingWorker;
 
@@ -37,8 +40,23 @@ public class Views {
         requestController = new RequestController();
         apiController = new ApiController(responsePanel, requestController);
         collectionManager = new CollectionTreeManager(requestController);
+        apiController.setOnResponseSaved(() -> {
+            collectionManager.refreshLatencyTrends();
+            refreshDefinedVariables();
+        });
         environmentManager = new EnvironmentListManager();
+        collectionManager.setActiveEnvironmentSupplier(
+            environmentManager::getActiveEnvironmentId
+        );
         requestPanel = new RequestPanel();
+        requestPanel.setVariableCompleter((prefix, limit) ->
+            requestController.completeVariable(
+                currentItemId(),
+                environmentManager.getActiveEnvironmentId(),
+                prefix,
+                limit
+            )
+        );
 
         setupComponents();
 
@@ -96,6 +114,14 @@ public class Views {
 
         // Connect send button to API controller
         requestPanel.getSendButton().addActionListener(e -> executeApiCall());
+        requestPanel
+            .getCompareButton()
+            .addActionListener(e -> compareAcrossEnvironments());
+
+        // Open the response history browser for the selected request
+        responsePanel
+            .getHistoryButton()
+            .addActionListener(e -> openResponseHistory());
 
         // Connect save button to save handler
         requestPanel.setSaveCallback(() -> saveRequest());
@@ -131,6 +157,7 @@ public class Views {
 
     private void handleRequestSelection(Request request) {
         requestPanel.populateFromRequest(request, currentItemId);
+        refreshDefinedVariables();
         // Load and display the response for this request
         loadAndDisplayResponse();
     }
@@ -143,31 +170,84 @@ public class Views {
     /**
      * Loads and displays the response for the currently selected request.
      * Shows "There is no response for this request" if no response exists.
+     * Loading and formatting run off the EDT; selecting another request
+     * cancels whatever is still in flight.
      */
     private void loadAndDisplayResponse() {
-        // Delegate data access to the controller
-        ApiResponse response = apiController.loadResponseForItem(
-            currentItemId()
+        int itemId = currentItemId();
+        responsePanel.loadAndShowResponse(
+            () -> apiController.loadResponseForItem(itemId),
+            "Response"
         );
+    }
 
-        if (response == null) {
-            responsePanel.setResponse(ResponseFormatter.NO_RESPONSE_MESSAGE);
-            responsePanel.setErrorState(false);
-            responsePanel.resetStatusDurationSize();
-        } else {
-            String formattedResponse = ResponseFormatter.formatResponse(
-                response,
-                "Response"
-            );
-            responsePanel.setResponse(formattedResponse);
-
-            responsePanel.setStatus(response.getStatusCode());
-            responsePanel.setDuration(response.getDuration());
-            responsePanel.setSize(
-                ResponseFormatter.formatSize(response.getBody().length())
-            );
-            responsePanel.setErrorState(!response.isSuccess());
+    /**
+     * Opens the history browser for the selected request. Entries load
+     * their full body only when opened.
+     */
+    private void openResponseHistory() {
+        int itemId = currentItemId();
+        if (itemId <= 0) {
+            return;
         }
+        int requestId = requestController.getRequestIdByItemId(itemId);
+        if (requestId <= 0) {
+            return;
+        }
+        String requestName = requestController.getRequestName(itemId);
+        new ResponseHistoryWindow(
+            requestName != null ? requestName : "Request",
+            (after, limit) ->
+                apiController.loadHistoryPage(requestId, after, limit),
+            responseId ->
+                responsePanel.loadAndShowResponse(
+                    () -> apiController.loadResponseById(responseId),
+                    "Response"
+                ),
+            (olderId, newerId) ->
+                openResponseDiff(
+                    requestName != null ? requestName : "Request",
+                    olderId,
+                    newerId
+                )
+        );
+    }
+
+    /**
+     * Diffs the bodies of two responses from history off the EDT and shows
+     * the result as a tree.
+     */
+    private void openResponseDiff(
+        String requestName,
+        int olderId,
+        int newerId
+    ) {
+        JsonDiffWindow window = new JsonDiffWindow(
+            "Response Diff - " + requestName
+        );
+        new SwingWorker<ApiController.BodyDiff, Void>() {
+            @Override
+            protected ApiController.BodyDiff doInBackground() {
+                return apiController.diffStoredResponses(olderId, newerId);
+            }
+
+            @Override
+            protected void done() {
+                ApiController.BodyDiff diff = null;
+                try {
+                    diff = get();
+                } catch (Exception e) {
+                    System.err.println(
+                        "Error comparing responses: " + e.getMessage()
+                    );
+                    e.printStackTrace();
+                }
+                window.showDiff(
+                    diff != null ? diff.result : null,
+                    diff == null || diff.json
+                );
+            }
+        }.execute();
     }
 
     private void saveRequest() {
@@ -229,7 +309,90 @@ public class Views {
             exec.token,
             exec.paramsText,
             currentItemId(),
-            environmentId
+            environmentId,
+            exec.stream
+        );
+        // The pre-request script has run and may have set variables
+        refreshDefinedVariables();
+    }
+
+    /**
+     * Sends the current request to environments the user picks, all at
+     * once, and opens a comparison of the responses.
+     */
+    private void compareAcrossEnvironments() {
+        List<EnvironmentListManager.EnvironmentInfo> environments =
+            environmentManager.getEnvironmentInfos();
+        if (environments.size() < 2) {
+            JOptionPane.showMessageDialog(
+                mainWindow.getFrame(),
+                "Create at least two environments to compare.",
+                "Send to Environments",
+                JOptionPane.INFORMATION_MESSAGE
+            );
+            return;
+        }
+        List<String> names = new ArrayList<>();
+        int active = -1;
+        for (int i = 0; i < environments.size(); i++) {
+            names.add(environments.get(i).name);
+            if (
+                environments.get(i).id ==
+                environmentManager.getActiveEnvironmentId()
+            ) {
+                active = i;
+            }
+        }
+        List<Integer> chosen = EnvironmentComparisonWindow.chooseEnvironments(
+            mainWindow.getFrame(),
+            names,
+            active
+        );
+        if (chosen.isEmpty()) {
+            return;
+        }
+        List<EnvironmentListManager.EnvironmentInfo> selected =
+            new ArrayList<>();
+        List<String> selectedNames = new ArrayList<>();
+        for (int index : chosen) {
+            selected.add(environments.get(index));
+            selectedNames.add(names.get(index));
+        }
+
+        ExecutionRequest exec = requestPanel.buildExecutionRequest();
+        int itemId = currentItemId();
+        String requestName =
+            itemId > 0 ? requestController.getRequestName(itemId) : null;
+        EnvironmentComparisonWindow window = new EnvironmentComparisonWindow(
+            requestName != null ? requestName : exec.url,
+            selectedNames
+        );
+        apiController.sendToEnvironments(
+            exec.url,
+            exec.method,
+            exec.headersText,
+            exec.bodyText,
+            exec.authType,
+            exec.username,
+            exec.password,
+            exec.token,
+            exec.paramsText,
+            itemId,
+            selected,
+            window::showResults
+        );
+    }
+
+    /**
+     * Tells the URL field which variables the selected request and the
+     * active environment define, so it can mark the others.
+     */
+    private void refreshDefinedVariables() {
+        requestPanel.setDefinedVariables(
+            requestController.getDefinedVariableNames(
+                currentItemId(),
+                environmentManager.getActiveEnvironmentId()
+            )
         );
     }
 
@@ -243,5 +406,6 @@ public class Views {
                 environmentManager.getActiveEnvironmentName()
             );
         }
+        refreshDefinedVariables();
     }
 }
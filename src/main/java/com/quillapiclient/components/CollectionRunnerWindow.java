@@ -0,0 +1,219 @@
+package com.quillapiclient.components;
+
+import com.quillapiclient.controller.CollectionRunner;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Progress of a collection run: one row per finished iteration with its
+ * status codes, total time and time queued behind host rate limits, and
+ * a running count of failures.
+ *
+ * <p>Results arrive on the runner's threads, possibly thousands a second;
+ * they are queued and added to the table in one batch per EDT turn. Each
+ * row keeps only a summary string, not the iteration's results.
+ */
+public class CollectionRunnerWindow implements CollectionRunner.Listener {
+
+    private static final String[] COLUMNS = {
+        "Iteration",
+        "Result",
+        "Status codes",
+        "Time",
+        "Queued",
+    };
+
+    private final JFrame frame;
+    private final JLabel header = new JLabel(
+        "Running...",
+        SwingConstants.LEFT
+    );
+    private final JButton stopButton = new JButton("Stop");
+    private final IterationTableModel model = new IterationTableModel();
+    private final ConcurrentLinkedQueue<Row> arrived =
+        new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private int failed = 0;
+
+    /**
+     * @param title  the collection or folder run
+     * @param onStop called on the EDT when Stop is pressed
+     */
+    public CollectionRunnerWindow(String title, Runnable onStop) {
+        frame = new JFrame("Run - " + title);
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.setLayout(new BorderLayout());
+
+        header.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        frame.add(header, BorderLayout.NORTH);
+
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        table.getTableHeader().setReorderingAllowed(false);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(640, 480));
+        frame.add(scrollPane, BorderLayout.CENTER);
+
+        stopButton.addActionListener(e -> {
+            stopButton.setEnabled(false);
+            header.setText("Stopping...");
+            onStop.run();
+        });
+        JPanel south = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        south.add(stopButton);
+        frame.add(south, BorderLayout.SOUTH);
+
+        frame.pack();
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+    }
+
+    @Override
+    public void onIteration(CollectionRunner.IterationResult result) {
+        StringBuilder codes = new StringBuilder();
+        long time = 0;
+        long queued = 0;
+        for (CollectionRunner.StepResult step : result.steps) {
+            if (codes.length() > 0) {
+                codes.append(' ');
+            }
+            codes.append(step.statusCode);
+            time += step.durationMs;
+            queued += step.queuedMs;
+        }
+        arrived.add(
+            new Row(
+                result.iteration + 1,
+                result.failed,
+                codes.toString(),
+                time,
+                queued
+            )
+        );
+        if (flushQueued.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::flush);
+        }
+    }
+
+    @Override
+    public void onFinished(
+        int iterations,
+        int failedIterations,
+        String error
+    ) {
+        SwingUtilities.invokeLater(() -> {
+            flush();
+            stopButton.setEnabled(false);
+            String summary =
+                iterations +
+                " iteration(s), " +
+                failedIterations +
+                " failed";
+            header.setText(
+                error != null
+                    ? "Stopped: " + error + " (" + summary + ")"
+                    : "Finished: " + summary
+            );
+        });
+    }
+
+    private void flush() {
+        flushQueued.set(false);
+        List<Row> rows = new ArrayList<>();
+        for (Row row; (row = arrived.poll()) != null;) {
+            rows.add(row);
+            if (row.failed) {
+                failed++;
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        model.addAll(rows);
+        if (stopButton.isEnabled()) {
+            header.setText(
+                "Running... " +
+                    model.getRowCount() +
+                    " iteration(s) done, " +
+                    failed +
+                    " failed"
+            );
+        }
+    }
+
+    private static class Row {
+
+        final int iteration; // from 1, as shown
+        final boolean failed;
+        final String codes;
+        final long timeMs;
+        final long queuedMs; // waited for host rate limits, not in timeMs
+
+        Row(
+            int iteration,
+            boolean failed,
+            String codes,
+            long timeMs,
+            long queuedMs
+        ) {
+            this.iteration = iteration;
+            this.failed = failed;
+            this.codes = codes;
+            this.timeMs = timeMs;
+            this.queuedMs = queuedMs;
+        }
+    }
+
+    private static class IterationTableModel extends AbstractTableModel {
+
+        private final List<Row> rows = new ArrayList<>();
+
+        void addAll(List<Row> added) {
+            int first = rows.size();
+            rows.addAll(added);
+            fireTableRowsInserted(first, rows.size() - 1);
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            Row row = rows.get(rowIndex);
+            return switch (columnIndex) {
+                case 0 -> row.iteration;
+                case 1 -> row.failed ? "failed" : "passed";
+                case 2 -> row.codes;
+                case 3 -> row.timeMs + " ms";
+                default -> row.queuedMs + " ms";
+            };
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.quillapiclient.components;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JViewport;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Highlighter;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+
+/**
+ * Connects a {@link ResponseSearchBar} to the response editor.
+ *
+ * <p>The search runs over a copy of the document text taken when it
+ * starts. Only hits inside the viewport get a highlight (at most
+ * {@link #MAX_VISIBLE_HIGHLIGHTS}); they are re-applied as the editor
+ * scrolls, so a million hits cost no more to show than a dozen.
+ */
+class EditorSearchTarget implements ResponseSearchBar.Target {
+
+    static final int MAX_VISIBLE_HIGHLIGHTS = 2000;
+
+    private static final Highlighter.HighlightPainter HIT_PAINTER =
+        new DefaultHighlighter.DefaultHighlightPainter(
+            new Color(0xFF, 0xC1, 0x07, 0x60)
+        );
+    private static final Highlighter.HighlightPainter CURRENT_PAINTER =
+        new DefaultHighlighter.DefaultHighlightPainter(
+            new Color(0xFF, 0x98, 0x00, 0xC0)
+        );
+
+    private final RSyntaxTextArea area;
+    private final List<Object> tags = new ArrayList<>();
+    private SearchHits hits;
+    private int current = -1;
+
+    EditorSearchTarget(RSyntaxTextArea area, JViewport viewport) {
+        this.area = area;
+        viewport.addChangeListener(e -> paintVisibleHits());
+    }
+
+    @Override
+    public CharSequence getSearchText() {
+        return area.getText();
+    }
+
+    @Override
+    public boolean isByteText() {
+        return false;
+    }
+
+    @Override
+    public int getSearchOrigin() {
+        return area.getCaretPosition();
+    }
+
+    @Override
+    public void setHits(SearchHits hits, int current) {
+        this.hits = hits;
+        this.current = current;
+        paintVisibleHits();
+    }
+
+    @Override
+    public void revealHit(int start, int end) {
+        area.select(start, end);
+        try {
+            Rectangle bounds = area.modelToView2D(start).getBounds();
+            bounds.add(area.modelToView2D(end).getBounds());
+            area.scrollRectToVisible(bounds);
+        } catch (BadLocationException e) {
+            // The document changed under the hit; the selection still moved
+        }
+    }
+
+    @Override
+    public String describe(int offset) {
+        try {
+            return "line " + (area.getLineOfOffset(offset) + 1);
+        } catch (BadLocationException e) {
+            return "offset " + offset;
+        }
+    }
+
+    /** Replaces the highlights with those of the hits now on screen. */
+    private void paintVisibleHits() {
+        Highlighter highlighter = area.getHighlighter();
+        for (Object tag : tags) {
+            highlighter.removeHighlight(tag);
+        }
+        tags.clear();
+        if (hits == null || hits.size() == 0) {
+            return;
+        }
+        Rectangle visible = area.getVisibleRect();
+        int from = area.viewToModel2D(new Point(0, visible.y));
+        int to = area.viewToModel2D(
+            new Point(visible.width, visible.y + visible.height)
+        );
+        int length = area.getDocument().getLength();
+        for (
+            int hit = hits.firstEndingAfter(from);
+            hit < hits.size() &&
+            hits.start(hit) <= to &&
+            tags.size() < MAX_VISIBLE_HIGHLIGHTS;
+            hit++
+        ) {
+            if (hits.end(hit) > length) {
+                break; // hit from text that has since been replaced
+            }
+            try {
+                tags.add(
+                    highlighter.addHighlight(
+                        hits.start(hit),
+                        hits.end(hit),
+                        hit == current ? CURRENT_PAINTER : HIT_PAINTER
+                    )
+                );
+            } catch (BadLocationException e) {
+                break;
+            }
+        }
+    }
+}
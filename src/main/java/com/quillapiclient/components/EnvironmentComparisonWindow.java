@@ -0,0 +1,336 @@
+package com.quillapiclient.components;
+
+import com.quillapiclient.controller.ApiController;
+import com.quillapiclient.json.JsonDiff;
+import com.quillapiclient.server.ApiResponse;
+import com.quillapiclient.utility.ResponseFormatter;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.GridLayout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import javax.swing.BorderFactory;
+import javax.swing.JCheckBox;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Side-by-side comparison of one request sent to several environments:
+ * status, timing, size and headers in one column per environment, with
+ * the rows that differ in bold, and below them the differences between
+ * each response body and the first environment's.
+ *
+ * <p>The window opens while the sends are still running and fills in when
+ * {@link #showResults} is called.
+ */
+public class EnvironmentComparisonWindow {
+
+    private static final String[] DIFF_COLUMNS = {
+        "Environment",
+        "Path",
+        "Change",
+        "Baseline",
+        "Value",
+    };
+    // Rows that differ by nature, never marked
+    private static final int TIMING_ROWS = 2;
+
+    private final JFrame frame;
+    private final JLabel header = new JLabel(" ", SwingConstants.LEFT);
+    private final DefaultTableModel summaryModel = new DefaultTableModel() {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+    private final DefaultTableModel diffModel = new DefaultTableModel(
+        DIFF_COLUMNS,
+        0
+    ) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+    private final List<Boolean> rowDiffers = new ArrayList<>();
+
+    /**
+     * @param requestName  shown in the title
+     * @param environments the environment names, the baseline first
+     */
+    public EnvironmentComparisonWindow(
+        String requestName,
+        List<String> environments
+    ) {
+        frame = new JFrame("Compare Environments - " + requestName);
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.setLayout(new BorderLayout());
+
+        header.setText(
+            "Sending to " + String.join(", ", environments) + "..."
+        );
+        header.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        frame.add(header, BorderLayout.NORTH);
+
+        JTable summary = new JTable(summaryModel);
+        summary.setDefaultRenderer(Object.class, new SummaryRenderer());
+        summary.getTableHeader().setReorderingAllowed(false);
+        JTable differences = new JTable(diffModel);
+        differences.getTableHeader().setReorderingAllowed(false);
+
+        JSplitPane split = new JSplitPane(
+            JSplitPane.VERTICAL_SPLIT,
+            new JScrollPane(summary),
+            new JScrollPane(differences)
+        );
+        split.setResizeWeight(0.5);
+        split.setPreferredSize(new Dimension(900, 600));
+        frame.add(split, BorderLayout.CENTER);
+
+        frame.pack();
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+    }
+
+    /**
+     * Asks which environments to send to.
+     *
+     * @param names       the environment names
+     * @param preselected index of the environment checked at first, or -1
+     * @return the indexes chosen, in list order (the first is the
+     *         baseline), or an empty list if cancelled
+     */
+    public static List<Integer> chooseEnvironments(
+        Component parent,
+        List<String> names,
+        int preselected
+    ) {
+        JPanel panel = new JPanel(new BorderLayout(0, 8));
+        panel.add(
+            new JLabel(
+                "Send to these environments (the first is the baseline):"
+            ),
+            BorderLayout.NORTH
+        );
+        JPanel boxes = new JPanel(new GridLayout(0, 1));
+        List<JCheckBox> checkBoxes = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            JCheckBox checkBox = new JCheckBox(names.get(i), i == preselected);
+            checkBoxes.add(checkBox);
+            boxes.add(checkBox);
+        }
+        JScrollPane scrollPane = new JScrollPane(boxes);
+        scrollPane.setPreferredSize(
+            new Dimension(
+                320,
+                Math.min(240, boxes.getPreferredSize().height + 8)
+            )
+        );
+        panel.add(scrollPane, BorderLayout.CENTER);
+
+        while (true) {
+            int choice = JOptionPane.showConfirmDialog(
+                parent,
+                panel,
+                "Send to Environments",
+                JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE
+            );
+            if (choice != JOptionPane.OK_OPTION) {
+                return List.of();
+            }
+            List<Integer> chosen = new ArrayList<>();
+            for (int i = 0; i < checkBoxes.size(); i++) {
+                if (checkBoxes.get(i).isSelected()) {
+                    chosen.add(i);
+                }
+            }
+            if (chosen.size() >= 2) {
+                return chosen;
+            }
+            JOptionPane.showMessageDialog(
+                parent,
+                "Choose at least two environments to compare.",
+                "Send to Environments",
+                JOptionPane.INFORMATION_MESSAGE
+            );
+        }
+    }
+
+    /** Shows the responses, the baseline first. EDT only. */
+    public void showResults(List<ApiController.EnvironmentResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        List<String> columns = new ArrayList<>();
+        columns.add("");
+        for (ApiController.EnvironmentResult result : results) {
+            columns.add(result.environmentName);
+        }
+        summaryModel.setColumnIdentifiers(columns.toArray());
+        summaryModel.setRowCount(0);
+        rowDiffers.clear();
+
+        addRow("Time", results, r -> r.response.getDuration() + " ms");
+        addRow("First byte", results, r ->
+            r.response.getTimeToFirstByte() >= 0
+                ? r.response.getTimeToFirstByte() + " ms"
+                : ""
+        );
+        addRow("Status", results, r ->
+            String.valueOf(r.response.getStatusCode())
+        );
+        addRow("Size", results, r ->
+            ResponseFormatter.formatSize(r.response.getBodySize())
+        );
+        addRow("Body", results, EnvironmentComparisonWindow::bodySummary);
+
+        // Header names compare case-insensitively
+        Map<String, String> headerNames = new TreeMap<>(
+            String.CASE_INSENSITIVE_ORDER
+        );
+        for (ApiController.EnvironmentResult result : results) {
+            Map<String, List<String>> headers = result.response.getHeaders();
+            if (headers != null) {
+                for (String name : headers.keySet()) {
+                    headerNames.putIfAbsent(name, name);
+                }
+            }
+        }
+        for (String name : headerNames.values()) {
+            addRow(name, results, r -> headerValue(r.response, name));
+        }
+
+        diffModel.setRowCount(0);
+        String baseline = results.get(0).environmentName;
+        diffModel.setColumnIdentifiers(
+            new Object[] {
+                DIFF_COLUMNS[0],
+                DIFF_COLUMNS[1],
+                DIFF_COLUMNS[2],
+                baseline,
+                DIFF_COLUMNS[4],
+            }
+        );
+        int total = 0;
+        boolean truncated = false;
+        for (ApiController.EnvironmentResult result : results) {
+            if (result.bodyDiff == null) {
+                continue;
+            }
+            for (JsonDiff.Difference difference : result.bodyDiff.differences) {
+                diffModel.addRow(
+                    new Object[] {
+                        result.environmentName,
+                        difference.path,
+                        difference.kind.name().toLowerCase(),
+                        difference.left != null ? difference.left : "",
+                        difference.right != null ? difference.right : "",
+                    }
+                );
+                total++;
+            }
+            truncated |= result.bodyDiff.truncated;
+        }
+        header.setText(
+            "Compared with " +
+                baseline +
+                ": " +
+                (total == 0
+                    ? "bodies match"
+                    : total +
+                      " body difference(s)" +
+                      (truncated ? " (stopped at the limit)" : ""))
+        );
+    }
+
+    private interface Cell {
+        String of(ApiController.EnvironmentResult result);
+    }
+
+    private void addRow(
+        String label,
+        List<ApiController.EnvironmentResult> results,
+        Cell cell
+    ) {
+        Object[] row = new Object[results.size() + 1];
+        row[0] = label;
+        boolean differs = false;
+        for (int i = 0; i < results.size(); i++) {
+            row[i + 1] = cell.of(results.get(i));
+            differs |= !Objects.equals(row[1], row[i + 1]);
+        }
+        rowDiffers.add(rowDiffers.size() >= TIMING_ROWS && differs);
+        summaryModel.addRow(row);
+    }
+
+    private static String bodySummary(ApiController.EnvironmentResult result) {
+        JsonDiff.Result diff = result.bodyDiff;
+        if (diff == null) {
+            return "baseline";
+        }
+        if (diff.isEqual()) {
+            return "same";
+        }
+        if (!result.bodyIsJson) {
+            return "differs (not JSON)";
+        }
+        return (
+            diff.differences.size() +
+            (diff.truncated ? "+" : "") +
+            " difference(s)"
+        );
+    }
+
+    private static String headerValue(ApiResponse response, String name) {
+        Map<String, List<String>> headers = response.getHeaders();
+        if (headers == null) {
+            return "";
+        }
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                return String.join(", ", entry.getValue());
+            }
+        }
+        return "";
+    }
+
+    /** Bold for rows whose values differ between environments. */
+    private class SummaryRenderer extends DefaultTableCellRenderer {
+
+        @Override
+        public Component getTableCellRendererComponent(
+            JTable table,
+            Object value,
+            boolean isSelected,
+            boolean hasFocus,
+            int row,
+            int column
+        ) {
+            super.getTableCellRendererComponent(
+                table,
+                value,
+                isSelected,
+                hasFocus,
+                row,
+                column
+            );
+            boolean differs = row < rowDiffers.size() && rowDiffers.get(row);
+            setFont(getFont().deriveFont(differs ? Font.BOLD : Font.PLAIN));
+            return this;
+        }
+    }
+}
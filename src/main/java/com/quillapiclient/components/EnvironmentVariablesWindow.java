@@ -11,6 +11,7 @@ import java.util.List;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
@@ -63,6 +64,14 @@ public class EnvironmentVariablesWindow {
         JButton addButton = new JButton("Add");
         JButton deleteButton = new JButton("Delete");
         JButton saveButton = new JButton("Save");
+        JButton usagesButton = new JButton("Usages");
+        usagesButton.setToolTipText(
+            "List the requests that reference the selected variable"
+        );
+        JButton undefinedButton = new JButton("Undefined");
+        undefinedButton.setToolTipText(
+            "List request variables no scope defines in this environment"
+        );
 
         addButton.addActionListener(event -> {
             int newRow = tableModel.addEmptyRow();
@@ -84,6 +93,8 @@ public class EnvironmentVariablesWindow {
         });
         deleteButton.addActionListener(event -> deleteSelectedRows());
         saveButton.addActionListener(event -> saveValues());
+        usagesButton.addActionListener(event -> showUsages());
+        undefinedButton.addActionListener(event -> showUndefined());
 
         JPanel buttonPanel = new JPanel(new BorderLayout());
         JPanel rightActionsPanel = new JPanel(
@@ -93,7 +104,15 @@ public class EnvironmentVariablesWindow {
         rightActionsPanel.add(deleteButton);
         rightActionsPanel.add(saveButton);
 
-        buttonPanel.add(addButton, BorderLayout.WEST);
+        JPanel leftActionsPanel = new JPanel(
+            new FlowLayout(FlowLayout.LEFT, 8, 0)
+        );
+        leftActionsPanel.setOpaque(false);
+        leftActionsPanel.add(addButton);
+        leftActionsPanel.add(usagesButton);
+        leftActionsPanel.add(undefinedButton);
+
+        buttonPanel.add(leftActionsPanel, BorderLayout.WEST);
         buttonPanel.add(rightActionsPanel, BorderLayout.EAST);
         buttonPanel.setBorder(
             javax.swing.BorderFactory.createEmptyBorder(8, 8, 8, 8)
@@ -129,6 +148,88 @@ public class EnvironmentVariablesWindow {
         }
     }
 
+    private void showUsages() {
+        TableEditUtil.commitOrCancelTableEdit(table);
+        int viewRow = table.getSelectedRow();
+        if (viewRow < 0) {
+            return;
+        }
+        Object key = tableModel.getValueAt(
+            table.convertRowIndexToModel(viewRow),
+            0
+        );
+        String name = key != null ? key.toString().trim() : "";
+        if (name.isEmpty()) {
+            return;
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (EnvironmentListManager.VariableUsageRecord usage : environmentManager.getVariableUsages(
+            name
+        )) {
+            lines.add(usage.collectionName + " / " + usage.itemName);
+        }
+        showList(
+            "Usages of {{" + name + "}}",
+            lines.isEmpty()
+                ? "No request references {{" + name + "}}."
+                : lines.size() + " request(s) reference {{" + name + "}}:",
+            lines
+        );
+    }
+
+    private void showUndefined() {
+        List<String> lines = new ArrayList<>();
+        for (EnvironmentListManager.VariableUsageRecord usage : environmentManager.getUndefinedVariables(
+            environmentId
+        )) {
+            lines.add(
+                usage.collectionName +
+                    " / " +
+                    usage.itemName +
+                    ": " +
+                    String.join(", ", usage.variableNames)
+            );
+        }
+        showList(
+            "Undefined variables",
+            lines.isEmpty()
+                ? "Every variable reference is defined in " +
+                  environmentName +
+                  "."
+                : lines.size() +
+                  " request(s) use variables no scope defines in " +
+                  environmentName +
+                  ":",
+            lines
+        );
+    }
+
+    private void showList(String title, String message, List<String> lines) {
+        if (lines.isEmpty()) {
+            JOptionPane.showMessageDialog(
+                frame,
+                message,
+                title,
+                JOptionPane.INFORMATION_MESSAGE
+            );
+            return;
+        }
+        JPanel content = new JPanel(new BorderLayout(0, 8));
+        content.add(new JLabel(message), BorderLayout.NORTH);
+        JScrollPane scrollPane = new JScrollPane(
+            new JList<>(lines.toArray(new String[0]))
+        );
+        scrollPane.setPreferredSize(new Dimension(480, 260));
+        content.add(scrollPane, BorderLayout.CENTER);
+        JOptionPane.showMessageDialog(
+            frame,
+            content,
+            title,
+            JOptionPane.PLAIN_MESSAGE
+        );
+    }
+
     private void deleteSelectedRows() {
         TableEditUtil.commitOrCancelTableEdit(table);
         int[] selectedViewRows = table.getSelectedRows();
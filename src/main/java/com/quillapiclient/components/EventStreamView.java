@@ -0,0 +1,311 @@
+package com.quillapiclient.components;
+
+import com.quillapiclient.server.EventRingBuffer;
+import com.quillapiclient.server.StreamEvent;
+import com.quillapiclient.utility.JsonStreamFormatter;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.FlowLayout;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.swing.AbstractListModel;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTextArea;
+import javax.swing.ListSelectionModel;
+import javax.swing.Timer;
+
+/**
+ * Live view of an event stream: the events kept in an
+ * {@link EventRingBuffer} as a list, the selected event's data below it,
+ * and rate statistics overall and per event type.
+ *
+ * <p>The list has a fixed row height and its model reads straight from
+ * the ring, so only the rows on screen are ever rendered, whatever the
+ * ring holds. Events are counted as they arrive (on the HTTP thread);
+ * the list and the statistics refresh on a timer.
+ */
+class EventStreamView {
+
+    static final int REFRESH_MILLIS = 250;
+    // Per-type counts are kept for this many types; the rest are "other"
+    static final int MAX_TYPES = 32;
+    private static final String OTHER_TYPE = "(other)";
+    private static final String MESSAGE_TYPE = "message";
+    private static final int PREVIEW_CHARS = 200;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern(
+        "HH:mm:ss.SSS"
+    ).withZone(ZoneId.systemDefault());
+
+    private final EventRingBuffer events;
+    private final Runnable stop;
+    private final LongSupplier droppedEvents;
+    private final JPanel panel = new JPanel(new BorderLayout());
+    private final EventListModel model = new EventListModel();
+    private final JList<StreamEvent> list = new JList<>(model);
+    private final JTextArea detail = new JTextArea();
+    private final JLabel stats = new JLabel(" ");
+    private final JCheckBox follow = new JCheckBox("Follow", true);
+    private final JButton stopButton = new JButton("Stop");
+    private final Timer timer;
+    private final TypeCounter types;
+    private final long startNanos = System.nanoTime();
+    // Rate over the last second: totals at recent refreshes (EDT only)
+    private final long[] recentTotals = new long[1000 / REFRESH_MILLIS + 1];
+    private final long[] recentNanos = new long[recentTotals.length];
+    private int recentNext = 0;
+    private long shownSequence = -1; // event in the detail area
+
+    /**
+     * Counts events per type as they arrive, on any thread. Only
+     * {@link #MAX_TYPES} types get a count of their own.
+     */
+    static class TypeCounter {
+
+        private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+        void count(StreamEvent event) {
+            String type = event.type != null ? event.type : MESSAGE_TYPE;
+            LongAdder count = counts.get(type);
+            if (count == null) {
+                if (counts.size() >= MAX_TYPES) {
+                    type = OTHER_TYPE;
+                }
+                count = counts.computeIfAbsent(type, t -> new LongAdder());
+            }
+            count.increment();
+        }
+
+        /** Counts by type, in name order. */
+        Map<String, Long> snapshot() {
+            Map<String, Long> snapshot = new TreeMap<>();
+            counts.forEach((type, count) -> snapshot.put(type, count.sum()));
+            return snapshot;
+        }
+    }
+
+    /**
+     * @param events the stream's ring buffer
+     * @param types         counts of the stream's events by type
+     * @param droppedEvents events the per-event script skipped, or null
+     * @param stop          ends the stream
+     */
+    EventStreamView(
+        EventRingBuffer events,
+        TypeCounter types,
+        LongSupplier droppedEvents,
+        Runnable stop
+    ) {
+        this.events = events;
+        this.types = types;
+        this.droppedEvents = droppedEvents;
+        this.stop = stop;
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFixedCellHeight(
+            list.getFontMetrics(list.getFont()).getHeight() + 4
+        );
+        list.setCellRenderer(new EventCellRenderer());
+        list.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                showDetail(list.getSelectedValue());
+            }
+        });
+        detail.setEditable(false);
+        detail.setLineWrap(true);
+
+        JSplitPane split = new JSplitPane(
+            JSplitPane.VERTICAL_SPLIT,
+            new JScrollPane(list),
+            new JScrollPane(detail)
+        );
+        split.setResizeWeight(0.7);
+        split.setBorder(null);
+
+        JPanel bar = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 2));
+        bar.add(stopButton);
+        bar.add(follow);
+        bar.add(stats);
+        stopButton.addActionListener(e -> stop.run());
+
+        panel.add(bar, BorderLayout.NORTH);
+        panel.add(split, BorderLayout.CENTER);
+
+        timer = new Timer(REFRESH_MILLIS, e -> refresh());
+        timer.start();
+    }
+
+    JComponent getComponent() {
+        return panel;
+    }
+
+    /** Stops refreshing (the stream ended or the view was replaced). */
+    void dispose() {
+        timer.stop();
+        refresh();
+        stopButton.setEnabled(false);
+    }
+
+    private void refresh() {
+        model.refresh();
+        long total = events.getTotal();
+        if (follow.isSelected() && model.getSize() > 0) {
+            list.ensureIndexIsVisible(model.getSize() - 1);
+        }
+
+        long now = System.nanoTime();
+        int oldest = recentNext % recentTotals.length;
+        double lastSecond = 0;
+        if (recentNext >= recentTotals.length) {
+            double seconds = (now - recentNanos[oldest]) / 1e9;
+            lastSecond = (total - recentTotals[oldest]) / seconds;
+        }
+        recentTotals[oldest] = total;
+        recentNanos[oldest] = now;
+        recentNext++;
+        double elapsed = Math.max((now - startNanos) / 1e9, 1e-3);
+
+        StringBuilder text = new StringBuilder();
+        text.append(total).append(" events");
+        text.append(String.format(", %.1f/s now", lastSecond));
+        text.append(String.format(", %.1f/s avg", total / elapsed));
+        Map<String, Long> counts = types.snapshot();
+        if (counts.size() > 1 || !counts.containsKey(MESSAGE_TYPE)) {
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                long count = entry.getValue();
+                text.append(" | ")
+                    .append(entry.getKey())
+                    .append(' ')
+                    .append(count)
+                    .append(String.format(" (%.1f/s)", count / elapsed));
+            }
+        }
+        if (events.getFirst() > 0) {
+            text.append(" | showing last ").append(events.size());
+        }
+        long dropped = droppedEvents != null ? droppedEvents.getAsLong() : 0;
+        if (dropped > 0) {
+            text.append(" | ").append(dropped).append(" not scripted");
+        }
+        stats.setText(text.toString());
+    }
+
+    private void showDetail(StreamEvent event) {
+        long sequence = event != null ? event.sequence : -1;
+        if (sequence == shownSequence) {
+            return; // same event, moved by the ring
+        }
+        shownSequence = sequence;
+        if (event == null) {
+            detail.setText("");
+            return;
+        }
+        StringWriter out = new StringWriter();
+        try {
+            if (!JsonStreamFormatter.prettyPrint(event.data, out)) {
+                out = null;
+            }
+        } catch (IOException e) {
+            out = null; // StringWriter never throws
+        }
+        detail.setText(out != null ? out.toString() : event.data);
+        detail.setCaretPosition(0);
+    }
+
+    /** Rows are the ring's events, oldest first, read on demand. */
+    private class EventListModel extends AbstractListModel<StreamEvent> {
+
+        private long first = 0;
+        private int size = 0;
+
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public StreamEvent getElementAt(int index) {
+            return events.get(first + index);
+        }
+
+        /** Catches up with the ring, keeping the selected event selected. */
+        void refresh() {
+            long selected = list.getSelectedIndex() >= 0
+                ? first + list.getSelectedIndex()
+                : -1;
+            int oldSize = size;
+            synchronized (events) {
+                first = events.getFirst();
+                size = events.size();
+            }
+            if (oldSize > 0) {
+                fireContentsChanged(this, 0, Math.min(oldSize, size) - 1);
+            }
+            if (size > oldSize) {
+                fireIntervalAdded(this, oldSize, size - 1);
+            } else if (size < oldSize) {
+                fireIntervalRemoved(this, size, oldSize - 1);
+            }
+            if (selected >= first && selected < first + size) {
+                int index = (int) (selected - first);
+                if (list.getSelectedIndex() != index) {
+                    list.setSelectedIndex(index);
+                }
+            } else if (selected >= 0) {
+                list.clearSelection(); // scrolled out of the ring
+            }
+        }
+    }
+
+    private static class EventCellRenderer extends DefaultListCellRenderer {
+
+        @Override
+        public Component getListCellRendererComponent(
+            JList<?> list,
+            Object value,
+            int index,
+            boolean isSelected,
+            boolean cellHasFocus
+        ) {
+            super.getListCellRendererComponent(
+                list,
+                value,
+                index,
+                isSelected,
+                cellHasFocus
+            );
+            if (value instanceof StreamEvent event) {
+                String data = event.data.length() > PREVIEW_CHARS
+                    ? event.data.substring(0, PREVIEW_CHARS)
+                    : event.data;
+                setText(
+                    "#" +
+                        event.sequence +
+                        "  " +
+                        TIME.format(Instant.ofEpochMilli(event.receivedAt)) +
+                        "  " +
+                        (event.type != null ? "[" + event.type + "]  " : "") +
+                        data.replace('\n', ' ')
+                );
+            } else {
+                setText(" "); // dropped from the ring since the refresh
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.quillapiclient.components;
+
+import com.quillapiclient.json.JsonDiff;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.swing.BorderFactory;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JScrollPane;
+import javax.swing.JTree;
+import javax.swing.SwingConstants;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.DefaultTreeCellRenderer;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+/**
+ * The differences between two JSON bodies as a tree of their paths: each
+ * object field or array element on the way to a difference is a node,
+ * labelled with how many differences lie below it, and each difference a
+ * leaf showing the old and new value.
+ *
+ * <p>The tree is virtual: it is a large-model {@link JTree} with a fixed
+ * row height over a {@link TreeModel} that hands out the nodes directly,
+ * so only the rows on screen are ever laid out or rendered, however many
+ * differences there are.
+ */
+public class JsonDiffWindow {
+
+    // $ then .name, ['name'], [3] or [id=42]
+    private static final Pattern SEGMENT = Pattern.compile(
+        "\\.([^.\\[]+)|\\['((?:[^'\\\\]|\\\\.)*)'\\]|\\[([^\\]]*)\\]"
+    );
+    private static final Color ADDED = new Color(0x43, 0xA0, 0x47);
+    private static final Color REMOVED = new Color(0xE5, 0x39, 0x35);
+    private static final Color CHANGED = new Color(0xFB, 0x8C, 0x00);
+
+    private final JFrame frame;
+    private final JLabel header = new JLabel(
+        "Comparing...",
+        SwingConstants.LEFT
+    );
+    private final JTree tree = new JTree(new DiffTreeModel(new Node("$")));
+
+    public JsonDiffWindow(String title) {
+        frame = new JFrame(title);
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.setLayout(new BorderLayout());
+
+        header.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        frame.add(header, BorderLayout.NORTH);
+
+        tree.setLargeModel(true);
+        tree.setRowHeight(
+            tree.getFontMetrics(tree.getFont()).getHeight() + 4
+        );
+        tree.setCellRenderer(new DiffRenderer());
+        tree.setRootVisible(true);
+        tree.setShowsRootHandles(true);
+        JScrollPane scrollPane = new JScrollPane(tree);
+        scrollPane.setPreferredSize(new Dimension(720, 520));
+        frame.add(scrollPane, BorderLayout.CENTER);
+
+        frame.pack();
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+    }
+
+    /**
+     * Shows a diff, or an error if it could not be computed. EDT only.
+     *
+     * @param diff the differences, or null if a body could not be read
+     * @param json whether both bodies were JSON; if not, the diff only
+     *             says whether they differ
+     */
+    public void showDiff(JsonDiff.Result diff, boolean json) {
+        if (diff == null) {
+            header.setText("The responses could not be read.");
+            return;
+        }
+        if (!json) {
+            header.setText(
+                diff.isEqual()
+                    ? "The bodies are not JSON; they are identical."
+                    : "The bodies are not JSON; they differ."
+            );
+            return;
+        }
+        if (diff.isEqual()) {
+            header.setText("The bodies are structurally identical.");
+            return;
+        }
+        Node root = new Node("$");
+        int added = 0;
+        int removed = 0;
+        int changed = 0;
+        for (JsonDiff.Difference difference : diff.differences) {
+            root.add(segments(difference.path), 0, difference);
+            switch (difference.kind) {
+                case ADDED -> added++;
+                case REMOVED -> removed++;
+                case CHANGED -> changed++;
+            }
+        }
+        tree.setModel(new DiffTreeModel(root));
+        // Open the first levels; deeper ones open on demand
+        for (int row = 0; row < tree.getRowCount() && row < 64; row++) {
+            TreePath path = tree.getPathForRow(row);
+            if (path.getPathCount() <= 2) {
+                tree.expandRow(row);
+            }
+        }
+        header.setText(
+            String.format(
+                "%d added, %d removed, %d changed%s",
+                added,
+                removed,
+                changed,
+                diff.truncated ? " (stopped at the limit)" : ""
+            )
+        );
+    }
+
+    /** Splits a path like {@code $.items[3]['a b']} after the root. */
+    private static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        Matcher matcher = SEGMENT.matcher(path);
+        int from = path.startsWith("$") ? 1 : 0;
+        while (from < path.length() && matcher.find(from)) {
+            if (matcher.start() != from) {
+                break; // not a path we made; keep the rest whole
+            }
+            if (matcher.group(1) != null) {
+                segments.add(matcher.group(1));
+            } else if (matcher.group(2) != null) {
+                segments.add(matcher.group(2).replace("\\'", "'"));
+            } else {
+                segments.add("[" + matcher.group(3) + "]");
+            }
+            from = matcher.end();
+        }
+        if (from < path.length()) {
+            segments.add(path.substring(from));
+        }
+        return segments; // empty for a difference at the root
+    }
+
+    /** A path segment; a leaf holds the difference at its path. */
+    private static class Node {
+
+        final String label;
+        final Map<String, Node> children = new LinkedHashMap<>();
+        List<Node> childList; // built on first use
+        JsonDiff.Difference difference;
+        int count; // differences at or below
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        void add(
+            List<String> segments,
+            int depth,
+            JsonDiff.Difference difference
+        ) {
+            count++;
+            if (depth == segments.size()) {
+                this.difference = difference;
+                return;
+            }
+            children
+                .computeIfAbsent(segments.get(depth), Node::new)
+                .add(segments, depth + 1, difference);
+        }
+
+        List<Node> childList() {
+            if (childList == null) {
+                childList = new ArrayList<>(children.values());
+            }
+            return childList;
+        }
+    }
+
+    /** Hands the nodes to the tree as they are; never changes. */
+    private static class DiffTreeModel implements TreeModel {
+
+        private final Node root;
+
+        DiffTreeModel(Node root) {
+            this.root = root;
+        }
+
+        @Override
+        public Object getRoot() {
+            return root;
+        }
+
+        @Override
+        public Object getChild(Object parent, int index) {
+            return ((Node) parent).childList().get(index);
+        }
+
+        @Override
+        public int getChildCount(Object parent) {
+            return ((Node) parent).children.size();
+        }
+
+        @Override
+        public boolean isLeaf(Object node) {
+            return ((Node) node).children.isEmpty();
+        }
+
+        @Override
+        public int getIndexOfChild(Object parent, Object child) {
+            return ((Node) parent).childList().indexOf(child);
+        }
+
+        @Override
+        public void valueForPathChanged(TreePath path, Object newValue) {
+            // Read-only
+        }
+
+        @Override
+        public void addTreeModelListener(TreeModelListener listener) {
+            // Never changes
+        }
+
+        @Override
+        public void removeTreeModelListener(TreeModelListener listener) {
+            // Never changes
+        }
+    }
+
+    private static class DiffRenderer extends DefaultTreeCellRenderer {
+
+        @Override
+        public Component getTreeCellRendererComponent(
+            JTree tree,
+            Object value,
+            boolean selected,
+            boolean expanded,
+            boolean leaf,
+            int row,
+            boolean hasFocus
+        ) {
+            super.getTreeCellRendererComponent(
+                tree,
+                value,
+                selected,
+                expanded,
+                leaf,
+                row,
+                hasFocus
+            );
+            Node node = (Node) value;
+            JsonDiff.Difference difference = node.difference;
+            if (difference == null) {
+                setText(node.label + "  (" + node.count + ")");
+                return this;
+            }
+            String text = switch (difference.kind) {
+                case ADDED -> "added: " + difference.right;
+                case REMOVED -> "removed: " + difference.left;
+                case CHANGED -> difference.left != null
+                    ? difference.left + "  ->  " + difference.right
+                    : "changed";
+            };
+            setText(
+                node.label +
+                    "  " +
+                    text +
+                    (node.count > 1 ? "  (" + node.count + ")" : "")
+            );
+            if (!selected) {
+                setForeground(
+                    switch (difference.kind) {
+                        case ADDED -> ADDED;
+                        case REMOVED -> REMOVED;
+                        case CHANGED -> CHANGED;
+                    }
+                );
+            }
+            return this;
+        }
+    }
+}
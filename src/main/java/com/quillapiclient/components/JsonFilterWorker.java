@@ -0,0 +1,121 @@
+package com.quillapiclient.components;
+
+import com.quillapiclient.json.JsonPath;
+import com.quillapiclient.json.JsonTape;
+import com.quillapiclient.server.ApiResponse;
+import com.quillapiclient.utility.JsonStreamFormatter;
+import com.quillapiclient.utility.ResponseFormatter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import javax.swing.SwingWorker;
+
+/**
+ * Evaluates a JSONPath filter against a response body off the EDT.
+ *
+ * <p>The body's {@link JsonTape} is built on the first query and handed
+ * back with the result, so the panel can reuse it for every later query on
+ * the same response. Matches are shown as a pretty-printed JSON array;
+ * once their text passes the formatter's output cap the remaining matches
+ * are counted but not shown.
+ */
+class JsonFilterWorker extends SwingWorker<JsonFilterWorker.Result, Void> {
+
+    /** Outcome of a query: the tape used, the match count and the text. */
+    static class Result {
+
+        final JsonTape tape;
+        final int matches;
+        final int shown;
+        final String text;
+
+        Result(JsonTape tape, int matches, int shown, String text) {
+            this.tape = tape;
+            this.matches = matches;
+            this.shown = shown;
+            this.text = text;
+        }
+    }
+
+    private final ApiResponse response;
+    private final JsonTape cachedTape;
+    private final String expression;
+    private final Consumer<Result> onResult;
+    private final Consumer<String> onError;
+
+    /**
+     * @param response   the response whose body is queried
+     * @param cachedTape the body's tape from an earlier query, or null
+     * @param expression JSONPath expression
+     * @param onResult   called on the EDT with the result
+     * @param onError    called on the EDT with a message for the user
+     */
+    JsonFilterWorker(
+        ApiResponse response,
+        JsonTape cachedTape,
+        String expression,
+        Consumer<Result> onResult,
+        Consumer<String> onError
+    ) {
+        this.response = response;
+        this.cachedTape = cachedTape;
+        this.expression = expression;
+        this.onResult = onResult;
+        this.onError = onError;
+    }
+
+    @Override
+    protected Result doInBackground() throws Exception {
+        JsonPath path = JsonPath.compile(expression);
+        JsonTape tape = cachedTape;
+        if (tape == null) {
+            try {
+                tape = JsonTape.build(response.getBody());
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Response is not JSON");
+            }
+        }
+        int[] matches = path.select(tape);
+
+        StringBuilder array = new StringBuilder("[");
+        int shown = 0;
+        for (int match : matches) {
+            if (array.length() >= ResponseFormatter.MAX_OUTPUT_CHARS / 2) {
+                break;
+            }
+            if (shown > 0) {
+                array.append(',');
+            }
+            array.append(tape.raw(match));
+            shown++;
+        }
+        array.append(']');
+
+        StringWriter out = new StringWriter();
+        if (!JsonStreamFormatter.prettyPrint(array.toString(), out)) {
+            out.write(array.toString());
+        }
+        return new Result(tape, matches.length, shown, out.toString());
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            onResult.accept(get());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                onError.accept(e.getCause().getMessage());
+                return;
+            }
+            System.err.println("Error filtering response: " + e.getMessage());
+            e.printStackTrace();
+            onError.accept("Filter failed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.quillapiclient.components;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Formatted response text stored in a temp file and memory-mapped for the
+ * large-response viewer, with a sparse line index.
+ *
+ * <p>The index records the byte offset of every {@link #INDEX_STRIDE}th
+ * line; any other line is found by scanning forward at most that many
+ * lines from its anchor. This keeps the index around a megabyte even for
+ * hundreds of MB of text. The mapping is read-only and lives outside the
+ * heap, so only the lines actually painted are ever decoded.
+ */
+class LargeResponseFile {
+
+    static final int INDEX_STRIDE = 64;
+
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final long[] anchors; // byte offset of line k * INDEX_STRIDE
+    private final int lineCount;
+    private final int maxLineBytes;
+
+    private LargeResponseFile(
+        File file,
+        MappedByteBuffer buffer,
+        long[] anchors,
+        int lineCount,
+        int maxLineBytes
+    ) {
+        this.file = file;
+        this.buffer = buffer;
+        this.size = buffer.limit();
+        this.anchors = anchors;
+        this.lineCount = lineCount;
+        this.maxLineBytes = maxLineBytes;
+    }
+
+    int getLineCount() {
+        return lineCount;
+    }
+
+    /** Length in bytes of the longest line. */
+    int getMaxLineBytes() {
+        return maxLineBytes;
+    }
+
+    /** Byte offset where a line starts. */
+    int lineStart(int line) {
+        int offset = (int) anchors[line / INDEX_STRIDE];
+        for (int i = line % INDEX_STRIDE; i > 0; i--) {
+            offset = lineEnd(offset) + 1;
+        }
+        return offset;
+    }
+
+    /** Byte offset of the newline ending the line that starts at {@code start}. */
+    int lineEnd(int start) {
+        int i = start;
+        while (i < size && buffer.get(i) != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Decodes at most {@code maxBytes} of the line starting at
+     * {@code start} (ending at {@code end}). Huge unformatted lines are
+     * cut, never decoded whole.
+     */
+    String decode(int start, int end, int maxBytes) {
+        int length = Math.min(end - start, maxBytes);
+        // Don't cut a multi-byte UTF-8 sequence in half
+        while (
+            length < end - start &&
+            length > 0 &&
+            (buffer.get(start + length) & 0xC0) == 0x80
+        ) {
+            length--;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Line containing a byte offset. */
+    int lineOf(int offset) {
+        int anchor = Arrays.binarySearch(anchors, offset);
+        if (anchor < 0) {
+            anchor = -anchor - 2;
+        }
+        int line = anchor * INDEX_STRIDE;
+        int start = (int) anchors[anchor];
+        while (line < lineCount - 1) {
+            int next = lineEnd(start) + 1;
+            if (next > offset) {
+                break;
+            }
+            start = next;
+            line++;
+        }
+        return line;
+    }
+
+    /**
+     * The bytes as a char sequence, one ISO-8859-1 char per byte, so a
+     * regex can scan the mapping without decoding it. Offsets are byte
+     * offsets. ASCII text matches as itself; other text must be searched
+     * for as its UTF-8 bytes.
+     */
+    CharSequence asCharSequence() {
+        return new ByteChars(0, size);
+    }
+
+    /** Read-only window onto the mapping; absolute gets are thread-safe. */
+    private class ByteChars implements CharSequence {
+
+        private final int offset;
+        private final int length;
+
+        ByteChars(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new ByteChars(offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes, 0, length);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /** Deletes the backing file (on exit, if the mapping still pins it). */
+    void close() {
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Writer that UTF-8 encodes text into a temp file, indexing lines as it
+     * goes. Call {@link #finish()} to map the result, or {@link #abort()}.
+     */
+    static class Builder extends Writer {
+
+        private final File file;
+        private final OutputStream out;
+        private final byte[] pending = new byte[64 * 1024];
+        private int pendingLength = 0;
+        private long position = 0;
+        private long lineStart = 0;
+        private long[] anchors = new long[1024];
+        private int lineCount = 1; // lines started so far
+        private int maxLineBytes = 0;
+        private char highSurrogate = 0;
+
+        Builder() throws IOException {
+            this.file = Files.createTempFile("quill-response-", ".txt").toFile();
+            this.out = new FileOutputStream(file);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                writeChar(cbuf[i]);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                writeChar(str.charAt(i));
+            }
+        }
+
+        private void writeChar(char c) throws IOException {
+            if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+                return;
+            }
+            int codePoint = c;
+            if (highSurrogate != 0) {
+                codePoint = Character.isLowSurrogate(c)
+                    ? Character.toCodePoint(highSurrogate, c)
+                    : '?';
+                highSurrogate = 0;
+            }
+
+            if (codePoint < 0x80) {
+                put(codePoint);
+            } else if (codePoint < 0x800) {
+                put(0xC0 | (codePoint >> 6));
+                put(0x80 | (codePoint & 0x3F));
+            } else if (codePoint < 0x10000) {
+                put(0xE0 | (codePoint >> 12));
+                put(0x80 | ((codePoint >> 6) & 0x3F));
+                put(0x80 | (codePoint & 0x3F));
+            } else {
+                put(0xF0 | (codePoint >> 18));
+                put(0x80 | ((codePoint >> 12) & 0x3F));
+                put(0x80 | ((codePoint >> 6) & 0x3F));
+                put(0x80 | (codePoint & 0x3F));
+            }
+
+            if (codePoint == '\n') {
+                maxLineBytes = (int) Math.max(
+                    maxLineBytes,
+                    position - 1 - lineStart
+                );
+                lineStart = position;
+                if (lineCount % INDEX_STRIDE == 0) {
+                    int anchor = lineCount / INDEX_STRIDE;
+                    if (anchor == anchors.length) {
+                        anchors = Arrays.copyOf(anchors, anchors.length * 2);
+                    }
+                    anchors[anchor] = position;
+                }
+                lineCount++;
+            }
+        }
+
+        private void put(int b) throws IOException {
+            if (pendingLength == pending.length) {
+                out.write(pending, 0, pendingLength);
+                pendingLength = 0;
+            }
+            pending[pendingLength++] = (byte) b;
+            position++;
+        }
+
+        @Override
+        public void flush() {
+            // Everything is flushed once, in finish()
+        }
+
+        @Override
+        public void close() {}
+
+        /** Bytes encoded so far. */
+        long size() {
+            return position;
+        }
+
+        /** Maps the written text; the builder must not be used afterwards. */
+        LargeResponseFile finish() throws IOException {
+            out.write(pending, 0, pendingLength);
+            out.close();
+            maxLineBytes = (int) Math.max(maxLineBytes, position - lineStart);
+            if (position > Integer.MAX_VALUE) {
+                abortQuietly();
+                throw new IOException("Formatted response exceeds 2 GB");
+            }
+            try (
+                RandomAccessFile raf = new RandomAccessFile(file, "r");
+                FileChannel channel = raf.getChannel()
+            ) {
+                MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    0,
+                    position
+                );
+                return new LargeResponseFile(
+                    file,
+                    buffer,
+                    Arrays.copyOf(anchors, (lineCount - 1) / INDEX_STRIDE + 1),
+                    lineCount,
+                    maxLineBytes
+                );
+            }
+        }
+
+        /** Discards the partial file. */
+        void abort() {
+            abortQuietly();
+        }
+
+        private void abortQuietly() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // Deleting anyway
+            }
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+}
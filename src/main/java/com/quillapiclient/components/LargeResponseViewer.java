@@ -0,0 +1,140 @@
+package com.quillapiclient.components;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.KeyStroke;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+
+/**
+ * Read-only viewer for large formatted responses: a {@link LargeTextView}
+ * with a find bar and go-to-line.
+ *
+ * <p>Search is a {@link ResponseSearchBar} scanning the mapped file on a
+ * background worker (ASCII letters match case-insensitively unless Match
+ * case is on); every hit is collected, so next/previous never rescan.
+ * Ctrl+F focuses the find field, Ctrl+G / Ctrl+L go to a line.
+ */
+class LargeResponseViewer {
+
+    private final JPanel panel;
+    private final LargeTextView view;
+    private final JLabel infoLabel = new JLabel();
+    private final JLabel lineStatus = new JLabel(" ");
+    private final ResponseSearchBar searchBar;
+
+    LargeResponseViewer(RSyntaxTextArea editor) {
+        this.view = new LargeTextView(editor);
+        this.panel = new JPanel(new BorderLayout());
+        this.searchBar = new ResponseSearchBar(view);
+
+        JPanel bar = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 2));
+        bar.add(infoLabel);
+        JButton goTo = new JButton("Go to Line...");
+        bar.add(goTo);
+        bar.add(lineStatus);
+        goTo.addActionListener(e -> promptGoToLine());
+
+        searchBar.installFocusKey(panel, KeyEvent.VK_F);
+        bindKey(KeyEvent.VK_G, "goToLine", this::promptGoToLine);
+        bindKey(KeyEvent.VK_L, "goToLine", this::promptGoToLine);
+
+        view.setFocusable(true);
+        view.addMouseListener(
+            new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    view.requestFocusInWindow();
+                }
+            }
+        );
+        JScrollPane scroll = new JScrollPane(view);
+        JPanel top = new JPanel(new BorderLayout());
+        top.add(bar, BorderLayout.NORTH);
+        top.add(searchBar.getComponent(), BorderLayout.SOUTH);
+        panel.add(top, BorderLayout.NORTH);
+        panel.add(scroll, BorderLayout.CENTER);
+    }
+
+    JComponent getComponent() {
+        return panel;
+    }
+
+    /** Shows a file, closing the previous one. */
+    void show(LargeResponseFile file) {
+        LargeResponseFile previous = view.getFile();
+        searchBar.reset();
+        lineStatus.setText(" ");
+        view.setFile(file);
+        infoLabel.setText(
+            "Large response (" + file.getLineCount() + " lines), read-only"
+        );
+        view.goToLine(0);
+        if (previous != null && previous != file) {
+            previous.close();
+        }
+    }
+
+    /** Releases the current file, if any. */
+    void clear() {
+        searchBar.reset();
+        LargeResponseFile previous = view.getFile();
+        if (previous != null) {
+            view.setFile(null);
+            previous.close();
+        }
+    }
+
+    private void promptGoToLine() {
+        if (view.getFile() == null) {
+            return;
+        }
+        String input = JOptionPane.showInputDialog(
+            panel,
+            "Line number (1-" + view.getLineCount() + "):",
+            "Go to Line",
+            JOptionPane.PLAIN_MESSAGE
+        );
+        if (input == null) {
+            return;
+        }
+        try {
+            view.goToLine(Integer.parseInt(input.trim()) - 1);
+            lineStatus.setText(" ");
+        } catch (NumberFormatException e) {
+            lineStatus.setText("Invalid line number");
+        }
+    }
+
+    private void bindKey(int keyCode, String name, Runnable action) {
+        KeyStroke stroke = KeyStroke.getKeyStroke(
+            keyCode,
+            Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()
+        );
+        panel
+            .getInputMap(JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT)
+            .put(stroke, name);
+        panel
+            .getActionMap()
+            .put(
+                name,
+                new AbstractAction() {
+                    @Override
+                    public void actionPerformed(ActionEvent e) {
+                        action.run();
+                    }
+                }
+            );
+    }
+}
@@ -0,0 +1,561 @@
+package com.quillapiclient.components;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import javax.swing.JComponent;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rsyntaxtextarea.Style;
+import org.fife.ui.rsyntaxtextarea.SyntaxScheme;
+import org.fife.ui.rsyntaxtextarea.TokenTypes;
+
+/**
+ * Read-only, virtualized view over a {@link LargeResponseFile}.
+ *
+ * <p>Only the lines inside the clip are painted. Decoded and highlighted
+ * lines are kept for a window around the viewport ({@link #MARGIN_LINES}
+ * either side), so scrolling within the window re-uses them and only
+ * moving past it decodes more. Highlighting is a small per-line lexer for
+ * JSON and XML tokens, coloured from the editor's syntax scheme so both
+ * views look alike. Search hits are byte ranges; only those on painted
+ * lines are converted to columns.
+ */
+class LargeTextView
+    extends JComponent
+    implements Scrollable, ResponseSearchBar.Target {
+
+    static final int MARGIN_LINES = 200;
+    // Longer lines (e.g. unformatted bodies) are cut when painted
+    private static final int MAX_RENDER_BYTES = 8 * 1024;
+    private static final int GUTTER_PADDING = 8;
+    private static final int MAX_HITS_PER_LINE = 256;
+
+    private final Palette palette;
+    private LargeResponseFile file;
+    private int lineHeight;
+    private int ascent;
+    private int charWidth;
+    private int gutterWidth;
+
+    // Decoded window [windowStart, windowStart + window.length)
+    private int windowStart = 0;
+    private Line[] window = new Line[0];
+
+    private SearchHits hits;
+    private int currentHit = -1;
+
+    LargeTextView(RSyntaxTextArea editor) {
+        this.palette = new Palette(editor);
+        setFont(
+            new Font(Font.MONOSPACED, Font.PLAIN, editor.getFont().getSize())
+        );
+        setBackground(editor.getBackground());
+        setForeground(editor.getForeground());
+        setOpaque(true);
+    }
+
+    /** Shows a file, or nothing for null. The caller owns the file. */
+    void setFile(LargeResponseFile file) {
+        this.file = file;
+        this.window = new Line[0];
+        this.hits = null;
+        this.currentHit = -1;
+        if (file == null) {
+            revalidate();
+            repaint();
+            return;
+        }
+        FontMetrics metrics = getFontMetrics(getFont());
+        lineHeight = metrics.getHeight();
+        ascent = metrics.getAscent();
+        charWidth = metrics.charWidth('m');
+        gutterWidth =
+            metrics.stringWidth(String.valueOf(file.getLineCount())) +
+            2 * GUTTER_PADDING;
+        revalidate();
+        repaint();
+    }
+
+    LargeResponseFile getFile() {
+        return file;
+    }
+
+    int getLineCount() {
+        return file != null ? file.getLineCount() : 0;
+    }
+
+    /** First line currently at the top of the viewport. */
+    int getFirstVisibleLine() {
+        return lineHeight > 0 ? getVisibleRect().y / lineHeight : 0;
+    }
+
+    /** Scrolls so {@code line} (0-based) is visible, near the top. */
+    void goToLine(int line) {
+        if (file == null) {
+            return;
+        }
+        int target = Math.max(0, Math.min(line, file.getLineCount() - 1));
+        Rectangle visible = getVisibleRect();
+        scrollRectToVisible(
+            new Rectangle(
+                visible.x,
+                target * lineHeight,
+                1,
+                visible.height > 0 ? visible.height : lineHeight
+            )
+        );
+    }
+
+    @Override
+    public CharSequence getSearchText() {
+        return file.asCharSequence();
+    }
+
+    @Override
+    public boolean isByteText() {
+        return true;
+    }
+
+    @Override
+    public int getSearchOrigin() {
+        return file != null ? file.lineStart(getFirstVisibleLine()) : 0;
+    }
+
+    @Override
+    public void setHits(SearchHits hits, int current) {
+        this.hits = hits;
+        this.currentHit = current;
+        repaint();
+    }
+
+    /** Scrolls to a search hit (a byte range). */
+    @Override
+    public void revealHit(int start, int end) {
+        int line = file.lineOf(start);
+        int lineStart = file.lineStart(line);
+        goToLine(Math.max(0, line - 3));
+        if (end - lineStart > MAX_RENDER_BYTES) {
+            return; // past the painted part of a huge line
+        }
+        int from = file.decode(lineStart, start, MAX_RENDER_BYTES).length();
+        int to = file.decode(lineStart, end, MAX_RENDER_BYTES).length();
+        scrollRectToVisible(
+            new Rectangle(
+                gutterWidth + from * charWidth,
+                line * lineHeight,
+                Math.max(1, (to - from) * charWidth),
+                lineHeight
+            )
+        );
+    }
+
+    @Override
+    public String describe(int offset) {
+        return "line " + (file.lineOf(offset) + 1);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (file == null) {
+            return new Dimension(0, 0);
+        }
+        long height = (long) file.getLineCount() * lineHeight;
+        long width =
+            gutterWidth +
+            (long) Math.min(file.getMaxLineBytes(), MAX_RENDER_BYTES) *
+            charWidth +
+            charWidth;
+        return new Dimension(
+            (int) Math.min(width, Integer.MAX_VALUE),
+            (int) Math.min(height, Integer.MAX_VALUE)
+        );
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (file == null || lineHeight == 0) {
+            return;
+        }
+
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(
+            RenderingHints.KEY_TEXT_ANTIALIASING,
+            RenderingHints.VALUE_TEXT_ANTIALIAS_ON
+        );
+        g2.setFont(getFont());
+
+        int first = Math.max(0, clip.y / lineHeight);
+        int last = Math.min(
+            file.getLineCount() - 1,
+            (clip.y + clip.height) / lineHeight
+        );
+        ensureWindow(first, last);
+
+        // Gutter stays pinned to the left edge of the viewport
+        int gutterX = getVisibleRect().x;
+        for (int line = first; line <= last; line++) {
+            Line decoded = window[line - windowStart];
+            int y = line * lineHeight;
+            int baseline = y + ascent;
+
+            if (hits != null) {
+                paintHits(g2, decoded, y);
+            }
+
+            int x = gutterWidth;
+            for (int i = 0; i < decoded.text.length(); ) {
+                int j = i + 1;
+                while (
+                    j < decoded.text.length() &&
+                    decoded.kinds[j] == decoded.kinds[i]
+                ) {
+                    j++;
+                }
+                g2.setColor(palette.color(decoded.kinds[i], getForeground()));
+                g2.drawString(decoded.text.substring(i, j), x, baseline);
+                x += (j - i) * charWidth;
+                i = j;
+            }
+            if (decoded.cut) {
+                g2.setColor(palette.gutter);
+                g2.drawString(" …", x, baseline);
+            }
+
+            g2.setColor(getBackground());
+            g2.fillRect(
+                gutterX,
+                y,
+                gutterWidth - GUTTER_PADDING / 2,
+                lineHeight
+            );
+            g2.setColor(palette.gutter);
+            String number = String.valueOf(line + 1);
+            g2.drawString(
+                number,
+                gutterX +
+                gutterWidth -
+                GUTTER_PADDING -
+                g2.getFontMetrics().stringWidth(number),
+                baseline
+            );
+        }
+    }
+
+    /** Fills the background of the hits on the painted part of a line. */
+    private void paintHits(Graphics2D g2, Line line, int y) {
+        int paintedEnd = Math.min(line.end, line.start + MAX_RENDER_BYTES);
+        int painted = 0;
+        for (
+            int hit = hits.firstEndingAfter(line.start);
+            hit < hits.size() &&
+            hits.start(hit) <= paintedEnd &&
+            painted < MAX_HITS_PER_LINE;
+            hit++, painted++
+        ) {
+            // A multi-line regex hit is clipped to each line it covers
+            int start = Math.max(hits.start(hit), line.start);
+            int end = Math.min(hits.end(hit), paintedEnd);
+            int from = file
+                .decode(line.start, start, MAX_RENDER_BYTES)
+                .length();
+            int to = file.decode(line.start, end, MAX_RENDER_BYTES).length();
+            g2.setColor(
+                hit == currentHit ? palette.currentMatch : palette.match
+            );
+            g2.fillRect(
+                gutterWidth + from * charWidth,
+                y,
+                Math.max(charWidth / 2, (to - from) * charWidth),
+                lineHeight
+            );
+        }
+    }
+
+    /** Makes sure lines [first, last] are decoded, re-centring if not. */
+    private void ensureWindow(int first, int last) {
+        if (first >= windowStart && last < windowStart + window.length) {
+            return;
+        }
+        int start = Math.max(0, first - MARGIN_LINES);
+        int end = Math.min(file.getLineCount() - 1, last + MARGIN_LINES);
+        Line[] lines = new Line[end - start + 1];
+        int offset = file.lineStart(start);
+        for (int line = start; line <= end; line++) {
+            int lineEnd = file.lineEnd(offset);
+            String text = file
+                .decode(offset, lineEnd, MAX_RENDER_BYTES)
+                .replace('\t', ' ');
+            lines[line - start] = new Line(
+                text,
+                offset,
+                lineEnd,
+                lineEnd - offset > MAX_RENDER_BYTES
+            );
+            offset = lineEnd + 1;
+        }
+        windowStart = start;
+        window = lines;
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(
+        Rectangle visibleRect,
+        int orientation,
+        int direction
+    ) {
+        return orientation == SwingConstants.VERTICAL
+            ? Math.max(1, lineHeight)
+            : Math.max(1, charWidth * 4);
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(
+        Rectangle visibleRect,
+        int orientation,
+        int direction
+    ) {
+        return orientation == SwingConstants.VERTICAL
+            ? Math.max(lineHeight, visibleRect.height - lineHeight)
+            : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return getParent() != null &&
+            getParent().getWidth() > getPreferredSize().width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return getParent() != null &&
+            getParent().getHeight() > getPreferredSize().height;
+    }
+
+    /** One decoded line with a token kind per char, and its byte range. */
+    private static class Line {
+
+        final String text;
+        final byte[] kinds;
+        final int start;
+        final int end;
+        final boolean cut;
+
+        Line(String text, int start, int end, boolean cut) {
+            this.text = text;
+            this.kinds = Lexer.lex(text);
+            this.start = start;
+            this.end = end;
+            this.cut = cut;
+        }
+    }
+
+    /** Per-line lexer: JSON values and XML markup, no cross-line state. */
+    static class Lexer {
+
+        static final byte PLAIN = 0;
+        static final byte STRING = 1;
+        static final byte NUMBER = 2;
+        static final byte LITERAL = 3;
+        static final byte PUNCTUATION = 4;
+        static final byte TAG = 5;
+        static final byte ATTRIBUTE = 6;
+        static final byte COMMENT = 7;
+        static final byte KEY = 8;
+
+        static byte[] lex(String s) {
+            byte[] kinds = new byte[s.length()];
+            int i = 0;
+            while (i < s.length()) {
+                char c = s.charAt(i);
+                if (s.startsWith("<!--", i)) {
+                    int end = s.indexOf("-->", i + 4);
+                    end = end < 0 ? s.length() : end + 3;
+                    fill(kinds, i, end, COMMENT);
+                    i = end;
+                } else if (c == '<') {
+                    i = lexTag(s, i, kinds);
+                } else if (c == '"') {
+                    int end = endOfString(s, i);
+                    // A string followed by ':' is an object key
+                    int next = end;
+                    while (next < s.length() && s.charAt(next) == ' ') {
+                        next++;
+                    }
+                    boolean key = next < s.length() && s.charAt(next) == ':';
+                    fill(kinds, i, end, key ? KEY : STRING);
+                    i = end;
+                } else if ("{}[],:".indexOf(c) >= 0) {
+                    kinds[i++] = PUNCTUATION;
+                } else if (!isWordChar(c) && c != '-') {
+                    i++;
+                } else if (
+                    (c >= '0' && c <= '9') ||
+                    (c == '-' && i + 1 < s.length() &&
+                        Character.isDigit(s.charAt(i + 1)))
+                ) {
+                    int end = i + 1;
+                    while (end < s.length() && isNumberChar(s.charAt(end))) {
+                        end++;
+                    }
+                    fill(kinds, i, end, NUMBER);
+                    i = end;
+                } else if (isWord(s, i, "true") || isWord(s, i, "null")) {
+                    fill(kinds, i, i + 4, LITERAL);
+                    i += 4;
+                } else if (isWord(s, i, "false")) {
+                    fill(kinds, i, i + 5, LITERAL);
+                    i += 5;
+                } else {
+                    // Skip the rest of a plain word
+                    i++;
+                    while (i < s.length() && isWordChar(s.charAt(i))) {
+                        i++;
+                    }
+                }
+            }
+            return kinds;
+        }
+
+        private static int lexTag(String s, int i, byte[] kinds) {
+            int end = s.indexOf('>', i);
+            end = end < 0 ? s.length() : end + 1;
+            int j = i;
+            // Delimiter and name
+            while (j < end && !Character.isWhitespace(s.charAt(j))) {
+                kinds[j++] = TAG;
+            }
+            // Attributes: name=TAG-coloured value strings
+            while (j < end) {
+                char c = s.charAt(j);
+                if (c == '"' || c == '\'') {
+                    int close = s.indexOf(c, j + 1);
+                    close = close < 0 || close >= end ? end : close + 1;
+                    fill(kinds, j, close, STRING);
+                    j = close;
+                } else if (c == '/' || c == '>' || c == '?') {
+                    kinds[j++] = TAG;
+                } else {
+                    kinds[j++] = Character.isWhitespace(c) ? PLAIN : ATTRIBUTE;
+                }
+            }
+            return end;
+        }
+
+        private static boolean isWord(String s, int i, String word) {
+            int end = i + word.length();
+            return (
+                s.startsWith(word, i) &&
+                (end == s.length() || !isWordChar(s.charAt(end)))
+            );
+        }
+
+        private static boolean isWordChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_';
+        }
+
+        private static int endOfString(String s, int i) {
+            int j = i + 1;
+            while (j < s.length()) {
+                char c = s.charAt(j);
+                if (c == '\\') {
+                    j += 2;
+                } else if (c == '"') {
+                    return j + 1;
+                } else {
+                    j++;
+                }
+            }
+            return s.length();
+        }
+
+        private static boolean isNumberChar(char c) {
+            return (
+                (c >= '0' && c <= '9') ||
+                c == '.' ||
+                c == 'e' ||
+                c == 'E' ||
+                c == '+' ||
+                c == '-'
+            );
+        }
+
+        private static void fill(byte[] kinds, int from, int to, byte kind) {
+            for (int k = from; k < Math.min(to, kinds.length); k++) {
+                kinds[k] = kind;
+            }
+        }
+    }
+
+    /** Token colours taken from the editor's syntax scheme. */
+    private static class Palette {
+
+        final Color[] colors = new Color[9];
+        final Color gutter;
+        final Color match;
+        final Color currentMatch;
+
+        Palette(RSyntaxTextArea editor) {
+            SyntaxScheme scheme = editor.getSyntaxScheme();
+            colors[Lexer.STRING] = styleColor(
+                scheme,
+                TokenTypes.LITERAL_STRING_DOUBLE_QUOTE
+            );
+            colors[Lexer.NUMBER] = styleColor(
+                scheme,
+                TokenTypes.LITERAL_NUMBER_DECIMAL_INT
+            );
+            colors[Lexer.LITERAL] = styleColor(
+                scheme,
+                TokenTypes.LITERAL_BOOLEAN
+            );
+            colors[Lexer.PUNCTUATION] = styleColor(
+                scheme,
+                TokenTypes.SEPARATOR
+            );
+            colors[Lexer.TAG] = styleColor(
+                scheme,
+                TokenTypes.MARKUP_TAG_NAME
+            );
+            colors[Lexer.ATTRIBUTE] = styleColor(
+                scheme,
+                TokenTypes.MARKUP_TAG_ATTRIBUTE
+            );
+            colors[Lexer.COMMENT] = styleColor(
+                scheme,
+                TokenTypes.MARKUP_COMMENT
+            );
+            colors[Lexer.KEY] = styleColor(scheme, TokenTypes.VARIABLE);
+            gutter = Color.GRAY;
+            match = new Color(0xFF, 0xC1, 0x07, 0x60);
+            currentMatch = new Color(0xFF, 0x98, 0x00, 0xC0);
+        }
+
+        Color color(byte kind, Color fallback) {
+            Color color = colors[kind];
+            return color != null ? color : fallback;
+        }
+
+        private static Color styleColor(SyntaxScheme scheme, int tokenType) {
+            if (scheme == null) {
+                return null;
+            }
+            Style style = scheme.getStyle(tokenType);
+            return style != null ? style.foreground : null;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.quillapiclient.components;
+
+import com.quillapiclient.objects.LatencyWindow;
+import java.awt.BasicStroke;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import javax.swing.BorderFactory;
+import javax.swing.JComboBox;
+import javax.swing.JComponent;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTable;
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Latency and error-rate trends for a request, folder or collection.
+ *
+ * <p>Series come from the response rollups, so every range is a handful of
+ * aggregate rows no matter how much history exists. Loads run on a
+ * background worker; switching range while one is in flight simply lets the
+ * latest result win.
+ */
+public class LatencyDashboardWindow {
+
+    /** Loads {@code windowCount} consecutive windows ending now. */
+    @FunctionalInterface
+    public interface SeriesLoader {
+        LatencyWindow[] load(int windowSeconds, int windowCount);
+    }
+
+    private static final class Range {
+
+        final String label;
+        final int windowSeconds;
+        final int windowCount;
+        final DateTimeFormatter format;
+
+        Range(String label, int windowSeconds, int windowCount, String pattern) {
+            this.label = label;
+            this.windowSeconds = windowSeconds;
+            this.windowCount = windowCount;
+            this.format = DateTimeFormatter.ofPattern(pattern).withZone(
+                ZoneId.systemDefault()
+            );
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private static final Range[] RANGES = {
+        new Range("Last 24 hours (hourly)", 3600, 24, "MM-dd HH:00"),
+        new Range("Last 7 days (daily)", 86400, 7, "yyyy-MM-dd"),
+        new Range("Last 30 days (daily)", 86400, 30, "yyyy-MM-dd"),
+    };
+
+    private static final Color P50_COLOR = new Color(0x4C, 0xAF, 0x50);
+    private static final Color P95_COLOR = new Color(0xFF, 0x98, 0x00);
+    private static final Color P99_COLOR = new Color(0x9C, 0x27, 0xB0);
+    private static final Color ERROR_COLOR = new Color(0xF4, 0x43, 0x36);
+
+    private final JFrame frame;
+    private final SeriesLoader loader;
+    private final Chart chart = new Chart();
+    private final WindowTableModel tableModel = new WindowTableModel();
+    private final JComboBox<Range> rangeBox = new JComboBox<>(RANGES);
+    private final JLabel statusLabel = new JLabel(" ");
+    private int loadGeneration = 0;
+
+    public LatencyDashboardWindow(String title, SeriesLoader loader) {
+        this.frame = new JFrame("Latency Trends - " + title);
+        this.loader = loader;
+        buildUi();
+        reload();
+    }
+
+    private void buildUi() {
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.setLayout(new BorderLayout());
+
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        top.add(new JLabel("Range:"));
+        top.add(rangeBox);
+        top.add(legend("p50", P50_COLOR));
+        top.add(legend("p95", P95_COLOR));
+        top.add(legend("p99", P99_COLOR));
+        top.add(legend("errors", ERROR_COLOR));
+        rangeBox.addActionListener(e -> reload());
+        frame.add(top, BorderLayout.NORTH);
+
+        JTable table = new JTable(tableModel);
+        table.setFillsViewportHeight(true);
+        JSplitPane split = new JSplitPane(
+            JSplitPane.VERTICAL_SPLIT,
+            chart,
+            new JScrollPane(table)
+        );
+        split.setResizeWeight(0.5);
+        frame.add(split, BorderLayout.CENTER);
+
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
+        frame.add(statusLabel, BorderLayout.SOUTH);
+
+        frame.setSize(720, 560);
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+    }
+
+    private static JLabel legend(String text, Color color) {
+        JLabel label = new JLabel("■ " + text);
+        label.setForeground(color);
+        return label;
+    }
+
+    private void reload() {
+        Range range = (Range) rangeBox.getSelectedItem();
+        int generation = ++loadGeneration;
+        statusLabel.setText("Loading...");
+
+        new SwingWorker<LatencyWindow[], Void>() {
+            @Override
+            protected LatencyWindow[] doInBackground() {
+                return loader.load(range.windowSeconds, range.windowCount);
+            }
+
+            @Override
+            protected void done() {
+                if (generation != loadGeneration) {
+                    return; // superseded by a newer range selection
+                }
+                LatencyWindow[] series;
+                try {
+                    series = get();
+                } catch (Exception e) {
+                    System.err.println(
+                        "Error loading latency trends: " + e.getMessage()
+                    );
+                    e.printStackTrace();
+                    statusLabel.setText("Failed to load latency trends.");
+                    return;
+                }
+                chart.setSeries(series);
+                tableModel.setSeries(series, range.format);
+                statusLabel.setText(summarize(series));
+            }
+        }.execute();
+    }
+
+    private static String summarize(LatencyWindow[] series) {
+        long count = 0;
+        long errors = 0;
+        for (LatencyWindow w : series) {
+            count += w.count;
+            errors += w.errors;
+        }
+        if (count == 0) {
+            return "No responses in this range.";
+        }
+        return String.format(
+            "%d responses, %d errors (%.1f%%)",
+            count,
+            errors,
+            100.0 * errors / count
+        );
+    }
+
+    /** Percentile lines over the windows, with error rate as bars beneath. */
+    private static class Chart extends JComponent {
+
+        private static final int PAD = 32;
+
+        private LatencyWindow[] series = new LatencyWindow[0];
+
+        Chart() {
+            setPreferredSize(new Dimension(700, 240));
+        }
+
+        void setSeries(LatencyWindow[] series) {
+            this.series = series;
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            try {
+                g2.setRenderingHint(
+                    RenderingHints.KEY_ANTIALIASING,
+                    RenderingHints.VALUE_ANTIALIAS_ON
+                );
+                g2.setColor(getBackground());
+                g2.fillRect(0, 0, getWidth(), getHeight());
+
+                int left = PAD;
+                int right = getWidth() - PAD / 2;
+                int top = PAD / 2;
+                int bottom = getHeight() - PAD;
+                if (series.length == 0 || right <= left || bottom <= top) {
+                    return;
+                }
+
+                long max = 1;
+                for (LatencyWindow w : series) {
+                    max = Math.max(max, w.p99);
+                }
+
+                g2.setColor(Color.GRAY);
+                g2.drawLine(left, bottom, right, bottom);
+                g2.drawLine(left, top, left, bottom);
+                g2.drawString(max + " ms", 2, top + 10);
+
+                double step = series.length > 1
+                    ? (double) (right - left) / (series.length - 1)
+                    : 0;
+
+                // Error rate bars along the bottom quarter
+                int barHeight = (bottom - top) / 4;
+                int barWidth = Math.max(2, (int) (step / 2));
+                g2.setColor(ERROR_COLOR);
+                for (int i = 0; i < series.length; i++) {
+                    double rate = series[i].errorRate();
+                    if (rate > 0) {
+                        int h = Math.max(1, (int) Math.round(rate * barHeight));
+                        int x = (int) Math.round(left + i * step);
+                        g2.fillRect(x - barWidth / 2, bottom - h, barWidth, h);
+                    }
+                }
+
+                g2.setStroke(new BasicStroke(1.5f));
+                drawLine(g2, P50_COLOR, 0, left, step, top, bottom, max);
+                drawLine(g2, P95_COLOR, 1, left, step, top, bottom, max);
+                drawLine(g2, P99_COLOR, 2, left, step, top, bottom, max);
+            } finally {
+                g2.dispose();
+            }
+        }
+
+        /** Draws one percentile; windows with no responses break the line. */
+        private void drawLine(
+            Graphics2D g2,
+            Color color,
+            int which,
+            int left,
+            double step,
+            int top,
+            int bottom,
+            long max
+        ) {
+            g2.setColor(color);
+            int prevX = -1;
+            int prevY = -1;
+            for (int i = 0; i < series.length; i++) {
+                long value = switch (which) {
+                    case 0 -> series[i].p50;
+                    case 1 -> series[i].p95;
+                    default -> series[i].p99;
+                };
+                if (value < 0) {
+                    prevX = -1;
+                    continue;
+                }
+                int x = (int) Math.round(left + i * step);
+                int y = bottom - (int) Math.round(
+                    (double) value / max * (bottom - top)
+                );
+                if (prevX >= 0) {
+                    g2.drawLine(prevX, prevY, x, y);
+                } else {
+                    g2.fillOval(x - 2, y - 2, 4, 4);
+                }
+                prevX = x;
+                prevY = y;
+            }
+        }
+    }
+
+    private static class WindowTableModel extends AbstractTableModel {
+
+        private static final String[] COLUMNS = {
+            "Window",
+            "Responses",
+            "Error rate",
+            "p50 (ms)",
+            "p95 (ms)",
+            "p99 (ms)",
+        };
+
+        private LatencyWindow[] series = new LatencyWindow[0];
+        private DateTimeFormatter format = RANGES[0].format;
+
+        void setSeries(LatencyWindow[] series, DateTimeFormatter format) {
+            this.series = series;
+            this.format = format;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return series.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            // Newest window first
+            LatencyWindow w = series[series.length - 1 - row];
+            return switch (column) {
+                case 0 -> format.format(Instant.ofEpochSecond(w.windowStart));
+                case 1 -> w.count;
+                case 2 -> w.count > 0
+                    ? String.format("%.1f%%", w.errorRate() * 100)
+                    : "-";
+                case 3 -> w.p50 >= 0 ? String.valueOf(w.p50) : "-";
+                case 4 -> w.p95 >= 0 ? String.valueOf(w.p95) : "-";
+                default -> w.p99 >= 0 ? String.valueOf(w.p99) : "-";
+            };
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.quillapiclient.components;
 
 import com.quillapiclient.controller.TreeNodeData;
+import com.quillapiclient.objects.LatencyWindow;
+import com.quillapiclient.utility.AppColorTheme;
 import com.quillapiclient.utility.MethodColorUtil;
 import java.awt.Color;
 import java.awt.Component;
@@ -9,6 +11,7 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Insets;
 import java.awt.RenderingHints;
+import java.util.function.Function;
 import javax.swing.BorderFactory;
 import javax.swing.JTree;
 import javax.swing.border.Border;
@@ -28,21 +31,42 @@ import javax.swing.tree.DefaultTreeCellRenderer;
  * icon/text gap, so it works whether or not tree nodes have icons (this app's
  * tree has none). Extends {@link DefaultTreeCellRenderer} so inline editing and
  * the default look and feel keep working unchanged.
+ *
+ * <p>When a trend source is set, any node with recent history also gets a
+ * p95 latency sparkline in a band reserved after the name the same way, with
+ * windows that saw errors marked in red.
  */
 public class MethodTreeCellRenderer extends DefaultTreeCellRenderer {
 
     /** Space, in pixels, left between the method tag and the request name. */
     private static final int TAG_NAME_GAP = 6;
 
+    private static final int SPARK_WIDTH = 48;
+    private static final int SPARK_GAP = 8;
+    private static final Color SPARK_COLOR = new Color(120, 160, 200);
+
     private String method; // null when the row carries no [METHOD]
     private Color methodColor;
     private int reservedWidth; // left space reserved for the tag on this row
+    private LatencyWindow[] spark; // null when the row has no recent history
+    private Function<TreeNodeData, LatencyWindow[]> trendSource;
 
     // The renderer's default border, captured once before we ever replace it.
     // The instance is reused across cells, so we reset to this every call.
     private Border defaultBorder;
     private boolean defaultBorderCaptured;
 
+    /**
+     * Sets where sparkline series come from. The source is called while
+     * painting, so it must only read a cache (see
+     * {@link com.quillapiclient.controller.LatencySparklineCache}).
+     */
+    public void setTrendSource(
+        Function<TreeNodeData, LatencyWindow[]> trendSource
+    ) {
+        this.trendSource = trendSource;
+    }
+
     @Override
     public Component getTreeCellRendererComponent(
         JTree tree,
@@ -72,10 +96,16 @@ public class MethodTreeCellRenderer extends DefaultTreeCellRenderer {
         method = null;
         methodColor = null;
         reservedWidth = 0;
+        spark = null;
+
+        if (
+            !(value instanceof DefaultMutableTreeNode node) ||
+            !(node.getUserObject() instanceof TreeNodeData data)
+        ) {
+            return this;
+        }
 
         if (
-            value instanceof DefaultMutableTreeNode node &&
-            node.getUserObject() instanceof TreeNodeData data &&
             data.kind == TreeNodeData.Kind.REQUEST &&
             data.method != null &&
             !data.method.isBlank()
@@ -87,12 +117,27 @@ public class MethodTreeCellRenderer extends DefaultTreeCellRenderer {
             FontMetrics fm = getFontMetrics(getFont());
             reservedWidth =
                 fm.stringWidth("[" + method + "]") + TAG_NAME_GAP;
+        }
 
+        if (trendSource != null) {
+            LatencyWindow[] series = trendSource.apply(data);
+            if (hasHistory(series)) {
+                spark = series;
+            }
+        }
+
+        if (reservedWidth > 0 || spark != null) {
             // Push the name right by reservedWidth via a left inset; the
             // tag is painted into the vacated space in paintComponent.
-            // Widening the border also grows the preferred width, so the
-            // name is never clipped.
-            EmptyBorder inset = new EmptyBorder(0, reservedWidth, 0, 0);
+            // The sparkline gets a right inset the same way. Widening the
+            // border also grows the preferred width, so the name is never
+            // clipped.
+            EmptyBorder inset = new EmptyBorder(
+                0,
+                reservedWidth,
+                0,
+                spark != null ? SPARK_GAP + SPARK_WIDTH : 0
+            );
             setBorder(
                 defaultBorder == null
                     ? inset
@@ -105,9 +150,24 @@ public class MethodTreeCellRenderer extends DefaultTreeCellRenderer {
         return this;
     }
 
+    private static boolean hasHistory(LatencyWindow[] series) {
+        if (series == null) {
+            return false;
+        }
+        for (LatencyWindow window : series) {
+            if (window.count > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        if (spark != null) {
+            paintSparkline(g);
+        }
         if (method == null) {
             return;
         }
@@ -134,4 +194,60 @@ public class MethodTreeCellRenderer extends DefaultTreeCellRenderer {
             g2.dispose();
         }
     }
+
+    /**
+     * Draws the p95 series into the band reserved by the right inset,
+     * scaled to the series' own peak. Windows without responses are gaps.
+     */
+    private void paintSparkline(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setRenderingHint(
+                RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_ON
+            );
+            Insets insets = getInsets();
+            int left = getWidth() - insets.right + SPARK_GAP;
+            int top = 3;
+            int height = Math.max(4, getHeight() - 6);
+
+            long peak = 1;
+            for (LatencyWindow window : spark) {
+                peak = Math.max(peak, window.p95);
+            }
+            double step = spark.length > 1
+                ? (double) (SPARK_WIDTH - 1) / (spark.length - 1)
+                : 0;
+
+            int prevX = -1;
+            int prevY = -1;
+            for (int i = 0; i < spark.length; i++) {
+                LatencyWindow window = spark[i];
+                if (window.count <= 0) {
+                    prevX = -1;
+                    continue;
+                }
+                int x = left + (int) Math.round(i * step);
+                int y =
+                    top +
+                    height -
+                    1 -
+                    (int) Math.round((double) window.p95 / peak * (height - 1));
+                g2.setColor(SPARK_COLOR);
+                if (prevX >= 0) {
+                    g2.drawLine(prevX, prevY, x, y);
+                } else {
+                    g2.fillRect(x, y, 1, 1);
+                }
+                if (window.errors > 0) {
+                    g2.setColor(AppColorTheme.ERROR_TEXT);
+                    g2.fillOval(x - 1, y - 1, 3, 3);
+                }
+                prevX = x;
+                prevY = y;
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
 }
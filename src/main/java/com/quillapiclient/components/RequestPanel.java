@@ -2,11 +2,15 @@ package com.quillapiclient.components;
 
 import com.quillapiclient.objects.*;
 import com.quillapiclient.utility.ScriptLoader;
+import com.quillapiclient.utility.VariableTrie;
 import java.awt.*;
 import java.awt.Font;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
 import javax.swing.*;
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
 import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
@@ -26,7 +30,13 @@ public class RequestPanel {
     private HeadersPanel headersPanel;
     private ParamsPanel paramsPanel;
     private Runnable saveCallback;
+    private BiFunction<
+        String,
+        Integer,
+        List<VariableTrie.Completion>
+    > variableCompleter;
     private boolean isPopulating = false; // Flag to prevent listeners from enabling save during population
+    private boolean editedSinceLoad = false; // Set once the user changes anything in the current item
     private int currentItemId = -1; // Track current item ID
     private static Map<Integer, Request> unsavedChanges = new HashMap<>(); // Store unsaved changes by item ID
 
@@ -39,6 +49,11 @@ public class RequestPanel {
     private ScriptsPanel scriptsPanel;
     private final ScriptLoader scriptLoader = new ScriptLoader();
 
+    private JTabbedPane tabs;
+    // Tab component -> populator for sections not yet filled for the current item
+    private final Map<Component, Runnable> pendingSections =
+        new IdentityHashMap<>();
+
     public RequestPanel() {
         panel = new JPanel(new BorderLayout());
 
@@ -56,6 +71,10 @@ public class RequestPanel {
         });
 
         panel.add(topPanel.getPanel(), BorderLayout.NORTH);
+        VariableCompletionPopup.install(
+            topPanel.getUrlField(),
+            this::completeVariable
+        );
         panel.add(createRequestTabs(), BorderLayout.CENTER);
 
         // Setup change listeners for all input fields (after components are created)
@@ -69,6 +88,7 @@ public class RequestPanel {
     private void setupChangeListeners() {
         Runnable markDirty = () -> {
             if (!isPopulating) {
+                editedSinceLoad = true;
                 try {
                     saveCurrentStateToMemory();
                 } catch (Exception ex) {
@@ -106,7 +126,7 @@ public class RequestPanel {
     }
 
     private JTabbedPane createRequestTabs() {
-        JTabbedPane tabs = new JTabbedPane();
+        tabs = new JTabbedPane();
 
         // Body text area with JSON syntax highlighting
         bodyTextArea = new RSyntaxTextArea();
@@ -147,6 +167,15 @@ public class RequestPanel {
         authPanel = new AuthPanel();
         paramsPanel = new ParamsPanel();
         headersPanel = new HeadersPanel();
+        VariableCompletionPopup.install(bodyTextArea, this::completeVariable);
+        VariableCompletionPopup.installInTable(
+            headersPanel.getTable(),
+            this::completeVariable
+        );
+        VariableCompletionPopup.installInTable(
+            paramsPanel.getTable(),
+            this::completeVariable
+        );
 
         paramsTextArea = new JTextArea();
         paramsTextArea.setToolTipText(
@@ -161,19 +190,25 @@ public class RequestPanel {
         scriptsPanel = new ScriptsPanel();
         tabs.addTab(SCRIPTS_LABEL, scriptsPanel.getPanel());
 
+        // Fill a section the first time its tab is shown for the current item
+        tabs.addChangeListener(e ->
+            populateSection(tabs.getSelectedComponent())
+        );
+
         return tabs;
     }
 
     public void populateFromRequest(Request request, int itemId) {
-        // Save current state before switching (if there was a previous item and it's different)
-        if (currentItemId > 0 && currentItemId != itemId) {
-            // Build current state and save it with the old itemId
+        // Snapshot the previous item only if it was edited; an untouched item
+        // reloads from the database, and its unvisited tabs were never filled
+        if (editedSinceLoad && currentItemId > 0 && currentItemId != itemId) {
             Request currentState = buildRequestFromUI();
             unsavedChanges.put(currentItemId, currentState);
         }
 
         // Update current item ID
         currentItemId = itemId;
+        editedSinceLoad = false;
 
         // Set flag to prevent listeners from enabling save button during population
         isPopulating = true;
@@ -184,16 +219,63 @@ public class RequestPanel {
         // Populate URL and method (delegated to TopPanel)
         topPanel.populateFromRequest(requestToLoad);
 
-        // Populate body
-        populateBody(requestToLoad);
+        // Defer the tab sections; each decodes only its own part of the request
+        pendingSections.clear();
+        pendingSections.put(tabs.getComponentAt(0), () ->
+            populateBody(requestToLoad)
+        );
+        pendingSections.put(tabs.getComponentAt(1), () ->
+            authPanel.populateFromRequest(requestToLoad)
+        );
+        pendingSections.put(tabs.getComponentAt(2), () ->
+            populateHeaders(requestToLoad)
+        );
+        pendingSections.put(tabs.getComponentAt(3), () ->
+            populateParams(requestToLoad)
+        );
+        // Scripts from DB (item-level first, then collection-level fallback)
+        pendingSections.put(tabs.getComponentAt(4), () ->
+            populateScripts(itemId)
+        );
 
-        // Populate headers if available
-        if (
-            requestToLoad.getHeader() != null &&
-            !requestToLoad.getHeader().isEmpty()
-        ) {
+        // Reset flag after population is complete
+        isPopulating = false;
+
+        populateSection(tabs.getSelectedComponent());
+    }
+
+    /**
+     * Fills the section behind the given tab if it is still pending for the
+     * current item.
+     */
+    private void populateSection(Component tab) {
+        Runnable populator = pendingSections.remove(tab);
+        if (populator == null) {
+            return;
+        }
+        boolean wasPopulating = isPopulating;
+        isPopulating = true;
+        try {
+            populator.run();
+        } finally {
+            isPopulating = wasPopulating;
+        }
+    }
+
+    /**
+     * Fills every section that has not been shown yet, so reads that span all
+     * tabs (save, send, snapshot) see the current item's data.
+     */
+    private void ensureAllSectionsLoaded() {
+        for (Component tab : List.copyOf(pendingSections.keySet())) {
+            populateSection(tab);
+        }
+    }
+
+    private void populateHeaders(Request request) {
+        if (request.getHeader() != null && !request.getHeader().isEmpty()) {
             StringBuilder headersBuilder = new StringBuilder();
-            for (Header header : requestToLoad.getHeader()) {
+            for (Header header : request.getHeader()) {
                 // Assuming header format is [key, value, description]
                 if (header.getKey() != null && header.getValue() != null) {
                     headersBuilder
@@ -207,14 +289,13 @@ public class RequestPanel {
         } else {
             headersTextArea = "";
         }
+        headersPanel.populateFromRequest(request);
+    }
 
-        // Populate query parameters if available
-        if (
-            requestToLoad.getUrl() != null &&
-            requestToLoad.getUrl().getQuery() != null
-        ) {
+    private void populateParams(Request request) {
+        if (request.getUrl() != null && request.getUrl().getQuery() != null) {
             StringBuilder paramsBuilder = new StringBuilder();
-            for (Query queryParam : requestToLoad.getUrl().getQuery()) {
+            for (Query queryParam : request.getUrl().getQuery()) {
                 // Assuming query param format is [key, value, description]
                 if (
                     queryParam.getKey() != null && queryParam.getValue() != null
@@ -230,17 +311,7 @@ public class RequestPanel {
         } else {
             paramsTextArea.setText("");
         }
-
-        // Populate auth fields
-        authPanel.populateFromRequest(requestToLoad);
-        headersPanel.populateFromRequest(requestToLoad);
-        paramsPanel.populateFromRequest(requestToLoad);
-
-        // Populate scripts from DB (item-level first, then collection-level fallback)
-        populateScripts(itemId);
-
-        // Reset flag after population is complete
-        isPopulating = false;
+        paramsPanel.populateFromRequest(request);
     }
 
     private void populateScripts(int itemId) {
@@ -301,6 +372,10 @@ public class RequestPanel {
         return sendButton;
     }
 
+    public JButton getCompareButton() {
+        return topPanel.getCompareButton();
+    }
+
     public JButton getSaveButton() {
         return saveButton;
     }
@@ -313,6 +388,30 @@ public class RequestPanel {
         return scriptsPanel;
     }
 
+    /** Marks URL references to variables outside these names. */
+    public void setDefinedVariables(Set<String> names) {
+        topPanel.setDefinedVariables(names);
+    }
+
+    /**
+     * Sets where {@code {{variable}}} completions come from: a function of
+     * the typed prefix and the most completions wanted.
+     */
+    public void setVariableCompleter(
+        BiFunction<String, Integer, List<VariableTrie.Completion>> completer
+    ) {
+        this.variableCompleter = completer;
+    }
+
+    private List<VariableTrie.Completion> completeVariable(
+        String prefix,
+        int limit
+    ) {
+        return variableCompleter != null
+            ? variableCompleter.apply(prefix, limit)
+            : List.of();
+    }
+
     /** Returns the currently displayed item ID. */
     public int getCurrentItemId() {
         return currentItemId;
@@ -323,6 +422,7 @@ public class RequestPanel {
      * Callers no longer need to extract individual fields from the panel.
      */
     public ExecutionRequest buildExecutionRequest() {
+        ensureAllSectionsLoaded();
         return new ExecutionRequest(
             getUrl(),
             getMethod(),
@@ -332,7 +432,8 @@ public class RequestPanel {
             authPanel.getAuthType(),
             authPanel.getUsername(),
             authPanel.getPassword(),
-            authPanel.getToken()
+            authPanel.getToken(),
+            topPanel.isStreamSelected()
         );
     }
 
@@ -340,6 +441,7 @@ public class RequestPanel {
      * Builds a Request object from all UI components
      */
     public Request buildRequestFromUI() {
+        ensureAllSectionsLoaded();
         Request request = new Request();
 
         // Set method
@@ -0,0 +1,95 @@
+package com.quillapiclient.components;
+
+import com.quillapiclient.objects.ResponseSummary;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.AbstractListModel;
+import javax.swing.SwingWorker;
+
+/**
+ * List model over a request's response history that grows one keyset page
+ * at a time. Only summaries are held; bodies are loaded when an entry is
+ * opened. Pages are fetched on a background worker and appended on the EDT.
+ */
+public class ResponseHistoryListModel extends AbstractListModel<ResponseSummary> {
+
+    /** Fetches the page after {@code after} (null for the first page). */
+    @FunctionalInterface
+    public interface PageLoader {
+        List<ResponseSummary> load(ResponseSummary after, int limit);
+    }
+
+    static final int PAGE_SIZE = 100;
+
+    private final PageLoader loader;
+    private final List<ResponseSummary> rows = new ArrayList<>();
+    private boolean loading = false;
+    private boolean exhausted = false;
+
+    public ResponseHistoryListModel(PageLoader loader) {
+        this.loader = loader;
+    }
+
+    @Override
+    public int getSize() {
+        return rows.size();
+    }
+
+    @Override
+    public ResponseSummary getElementAt(int index) {
+        return rows.get(index);
+    }
+
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Fetches the next page unless one is already in flight or history is
+     * exhausted. Must be called on the EDT.
+     */
+    public void loadNextPage() {
+        if (loading || exhausted) {
+            return;
+        }
+        loading = true;
+        ResponseSummary after = rows.isEmpty()
+            ? null
+            : rows.get(rows.size() - 1);
+
+        new SwingWorker<List<ResponseSummary>, Void>() {
+            @Override
+            protected List<ResponseSummary> doInBackground() {
+                return loader.load(after, PAGE_SIZE);
+            }
+
+            @Override
+            protected void done() {
+                loading = false;
+                List<ResponseSummary> page;
+                try {
+                    page = get();
+                } catch (Exception e) {
+                    System.err.println(
+                        "Error loading response history: " + e.getMessage()
+                    );
+                    e.printStackTrace();
+                    exhausted = true;
+                    return;
+                }
+                if (page.size() < PAGE_SIZE) {
+                    exhausted = true;
+                }
+                if (!page.isEmpty()) {
+                    int first = rows.size();
+                    rows.addAll(page);
+                    fireIntervalAdded(
+                        ResponseHistoryListModel.this,
+                        first,
+                        rows.size() - 1
+                    );
+                }
+            }
+        }.execute();
+    }
+}
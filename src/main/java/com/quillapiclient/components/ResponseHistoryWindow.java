@@ -0,0 +1,192 @@
+package com.quillapiclient.components;
+
+import com.quillapiclient.objects.ResponseSummary;
+import com.quillapiclient.utility.ResponseFormatter;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingConstants;
+
+/**
+ * Browsable response history for one request.
+ *
+ * <p>The list is virtual in both directions: JList only renders the visible
+ * rows (fixed cell height), and the model only holds the pages scrolled
+ * through so far, fetching the next one as the view nears its end. Opening
+ * an entry (double-click or Enter) hands its response ID to the caller,
+ * which loads the full body. With two entries selected, Compare hands
+ * both IDs over, the older first.
+ */
+public class ResponseHistoryWindow {
+
+    private final JFrame frame;
+    private final ResponseHistoryListModel model;
+    private final IntConsumer onOpen;
+    private final BiConsumer<Integer, Integer> onCompare;
+    private JList<ResponseSummary> list;
+    private final JButton compareButton = new JButton("Compare");
+
+    /**
+     * @param onOpen    gets the ID of the response to open
+     * @param onCompare gets the IDs of two responses to compare, the older
+     *                  first
+     */
+    public ResponseHistoryWindow(
+        String requestName,
+        ResponseHistoryListModel.PageLoader loader,
+        IntConsumer onOpen,
+        BiConsumer<Integer, Integer> onCompare
+    ) {
+        this.frame = new JFrame("Response History - " + requestName);
+        this.model = new ResponseHistoryListModel(loader);
+        this.onOpen = onOpen;
+        this.onCompare = onCompare;
+        buildUi();
+        model.loadNextPage();
+    }
+
+    private void buildUi() {
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.setLayout(new BorderLayout());
+
+        JLabel header = new JLabel(
+            "Double-click an entry to open it; select two to compare them",
+            SwingConstants.LEFT
+        );
+        header.setBorder(
+            javax.swing.BorderFactory.createEmptyBorder(8, 8, 8, 8)
+        );
+        frame.add(header, BorderLayout.NORTH);
+
+        list = new JList<>(model);
+        list.setSelectionMode(
+            ListSelectionModel.MULTIPLE_INTERVAL_SELECTION
+        );
+        list.setCellRenderer(new SummaryRenderer());
+        list.addListSelectionListener(e ->
+            compareButton.setEnabled(
+                list.getSelectionModel().getSelectedItemsCount() == 2
+            )
+        );
+        list.setPrototypeCellValue(
+            new ResponseSummary(0, 200, 99999, 999999, "0000-00-00 00:00:00")
+        );
+        list.addMouseListener(
+            new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2) {
+                        openSelected();
+                    }
+                }
+            }
+        );
+        list.addKeyListener(
+            new KeyAdapter() {
+                @Override
+                public void keyPressed(KeyEvent e) {
+                    if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                        openSelected();
+                    }
+                }
+            }
+        );
+
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.setPreferredSize(new Dimension(520, 420));
+        // Fetch the next page once the view is within half a page of the end
+        scrollPane
+            .getViewport()
+            .addChangeListener(e -> {
+                int last = list.getLastVisibleIndex();
+                if (
+                    !model.isExhausted() &&
+                    last >= model.getSize() -
+                    ResponseHistoryListModel.PAGE_SIZE / 2
+                ) {
+                    model.loadNextPage();
+                }
+            });
+        frame.add(scrollPane, BorderLayout.CENTER);
+
+        compareButton.setEnabled(false);
+        compareButton.setToolTipText(
+            "Show where the bodies of the two selected responses differ"
+        );
+        compareButton.addActionListener(e -> compareSelected());
+        JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        actions.add(compareButton);
+        frame.add(actions, BorderLayout.SOUTH);
+
+        frame.pack();
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+    }
+
+    private void openSelected() {
+        ResponseSummary selected = list.getSelectedValue();
+        if (selected != null) {
+            onOpen.accept(selected.id);
+        }
+    }
+
+    private void compareSelected() {
+        int[] selected = list.getSelectedIndices();
+        if (selected.length != 2) {
+            return;
+        }
+        // Newest first: the higher index is the older response
+        ResponseSummary newer = model.getElementAt(selected[0]);
+        ResponseSummary older = model.getElementAt(selected[1]);
+        onCompare.accept(older.id, newer.id);
+    }
+
+    private static class SummaryRenderer extends DefaultListCellRenderer {
+
+        @Override
+        public Component getListCellRendererComponent(
+            JList<?> list,
+            Object value,
+            int index,
+            boolean isSelected,
+            boolean cellHasFocus
+        ) {
+            super.getListCellRendererComponent(
+                list,
+                value,
+                index,
+                isSelected,
+                cellHasFocus
+            );
+            if (value instanceof ResponseSummary summary) {
+                setText(
+                    String.format(
+                        "%s    %d    %d ms    %s",
+                        summary.createdAt,
+                        summary.statusCode,
+                        summary.duration,
+                        summary.size >= 0
+                            ? ResponseFormatter.formatSize(summary.size)
+                            : "-"
+                    )
+                );
+            }
+            return this;
+        }
+    }
+}
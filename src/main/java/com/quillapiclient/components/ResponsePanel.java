@@ -1,12 +1,25 @@
 package com.quillapiclient.components;
 
+import com.quillapiclient.json.JsonTape;
+import com.quillapiclient.server.ApiResponse;
+import com.quillapiclient.server.ResponseStreamListener;
+import com.quillapiclient.server.StreamEvent;
 import com.quillapiclient.utility.AppColorTheme;
+import com.quillapiclient.utility.ResponseFormatter;
 import java.awt.BorderLayout;
+import java.awt.CardLayout;
 import java.awt.Color;
 import java.awt.Font;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import javax.swing.JButton;
+import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.JToggleButton;
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
 import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
 import org.fife.ui.rsyntaxtextarea.Theme;
@@ -18,11 +31,32 @@ public class ResponsePanel {
     private JLabel statusLabel;
     private JLabel durationLabel;
     private JLabel sizeLabel;
+    private JButton historyButton;
     private boolean errorState;
+    private ResponseRenderWorker renderWorker;
+    private ResponseStreamPreview streamPreview;
+    private LargeResponseViewer largeViewer;
+    private CardLayout viewCards;
+    private JPanel viewPanel;
+    private JPanel rendererView;
+    private ResponseSearchBar searchBar;
+    private JToggleButton textToggle;
+    private static final String EDITOR_CARD = "editor";
+    private static final String LARGE_CARD = "large";
+    private static final String VIEW_CARD = "view";
+    private JTextField filterField;
+    private JLabel filterStatus;
+    private JsonFilterWorker filterWorker;
+    private boolean filterActive;
+    // The response on screen, and its JSON tape once a filter has built it
+    private ApiResponse currentResponse;
+    private String currentTimestampMessage;
+    private JsonTape currentTape;
     private final String RESPONSE_LABEL = "Response";
     private final String STATUS_LABEL = "Status";
     private final String DURATION_LABEL = "Duration";
     private final String SIZE_LABEL = "Size";
+    private final String HISTORY_LABEL = "History";
 
     public ResponsePanel() {
         this.panel = createPanel();
@@ -46,6 +80,20 @@ public class ResponsePanel {
         rightPanel.add(statusLabel);
         rightPanel.add(durationLabel);
         rightPanel.add(sizeLabel);
+        // Only shown for bodies with a dedicated view (table, image, hex)
+        textToggle = new JToggleButton("Text");
+        textToggle.setToolTipText("Show the response as text");
+        textToggle.setVisible(false);
+        textToggle.addActionListener(e ->
+            viewCards.show(
+                viewPanel,
+                textToggle.isSelected() ? EDITOR_CARD : VIEW_CARD
+            )
+        );
+        rightPanel.add(textToggle);
+        historyButton = new JButton(HISTORY_LABEL);
+        historyButton.setToolTipText("Browse saved responses for this request");
+        rightPanel.add(historyButton);
         topPanel.add(responseLabel, BorderLayout.WEST);
         topPanel.add(rightPanel, BorderLayout.EAST);
 
@@ -88,26 +136,360 @@ public class ResponsePanel {
 
         JScrollPane responseScroll = new JScrollPane(responseArea);
 
-        panel.add(topPanel, BorderLayout.NORTH);
-        panel.add(responseScroll, BorderLayout.CENTER);
+        // Find runs on a worker over a snapshot of the editor text
+        searchBar = new ResponseSearchBar(
+            new EditorSearchTarget(responseArea, responseScroll.getViewport())
+        );
+        JPanel editorPanel = new JPanel(new BorderLayout());
+        editorPanel.add(searchBar.getComponent(), BorderLayout.NORTH);
+        editorPanel.add(responseScroll, BorderLayout.CENTER);
+        searchBar.installFocusKey(editorPanel, java.awt.event.KeyEvent.VK_F);
+
+        // Large responses swap the editor for a file-backed viewer, and
+        // tables, images and binary bodies for their renderer's view
+        largeViewer = new LargeResponseViewer(responseArea);
+        rendererView = new JPanel(new BorderLayout());
+        viewCards = new CardLayout();
+        viewPanel = new JPanel(viewCards);
+        viewPanel.add(editorPanel, EDITOR_CARD);
+        viewPanel.add(largeViewer.getComponent(), LARGE_CARD);
+        viewPanel.add(rendererView, VIEW_CARD);
+
+        JPanel northPanel = new JPanel(new BorderLayout());
+        northPanel.add(topPanel, BorderLayout.NORTH);
+        northPanel.add(createFilterBar(), BorderLayout.SOUTH);
+        panel.add(northPanel, BorderLayout.NORTH);
+        panel.add(viewPanel, BorderLayout.CENTER);
         return panel;
     }
 
+    /** JSONPath filter over the current response's body. */
+    private JPanel createFilterBar() {
+        JPanel bar = new JPanel(new BorderLayout(6, 0));
+        filterField = new JTextField();
+        filterField.setToolTipText(
+            "JSONPath, e.g. $.items[?(@.status == 'FAILED')].id " +
+                "(Enter to apply, Esc to clear)"
+        );
+        filterField.addActionListener(e -> runFilter());
+        filterField
+            .getInputMap()
+            .put(javax.swing.KeyStroke.getKeyStroke("ESCAPE"), "clearFilter");
+        filterField
+            .getActionMap()
+            .put(
+                "clearFilter",
+                new javax.swing.AbstractAction() {
+                    @Override
+                    public void actionPerformed(
+                        java.awt.event.ActionEvent e
+                    ) {
+                        clearFilter();
+                    }
+                }
+            );
+        JButton clearButton = new JButton("Clear");
+        clearButton.addActionListener(e -> clearFilter());
+        filterStatus = new JLabel(" ");
+
+        JPanel right = new JPanel(
+            new java.awt.FlowLayout(java.awt.FlowLayout.RIGHT, 6, 0)
+        );
+        right.add(filterStatus);
+        right.add(clearButton);
+        bar.add(new JLabel("Filter:"), BorderLayout.WEST);
+        bar.add(filterField, BorderLayout.CENTER);
+        bar.add(right, BorderLayout.EAST);
+        return bar;
+    }
+
     public JPanel getPanel() {
         return panel;
     }
 
+    public JButton getHistoryButton() {
+        return historyButton;
+    }
+
     public RSyntaxTextArea getResponseArea() {
         return responseArea;
     }
 
     public void setResponse(String response) {
+        stopStream();
+        cancelRender();
+        cancelFilter();
+        currentResponse = null;
+        currentTape = null;
+        searchBar.reset();
+        showEditor();
         if (responseArea != null) {
             responseArea.setText(response);
             responseArea.setCaretPosition(0); // Scroll to top
         }
     }
 
+    /**
+     * Shows a response, formatting it on a background worker. Status,
+     * duration and size update immediately; the body streams in as it is
+     * formatted. Replaces any response still being rendered.
+     *
+     * @param response         the response to show, or null for none
+     * @param timestampMessage passed through to {@link ResponseFormatter}
+     */
+    public void showResponse(ApiResponse response, String timestampMessage) {
+        loadAndShowResponse(() -> response, timestampMessage);
+    }
+
+    /**
+     * Like {@link #showResponse}, but the response itself is also fetched
+     * on the background worker (e.g. from the database). Until it arrives
+     * the previous text stays in place with the labels cleared. Bodies
+     * above a few MB end up in a read-only, file-backed viewer instead of
+     * the editor; bodies whose renderer has a view of its own show that,
+     * with the text a toggle away.
+     *
+     * @param loader           supplies the response off the EDT; may
+     *                         return null when there is none
+     * @param timestampMessage passed through to {@link ResponseFormatter}
+     */
+    public void loadAndShowResponse(
+        Supplier<ApiResponse> loader,
+        String timestampMessage
+    ) {
+        stopStream();
+        cancelRender();
+        cancelFilter();
+        filterActive = false;
+        filterStatus.setText(" ");
+        searchBar.reset();
+        resetStatusDurationSize();
+        currentTimestampMessage = timestampMessage;
+        renderWorker = new ResponseRenderWorker(
+            loader,
+            timestampMessage,
+            responseArea,
+            (response, renderer) -> {
+                showEditor(); // the preview or text goes to the editor
+                responseArea.setSyntaxEditingStyle(
+                    renderer != null
+                        ? renderer.getSyntaxStyle()
+                        : SyntaxConstants.SYNTAX_STYLE_NONE
+                );
+                showResponseLabels(response);
+                if (response != currentResponse) {
+                    currentResponse = response;
+                    currentTape = null;
+                }
+            },
+            this::showRendererView,
+            this::showLargeFile
+        );
+        renderWorker.execute();
+    }
+
+    /**
+     * Starts showing a response that is still arriving: headers as soon as
+     * they are in, then the body as it streams, with live size and
+     * throughput. The current text stays until the headers arrive. The
+     * next {@link #setResponse} or {@link #showResponse} ends the preview,
+     * and cancels the download if it is still running.
+     *
+     * @return the listener to pass to the request
+     */
+    public ResponseStreamListener beginStream() {
+        return beginStream(true, null);
+    }
+
+    /**
+     * Like {@link #beginStream()}, with the body preview optional. Event
+     * streams (SSE, NDJSON) are always shown live, as a list of events
+     * with rate statistics, since they may never complete.
+     *
+     * @param previewBody  show headers and body of ordinary responses too
+     * @param eventHandler gets each event of an event stream as it is
+     *                     parsed, on the HTTP thread; may be null
+     * @return the listener to pass to the request
+     */
+    public ResponseStreamListener beginStream(
+        boolean previewBody,
+        Consumer<StreamEvent> eventHandler
+    ) {
+        return beginStream(previewBody, eventHandler, null);
+    }
+
+    /**
+     * Like {@link #beginStream(boolean, Consumer)}, for an event handler
+     * that queues events and may drop some.
+     *
+     * @param droppedEvents how many events the handler dropped so far,
+     *                      shown with the stream's statistics; may be null
+     */
+    public ResponseStreamListener beginStream(
+        boolean previewBody,
+        Consumer<StreamEvent> eventHandler,
+        LongSupplier droppedEvents
+    ) {
+        stopStream();
+        streamPreview = new ResponseStreamPreview(
+            this,
+            previewBody,
+            eventHandler,
+            droppedEvents
+        );
+        return streamPreview;
+    }
+
+    /** Replaces the text with the start of a streaming response. */
+    void showStreamText(String text, int statusCode) {
+        cancelRender();
+        cancelFilter();
+        currentResponse = null;
+        currentTape = null;
+        searchBar.reset();
+        showEditor();
+        responseArea.setSyntaxEditingStyle(SyntaxConstants.SYNTAX_STYLE_NONE);
+        responseArea.setText(text);
+        responseArea.setCaretPosition(0);
+        setStatus(statusCode);
+        setErrorState(statusCode >= 400);
+    }
+
+    /** Shows the live view of an event stream. */
+    void showEventStream(JComponent view) {
+        showRendererView(view);
+    }
+
+    /** Appends streamed body text. */
+    void appendStreamText(String text) {
+        responseArea.append(text);
+    }
+
+    private void stopStream() {
+        if (streamPreview != null) {
+            streamPreview.stop();
+            streamPreview = null;
+        }
+    }
+
+    private void showLargeFile(LargeResponseFile file) {
+        responseArea.setText(""); // release the preview
+        largeViewer.show(file);
+        viewCards.show(viewPanel, LARGE_CARD);
+    }
+
+    private void showRendererView(JComponent view) {
+        rendererView.add(view, BorderLayout.CENTER);
+        rendererView.revalidate();
+        textToggle.setSelected(false);
+        textToggle.setVisible(true);
+        viewCards.show(viewPanel, VIEW_CARD);
+    }
+
+    private void showEditor() {
+        viewCards.show(viewPanel, EDITOR_CARD);
+        largeViewer.clear();
+        rendererView.removeAll(); // drop the previous body's view
+        textToggle.setVisible(false);
+    }
+
+    /**
+     * Applies the filter expression on a background worker, showing the
+     * matches in the editor. The body's tape is built by the first filter
+     * on a response and reused after that.
+     */
+    private void runFilter() {
+        String expression = filterField.getText().trim();
+        if (expression.isEmpty()) {
+            clearFilter();
+            return;
+        }
+        if (currentResponse == null || currentResponse.getBodySize() == 0) {
+            filterStatus.setText("No response body");
+            return;
+        }
+        cancelFilter();
+        filterStatus.setText(
+            currentTape == null ? "Indexing response..." : "Filtering..."
+        );
+        ApiResponse response = currentResponse;
+        filterWorker = new JsonFilterWorker(
+            response,
+            currentTape,
+            expression,
+            result -> {
+                if (response != currentResponse) {
+                    return; // a newer response arrived meanwhile
+                }
+                currentTape = result.tape;
+                cancelRender();
+                showEditor();
+                searchBar.reset();
+                filterActive = true;
+                responseArea.setSyntaxEditingStyle(
+                    SyntaxConstants.SYNTAX_STYLE_JSON
+                );
+                responseArea.setText(result.text);
+                responseArea.setCaretPosition(0);
+                filterStatus.setText(
+                    result.shown < result.matches
+                        ? "Showing " + result.shown + " of " + result.matches +
+                            " matches"
+                        : result.matches +
+                            (result.matches == 1 ? " match" : " matches")
+                );
+            },
+            filterStatus::setText
+        );
+        filterWorker.execute();
+    }
+
+    /** Removes the filter and shows the whole response again. */
+    private void clearFilter() {
+        cancelFilter();
+        filterField.setText("");
+        filterStatus.setText(" ");
+        if (filterActive && currentResponse != null) {
+            showResponse(currentResponse, currentTimestampMessage);
+        }
+        filterActive = false;
+    }
+
+    private void cancelFilter() {
+        if (filterWorker != null) {
+            filterWorker.cancel(true);
+            filterWorker = null;
+        }
+    }
+
+    private void cancelRender() {
+        if (renderWorker != null) {
+            renderWorker.cancel(false);
+            renderWorker = null;
+        }
+    }
+
+    private void showResponseLabels(ApiResponse response) {
+        if (response == null) {
+            setErrorState(false);
+            resetStatusDurationSize();
+            return;
+        }
+        setStatus(
+            response.getStatusCode(),
+            response.getAttempts(),
+            response.isHedged()
+        );
+        setDuration(
+            response.getDuration(),
+            response.getTimeToFirstByte(),
+            response.getQueueTime()
+        );
+        // Raw bytes when known; never decodes the body on the EDT
+        setSize(ResponseFormatter.formatSize(response.getBodySize()));
+        setErrorState(!response.isSuccess());
+    }
+
     public void setErrorState(boolean isError) {
         this.errorState = isError;
         if (responseArea != null) {
@@ -151,6 +533,27 @@ public class ResponsePanel {
         }
     }
 
+    /**
+     * Updates the status label, noting retries and hedging.
+     *
+     * @param attempts times the request was sent, counting the first
+     * @param hedged   whether a second copy was sent on the last attempt
+     */
+    public void setStatus(int statusCode, int attempts, boolean hedged) {
+        setStatus(statusCode);
+        if (statusLabel != null && (attempts > 1 || hedged)) {
+            StringBuilder text = new StringBuilder(statusLabel.getText());
+            text.append(" (");
+            if (attempts > 1) {
+                text.append(attempts).append(" attempts");
+            }
+            if (hedged) {
+                text.append(attempts > 1 ? ", " : "").append("hedged");
+            }
+            statusLabel.setText(text.append(')').toString());
+        }
+    }
+
     /**
      * Updates the duration label with the duration from the response.
      *
@@ -162,6 +565,57 @@ public class ResponsePanel {
         }
     }
 
+    /**
+     * Updates the duration label with the total time and, when it was
+     * measured, the time to first byte.
+     *
+     * @param duration        The total in milliseconds
+     * @param timeToFirstByte Milliseconds until the headers, or -1
+     */
+    public void setDuration(long duration, long timeToFirstByte) {
+        if (timeToFirstByte < 0) {
+            setDuration(duration);
+        } else if (durationLabel != null) {
+            durationLabel.setText(
+                DURATION_LABEL +
+                    ": " +
+                    duration +
+                    " ms (TTFB " +
+                    timeToFirstByte +
+                    " ms)"
+            );
+        }
+    }
+
+    /**
+     * Like {@link #setDuration(long, long)}, also showing the time spent
+     * waiting for the host's rate limiter before the request went out.
+     *
+     * @param queueTime Milliseconds waited, not part of the duration
+     */
+    public void setDuration(
+        long duration,
+        long timeToFirstByte,
+        long queueTime
+    ) {
+        if (queueTime <= 0) {
+            setDuration(duration, timeToFirstByte);
+        } else if (durationLabel != null) {
+            durationLabel.setText(
+                DURATION_LABEL +
+                    ": " +
+                    duration +
+                    " ms (" +
+                    (timeToFirstByte >= 0
+                        ? "TTFB " + timeToFirstByte + " ms, "
+                        : "") +
+                    "queued " +
+                    queueTime +
+                    " ms)"
+            );
+        }
+    }
+
     public void setSize(String size) {
         if (sizeLabel != null) {
             sizeLabel.setText(SIZE_LABEL + ": " + size);
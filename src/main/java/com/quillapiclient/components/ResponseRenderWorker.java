@@ -0,0 +1,394 @@
+package com.quillapiclient.components;
+
+import com.quillapiclient.render.BodyRenderer;
+import com.quillapiclient.render.RendererRegistry;
+import com.quillapiclient.server.ApiResponse;
+import com.quillapiclient.utility.FormattedResponseCache;
+import com.quillapiclient.utility.ResponseFormatter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.swing.JComponent;
+import javax.swing.SwingWorker;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+
+/**
+ * Loads (optionally) and formats one response off the EDT, streaming the
+ * formatted text into the response area in chunks.
+ *
+ * <p>The first chunk is kept small so the top of the response appears as
+ * soon as it is formatted; later chunks are larger to keep the number of
+ * document inserts down. Cancelling the worker (a newer response was
+ * requested) stops formatting at the next chunk boundary, and chunks
+ * already queued for the EDT are dropped.
+ *
+ * <p>The body renderer is chosen from the response's Content-Type (see
+ * {@link RendererRegistry}). Renderers with a dedicated view (tables,
+ * images, hex) have it prepared here and published before the text. Text
+ * bodies of {@link #LARGE_BODY_CHARS} or more are formatted into a
+ * {@link LargeResponseFile} instead of the editor document; the first
+ * chunk still goes to the editor as a preview while the rest is written.
+ *
+ * <p>Text formatted for the editor of a saved response is kept in the
+ * {@link FormattedResponseCache}; showing that response again publishes
+ * the cached text in one piece and skips formatting altogether.
+ */
+class ResponseRenderWorker extends SwingWorker<Void, ResponseRenderWorker.Chunk> {
+
+    static final int FIRST_CHUNK_CHARS = 8 * 1024;
+    static final int CHUNK_CHARS = 256 * 1024;
+    static final int LARGE_BODY_CHARS = Integer.getInteger(
+        "quill.viewer.largeChars",
+        2 * 1024 * 1024
+    );
+    // Keeps the UTF-8 file under the 2 GB a single mapping can address
+    private static final long LARGE_MAX_OUTPUT_CHARS = 512L * 1024 * 1024;
+
+    /**
+     * The loaded response and its renderer (once, first), a piece of text,
+     * the finished file for a large response, or a renderer's view.
+     */
+    static class Chunk {
+
+        final boolean loaded;
+        final ApiResponse response;
+        final BodyRenderer renderer;
+        final String text;
+        final LargeResponseFile file;
+        final Supplier<JComponent> view;
+
+        private Chunk(
+            boolean loaded,
+            ApiResponse response,
+            BodyRenderer renderer,
+            String text,
+            LargeResponseFile file,
+            Supplier<JComponent> view
+        ) {
+            this.loaded = loaded;
+            this.response = response;
+            this.renderer = renderer;
+            this.text = text;
+            this.file = file;
+            this.view = view;
+        }
+
+        static Chunk loaded(ApiResponse response, BodyRenderer renderer) {
+            return new Chunk(true, response, renderer, null, null, null);
+        }
+
+        static Chunk text(String text) {
+            return new Chunk(false, null, null, text, null, null);
+        }
+
+        static Chunk file(LargeResponseFile file) {
+            return new Chunk(false, null, null, null, file, null);
+        }
+
+        static Chunk view(Supplier<JComponent> view) {
+            return new Chunk(false, null, null, null, null, view);
+        }
+    }
+
+    private final Supplier<ApiResponse> source;
+    private final String timestampMessage;
+    private final RSyntaxTextArea area;
+    private final BiConsumer<ApiResponse, BodyRenderer> onLoaded;
+    private final Consumer<JComponent> onView;
+    private final Consumer<LargeResponseFile> onLargeFile;
+    private boolean replaced = false; // EDT only
+
+    /**
+     * @param source           supplies the response; runs on the worker
+     *                         thread, so it may hit the database
+     * @param timestampMessage passed through to the formatter
+     * @param area             the text area to fill
+     * @param onLoaded         called on the EDT with the loaded response
+     *                         (possibly null) and its body renderer (null
+     *                         when there is no body) before anything else
+     * @param onView           called on the EDT with the renderer's view,
+     *                         for renderers that have one
+     * @param onLargeFile      called on the EDT with the formatted file of
+     *                         a large response; takes ownership of it
+     */
+    ResponseRenderWorker(
+        Supplier<ApiResponse> source,
+        String timestampMessage,
+        RSyntaxTextArea area,
+        BiConsumer<ApiResponse, BodyRenderer> onLoaded,
+        Consumer<JComponent> onView,
+        Consumer<LargeResponseFile> onLargeFile
+    ) {
+        this.source = source;
+        this.timestampMessage = timestampMessage;
+        this.area = area;
+        this.onLoaded = onLoaded;
+        this.onView = onView;
+        this.onLargeFile = onLargeFile;
+    }
+
+    @Override
+    protected Void doInBackground() throws Exception {
+        ApiResponse response = source.get();
+        if (isCancelled()) {
+            return null;
+        }
+        // Sniffs at most a small prefix; the body is not scanned here
+        BodyRenderer renderer = response != null && response.getBodySize() > 0
+            ? RendererRegistry.getDefault().select(response)
+            : null;
+        publish(Chunk.loaded(response, renderer));
+
+        FormattedResponseCache cache = FormattedResponseCache.getDefault();
+        boolean saved = response != null && response.getId() > 0;
+        if (saved) {
+            // Only editor text is cached, so a hit means no view or file
+            String cached = cache.getText(response.getId());
+            if (cached != null) {
+                publish(Chunk.text(cached));
+                return null;
+            }
+        }
+
+        if (renderer != null) {
+            Supplier<JComponent> view = renderer.prepareView(response);
+            if (isCancelled()) {
+                return null;
+            }
+            if (view != null) {
+                publish(Chunk.view(view));
+            } else if (response.getBodySize() >= LARGE_BODY_CHARS) {
+                renderToFile(response, renderer);
+                return null;
+            }
+        }
+
+        ChunkWriter out = new ChunkWriter(
+            saved ? cache.getMaxEntryChars() : 0
+        );
+        ResponseFormatter.formatResponse(
+            response,
+            timestampMessage,
+            out,
+            ResponseFormatter.MAX_OUTPUT_CHARS,
+            renderer
+        );
+        out.finish();
+        String text = out.keptText();
+        if (text != null) {
+            cache.put(response, text);
+        }
+        return null;
+    }
+
+    private void renderToFile(ApiResponse response, BodyRenderer renderer)
+        throws IOException {
+        LargeResponseFile.Builder builder = new LargeResponseFile.Builder();
+        LargeResponseFile file;
+        try {
+            ResponseFormatter.formatResponse(
+                response,
+                timestampMessage,
+                new PreviewWriter(builder),
+                LARGE_MAX_OUTPUT_CHARS,
+                renderer
+            );
+            file = builder.finish();
+        } catch (IOException | RuntimeException e) {
+            builder.abort();
+            throw e;
+        }
+        if (isCancelled()) {
+            file.close();
+            return;
+        }
+        publish(Chunk.file(file));
+    }
+
+    @Override
+    protected void process(List<Chunk> chunks) {
+        if (isCancelled()) {
+            // A newer response owns the view now; release what we made
+            for (Chunk chunk : chunks) {
+                if (chunk.file != null) {
+                    chunk.file.close();
+                }
+            }
+            return;
+        }
+        StringBuilder text = null;
+        for (Chunk chunk : chunks) {
+            if (chunk.file != null) {
+                onLargeFile.accept(chunk.file);
+            } else if (chunk.view != null) {
+                onView.accept(chunk.view.get());
+            } else if (chunk.loaded) {
+                onLoaded.accept(chunk.response, chunk.renderer);
+            } else {
+                if (text == null) {
+                    text = new StringBuilder();
+                }
+                text.append(chunk.text);
+            }
+        }
+        if (text == null) {
+            return;
+        }
+        if (!replaced) {
+            replaced = true;
+            area.setText(text.toString());
+            area.setCaretPosition(0); // Scroll to top
+        } else {
+            area.append(text.toString());
+        }
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            get();
+        } catch (Exception e) {
+            System.err.println("Error formatting response: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Buffers formatter output and publishes it in chunks, keeping a copy
+     * of everything published while it stays within a size limit.
+     */
+    private class ChunkWriter extends Writer {
+
+        private StringBuilder buffer = new StringBuilder(FIRST_CHUNK_CHARS);
+        private int threshold = FIRST_CHUNK_CHARS;
+        private final long keepChars;
+        private StringBuilder kept;
+
+        /** @param keepChars size limit for the copy; 0 keeps none */
+        ChunkWriter(long keepChars) {
+            this.keepChars = keepChars;
+            this.kept = keepChars > 0 ? new StringBuilder() : null;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            buffer.append(cbuf, off, len);
+            if (buffer.length() >= threshold) {
+                emit();
+                threshold = CHUNK_CHARS;
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            buffer.append(str, off, off + len);
+            if (buffer.length() >= threshold) {
+                emit();
+                threshold = CHUNK_CHARS;
+            }
+        }
+
+        @Override
+        public void flush() {
+            // Chunk boundaries are decided by size; see finish()
+        }
+
+        @Override
+        public void close() {}
+
+        /** Publishes the remainder (always at least one chunk overall). */
+        void finish() {
+            if (buffer.length() > 0 || threshold == FIRST_CHUNK_CHARS) {
+                emit();
+            }
+        }
+
+        /** Everything published, or null if over the limit. */
+        String keptText() {
+            return kept != null ? kept.toString() : null;
+        }
+
+        private void emit() {
+            if (isCancelled()) {
+                // Unwinds the formatter; the result is never read
+                throw new CancellationException();
+            }
+            String text = buffer.toString();
+            publish(Chunk.text(text));
+            buffer = new StringBuilder(CHUNK_CHARS);
+            if (kept != null) {
+                if (kept.length() + text.length() > keepChars) {
+                    kept = null; // too large to cache
+                } else {
+                    kept.append(text);
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes formatter output to the large-response file, publishing the
+     * first {@link #FIRST_CHUNK_CHARS} to the editor as a preview.
+     */
+    private class PreviewWriter extends Writer {
+
+        private final Writer file;
+        private StringBuilder preview = new StringBuilder(FIRST_CHUNK_CHARS);
+        private long sinceCheck = 0;
+
+        PreviewWriter(Writer file) {
+            this.file = file;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            file.write(cbuf, off, len);
+            if (preview != null) {
+                preview.append(cbuf, off, Math.min(len, FIRST_CHUNK_CHARS));
+            }
+            afterWrite(len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            file.write(str, off, len);
+            if (preview != null) {
+                preview.append(
+                    str,
+                    off,
+                    off + Math.min(len, FIRST_CHUNK_CHARS)
+                );
+            }
+            afterWrite(len);
+        }
+
+        private void afterWrite(int len) {
+            if (preview != null && preview.length() >= FIRST_CHUNK_CHARS) {
+                preview.setLength(FIRST_CHUNK_CHARS);
+                preview.append("\n\n... [Formatting large response...]");
+                publish(Chunk.text(preview.toString()));
+                preview = null;
+            }
+            sinceCheck += len;
+            if (sinceCheck >= CHUNK_CHARS) {
+                sinceCheck = 0;
+                if (isCancelled()) {
+                    throw new CancellationException();
+                }
+            }
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
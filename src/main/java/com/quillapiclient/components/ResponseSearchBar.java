@@ -0,0 +1,345 @@
+package com.quillapiclient.components;
+
+import java.awt.FlowLayout;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Find bar for a response view: literal or regex search that runs on a
+ * {@link TextSearchWorker}, with next/previous navigation over the hits.
+ *
+ * <p>Hits stream in while the scan runs and are kept in a
+ * {@link SearchHits}; next and previous are binary searches over it, so
+ * moving between hits never scans the text again. The view only paints
+ * the hits it has on screen. Enter / F3 go to the next hit, Shift+Enter /
+ * Shift+F3 to the previous one.
+ */
+class ResponseSearchBar {
+
+    /** The view being searched. All methods are called on the EDT. */
+    interface Target {
+        /**
+         * The text to search: a snapshot that stays valid while the
+         * search runs.
+         */
+        CharSequence getSearchText();
+
+        /**
+         * True if {@link #getSearchText()} is UTF-8 bytes read as
+         * ISO-8859-1 chars (one char per byte) rather than decoded text.
+         */
+        boolean isByteText();
+
+        /** Offset searching starts from when there is no current hit. */
+        int getSearchOrigin();
+
+        /** Shows these hits, marking {@code current}; null clears. */
+        void setHits(SearchHits hits, int current);
+
+        /** Scrolls to a hit (and selects it, where the view can). */
+        void revealHit(int start, int end);
+
+        /** Where an offset is, for the status text, e.g. "line 12". */
+        String describe(int offset);
+    }
+
+    private final Target target;
+    private final JPanel panel = new JPanel(
+        new FlowLayout(FlowLayout.LEFT, 6, 2)
+    );
+    private final JTextField field = new JTextField(20);
+    private final JCheckBox regexBox = new JCheckBox("Regex");
+    private final JCheckBox caseBox = new JCheckBox("Match case");
+    private final JLabel status = new JLabel(" ");
+
+    private TextSearchWorker worker;
+    private SearchHits hits;
+    private boolean searching;
+    private int current = -1;
+    private String searchedQuery; // query the hits belong to
+
+    ResponseSearchBar(Target target) {
+        this.target = target;
+        JButton previous = new JButton("Previous");
+        JButton next = new JButton("Next");
+        panel.add(new JLabel("Find:"));
+        panel.add(field);
+        panel.add(regexBox);
+        panel.add(caseBox);
+        panel.add(previous);
+        panel.add(next);
+        panel.add(status);
+
+        previous.addActionListener(e -> step(false));
+        next.addActionListener(e -> step(true));
+        regexBox.addActionListener(e -> invalidate());
+        caseBox.addActionListener(e -> invalidate());
+        field
+            .getDocument()
+            .addDocumentListener(
+                new DocumentListener() {
+                    @Override
+                    public void insertUpdate(DocumentEvent e) {
+                        invalidate();
+                    }
+
+                    @Override
+                    public void removeUpdate(DocumentEvent e) {
+                        invalidate();
+                    }
+
+                    @Override
+                    public void changedUpdate(DocumentEvent e) {}
+                }
+            );
+
+        bind(field, KeyEvent.VK_ENTER, 0, "next", () -> step(true));
+        bind(
+            field,
+            KeyEvent.VK_ENTER,
+            InputEvent.SHIFT_DOWN_MASK,
+            "previous",
+            () -> step(false)
+        );
+        bind(
+            panel,
+            KeyEvent.VK_F3,
+            0,
+            "next",
+            () -> step(true),
+            JComponent.WHEN_IN_FOCUSED_WINDOW
+        );
+        bind(
+            panel,
+            KeyEvent.VK_F3,
+            InputEvent.SHIFT_DOWN_MASK,
+            "previous",
+            () -> step(false),
+            JComponent.WHEN_IN_FOCUSED_WINDOW
+        );
+    }
+
+    JComponent getComponent() {
+        return panel;
+    }
+
+    /** Puts the cursor in the find field. */
+    void focus() {
+        field.requestFocusInWindow();
+        field.selectAll();
+    }
+
+    /**
+     * Binds the menu-shortcut + {@code keyCode} (e.g. Ctrl+F) on
+     * {@code owner} to focusing the find field.
+     */
+    void installFocusKey(JComponent owner, int keyCode) {
+        bind(
+            owner,
+            keyCode,
+            Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx(),
+            "focusFind",
+            this::focus,
+            JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT
+        );
+    }
+
+    /** Drops hits and stops searching: the target's text was replaced. */
+    void reset() {
+        invalidate();
+        status.setText(" ");
+    }
+
+    private void invalidate() {
+        cancel();
+        if (hits != null) {
+            hits = null;
+            target.setHits(null, -1);
+        }
+        current = -1;
+        searchedQuery = null;
+    }
+
+    private void cancel() {
+        if (worker != null) {
+            worker.cancel(true);
+            worker = null;
+        }
+        searching = false;
+    }
+
+    /** Goes to the next or previous hit, starting a search if needed. */
+    private void step(boolean forward) {
+        String query = field.getText();
+        if (query.isEmpty()) {
+            return;
+        }
+        if (!query.equals(searchedQuery)) {
+            if (!startSearch(query)) {
+                return;
+            }
+            current = -1;
+        }
+        move(forward);
+    }
+
+    private boolean startSearch(String query) {
+        invalidate();
+        Pattern pattern;
+        try {
+            pattern = compile(query);
+        } catch (PatternSyntaxException e) {
+            status.setText("Invalid regex: " + e.getDescription());
+            return false;
+        }
+        searchedQuery = query;
+        hits = new SearchHits();
+        searching = true;
+        status.setText("Searching...");
+        SearchHits owner = hits;
+        worker = new TextSearchWorker(
+            target.getSearchText(),
+            pattern,
+            batch -> {
+                owner.addBatch(batch);
+                if (current < 0) {
+                    move(true); // first hits: jump to the nearest one
+                } else {
+                    target.setHits(owner, current);
+                    updateStatus();
+                }
+            },
+            count -> {
+                searching = false;
+                worker = null;
+                if (count < 0) {
+                    status.setText("Search failed");
+                    return;
+                }
+                updateStatus();
+            }
+        );
+        worker.execute();
+        return true;
+    }
+
+    private Pattern compile(String query) {
+        boolean bytes = target.isByteText();
+        int flags = 0;
+        if (!caseBox.isSelected()) {
+            // Unicode case folding needs decoded text
+            flags = Pattern.CASE_INSENSITIVE |
+                (bytes ? 0 : Pattern.UNICODE_CASE);
+        }
+        if (regexBox.isSelected()) {
+            return Pattern.compile(query, flags);
+        }
+        String literal = bytes
+            ? new String(
+                query.getBytes(StandardCharsets.UTF_8),
+                StandardCharsets.ISO_8859_1
+            )
+            : query;
+        return Pattern.compile(Pattern.quote(literal), flags);
+    }
+
+    private void move(boolean forward) {
+        if (hits == null || hits.size() == 0) {
+            updateStatus();
+            return;
+        }
+        int next;
+        if (current < 0) {
+            next = hits.ceiling(target.getSearchOrigin());
+            if (!forward) {
+                next--;
+            }
+        } else {
+            next = forward ? current + 1 : current - 1;
+        }
+        if (next >= hits.size()) {
+            if (searching) {
+                updateStatus(); // more hits may still come
+                return;
+            }
+            next = 0; // wrap to the top
+        } else if (next < 0) {
+            next = hits.size() - 1;
+        }
+        current = next;
+        target.setHits(hits, current);
+        target.revealHit(hits.start(current), hits.end(current));
+        updateStatus();
+    }
+
+    private void updateStatus() {
+        if (hits == null) {
+            return;
+        }
+        boolean more = searching || hits.size() >= TextSearchWorker.MAX_HITS;
+        String count = hits.size() + (more ? "+" : "");
+        if (hits.size() == 0) {
+            status.setText(searching ? "Searching..." : "No matches");
+        } else if (current < 0) {
+            status.setText(count + " matches");
+        } else {
+            status.setText(
+                (current + 1) +
+                    " of " +
+                    count +
+                    " (" +
+                    target.describe(hits.start(current)) +
+                    ")"
+            );
+        }
+    }
+
+    private static void bind(
+        JComponent owner,
+        int keyCode,
+        int modifiers,
+        String name,
+        Runnable action
+    ) {
+        bind(owner, keyCode, modifiers, name, action, JComponent.WHEN_FOCUSED);
+    }
+
+    private static void bind(
+        JComponent owner,
+        int keyCode,
+        int modifiers,
+        String name,
+        Runnable action,
+        int condition
+    ) {
+        owner
+            .getInputMap(condition)
+            .put(KeyStroke.getKeyStroke(keyCode, modifiers), name);
+        owner
+            .getActionMap()
+            .put(
+                name,
+                new AbstractAction() {
+                    @Override
+                    public void actionPerformed(ActionEvent e) {
+                        action.run();
+                    }
+                }
+            );
+    }
+}
@@ -0,0 +1,263 @@
+package com.quillapiclient.components;
+
+import com.quillapiclient.server.ApiResponse;
+import com.quillapiclient.server.EventRingBuffer;
+import com.quillapiclient.server.ResponseStreamListener;
+import com.quillapiclient.server.StreamEvent;
+import com.quillapiclient.utility.ResponseFormatter;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Shows a response in the response panel while it is still arriving: the
+ * headers as soon as they are in, then the raw body, appended in batches
+ * every {@link #REFRESH_MILLIS} with a live byte count and throughput.
+ * The body preview is opt-in; event streams (SSE, NDJSON) always switch
+ * to an {@link EventStreamView}, since they may never complete.
+ *
+ * <p>Bytes arrive on the HTTP client's thread and are only buffered
+ * there; a Swing timer decodes and appends them, so a fast stream costs
+ * one document insert per tick rather than one per packet. Past
+ * {@link #MAX_PREVIEW_CHARS} the preview stops growing and only the
+ * counters move. When the response is complete the panel formats it as
+ * usual, replacing the preview.
+ */
+class ResponseStreamPreview implements ResponseStreamListener {
+
+    static final int REFRESH_MILLIS = Integer.getInteger(
+        "quill.stream.refreshMillis",
+        100
+    );
+    static final int MAX_PREVIEW_CHARS = ResponseRenderWorker.LARGE_BODY_CHARS;
+
+    private final ResponsePanel panel;
+    private final boolean previewBody;
+    private final Consumer<StreamEvent> eventHandler;
+    private final LongSupplier droppedEvents;
+    private final EventStreamView.TypeCounter eventTypes =
+        new EventStreamView.TypeCounter();
+    private final Timer timer;
+    private final long startNanos = System.nanoTime();
+    private volatile boolean stopped = false;
+
+    // Written on the HTTP thread, read on the EDT; guarded by this
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long received = 0;
+    private long buffered = 0; // bytes ever put in pending
+
+    // Set once, before the first body byte
+    private volatile int statusCode;
+    private volatile Map<String, List<String>> headers;
+    private volatile long timeToFirstByte = -1;
+
+    // Set when the body turns out to be an event stream
+    private volatile Runnable stopEvents;
+
+    // EDT only
+    private EventStreamView eventView;
+    private CharsetDecoder decoder;
+    private byte[] carry = new byte[0]; // incomplete character from last tick
+    private boolean truncated = false;
+
+    /**
+     * @param previewBody  show headers and body while they arrive; if
+     *                     false, only event streams are shown live
+     * @param eventHandler  gets each event of an event stream, on the HTTP
+     *                      thread, or null; must hand work off, not block
+     * @param droppedEvents events the handler dropped so far, or null
+     */
+    ResponseStreamPreview(
+        ResponsePanel panel,
+        boolean previewBody,
+        Consumer<StreamEvent> eventHandler,
+        LongSupplier droppedEvents
+    ) {
+        this.panel = panel;
+        this.previewBody = previewBody;
+        this.eventHandler = eventHandler;
+        this.droppedEvents = droppedEvents;
+        this.timer = new Timer(REFRESH_MILLIS, e -> refresh());
+    }
+
+    @Override
+    public void onHeaders(
+        int statusCode,
+        Map<String, List<String>> headers,
+        long timeToFirstByte
+    ) {
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.timeToFirstByte = timeToFirstByte;
+        if (previewBody) {
+            SwingUtilities.invokeLater(this::showHeaders);
+        }
+    }
+
+    @Override
+    public void onBody(byte[] data) {
+        if (!previewBody) {
+            return;
+        }
+        synchronized (this) {
+            received += data.length;
+            long room = MAX_PREVIEW_CHARS - buffered;
+            if (room > 0) {
+                // A char takes at least one byte, so this is enough
+                int length = (int) Math.min(room, data.length);
+                pending.write(data, 0, length);
+                buffered += length;
+            }
+        }
+    }
+
+    @Override
+    public void onEventStream(EventRingBuffer events, Runnable stop) {
+        stopEvents = stop;
+        if (stopped) {
+            stop.run(); // replaced before the headers came
+            return;
+        }
+        SwingUtilities.invokeLater(() -> showEvents(events, stop));
+    }
+
+    @Override
+    public void onEvent(StreamEvent event) {
+        eventTypes.count(event);
+        if (eventHandler != null) {
+            eventHandler.accept(event);
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return stopped;
+    }
+
+    /** Stops updating the panel and cancels the download. EDT only. */
+    void stop() {
+        stopped = true;
+        timer.stop();
+        Runnable stop = stopEvents;
+        if (stop != null) {
+            stop.run();
+        }
+        if (eventView != null) {
+            eventView.dispose();
+            eventView = null;
+        }
+    }
+
+    private void showEvents(EventRingBuffer events, Runnable stop) {
+        if (stopped) {
+            return;
+        }
+        if (!previewBody) {
+            showHeaders(); // as the text behind the event view
+        }
+        timer.stop(); // the event view keeps its own counters
+        eventView = new EventStreamView(
+            events,
+            eventTypes,
+            droppedEvents,
+            stop
+        );
+        panel.showEventStream(eventView.getComponent());
+        panel.setSize("streaming");
+    }
+
+    private void showHeaders() {
+        if (stopped) {
+            return;
+        }
+        // The response only decides the charset here; it has no body
+        ApiResponse head = new ApiResponse();
+        head.setHeaders(headers);
+        decoder = head
+            .getCharset()
+            .newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        StringBuilder text = new StringBuilder();
+        if (headers != null && !headers.isEmpty()) {
+            text.append("HEADERS (").append(headers.size()).append("):\n");
+            text.append(ResponseFormatter.SEPARATOR_SHORT).append("\n");
+            for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+                text.append(entry.getKey())
+                    .append(": ")
+                    .append(String.join(", ", entry.getValue()))
+                    .append("\n");
+            }
+            text.append("\n");
+        }
+        text.append("BODY (receiving):\n");
+        text.append(ResponseFormatter.SEPARATOR_SHORT).append("\n");
+
+        panel.showStreamText(text.toString(), statusCode);
+        if (previewBody) {
+            refresh();
+            timer.start();
+        }
+    }
+
+    private void refresh() {
+        if (stopped) {
+            timer.stop();
+            return;
+        }
+        byte[] bytes;
+        long total;
+        boolean full;
+        synchronized (this) {
+            bytes = pending.toByteArray();
+            pending.reset();
+            total = received;
+            full = buffered >= MAX_PREVIEW_CHARS && received > buffered;
+        }
+        if (bytes.length > 0) {
+            panel.appendStreamText(decode(bytes));
+        }
+        if (full && !truncated) {
+            truncated = true;
+            panel.appendStreamText(
+                "\n\n... [Preview stopped; still receiving]"
+            );
+        }
+        long elapsed = (System.nanoTime() - startNanos) / 1_000_000;
+        long perSecond = elapsed > 0 ? total * 1000 / elapsed : 0;
+        panel.setDuration(elapsed, timeToFirstByte);
+        panel.setSize(
+            ResponseFormatter.formatSize(total) +
+                " (" +
+                ResponseFormatter.formatSize(perSecond) +
+                "/s)"
+        );
+    }
+
+    /** Decodes bytes, holding back a character split across ticks. */
+    private String decode(byte[] bytes) {
+        byte[] input = bytes;
+        if (carry.length > 0) {
+            input = Arrays.copyOf(carry, carry.length + bytes.length);
+            System.arraycopy(bytes, 0, input, carry.length, bytes.length);
+        }
+        ByteBuffer in = ByteBuffer.wrap(input);
+        CharBuffer out = CharBuffer.allocate(
+            (int) (input.length * (double) decoder.maxCharsPerByte()) + 1
+        );
+        decoder.decode(in, out, false);
+        carry = Arrays.copyOfRange(input, in.position(), input.length);
+        out.flip();
+        return out.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package com.quillapiclient.components;
+
+import java.util.Arrays;
+
+/**
+ * Search hits as parallel arrays of start and end offsets, in document
+ * order. Hits arrive in batches from {@link TextSearchWorker}; regex
+ * matches never overlap, so both arrays are sorted and a hit near any
+ * offset is found by binary search instead of searching the text again.
+ * EDT only.
+ */
+class SearchHits {
+
+    private int[] starts = new int[256];
+    private int[] ends = new int[256];
+    private int size = 0;
+
+    /** Appends a batch of {@code start, end} pairs. */
+    void addBatch(int[] pairs) {
+        int needed = size + pairs.length / 2;
+        if (needed > starts.length) {
+            int capacity = Math.max(needed, starts.length * 2);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        for (int i = 0; i < pairs.length; i += 2) {
+            starts[size] = pairs[i];
+            ends[size] = pairs[i + 1];
+            size++;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int start(int hit) {
+        return starts[hit];
+    }
+
+    int end(int hit) {
+        return ends[hit];
+    }
+
+    /** First hit starting at or after {@code offset}, or {@link #size()}. */
+    int ceiling(int offset) {
+        int index = Arrays.binarySearch(starts, 0, size, offset);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && starts[index - 1] == offset) {
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * First hit ending after {@code offset}: the first one that can
+     * overlap a range starting there. {@link #size()} if none.
+     */
+    int firstEndingAfter(int offset) {
+        int index = Arrays.binarySearch(ends, 0, size, offset + 1);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && ends[index - 1] > offset) {
+            index--;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,149 @@
+package com.quillapiclient.components;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.swing.SwingWorker;
+
+/**
+ * Finds every match of a pattern in a text off the EDT, publishing the
+ * hits in batches as {@code start, end} pairs so the first ones can be
+ * shown while the rest of the text is scanned.
+ *
+ * <p>The first hit is published on its own; after that a batch goes out
+ * every {@link #BATCH_HITS} hits or {@link #BATCH_MILLIS} ms. Cancelling
+ * interrupts the scan even inside a slow regex, since the text is read
+ * through a wrapper that checks for interruption. Scanning stops at
+ * {@link #MAX_HITS}.
+ */
+class TextSearchWorker extends SwingWorker<Integer, int[]> {
+
+    static final int BATCH_HITS = 4096;
+    static final long BATCH_MILLIS = 100;
+    static final int MAX_HITS = Integer.getInteger(
+        "quill.search.maxHits",
+        1_000_000
+    );
+
+    private final CharSequence text;
+    private final Pattern pattern;
+    private final Consumer<int[]> onBatch;
+    private final Consumer<Integer> onFinished;
+
+    /**
+     * @param text       the text to search; must not change meanwhile
+     * @param pattern    what to find; empty matches are skipped
+     * @param onBatch    called on the EDT with each batch of hit pairs
+     * @param onFinished called on the EDT with the hit count, or -1 if the
+     *                   search failed
+     */
+    TextSearchWorker(
+        CharSequence text,
+        Pattern pattern,
+        Consumer<int[]> onBatch,
+        Consumer<Integer> onFinished
+    ) {
+        this.text = text;
+        this.pattern = pattern;
+        this.onBatch = onBatch;
+        this.onFinished = onFinished;
+    }
+
+    @Override
+    protected Integer doInBackground() {
+        Matcher matcher = pattern.matcher(new InterruptibleText(text));
+        int[] batch = new int[2];
+        int batchSize = 0;
+        int count = 0;
+        long lastPublish = System.currentTimeMillis();
+        while (count < MAX_HITS && matcher.find()) {
+            if (matcher.end() == matcher.start()) {
+                continue;
+            }
+            if (batchSize == batch.length) {
+                batch = Arrays.copyOf(batch, batch.length * 2);
+            }
+            batch[batchSize++] = matcher.start();
+            batch[batchSize++] = matcher.end();
+            count++;
+            long now = System.currentTimeMillis();
+            if (
+                count == 1 ||
+                batchSize >= 2 * BATCH_HITS ||
+                now - lastPublish >= BATCH_MILLIS
+            ) {
+                publish(Arrays.copyOf(batch, batchSize));
+                batchSize = 0;
+                lastPublish = now;
+            }
+        }
+        if (batchSize > 0) {
+            publish(Arrays.copyOf(batch, batchSize));
+        }
+        return count;
+    }
+
+    @Override
+    protected void process(List<int[]> batches) {
+        if (isCancelled()) {
+            return;
+        }
+        for (int[] batch : batches) {
+            onBatch.accept(batch);
+        }
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            onFinished.accept(get());
+        } catch (Exception e) {
+            System.err.println("Error searching response: " + e.getMessage());
+            e.printStackTrace();
+            onFinished.accept(-1);
+        }
+    }
+
+    /** Text view that aborts the regex engine once interrupted. */
+    private static class InterruptibleText implements CharSequence {
+
+        private final CharSequence text;
+        private int reads = 0;
+
+        InterruptibleText(CharSequence text) {
+            this.text = text;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (
+                (++reads & 0xFFFFF) == 0 &&
+                Thread.currentThread().isInterrupted()
+            ) {
+                throw new CancellationException();
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
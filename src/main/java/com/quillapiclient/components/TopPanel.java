@@ -1,5 +1,6 @@
 package com.quillapiclient.components;
 
+import com.quillapiclient.objects.LazyRequest;
 import com.quillapiclient.objects.Request;
 import com.quillapiclient.utility.AppColorTheme;
 import com.quillapiclient.utility.MethodColorUtil;
@@ -10,7 +11,9 @@ import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.util.Set;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
@@ -20,10 +23,15 @@ public class TopPanel {
     private JPanel panel;
     private JComboBox<String> methodDropdown;
     private JTextField urlField;
+    private UnresolvedVariableHighlighter urlVariables;
     private JButton sendButton;
     private JButton saveButton;
+    private JButton compareButton;
+    private JCheckBox streamCheckBox;
     private final String SAVE_TEXT = "Save";
     private final String SEND_TEXT = "Send";
+    private final String STREAM_TEXT = "Stream";
+    private final String COMPARE_TEXT = "Compare";
     private final String URL_PLACEHOLDER = "Enter URL or paste text";
     private boolean isPlaceholderShown = true;
     private final String[] methods = {
@@ -83,6 +91,7 @@ public class TopPanel {
         urlField.setPreferredSize(new Dimension(urlSize.width, fixedHeight));
         urlField.setMinimumSize(new Dimension(0, fixedHeight));
         urlField.setMaximumSize(new Dimension(Integer.MAX_VALUE, fixedHeight));
+        urlVariables = new UnresolvedVariableHighlighter(urlField);
 
         // Send button
         sendButton = new JButton(SEND_TEXT);
@@ -101,9 +110,34 @@ public class TopPanel {
         saveButton.setMinimumSize(new Dimension(saveSize.width, fixedHeight));
         saveButton.setMaximumSize(new Dimension(saveSize.width, fixedHeight));
 
+        // Send to several environments and compare the responses
+        compareButton = new JButton(COMPARE_TEXT);
+        compareButton.setToolTipText(
+            "Send to several environments and compare the responses"
+        );
+        compareButton.setMargin(new Insets(0, 10, 0, 10));
+        Dimension compareSize = compareButton.getPreferredSize();
+        compareButton.setPreferredSize(
+            new Dimension(compareSize.width, fixedHeight)
+        );
+        compareButton.setMinimumSize(
+            new Dimension(compareSize.width, fixedHeight)
+        );
+        compareButton.setMaximumSize(
+            new Dimension(compareSize.width, fixedHeight)
+        );
+
+        // Opt-in: show headers and body while the response arrives
+        streamCheckBox = new JCheckBox(STREAM_TEXT);
+        streamCheckBox.setToolTipText(
+            "Show headers and body while the response is still arriving"
+        );
+
         // Use FlowLayout with no gaps to ensure buttons align properly
         JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+        buttons.add(streamCheckBox);
         buttons.add(sendButton);
+        buttons.add(compareButton);
         buttons.add(saveButton);
 
         // Set height constraints after adding buttons so width is calculated correctly
@@ -201,6 +235,15 @@ public class TopPanel {
         return saveButton;
     }
 
+    public JButton getCompareButton() {
+        return compareButton;
+    }
+
+    /** Whether the response should be shown while it streams in. */
+    public boolean isStreamSelected() {
+        return streamCheckBox.isSelected();
+    }
+
     /**
      * Populates the URL text field and method dropdown from a Request.
      */
@@ -210,7 +253,12 @@ public class TopPanel {
             return;
         }
 
-        if (request.getUrl() != null && request.getUrl().getRaw() != null) {
+        // A lazy request already has the raw URL; don't decode the full URL for it
+        if (request instanceof LazyRequest lazy) {
+            setUrlText(lazy.getUrlRaw() != null ? lazy.getUrlRaw() : "");
+        } else if (
+            request.getUrl() != null && request.getUrl().getRaw() != null
+        ) {
             setUrlText(request.getUrl().getRaw());
         } else {
             setUrlText("");
@@ -221,6 +269,14 @@ public class TopPanel {
         }
     }
 
+    /**
+     * Sets the variable names the current scopes define; references to
+     * any other name are marked in the URL.
+     */
+    public void setDefinedVariables(Set<String> names) {
+        urlVariables.setDefinedNames(names);
+    }
+
     /**
      * Registers a callback that fires whenever the URL text or method changes.
      */
@@ -0,0 +1,131 @@
+package com.quillapiclient.components;
+
+import com.quillapiclient.utility.VariableReplacer;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
+
+/**
+ * Marks {@code {{variable}}} references in a text field that no scope
+ * defines, as the text is typed, and lists them in the tooltip. Postman's
+ * dynamic variables ({@code {{$guid}}} and the like) are never marked.
+ *
+ * <p>The defined names come from {@link #setDefinedNames}, which the
+ * owner calls when the request, the environment or the variables change;
+ * the check itself only scans the field's text, so it runs on every edit.
+ */
+class UnresolvedVariableHighlighter {
+
+    // Same syntax as VariableReplacer, with positions
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile(
+        "\\{\\{([^}]+)\\}\\}"
+    );
+    private static final Highlighter.HighlightPainter PAINTER =
+        new DefaultHighlighter.DefaultHighlightPainter(
+            new Color(0xE5, 0x39, 0x35, 0x60)
+        );
+
+    private final JTextComponent field;
+    private final String defaultToolTip;
+    private final List<Object> tags = new ArrayList<>();
+    private Set<String> definedNames; // null until known: mark nothing
+    private boolean updateQueued = false;
+
+    UnresolvedVariableHighlighter(JTextComponent field) {
+        this.field = field;
+        this.defaultToolTip = field.getToolTipText();
+        field
+            .getDocument()
+            .addDocumentListener(
+                new DocumentListener() {
+                    @Override
+                    public void insertUpdate(DocumentEvent e) {
+                        queueUpdate();
+                    }
+
+                    @Override
+                    public void removeUpdate(DocumentEvent e) {
+                        queueUpdate();
+                    }
+
+                    @Override
+                    public void changedUpdate(DocumentEvent e) {
+                        // Attribute changes do not move references
+                    }
+                }
+            );
+    }
+
+    /** Sets the names the current scopes define and re-checks the text. */
+    void setDefinedNames(Set<String> definedNames) {
+        this.definedNames = definedNames;
+        update();
+    }
+
+    // Highlights cannot change while the document is notifying listeners
+    private void queueUpdate() {
+        if (!updateQueued) {
+            updateQueued = true;
+            SwingUtilities.invokeLater(this::update);
+        }
+    }
+
+    private void update() {
+        updateQueued = false;
+        Highlighter highlighter = field.getHighlighter();
+        for (Object tag : tags) {
+            highlighter.removeHighlight(tag);
+        }
+        tags.clear();
+        if (definedNames == null) {
+            field.setToolTipText(defaultToolTip);
+            return;
+        }
+
+        String text = field.getText();
+        if (!VariableReplacer.containsVariables(text)) {
+            field.setToolTipText(defaultToolTip);
+            return;
+        }
+        List<String> unresolved = new ArrayList<>();
+        Matcher matcher = VARIABLE_PATTERN.matcher(text);
+        while (matcher.find()) {
+            String name = matcher.group(1).trim();
+            if (name.isEmpty() || name.startsWith("$")) {
+                continue;
+            }
+            if (definedNames.contains(name)) {
+                continue;
+            }
+            if (!unresolved.contains(name)) {
+                unresolved.add(name);
+            }
+            try {
+                tags.add(
+                    highlighter.addHighlight(
+                        matcher.start(),
+                        matcher.end(),
+                        PAINTER
+                    )
+                );
+            } catch (BadLocationException e) {
+                break; // text changed again; the queued update redoes it
+            }
+        }
+        field.setToolTipText(
+            unresolved.isEmpty()
+                ? defaultToolTip
+                : "Not defined in any scope: " + String.join(", ", unresolved)
+        );
+    }
+}
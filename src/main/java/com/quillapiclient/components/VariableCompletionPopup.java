@@ -0,0 +1,322 @@
+package com.quillapiclient.components;
+
+import com.quillapiclient.utility.VariableTrie;
+import java.awt.Component;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+import java.util.function.BiFunction;
+import javax.swing.DefaultCellEditor;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+
+/**
+ * Completes {@code {{variable}}} names in a text field: typing {@code {{}
+ * opens a list of the names that start with what follows, each with the
+ * scope that defines it and its value, narrowed as more is typed. Up and
+ * Down choose, Enter (or a click) inserts the name and the closing
+ * braces, Escape closes the list.
+ *
+ * <p>Completions come from a function of the typed prefix and a limit,
+ * called on the EDT on every edit, so it must answer from memory.
+ */
+class VariableCompletionPopup {
+
+    static final int MAX_COMPLETIONS = Integer.getInteger(
+        "quill.variables.maxCompletions",
+        50
+    );
+    private static final int VISIBLE_ROWS = 8;
+    private static final int VALUE_CHARS = 60;
+    // A name is never longer than this; keeps the look-behind short
+    private static final int MAX_NAME_CHARS = 256;
+
+    private final JTextComponent field;
+    private final BiFunction<
+        String,
+        Integer,
+        List<VariableTrie.Completion>
+    > completer;
+    private final DefaultListModel<VariableTrie.Completion> model =
+        new DefaultListModel<>();
+    private final JList<VariableTrie.Completion> list = new JList<>(model);
+    private final JPopupMenu popup = new JPopupMenu();
+    private int nameStart = -1; // offset just after the "{{" being completed
+    private boolean updateQueued = false;
+
+    private VariableCompletionPopup(
+        JTextComponent field,
+        BiFunction<String, Integer, List<VariableTrie.Completion>> completer
+    ) {
+        this.field = field;
+        this.completer = completer;
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        list.setCellRenderer(new CompletionRenderer());
+        list.addMouseListener(
+            new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    accept();
+                }
+            }
+        );
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.setBorder(null);
+        popup.setFocusable(false);
+        popup.add(scrollPane);
+
+        field
+            .getDocument()
+            .addDocumentListener(
+                new DocumentListener() {
+                    @Override
+                    public void insertUpdate(DocumentEvent e) {
+                        queueUpdate();
+                    }
+
+                    @Override
+                    public void removeUpdate(DocumentEvent e) {
+                        queueUpdate();
+                    }
+
+                    @Override
+                    public void changedUpdate(DocumentEvent e) {
+                        // Attribute changes do not move the caret
+                    }
+                }
+            );
+        field.addCaretListener(e -> {
+            if (popup.isVisible()) {
+                queueUpdate();
+            }
+        });
+        field.addFocusListener(
+            new FocusAdapter() {
+                @Override
+                public void focusLost(FocusEvent e) {
+                    hide();
+                }
+            }
+        );
+        // Before the field's own bindings, so Enter does not send or commit
+        field.addKeyListener(
+            new KeyAdapter() {
+                @Override
+                public void keyPressed(KeyEvent e) {
+                    if (popup.isVisible()) {
+                        handleKey(e);
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * Adds completion to a text field or editor.
+     *
+     * @param completer gets the prefix typed after {@code {{} and the most
+     *                  completions wanted
+     */
+    static void install(
+        JTextComponent field,
+        BiFunction<String, Integer, List<VariableTrie.Completion>> completer
+    ) {
+        new VariableCompletionPopup(field, completer);
+    }
+
+    /**
+     * Adds completion to the cells of a table, by giving it a text field
+     * editor that completes. Typing in a cell moves the focus into the
+     * editor, so the list gets the keys.
+     */
+    static void installInTable(
+        JTable table,
+        BiFunction<String, Integer, List<VariableTrie.Completion>> completer
+    ) {
+        JTextField editor = new JTextField();
+        editor.setBorder(null);
+        install(editor, completer);
+        table.setDefaultEditor(Object.class, new DefaultCellEditor(editor));
+        table.setSurrendersFocusOnKeystroke(true);
+    }
+
+    private void handleKey(KeyEvent e) {
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_DOWN -> move(1);
+            case KeyEvent.VK_UP -> move(-1);
+            case KeyEvent.VK_PAGE_DOWN -> move(VISIBLE_ROWS);
+            case KeyEvent.VK_PAGE_UP -> move(-VISIBLE_ROWS);
+            case KeyEvent.VK_ENTER -> accept();
+            case KeyEvent.VK_ESCAPE -> hide();
+            default -> {
+                return; // typing goes to the field
+            }
+        }
+        e.consume();
+    }
+
+    private void move(int delta) {
+        int index = Math.max(
+            0,
+            Math.min(model.getSize() - 1, list.getSelectedIndex() + delta)
+        );
+        list.setSelectedIndex(index);
+        list.ensureIndexIsVisible(index);
+    }
+
+    // The text cannot change while the document is notifying listeners
+    private void queueUpdate() {
+        if (!updateQueued) {
+            updateQueued = true;
+            SwingUtilities.invokeLater(this::update);
+        }
+    }
+
+    private void update() {
+        updateQueued = false;
+        String prefix = prefixAtCaret();
+        if (prefix == null) {
+            hide();
+            return;
+        }
+        List<VariableTrie.Completion> completions = completer.apply(
+            prefix,
+            MAX_COMPLETIONS
+        );
+        if (completions.isEmpty()) {
+            hide();
+            return;
+        }
+        model.clear();
+        model.addAll(completions);
+        list.setVisibleRowCount(Math.min(completions.size(), VISIBLE_ROWS));
+        list.setSelectedIndex(0);
+        list.ensureIndexIsVisible(0);
+        try {
+            Rectangle2D at = field.modelToView2D(nameStart);
+            popup.pack();
+            popup.show(
+                field,
+                (int) at.getX(),
+                (int) (at.getY() + at.getHeight())
+            );
+        } catch (BadLocationException e) {
+            hide();
+        }
+    }
+
+    /**
+     * What was typed between an open {@code {{} and the caret, or null if
+     * the caret is not inside a reference. Sets {@link #nameStart}.
+     */
+    private String prefixAtCaret() {
+        if (!field.isShowing() || !field.isFocusOwner()) {
+            return null;
+        }
+        int caret = field.getCaretPosition();
+        int from = Math.max(0, caret - MAX_NAME_CHARS - 2);
+        String before;
+        try {
+            before = field.getDocument().getText(from, caret - from);
+        } catch (BadLocationException e) {
+            return null;
+        }
+        int open = before.lastIndexOf("{{");
+        if (open < 0) {
+            return null;
+        }
+        String prefix = before.substring(open + 2);
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (c == '{' || c == '}' || c == '\n') {
+                return null;
+            }
+        }
+        nameStart = from + open + 2;
+        return prefix;
+    }
+
+    private void accept() {
+        VariableTrie.Completion completion = list.getSelectedValue();
+        hide();
+        if (completion == null || nameStart < 0) {
+            return;
+        }
+        Document document = field.getDocument();
+        int caret = field.getCaretPosition();
+        try {
+            document.remove(nameStart, caret - nameStart);
+            int end = nameStart + completion.name.length();
+            document.insertString(nameStart, completion.name, null);
+            boolean closed =
+                document.getLength() >= end + 2 &&
+                document.getText(end, 2).equals("}}");
+            if (!closed) {
+                document.insertString(end, "}}", null);
+            }
+            field.setCaretPosition(end + 2);
+        } catch (BadLocationException e) {
+            // The text changed under the list; leave it as typed
+        }
+    }
+
+    private void hide() {
+        if (popup.isVisible()) {
+            popup.setVisible(false);
+        }
+        nameStart = -1;
+    }
+
+    private static class CompletionRenderer extends DefaultListCellRenderer {
+
+        @Override
+        public Component getListCellRendererComponent(
+            JList<?> list,
+            Object value,
+            int index,
+            boolean isSelected,
+            boolean cellHasFocus
+        ) {
+            super.getListCellRendererComponent(
+                list,
+                value,
+                index,
+                isSelected,
+                cellHasFocus
+            );
+            if (value instanceof VariableTrie.Completion completion) {
+                String shown = completion.value.length() > VALUE_CHARS
+                    ? completion.value.substring(0, VALUE_CHARS) + "..."
+                    : completion.value;
+                setText(
+                    completion.name +
+                        "    " +
+                        shown.replace('\n', ' ') +
+                        "    (" +
+                        completion.scope +
+                        ")"
+                );
+            }
+            return this;
+        }
+    }
+}
@@ -4,24 +4,93 @@ import com.quillapiclient.components.ResponsePanel;
 import com.quillapiclient.db.CollectionDao;
 import com.quillapiclient.db.LiteConnection;
 import com.quillapiclient.db.ResponseDao;
+import com.quillapiclient.db.RetryPolicyDao;
+import com.quillapiclient.json.JsonDiff;
+import com.quillapiclient.objects.ResponseSummary;
 import com.quillapiclient.scripting.ScriptOrchestrator;
 import com.quillapiclient.server.ApiCallBuilder;
 import com.quillapiclient.server.ApiResponse;
+import com.quillapiclient.server.ResponseStreamListener;
+import com.quillapiclient.server.RetryPolicy;
+import com.quillapiclient.utility.FormattedResponseCache;
 import com.quillapiclient.utility.ResponseFormatter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import javax.swing.*;
 
 public class ApiController {
 
     private ResponsePanel responsePanel;
     private RequestController requestController;
+    private volatile Runnable onResponseSaved;
     private static final int NUMBER_OF_THREADS = 1;
     private static final ExecutorService executorService =
         Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    // Sends to several environments at once share the HTTP client
+    private static final int FAN_OUT_THREADS = Integer.getInteger(
+        "quill.fanOut.threads",
+        8
+    );
+    private static final int MAX_BODY_DIFFERENCES = Integer.getInteger(
+        "quill.diff.maxDifferences",
+        1000
+    );
+    private static final ExecutorService fanOutExecutor =
+        Executors.newFixedThreadPool(FAN_OUT_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "environment-fan-out");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    /** The differences between two stored response bodies. */
+    public static class BodyDiff {
+
+        public final JsonDiff.Result result;
+        public final boolean json; // false: only says whether text differs
+
+        public BodyDiff(JsonDiff.Result result, boolean json) {
+            this.result = result;
+            this.json = json;
+        }
+    }
+
+    /** The response one environment gave in a multi-environment send. */
+    public static class EnvironmentResult {
+
+        public final int environmentId;
+        public final String environmentName;
+        public final ApiResponse response;
+        // Body against the first environment's; null for the first
+        public final JsonDiff.Result bodyDiff;
+        public final boolean bodyIsJson; // false: bodyDiff compares bytes
+
+        public EnvironmentResult(
+            int environmentId,
+            String environmentName,
+            ApiResponse response,
+            JsonDiff.Result bodyDiff,
+            boolean bodyIsJson
+        ) {
+            this.environmentId = environmentId;
+            this.environmentName = environmentName;
+            this.response = response;
+            this.bodyDiff = bodyDiff;
+            this.bodyIsJson = bodyIsJson;
+        }
+    }
 
     public ApiController(
         ResponsePanel responsePanel,
@@ -31,9 +100,21 @@ public class ApiController {
         this.requestController = requestController;
     }
 
+    /**
+     * Sets a callback run on the EDT after a response has been saved to
+     * history (e.g. to refresh latency trends).
+     */
+    public void setOnResponseSaved(Runnable onResponseSaved) {
+        this.onResponseSaved = onResponseSaved;
+    }
+
     /**
      * Script-aware execution: runs pre-request script, executes HTTP call,
      * then runs post-response script. Accepts environment ID for variable resolution.
+     * With {@code stream}, the response panel shows the headers and body
+     * while they arrive; the formatted response replaces them at the end.
+     * Event streams are always shown live, and the post-response script can
+     * react to each event through {@code pm.event}.
      */
     public void executeApiCall(
         String url,
@@ -46,7 +127,8 @@ public class ApiController {
         String token,
         String paramsText,
         int itemId,
-        int environmentId
+        int environmentId,
+        boolean stream
     ) {
         if (url == null || url.isEmpty()) {
             responsePanel.setResponse(ResponseFormatter.ERROR_URL_EMPTY);
@@ -79,6 +161,13 @@ public class ApiController {
         // Phase 1: run pre-request script (on the calling thread — it's tiny)
         orchestrator.runPreRequest();
 
+        // Event streams (SSE, NDJSON) are shown live even without stream
+        ResponseStreamListener streamListener = responsePanel.beginStream(
+            stream,
+            orchestrator::runOnEvent,
+            orchestrator::getDroppedEvents
+        );
+
         // Submit the API call to the executor service
         executorService.submit(() -> {
             long startTime = System.currentTimeMillis();
@@ -88,15 +177,15 @@ public class ApiController {
             java.util.Map<String, String> mergedVars =
                 orchestrator.getMergedVariables();
 
-            System.out.println(
-                "[ApiController] mergedVars keys: " + mergedVars.keySet()
-            );
-
-            System.out.println(
-                "[ApiController] mergedVars values: " + mergedVars.values()
-            );
-
             try {
+                RetryPolicy retryPolicy = LiteConnection.withNewConnection(
+                    conn -> {
+                        orchestrator.prepareEventScript();
+                        return itemId > 0
+                            ? RetryPolicyDao.getEffectivePolicy(itemId)
+                            : RetryPolicy.NONE;
+                    }
+                );
                 ApiResponse response = ApiCallBuilder.fromUI(
                     url,
                     method,
@@ -109,10 +198,17 @@ public class ApiController {
                     paramsText,
                     -1, // don't reload DB vars — orchestrator already loaded everything
                     mergedVars
-                ).execute();
-
-                long duration = System.currentTimeMillis() - startTime;
-                response.setDuration(duration);
+                )
+                    .retryPolicy(retryPolicy)
+                    .execute(streamListener);
+
+                // The builder times the exchange itself (first byte and
+                // total); responses it made up for errors are not timed
+                if (response.getDuration() <= 0) {
+                    response.setDuration(
+                        System.currentTimeMillis() - startTime
+                    );
+                }
 
                 // All DB work on this executor thread shares one dedicated
                 // connection (lookup, save response, post-script persist).
@@ -122,6 +218,10 @@ public class ApiController {
                             requestController.getRequestIdByItemId(itemId);
                         if (requestId > 0) {
                             ResponseDao.saveResponse(response, requestId);
+                            Runnable saved = onResponseSaved;
+                            if (saved != null) {
+                                SwingUtilities.invokeLater(saved);
+                            }
                         }
                     }
                     orchestrator.runPostResponse(response);
@@ -134,6 +234,277 @@ public class ApiController {
         });
     }
 
+    /**
+     * Sends one request to several environments at once and compares the
+     * responses with the first environment's. Each send resolves its own
+     * environment's variables and runs the pre-request script, as a normal
+     * send would; post-response scripts are not run and nothing is saved
+     * to history. Bodies are diffed as JSON, token by token, so large
+     * bodies are never held as trees.
+     *
+     * @param environments the environments, the baseline first
+     * @param onDone       gets the results in the same order, on the EDT
+     */
+    public void sendToEnvironments(
+        String url,
+        String method,
+        String headersText,
+        String bodyText,
+        String authType,
+        String username,
+        String password,
+        String token,
+        String paramsText,
+        int itemId,
+        List<EnvironmentListManager.EnvironmentInfo> environments,
+        Consumer<List<EnvironmentResult>> onDone
+    ) {
+        int collectionId =
+            itemId > 0 ? CollectionDao.getCollectionIdByItemId(itemId) : -1;
+        RetryPolicy retryPolicy = itemId > 0
+            ? RetryPolicyDao.getEffectivePolicy(itemId)
+            : RetryPolicy.NONE;
+
+        List<CompletableFuture<ApiResponse>> sends = new ArrayList<>();
+        for (EnvironmentListManager.EnvironmentInfo environment : environments) {
+            sends.add(
+                CompletableFuture.supplyAsync(
+                    () -> {
+                        Map<String, String> variables =
+                            LiteConnection.withNewConnection(conn -> {
+                                ScriptOrchestrator orchestrator =
+                                    new ScriptOrchestrator(
+                                        collectionId,
+                                        itemId > 0 ? itemId : null,
+                                        environment.id
+                                    );
+                                orchestrator.runPreRequest();
+                                return orchestrator.getMergedVariables();
+                            });
+                        return ApiCallBuilder.fromUI(
+                            url,
+                            method,
+                            headersText,
+                            bodyText,
+                            authType,
+                            username,
+                            password,
+                            token,
+                            paramsText,
+                            -1,
+                            variables != null ? variables : Map.of()
+                        )
+                            .retryPolicy(retryPolicy)
+                            .execute();
+                    },
+                    fanOutExecutor
+                )
+            );
+        }
+
+        CompletableFuture.allOf(
+            sends.toArray(new CompletableFuture<?>[0])
+        ).whenCompleteAsync(
+            (ignored, error) -> {
+                List<EnvironmentResult> results = new ArrayList<>();
+                ApiResponse baseline = null;
+                for (int i = 0; i < environments.size(); i++) {
+                    ApiResponse response = responseOf(sends.get(i));
+                    EnvironmentListManager.EnvironmentInfo environment =
+                        environments.get(i);
+                    if (i == 0) {
+                        baseline = response;
+                        results.add(
+                            new EnvironmentResult(
+                                environment.id,
+                                environment.name,
+                                response,
+                                null,
+                                true
+                            )
+                        );
+                        continue;
+                    }
+                    results.add(diffWithBaseline(environment, baseline, response));
+                }
+                SwingUtilities.invokeLater(() -> onDone.accept(results));
+            },
+            fanOutExecutor
+        );
+    }
+
+    /** A send's response; a send that threw shows as a 500 error. */
+    private static ApiResponse responseOf(CompletableFuture<ApiResponse> send) {
+        try {
+            return send.join();
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println(
+                "Error sending to environment: " + cause.getMessage()
+            );
+            cause.printStackTrace();
+            ApiResponse errorResponse = new ApiResponse();
+            errorResponse.setStatusCode(500);
+            errorResponse.setBody(ResponseFormatter.formatException(
+                cause instanceof Exception ? (Exception) cause : e
+            ));
+            return errorResponse;
+        }
+    }
+
+    private static EnvironmentResult diffWithBaseline(
+        EnvironmentListManager.EnvironmentInfo environment,
+        ApiResponse baseline,
+        ApiResponse response
+    ) {
+        try {
+            JsonDiff.Result diff = usesUtf8(baseline) && usesUtf8(response)
+                ? JsonDiff.diff(
+                    bodyBytesOf(baseline),
+                    bodyBytesOf(response),
+                    MAX_BODY_DIFFERENCES
+                )
+                : JsonDiff.diff(
+                    bodyTextOf(baseline),
+                    bodyTextOf(response),
+                    MAX_BODY_DIFFERENCES
+                );
+            return new EnvironmentResult(
+                environment.id,
+                environment.name,
+                response,
+                diff,
+                true
+            );
+        } catch (IOException e) {
+            // Not JSON (or empty): only say whether the bytes differ
+            byte[] left = bodyBytesOf(baseline);
+            byte[] right = bodyBytesOf(response);
+            List<JsonDiff.Difference> differences = new ArrayList<>();
+            if (!Arrays.equals(left, right)) {
+                differences.add(
+                    new JsonDiff.Difference(
+                        "body",
+                        JsonDiff.Kind.CHANGED,
+                        ResponseFormatter.formatSize(left.length),
+                        ResponseFormatter.formatSize(right.length)
+                    )
+                );
+            }
+            return new EnvironmentResult(
+                environment.id,
+                environment.name,
+                response,
+                new JsonDiff.Result(differences, false),
+                false
+            );
+        }
+    }
+
+    /**
+     * Diffs the bodies of two responses from history, streaming both from
+     * storage, so multi-megabyte bodies are never held whole. Bodies that
+     * are not JSON are compared as text. Safe to call from a background
+     * thread: runs on its own connection.
+     *
+     * @param leftId  the older response
+     * @param rightId the newer response
+     * @return the differences, or null if a body could not be read
+     */
+    public BodyDiff diffStoredResponses(int leftId, int rightId) {
+        return LiteConnection.withNewConnection(conn -> {
+            try (
+                Reader left = openStoredBody(leftId);
+                Reader right = openStoredBody(rightId)
+            ) {
+                return new BodyDiff(
+                    JsonDiff.diff(left, right, MAX_BODY_DIFFERENCES),
+                    true
+                );
+            } catch (IOException notJson) {
+                // Read both again, as plain text
+                try (
+                    Reader left = openStoredBody(leftId);
+                    Reader right = openStoredBody(rightId)
+                ) {
+                    List<JsonDiff.Difference> differences = new ArrayList<>();
+                    if (!contentEquals(left, right)) {
+                        differences.add(
+                            new JsonDiff.Difference(
+                                "body",
+                                JsonDiff.Kind.CHANGED,
+                                null,
+                                null
+                            )
+                        );
+                    }
+                    return new BodyDiff(
+                        new JsonDiff.Result(differences, false),
+                        false
+                    );
+                } catch (IOException e) {
+                    System.err.println(
+                        "Error reading stored responses: " + e.getMessage()
+                    );
+                    e.printStackTrace();
+                    return null;
+                }
+            }
+        });
+    }
+
+    private static Reader openStoredBody(int responseId) {
+        Reader body = ResponseDao.openBody(responseId);
+        return body != null ? body : new StringReader("");
+    }
+
+    private static boolean contentEquals(Reader left, Reader right)
+        throws IOException {
+        char[] leftBuffer = new char[8192];
+        char[] rightBuffer = new char[8192];
+        while (true) {
+            int leftCount = left.read(leftBuffer);
+            if (leftCount < 0) {
+                return right.read() < 0;
+            }
+            // Fill the same count from the right, which may come in pieces
+            int rightCount = 0;
+            while (rightCount < leftCount) {
+                int n = right.read(rightBuffer, rightCount, leftCount - rightCount);
+                if (n < 0) {
+                    return false;
+                }
+                rightCount += n;
+            }
+            if (
+                !Arrays.equals(
+                    leftBuffer,
+                    0,
+                    leftCount,
+                    rightBuffer,
+                    0,
+                    leftCount
+                )
+            ) {
+                return false;
+            }
+        }
+    }
+
+    private static boolean usesUtf8(ApiResponse response) {
+        return response.getCharset().equals(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bodyBytesOf(ApiResponse response) {
+        byte[] bytes = response.getBodyBytes();
+        return bytes != null ? bytes : new byte[0];
+    }
+
+    private static String bodyTextOf(ApiResponse response) {
+        String body = response.getBody();
+        return body != null ? body : "";
+    }
+
     private String createLoadingMessage(
         String url,
         String method,
@@ -174,6 +545,7 @@ public class ApiController {
     /**
      * Loads the latest saved response for a given item from the database.
      * Encapsulates the request-to-response lookup so callers don't touch DAOs directly.
+     * Safe to call from a background thread: runs on its own connection.
      *
      * @param itemId the item ID to look up
      * @return the saved ApiResponse, or null if no response exists
@@ -183,37 +555,64 @@ public class ApiController {
             return null;
         }
 
-        int requestId = requestController.getRequestIdByItemId(itemId);
-        if (requestId <= 0) {
-            return null;
-        }
-
-        return ResponseDao.getLatestResponseByRequestId(requestId);
+        return LiteConnection.withNewConnection(conn -> {
+            int requestId = requestController.getRequestIdByItemId(itemId);
+            if (requestId <= 0) {
+                return null;
+            }
+            int responseId = ResponseDao.getLatestResponseIdByRequestId(
+                requestId
+            );
+            return responseId > 0 ? loadResponse(responseId) : null;
+        });
     }
 
-    private void displayResponse(ApiResponse response) {
-        // Use the unified ResponseFormatter utility
-        String formattedResponse = ResponseFormatter.formatResponse(
-            response,
-            "Response received"
+    /**
+     * Loads one saved response, body and headers included, by its ID.
+     * Safe to call from a background thread: runs on its own connection.
+     *
+     * @param responseId the response ID
+     * @return the saved ApiResponse, or null if it no longer exists
+     */
+    public ApiResponse loadResponseById(int responseId) {
+        return LiteConnection.withNewConnection(conn ->
+            loadResponse(responseId)
         );
+    }
 
-        // Update the response panel
-        responsePanel.setResponse(formattedResponse);
+    /**
+     * A recently shown response comes from the formatted-response cache,
+     * which also holds its text; otherwise it is loaded from history.
+     */
+    private static ApiResponse loadResponse(int responseId) {
+        ApiResponse cached = FormattedResponseCache.getDefault().getResponse(
+            responseId
+        );
+        return cached != null ? cached : ResponseDao.getResponse(responseId);
+    }
 
-        // Update status and duration labels
-        responsePanel.setStatus(response.getStatusCode());
-        responsePanel.setDuration(response.getDuration());
-        responsePanel.setSize(
-            ResponseFormatter.formatSize(response.getBody().length())
+    /**
+     * Loads one page of a request's response history (summaries only).
+     * Safe to call from a background thread: runs on its own connection.
+     *
+     * @param requestId the request ID
+     * @param after     last summary of the previous page, or null
+     * @param limit     page size
+     * @return the page, newest first
+     */
+    public List<ResponseSummary> loadHistoryPage(
+        int requestId,
+        ResponseSummary after,
+        int limit
+    ) {
+        return LiteConnection.withNewConnection(conn ->
+            ResponseDao.getHistoryPage(requestId, after, limit)
         );
+    }
 
-        // If there's an error status, show it more prominently
-        if (!response.isSuccess()) {
-            responsePanel.setErrorState(true);
-        } else {
-            responsePanel.setErrorState(false);
-        }
+    private void displayResponse(ApiResponse response) {
+        // Formatting runs off the EDT; the panel streams the text in
+        responsePanel.showResponse(response, "Response received");
     }
 
     private void displayError(Exception e) {
@@ -0,0 +1,725 @@
+package com.quillapiclient.controller;
+
+import com.quillapiclient.db.ItemDao;
+import com.quillapiclient.db.LiteConnection;
+import com.quillapiclient.db.RequestDao;
+import com.quillapiclient.db.RetryPolicyDao;
+import com.quillapiclient.db.RunDao;
+import com.quillapiclient.objects.AuthType;
+import com.quillapiclient.objects.Credential;
+import com.quillapiclient.objects.ExecutionRequest;
+import com.quillapiclient.objects.Header;
+import com.quillapiclient.objects.Query;
+import com.quillapiclient.objects.Request;
+import com.quillapiclient.scripting.ScriptOrchestrator;
+import com.quillapiclient.scripting.ScriptVariableAnalyzer;
+import com.quillapiclient.scripting.ScriptableVariableMap;
+import com.quillapiclient.server.ApiCallBuilder;
+import com.quillapiclient.server.ApiResponse;
+import com.quillapiclient.server.RetryPolicy;
+import com.quillapiclient.utility.IterationDataReader;
+import com.quillapiclient.utility.VariableReplacer;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every request of a collection or folder, in tree order, once per
+ * row of a data file (once if there is none), as Postman's collection
+ * runner does.
+ *
+ * <p>The data file is read one row at a time, and a row is only read once
+ * an iteration slot is free, so at most {@code parallelism} rows are in
+ * memory whatever the file's size. Iterations run in parallel, each on its
+ * own thread and connection; the requests of one iteration run in order.
+ * A row is bound as {@code pm.iterationData}, resolved above every other
+ * scope, and carries what the iteration's scripts set from one request to
+ * the next (see {@link ScriptOrchestrator}). Scripts run as for a normal
+ * send and their changes are saved as usual.
+ *
+ * <p>With {@code parallelRequests}, the requests of an iteration run as a
+ * workflow instead: a {@link WorkflowPlan} built from the variables each
+ * request's templates and scripts read and set lets independent requests
+ * run at once, while a request still waits for those it depends on. Each
+ * request then resolves against a copy of the iteration's variables taken
+ * when it starts, and what its scripts set is merged back when it ends.
+ *
+ * <p>Sends are not added to response history: each is stored as a
+ * {@link RunDao} row of status, time and size, written in batches.
+ */
+public class CollectionRunner {
+
+    public static final int MAX_PARALLELISM = Integer.getInteger(
+        "quill.runner.maxParallelism",
+        32
+    );
+    private static final int RESULT_BATCH = Integer.getInteger(
+        "quill.runner.resultBatch",
+        500
+    );
+    // Requests of all iterations in flight at once, in workflow runs
+    private static final int STEP_THREADS = Integer.getInteger(
+        "quill.runner.stepThreads",
+        8
+    );
+
+    /** One request sent in an iteration. */
+    public static class StepResult {
+
+        public final int itemId;
+        public final String name;
+        public final int statusCode;
+        public final long durationMs;
+        // Waited for the host's rate limiter, not part of durationMs
+        public final long queuedMs;
+        public final long bodySize;
+
+        public StepResult(
+            int itemId,
+            String name,
+            int statusCode,
+            long durationMs,
+            long queuedMs,
+            long bodySize
+        ) {
+            this.itemId = itemId;
+            this.name = name;
+            this.statusCode = statusCode;
+            this.durationMs = durationMs;
+            this.queuedMs = queuedMs;
+            this.bodySize = bodySize;
+        }
+    }
+
+    /** The requests one data row sent, in run order. */
+    public static class IterationResult {
+
+        public final int iteration; // from 0, in data file order
+        public final List<StepResult> steps;
+        public final boolean failed; // some request failed or errored
+
+        public IterationResult(
+            int iteration,
+            List<StepResult> steps,
+            boolean failed
+        ) {
+            this.iteration = iteration;
+            this.steps = steps;
+            this.failed = failed;
+        }
+    }
+
+    /** Told about a run's progress, on the runner's threads. */
+    public interface Listener {
+        /** An iteration finished; iterations finish in any order. */
+        void onIteration(IterationResult result);
+
+        /**
+         * The run finished or was stopped.
+         *
+         * @param error why it stopped early (a bad data file), or null
+         */
+        void onFinished(int iterations, int failedIterations, String error);
+    }
+
+    /** A request of the run, read once up front. */
+    private static class Step {
+
+        final int itemId;
+        final String name;
+        final ExecutionRequest request;
+        final ScriptVariableAnalyzer.Access access;
+        final RetryPolicy retryPolicy;
+
+        Step(
+            int itemId,
+            String name,
+            ExecutionRequest request,
+            ScriptVariableAnalyzer.Access access,
+            RetryPolicy retryPolicy
+        ) {
+            this.itemId = itemId;
+            this.name = name;
+            this.request = request;
+            this.access = access;
+            this.retryPolicy = retryPolicy;
+        }
+    }
+
+    private final int collectionId;
+    private final Integer folderId;
+    private final int environmentId;
+    private final File dataFile;
+    private final int parallelism;
+    private final boolean parallelRequests;
+    private final Listener listener;
+    private final List<RunDao.StepRow> pending = new ArrayList<>();
+    private final AtomicInteger failedIterations = new AtomicInteger();
+    private volatile boolean cancelled;
+    private int runId = -1;
+
+    /**
+     * @param folderId      the folder to run, or null for the collection
+     * @param environmentId the environment to resolve against, or -1
+     * @param dataFile      a CSV or JSON data file, or null
+     * @param parallelism   how many iterations run at once
+     * @param parallelRequests run an iteration's independent requests at
+     *                         once, rather than strictly in order
+     */
+    public CollectionRunner(
+        int collectionId,
+        Integer folderId,
+        int environmentId,
+        File dataFile,
+        int parallelism,
+        boolean parallelRequests,
+        Listener listener
+    ) {
+        this.collectionId = collectionId;
+        this.folderId = folderId;
+        this.environmentId = environmentId;
+        this.dataFile = dataFile;
+        this.parallelism = Math.max(1, Math.min(parallelism, MAX_PARALLELISM));
+        this.parallelRequests = parallelRequests;
+        this.listener = listener;
+    }
+
+    /** Starts the run on a background thread. */
+    public void start() {
+        Thread thread = new Thread(this::run, "collection-runner");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the run: no further rows are read, and running iterations stop
+     * after their current request.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private void run() {
+        int started = 0;
+        String error = null;
+        ExecutorService requests = null;
+        ExecutorService iterations = null;
+        try {
+            List<Step> steps = LiteConnection.withNewConnection(conn -> {
+                runId = RunDao.createRun(
+                    collectionId,
+                    folderId,
+                    environmentId,
+                    dataFile != null ? dataFile.getPath() : null
+                );
+                List<Step> loaded = new ArrayList<>();
+                loadSteps(folderId, loaded);
+                return loaded;
+            });
+            WorkflowPlan plan = null;
+            if (parallelRequests && steps.size() > 1) {
+                List<ScriptVariableAnalyzer.Access> accesses = new ArrayList<>();
+                for (Step step : steps) {
+                    accesses.add(step.access);
+                }
+                plan = WorkflowPlan.of(accesses);
+                requests = Executors.newFixedThreadPool(
+                    STEP_THREADS,
+                    runnable -> {
+                        Thread thread = new Thread(
+                            runnable,
+                            "collection-run-request"
+                        );
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                );
+            }
+            WorkflowPlan workflow = plan;
+            ExecutorService workflowRequests = requests;
+
+            iterations = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "collection-run-iteration");
+                thread.setDaemon(true);
+                return thread;
+            });
+            Semaphore slots = new Semaphore(parallelism);
+            IterationDataReader reader = null;
+            try {
+                reader = dataFile != null
+                    ? IterationDataReader.open(dataFile)
+                    : null;
+                Map<String, String> row = reader != null
+                    ? reader.next()
+                    : Map.of();
+                while (row != null && !cancelled) {
+                    slots.acquire();
+                    int iteration = started++;
+                    Map<String, String> data = row;
+                    iterations.execute(() -> {
+                        try {
+                            if (workflow != null) {
+                                runWorkflow(
+                                    iteration,
+                                    data,
+                                    steps,
+                                    workflow,
+                                    workflowRequests
+                                );
+                            } else {
+                                runIteration(iteration, data, steps);
+                            }
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                    row = reader != null ? reader.next() : null;
+                }
+            } catch (IOException e) {
+                System.err.println(
+                    "Error reading data file: " + e.getMessage()
+                );
+                e.printStackTrace();
+                error = e.getMessage();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                closeQuietly(reader);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error running collection: " + e.getMessage());
+            e.printStackTrace();
+            error = e.getMessage() != null ? e.getMessage() : e.toString();
+        } finally {
+            if (iterations != null) {
+                iterations.shutdown();
+                try {
+                    iterations.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (requests != null) {
+                requests.shutdown();
+            }
+            finish(started, error);
+        }
+    }
+
+    /** Stores what is left of the run and reports it finished. */
+    private void finish(int total, String error) {
+        try {
+            LiteConnection.runWithNewConnection(conn -> {
+                if (runId <= 0) {
+                    return; // the run could not be recorded
+                }
+                synchronized (pending) {
+                    RunDao.saveResults(runId, pending);
+                    pending.clear();
+                }
+                RunDao.finishRun(runId, total, failedIterations.get());
+            });
+        } catch (RuntimeException e) {
+            System.err.println("Error saving run results: " + e.getMessage());
+            e.printStackTrace();
+            if (error == null) {
+                error = e.getMessage();
+            }
+        }
+        listener.onFinished(total, failedIterations.get(), error);
+    }
+
+    /** Adds the requests under a folder (or the collection) depth-first. */
+    private void loadSteps(Integer parentId, List<Step> steps) {
+        for (ItemDao.ChildRow child : ItemDao.getChildRows(
+            collectionId,
+            parentId
+        )) {
+            if ("request".equals(child.itemType)) {
+                Request request = RequestDao.getRequestByItemId(child.id);
+                if (request != null) {
+                    ExecutionRequest exec = executionRequestOf(request);
+                    steps.add(
+                        new Step(
+                            child.id,
+                            child.name,
+                            exec,
+                            accessOf(child.id, exec),
+                            RetryPolicyDao.getEffectivePolicy(child.id)
+                        )
+                    );
+                }
+            } else if (child.hasChildren) {
+                loadSteps(child.id, steps);
+            }
+        }
+    }
+
+    private void runIteration(
+        int iteration,
+        Map<String, String> data,
+        List<Step> steps
+    ) {
+        List<StepResult> results = new ArrayList<>(steps.size());
+        boolean failed;
+        try {
+            failed = LiteConnection.withNewConnection(conn -> {
+                ScriptableVariableMap variables = new ScriptableVariableMap(
+                    data
+                );
+                boolean anyFailed = false;
+                for (Step step : steps) {
+                    if (cancelled) {
+                        break;
+                    }
+                    StepResult result;
+                    try {
+                        result = send(step, variables);
+                    } catch (RuntimeException e) {
+                        // Record the failure; the steps after it run on
+                        System.err.println(
+                            "Error sending " + step.name + ": " + e.getMessage()
+                        );
+                        e.printStackTrace();
+                        result = new StepResult(
+                            step.itemId,
+                            step.name,
+                            0,
+                            0,
+                            0,
+                            0
+                        );
+                    }
+                    results.add(result);
+                    anyFailed |= isFailure(result.statusCode);
+                }
+                return anyFailed;
+            });
+        } catch (RuntimeException e) {
+            System.err.println(
+                "Error in run iteration " + iteration + ": " + e.getMessage()
+            );
+            e.printStackTrace();
+            failed = true;
+        }
+        if (failed) {
+            failedIterations.incrementAndGet();
+        }
+        IterationResult result = new IterationResult(iteration, results, failed);
+        try {
+            LiteConnection.runWithNewConnection(conn -> record(result));
+        } catch (RuntimeException e) {
+            System.err.println(
+                "Error saving run iteration " + iteration + ": " + e.getMessage()
+            );
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Runs one iteration's requests as its plan allows: each starts once
+     * the requests it waits for have finished.
+     */
+    private void runWorkflow(
+        int iteration,
+        Map<String, String> data,
+        List<Step> steps,
+        WorkflowPlan plan,
+        ExecutorService requests
+    ) {
+        Map<String, String> variables = new HashMap<>(data);
+        StepResult[] sent = new StepResult[steps.size()];
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (int i = 0; i < steps.size(); i++) {
+            int[] waitsFor = plan.predecessorsOf(i);
+            CompletableFuture<?>[] before = new CompletableFuture<?>[waitsFor.length];
+            for (int j = 0; j < waitsFor.length; j++) {
+                before[j] = done.get(waitsFor[j]);
+            }
+            Step step = steps.get(i);
+            int index = i;
+            done.add(
+                CompletableFuture.allOf(before).thenRunAsync(
+                    () -> {
+                        if (cancelled) {
+                            return;
+                        }
+                        try {
+                            sent[index] = sendIsolated(step, variables);
+                        } catch (RuntimeException e) {
+                            // Record the failure; the steps after it run on
+                            System.err.println(
+                                "Error sending " + step.name + ": " +
+                                    e.getMessage()
+                            );
+                            e.printStackTrace();
+                            sent[index] = new StepResult(
+                                step.itemId,
+                                step.name,
+                                0,
+                                0,
+                                0,
+                                0
+                            );
+                        }
+                    },
+                    requests
+                )
+            );
+        }
+        boolean failed = false;
+        try {
+            CompletableFuture.allOf(
+                done.toArray(new CompletableFuture<?>[0])
+            ).join();
+        } catch (CompletionException | CancellationException e) {
+            System.err.println(
+                "Error in run iteration " + iteration + ": " + e.getMessage()
+            );
+            e.printStackTrace();
+            failed = true;
+        }
+
+        List<StepResult> results = new ArrayList<>(sent.length);
+        for (StepResult result : sent) {
+            if (result != null) {
+                results.add(result);
+                failed |= isFailure(result.statusCode);
+            }
+        }
+        if (failed) {
+            failedIterations.incrementAndGet();
+        }
+        IterationResult result = new IterationResult(iteration, results, failed);
+        try {
+            LiteConnection.runWithNewConnection(conn -> record(result));
+        } catch (RuntimeException e) {
+            System.err.println(
+                "Error saving run iteration " + iteration + ": " + e.getMessage()
+            );
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Sends a workflow request against a copy of the iteration's variables
+     * and merges what its scripts changed back. Requests running at the
+     * same time never touch the same variables, so merges cannot clash.
+     */
+    private StepResult sendIsolated(
+        Step step,
+        Map<String, String> variables
+    ) {
+        Map<String, String> before;
+        synchronized (variables) {
+            before = new HashMap<>(variables);
+        }
+        ScriptableVariableMap own = new ScriptableVariableMap(before);
+        StepResult result;
+        try {
+            result = LiteConnection.withNewConnection(conn -> send(step, own));
+        } catch (RuntimeException e) {
+            System.err.println(
+                "Error sending " + step.name + ": " + e.getMessage()
+            );
+            e.printStackTrace();
+            return new StepResult(step.itemId, step.name, 0, 0, 0, 0);
+        }
+        Map<String, String> after = own.snapshot();
+        synchronized (variables) {
+            for (Map.Entry<String, String> entry : after.entrySet()) {
+                if (!Objects.equals(before.get(entry.getKey()), entry.getValue())) {
+                    variables.put(entry.getKey(), entry.getValue());
+                }
+            }
+            for (String name : before.keySet()) {
+                if (!after.containsKey(name)) {
+                    variables.remove(name);
+                }
+            }
+        }
+        return result;
+    }
+
+    private StepResult send(Step step, ScriptableVariableMap variables) {
+        ScriptOrchestrator orchestrator = new ScriptOrchestrator(
+            collectionId,
+            step.itemId,
+            environmentId,
+            variables
+        );
+        orchestrator.runPreRequest();
+        ExecutionRequest exec = step.request;
+        long startTime = System.currentTimeMillis();
+        ApiResponse response = ApiCallBuilder.fromUI(
+            exec.url,
+            exec.method,
+            exec.headersText,
+            exec.bodyText,
+            exec.authType,
+            exec.username,
+            exec.password,
+            exec.token,
+            exec.paramsText,
+            -1,
+            orchestrator.getMergedVariables()
+        )
+            .retryPolicy(step.retryPolicy)
+            .execute();
+        if (response.getDuration() <= 0) {
+            response.setDuration(System.currentTimeMillis() - startTime);
+        }
+        orchestrator.runPostResponse(response);
+        return new StepResult(
+            step.itemId,
+            step.name,
+            response.getStatusCode(),
+            response.getDuration(),
+            response.getQueueTime(),
+            response.getBodySize()
+        );
+    }
+
+    /** Hands a result out and queues its rows; saves a full batch. */
+    private void record(IterationResult result) {
+        listener.onIteration(result);
+        if (runId <= 0) {
+            return;
+        }
+        synchronized (pending) {
+            for (int step = 0; step < result.steps.size(); step++) {
+                StepResult sent = result.steps.get(step);
+                pending.add(
+                    new RunDao.StepRow(
+                        result.iteration,
+                        step,
+                        sent.itemId,
+                        sent.statusCode,
+                        sent.durationMs,
+                        sent.bodySize
+                    )
+                );
+            }
+            // One writer at a time, on this iteration's connection
+            if (pending.size() >= RESULT_BATCH) {
+                RunDao.saveResults(runId, pending);
+                pending.clear();
+            }
+        }
+    }
+
+    /**
+     * What a request reads and writes: the variables its templates use,
+     * and those its pre-request and post-response scripts touch.
+     */
+    private ScriptVariableAnalyzer.Access accessOf(
+        int itemId,
+        ExecutionRequest exec
+    ) {
+        ScriptVariableAnalyzer.Access access = ScriptVariableAnalyzer.analyze(
+            ScriptOrchestrator.loadScript(collectionId, itemId, "prerequest")
+        ).add(
+            ScriptVariableAnalyzer.analyze(
+                ScriptOrchestrator.loadScript(collectionId, itemId, "test")
+            )
+        );
+        for (String text : new String[] {
+            exec.url,
+            exec.headersText,
+            exec.bodyText,
+            exec.paramsText,
+            exec.username,
+            exec.password,
+            exec.token,
+        }) {
+            access.reads.addAll(VariableReplacer.extractVariableNames(text));
+        }
+        return access;
+    }
+
+    /** Failed sends are reported with synthetic 4xx/5xx codes. */
+    private static boolean isFailure(int statusCode) {
+        return statusCode <= 0 || statusCode >= 400;
+    }
+
+    /** The request as the request panel would send it. */
+    private static ExecutionRequest executionRequestOf(Request request) {
+        StringBuilder headers = new StringBuilder();
+        if (request.getHeader() != null) {
+            for (Header header : request.getHeader()) {
+                if (header.getKey() != null && header.getValue() != null) {
+                    headers
+                        .append(header.getKey())
+                        .append(": ")
+                        .append(header.getValue())
+                        .append("\n");
+                }
+            }
+        }
+        StringBuilder params = new StringBuilder();
+        if (request.getUrl() != null && request.getUrl().getQuery() != null) {
+            for (Query query : request.getUrl().getQuery()) {
+                if (query.getKey() != null && query.getValue() != null) {
+                    params
+                        .append(query.getKey())
+                        .append("=")
+                        .append(query.getValue())
+                        .append("\n");
+                }
+            }
+        }
+
+        AuthType authType = AuthType.NONE;
+        String username = "";
+        String password = "";
+        String token = "";
+        if (request.getAuth() != null && request.getAuth().getBasic() != null) {
+            List<Credential> basic = request.getAuth().getBasic();
+            authType = AuthType.BASIC;
+            username = basic.size() > 0 ? basic.get(0).getValue() : "";
+            password = basic.size() > 1 ? basic.get(1).getValue() : "";
+        } else if (
+            request.getAuth() != null && request.getAuth().getBearer() != null
+        ) {
+            List<Credential> bearer = request.getAuth().getBearer();
+            authType = AuthType.BEARER;
+            token = bearer.size() > 0 ? bearer.get(0).getValue() : "";
+        }
+
+        return new ExecutionRequest(
+            request.getUrl() != null ? request.getUrl().getRaw() : "",
+            request.getMethod() != null ? request.getMethod() : "GET",
+            headers.toString(),
+            request.getBody() != null ? request.getBody().getRaw() : "",
+            params.toString(),
+            authType.getDisplayName(),
+            username,
+            password,
+            token,
+            false
+        );
+    }
+
+    private static void closeQuietly(IterationDataReader reader) {
+        if (reader == null) {
+            return;
+        }
+        try {
+            reader.close();
+        } catch (IOException e) {
+            System.err.println("Error closing data file: " + e.getMessage());
+        }
+    }
+}
@@ -1,12 +1,31 @@
 package com.quillapiclient.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quillapiclient.components.CollectionRunnerWindow;
+import com.quillapiclient.components.LatencyDashboardWindow;
 import com.quillapiclient.db.CollectionDao;
 import com.quillapiclient.db.ItemDao;
+import com.quillapiclient.db.ResponseRetentionDao.RetentionPolicy;
 import com.quillapiclient.objects.PostmanCollection;
+import com.quillapiclient.scripting.VariableScope;
+import com.quillapiclient.scripting.VariableScopeCache;
+import com.quillapiclient.server.RetryPolicy;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
 import java.io.File;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JSpinner;
+import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
 import javax.swing.JTree;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
@@ -14,7 +33,7 @@ import javax.swing.tree.TreePath;
 
 /**
  * Handles the context-menu-triggered CRUD actions (add/delete/rename request,
- * folder, and collection; export) by prompting the user, persisting the
+ * folder, and collection; export; history retention; compacting the database; latency trends; runs) by prompting the user, persisting the
  * change via the DAOs, and delegating tree-node insertion to {@link
  * CollectionTreeLoader}.
  */
@@ -24,6 +43,7 @@ class CollectionTreeActions {
     private final RequestController requestController;
     private final CollectionTreeLoader loader;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private IntSupplier activeEnvironment = () -> -1;
 
     CollectionTreeActions(
         JTree tree,
@@ -35,6 +55,10 @@ class CollectionTreeActions {
         this.loader = loader;
     }
 
+    void setActiveEnvironmentSupplier(IntSupplier activeEnvironment) {
+        this.activeEnvironment = activeEnvironment;
+    }
+
     /**
      * Handles adding a new request when user clicks "Add Request" from context menu
      */
@@ -150,6 +174,15 @@ class CollectionTreeActions {
         };
 
         if (deleted) {
+            // Cascaded deletes reach every item below; IDs may be reused.
+            // Changes still queued for those items fail and are dropped.
+            VariableScopeCache cache = VariableScopeCache.getDefault();
+            if (kind == TreeNodeData.Kind.COLLECTION) {
+                cache.remove(VariableScope.COLLECTION, collectionId);
+            } else {
+                cache.remove(VariableScope.ITEM, itemId);
+            }
+            cache.clear();
             removeNodeFromTree(node);
         } else {
             JOptionPane.showMessageDialog(
@@ -276,4 +309,367 @@ class CollectionTreeActions {
             );
         }
     }
+
+    /**
+     * Handles "History Retention..." on a request or folder: shows the
+     * policy set on the item and stores the edited one. A folder's policy
+     * applies to the requests beneath it that have none of their own.
+     */
+    void handleEditRetention(int itemId, boolean folder) {
+        RetentionPolicy current = requestController.getRetentionPolicy(
+            itemId,
+            folder
+        );
+        RetentionPolicy shown = current != null
+            ? current
+            : new RetentionPolicy(100, null);
+
+        JCheckBox ownBox = new JCheckBox(
+            folder
+                ? "Limit the history of requests in this folder"
+                : "Use a retention policy of its own"
+        );
+        ownBox.setSelected(current != null);
+        JCheckBox keepLastBox = new JCheckBox("Keep only the last");
+        JSpinner keepLastSpinner = new JSpinner(
+            new SpinnerNumberModel(
+                shown.keepLast != null ? shown.keepLast.intValue() : 100,
+                1,
+                1_000_000,
+                10
+            )
+        );
+        keepLastBox.setSelected(shown.keepLast != null);
+
+        JCheckBox maxAgeBox = new JCheckBox("Keep only responses newer than");
+        JSpinner maxAgeSpinner = new JSpinner(
+            new SpinnerNumberModel(
+                shown.maxAgeDays != null ? shown.maxAgeDays.intValue() : 30,
+                1,
+                36_500,
+                1
+            )
+        );
+        maxAgeBox.setSelected(shown.maxAgeDays != null);
+
+        JPanel panel = new JPanel(new GridBagLayout());
+        GridBagConstraints c = new GridBagConstraints();
+        c.anchor = GridBagConstraints.WEST;
+        c.insets = new Insets(2, 2, 2, 4);
+        c.gridy = 0;
+        c.gridwidth = 3;
+        panel.add(ownBox, c);
+        c.gridwidth = 1;
+        c.gridy = 1;
+        panel.add(keepLastBox, c);
+        panel.add(keepLastSpinner, c);
+        panel.add(new JLabel("responses"), c);
+        c.gridy = 2;
+        panel.add(maxAgeBox, c);
+        panel.add(maxAgeSpinner, c);
+        panel.add(new JLabel("days"), c);
+        c.gridy = 3;
+        c.gridwidth = 3;
+        panel.add(
+            new JLabel(
+                folder
+                    ? "Requests with a policy of their own keep it."
+                    : "Otherwise the closest folder's policy applies."
+            ),
+            c
+        );
+        c.gridy = 4;
+        panel.add(
+            new JLabel("With no policy at all, all history is kept."),
+            c
+        );
+
+        int result = JOptionPane.showConfirmDialog(
+            tree,
+            panel,
+            "History Retention",
+            JOptionPane.OK_CANCEL_OPTION,
+            JOptionPane.PLAIN_MESSAGE
+        );
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        RetentionPolicy policy = ownBox.isSelected()
+            ? new RetentionPolicy(
+                keepLastBox.isSelected()
+                    ? (Integer) keepLastSpinner.getValue()
+                    : null,
+                maxAgeBox.isSelected()
+                    ? (Integer) maxAgeSpinner.getValue()
+                    : null
+            )
+            : null;
+        if (!requestController.saveRetentionPolicy(itemId, folder, policy)) {
+            JOptionPane.showMessageDialog(
+                tree,
+                "Failed to save retention policy.",
+                "Error",
+                JOptionPane.ERROR_MESSAGE
+            );
+        }
+    }
+
+    /**
+     * Handles "Compact Database...": after confirmation, rewrites the
+     * database in the background and reports the space it released.
+     */
+    void handleCompactDatabase() {
+        int confirm = JOptionPane.showConfirmDialog(
+            tree,
+            "Compacting rewrites the database to release the space of " +
+                "deleted history.\nWith a large history this can take " +
+                "minutes, and sending or saving waits until it is done.\n" +
+                "Compact now?",
+            "Compact Database",
+            JOptionPane.OK_CANCEL_OPTION,
+            JOptionPane.WARNING_MESSAGE
+        );
+        if (confirm != JOptionPane.OK_OPTION) {
+            return;
+        }
+        requestController.compactDatabase(saved ->
+            SwingUtilities.invokeLater(() -> {
+                if (saved < 0) {
+                    JOptionPane.showMessageDialog(
+                        tree,
+                        "Failed to compact the database.",
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE
+                    );
+                    return;
+                }
+                JOptionPane.showMessageDialog(
+                    tree,
+                    "Database compacted; released " +
+                        (saved / (1024 * 1024)) +
+                        " MB.",
+                    "Compact Database",
+                    JOptionPane.INFORMATION_MESSAGE
+                );
+            })
+        );
+    }
+
+    /**
+     * Handles "Retry Policy..." on a request or folder: shows the policy
+     * set on the item and stores the edited one. A folder's policy applies
+     * to the requests beneath it that have none of their own.
+     */
+    void handleEditRetryPolicy(int itemId, boolean folder) {
+        RetryPolicy current = requestController.getRetryPolicy(itemId);
+        RetryPolicy shown = current != null
+            ? current
+            : new RetryPolicy(
+                2,
+                Set.of(429, 502, 503, 504),
+                true,
+                200,
+                5000,
+                0
+            );
+
+        JCheckBox ownBox = new JCheckBox(
+            folder
+                ? "Retry requests in this folder"
+                : "Use a retry policy of its own"
+        );
+        ownBox.setSelected(current != null);
+        JSpinner retriesSpinner = new JSpinner(
+            new SpinnerNumberModel(Math.max(1, shown.maxRetries), 1, 10, 1)
+        );
+        JTextField statusesField = new JTextField(shown.formatStatuses(), 16);
+        JCheckBox connectBox = new JCheckBox(
+            "Retry when the connection fails"
+        );
+        connectBox.setSelected(shown.retryConnectErrors);
+        JSpinner baseDelaySpinner = new JSpinner(
+            new SpinnerNumberModel((int) shown.baseDelayMs, 0, 60_000, 50)
+        );
+        JSpinner maxDelaySpinner = new JSpinner(
+            new SpinnerNumberModel((int) shown.maxDelayMs, 0, 300_000, 500)
+        );
+        JCheckBox hedgeBox = new JCheckBox("Send a second copy after");
+        hedgeBox.setSelected(shown.hedgeAfterMs > 0);
+        JSpinner hedgeSpinner = new JSpinner(
+            new SpinnerNumberModel(
+                shown.hedgeAfterMs > 0 ? (int) shown.hedgeAfterMs : 500,
+                10,
+                60_000,
+                50
+            )
+        );
+
+        JPanel panel = new JPanel(new GridBagLayout());
+        GridBagConstraints c = new GridBagConstraints();
+        c.anchor = GridBagConstraints.WEST;
+        c.insets = new Insets(2, 2, 2, 4);
+        c.gridy = 0;
+        c.gridwidth = 3;
+        panel.add(ownBox, c);
+        c.gridwidth = 1;
+        c.gridy = 1;
+        panel.add(new JLabel("Retry up to"), c);
+        panel.add(retriesSpinner, c);
+        panel.add(new JLabel("times"), c);
+        c.gridy = 2;
+        panel.add(new JLabel("on status codes"), c);
+        c.gridwidth = 2;
+        panel.add(statusesField, c);
+        c.gridwidth = 3;
+        c.gridy = 3;
+        panel.add(connectBox, c);
+        c.gridwidth = 1;
+        c.gridy = 4;
+        panel.add(new JLabel("First delay up to"), c);
+        panel.add(baseDelaySpinner, c);
+        panel.add(new JLabel("ms, doubling"), c);
+        c.gridy = 5;
+        panel.add(new JLabel("Longest delay"), c);
+        panel.add(maxDelaySpinner, c);
+        panel.add(new JLabel("ms"), c);
+        c.gridy = 6;
+        panel.add(hedgeBox, c);
+        panel.add(hedgeSpinner, c);
+        panel.add(new JLabel("ms without a reply"), c);
+        c.gridy = 7;
+        c.gridwidth = 3;
+        panel.add(
+            new JLabel(
+                "Only GET, HEAD, OPTIONS, PUT and DELETE requests are hedged."
+            ),
+            c
+        );
+
+        int result = JOptionPane.showConfirmDialog(
+            tree,
+            panel,
+            "Retry Policy",
+            JOptionPane.OK_CANCEL_OPTION,
+            JOptionPane.PLAIN_MESSAGE
+        );
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        RetryPolicy policy = ownBox.isSelected()
+            ? new RetryPolicy(
+                (Integer) retriesSpinner.getValue(),
+                RetryPolicy.parseStatuses(statusesField.getText()),
+                connectBox.isSelected(),
+                (Integer) baseDelaySpinner.getValue(),
+                (Integer) maxDelaySpinner.getValue(),
+                hedgeBox.isSelected() ? (Integer) hedgeSpinner.getValue() : 0
+            )
+            : null;
+        if (!requestController.saveRetryPolicy(itemId, policy)) {
+            JOptionPane.showMessageDialog(
+                tree,
+                "Failed to save retry policy.",
+                "Error",
+                JOptionPane.ERROR_MESSAGE
+            );
+        }
+    }
+
+    /**
+     * Opens the latency trend dashboard for a request, folder or collection.
+     */
+    void handleShowLatencyTrends(TreeNodeData node) {
+        new LatencyDashboardWindow(node.name, (windowSeconds, windowCount) ->
+            requestController.loadLatencySeries(
+                node.kind,
+                node.id,
+                windowSeconds,
+                windowCount
+            )
+        );
+    }
+
+    /**
+     * Asks for a data file, how many iterations to run at once and whether
+     * independent requests may overlap, then runs the collection or folder
+     * in a progress window.
+     */
+    void handleRun(int collectionId, Integer folderId, String name) {
+        JTextField dataFileField = new JTextField(28);
+        JButton browseButton = new JButton("Browse...");
+        browseButton.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Choose Data File (CSV or JSON)");
+            if (chooser.showOpenDialog(tree) == JFileChooser.APPROVE_OPTION) {
+                dataFileField.setText(
+                    chooser.getSelectedFile().getAbsolutePath()
+                );
+            }
+        });
+        JSpinner parallelismSpinner = new JSpinner(
+            new SpinnerNumberModel(1, 1, CollectionRunner.MAX_PARALLELISM, 1)
+        );
+
+        JPanel panel = new JPanel(new GridBagLayout());
+        GridBagConstraints c = new GridBagConstraints();
+        c.anchor = GridBagConstraints.WEST;
+        c.insets = new Insets(2, 2, 2, 4);
+        c.gridy = 0;
+        panel.add(new JLabel("Data file:"), c);
+        panel.add(dataFileField, c);
+        panel.add(browseButton, c);
+        c.gridy = 1;
+        panel.add(new JLabel("Parallel iterations:"), c);
+        panel.add(parallelismSpinner, c);
+        JCheckBox workflowBox = new JCheckBox(
+            "Run requests that do not depend on each other in parallel"
+        );
+        c.gridy = 2;
+        c.gridwidth = 3;
+        panel.add(workflowBox, c);
+        c.gridy = 3;
+        panel.add(
+            new JLabel("Without a data file, the requests run once."),
+            c
+        );
+
+        int result = JOptionPane.showConfirmDialog(
+            tree,
+            panel,
+            "Run " + name,
+            JOptionPane.OK_CANCEL_OPTION,
+            JOptionPane.PLAIN_MESSAGE
+        );
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+        String path = dataFileField.getText().trim();
+        File dataFile = path.isEmpty() ? null : new File(path);
+        if (dataFile != null && !dataFile.isFile()) {
+            JOptionPane.showMessageDialog(
+                tree,
+                "Data file not found: " + path,
+                "Error",
+                JOptionPane.ERROR_MESSAGE
+            );
+            return;
+        }
+
+        CollectionRunner[] runner = new CollectionRunner[1];
+        CollectionRunnerWindow window = new CollectionRunnerWindow(name, () ->
+            runner[0].cancel()
+        );
+        runner[0] = new CollectionRunner(
+            collectionId,
+            folderId,
+            activeEnvironment.getAsInt(),
+            dataFile,
+            (Integer) parallelismSpinner.getValue(),
+            workflowBox.isSelected(),
+            window
+        );
+        runner[0].start();
+    }
 }
@@ -17,6 +17,11 @@ public class CollectionTreeContextMenu {
     private final DeleteHandler deleteHandler;
     private final RenameHandler renameHandler;
     private final ExportHandler exportHandler;
+    private final RetentionHandler retentionHandler;
+    private final RetryPolicyHandler retryPolicyHandler;
+    private final CompactHandler compactHandler;
+    private final LatencyTrendsHandler latencyTrendsHandler;
+    private final RunHandler runHandler;
     private final JPopupMenu popupMenu;
     private Integer contextCollectionId;
     private Integer contextParentId;
@@ -28,6 +33,11 @@ public class CollectionTreeContextMenu {
     private JMenuItem renameItem;
     private JMenuItem deleteItem;
     private JMenuItem exportItem;
+    private JMenuItem retentionItem;
+    private JMenuItem retryPolicyItem;
+    private JMenuItem compactItem;
+    private JMenuItem latencyTrendsItem;
+    private JMenuItem runItem;
 
     public CollectionTreeContextMenu(
         JTree tree,
@@ -35,7 +45,12 @@ public class CollectionTreeContextMenu {
         AddFolderHandler addFolderHandler,
         DeleteHandler deleteHandler,
         RenameHandler renameHandler,
-        ExportHandler exportHandler
+        ExportHandler exportHandler,
+        RetentionHandler retentionHandler,
+        LatencyTrendsHandler latencyTrendsHandler,
+        RunHandler runHandler,
+        RetryPolicyHandler retryPolicyHandler,
+        CompactHandler compactHandler
     ) {
         this.tree = tree;
         this.addRequestHandler = addRequestHandler;
@@ -43,6 +58,11 @@ public class CollectionTreeContextMenu {
         this.deleteHandler = deleteHandler;
         this.renameHandler = renameHandler;
         this.exportHandler = exportHandler;
+        this.retentionHandler = retentionHandler;
+        this.latencyTrendsHandler = latencyTrendsHandler;
+        this.runHandler = runHandler;
+        this.retryPolicyHandler = retryPolicyHandler;
+        this.compactHandler = compactHandler;
         this.popupMenu = new JPopupMenu();
         setupContextMenu();
     }
@@ -108,13 +128,72 @@ public class CollectionTreeContextMenu {
             }
         });
 
+        retentionItem = new JMenuItem("History Retention...");
+        retentionItem.addActionListener(event -> {
+            if (
+                contextKind != null &&
+                contextKind != TreeNodeData.Kind.COLLECTION &&
+                contextItemId != null
+            ) {
+                retentionHandler.onEditRetention(
+                    contextItemId,
+                    contextKind == TreeNodeData.Kind.FOLDER
+                );
+            }
+        });
+
+        retryPolicyItem = new JMenuItem("Retry Policy...");
+        retryPolicyItem.addActionListener(event -> {
+            if (
+                contextKind != null &&
+                contextKind != TreeNodeData.Kind.COLLECTION &&
+                contextItemId != null
+            ) {
+                retryPolicyHandler.onEditRetryPolicy(
+                    contextItemId,
+                    contextKind == TreeNodeData.Kind.FOLDER
+                );
+            }
+        });
+
+        compactItem = new JMenuItem("Compact Database...");
+        compactItem.addActionListener(event -> compactHandler.onCompact());
+
+        latencyTrendsItem = new JMenuItem("Latency Trends...");
+        latencyTrendsItem.addActionListener(event -> {
+            if (
+                contextNode != null &&
+                contextNode.getUserObject() instanceof TreeNodeData data
+            ) {
+                latencyTrendsHandler.onShowLatencyTrends(data);
+            }
+        });
+
+        runItem = new JMenuItem("Run...");
+        runItem.addActionListener(event -> {
+            if (
+                contextCollectionId != null &&
+                contextNode != null &&
+                contextNode.getUserObject() instanceof TreeNodeData data &&
+                data.kind.isContainer()
+            ) {
+                runHandler.onRun(contextCollectionId, contextParentId, data.name);
+            }
+        });
+
         popupMenu.add(addRequestItem);
         popupMenu.add(addFolderItem);
         popupMenu.addSeparator();
         popupMenu.add(renameItem);
         popupMenu.add(deleteItem);
         popupMenu.addSeparator();
+        popupMenu.add(runItem);
+        popupMenu.add(retryPolicyItem);
+        popupMenu.add(retentionItem);
+        popupMenu.add(latencyTrendsItem);
         popupMenu.add(exportItem);
+        popupMenu.addSeparator();
+        popupMenu.add(compactItem);
 
         tree.addMouseListener(
             new MouseAdapter() {
@@ -184,6 +263,13 @@ public class CollectionTreeContextMenu {
             deleteItem.setEnabled(true);
             deleteItem.setText(buildDeleteLabel(nodeData.kind));
             exportItem.setEnabled(true);
+            runItem.setEnabled(nodeData.kind.isContainer());
+            retryPolicyItem.setEnabled(
+                nodeData.kind != TreeNodeData.Kind.COLLECTION
+            );
+            retentionItem.setEnabled(
+                nodeData.kind != TreeNodeData.Kind.COLLECTION
+            );
             popupMenu.show(tree, e.getX(), e.getY());
         }
     }
@@ -254,4 +340,29 @@ public class CollectionTreeContextMenu {
     public interface ExportHandler {
         void onExport(int collectionId);
     }
+
+    @FunctionalInterface
+    public interface RetentionHandler {
+        void onEditRetention(int itemId, boolean folder);
+    }
+
+    @FunctionalInterface
+    public interface CompactHandler {
+        void onCompact();
+    }
+
+    @FunctionalInterface
+    public interface LatencyTrendsHandler {
+        void onShowLatencyTrends(TreeNodeData node);
+    }
+
+    @FunctionalInterface
+    public interface RunHandler {
+        void onRun(int collectionId, Integer folderId, String name);
+    }
+
+    @FunctionalInterface
+    public interface RetryPolicyHandler {
+        void onEditRetryPolicy(int itemId, boolean folder);
+    }
 }
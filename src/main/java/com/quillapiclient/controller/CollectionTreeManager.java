@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
 import javax.swing.JTree;
 import javax.swing.event.TreeExpansionEvent;
 import javax.swing.event.TreeSelectionEvent;
@@ -20,6 +21,7 @@ public class CollectionTreeManager {
     private final CollectionTreeLoader loader;
     private final CollectionTreeActions actions;
     private final RequestController requestController;
+    private final LatencySparklineCache sparklines;
     private final List<Consumer<TreeSelectionEvent>> treeSelectionHandlers;
     private final List<IntConsumer> requestItemIdListeners;
     private final List<Consumer<Request>> requestSelectionListeners;
@@ -47,9 +49,10 @@ public class CollectionTreeManager {
             tree.setRowHeight(22);
         }
         // Set custom renderer to display methods with colors
-        tree.setCellRenderer(
-            new MethodTreeCellRenderer()
-        );
+        MethodTreeCellRenderer renderer = new MethodTreeCellRenderer();
+        sparklines = new LatencySparklineCache(requestController, tree::repaint);
+        renderer.setTrendSource(sparklines::get);
+        tree.setCellRenderer(renderer);
         setupInlineEditingSupport();
         tree.addTreeSelectionListener(this::handleTreeSelectionChanged);
         tree.addTreeWillExpandListener(
@@ -74,7 +77,12 @@ public class CollectionTreeManager {
             actions::handleAddFolder,
             actions::handleDeleteItem,
             actions::handleRenameItem,
-            actions::exportCollection
+            actions::exportCollection,
+            actions::handleEditRetention,
+            actions::handleShowLatencyTrends,
+            actions::handleRun,
+            actions::handleEditRetryPolicy,
+            actions::handleCompactDatabase
         );
     }
 
@@ -186,6 +194,22 @@ public class CollectionTreeManager {
         loader.updateRequestNodeMethod(itemId, method);
     }
 
+    /**
+     * Sets where collection runs get the environment to resolve against.
+     */
+    public void setActiveEnvironmentSupplier(IntSupplier activeEnvironment) {
+        actions.setActiveEnvironmentSupplier(activeEnvironment);
+    }
+
+    /**
+     * Marks the tree's latency sparklines stale so visible rows reload them
+     * (call after a response is saved).
+     */
+    public void refreshLatencyTrends() {
+        sparklines.invalidateAll();
+        tree.repaint();
+    }
+
     public JTree getTree() {
         return tree;
     }
@@ -3,8 +3,11 @@ package com.quillapiclient.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.quillapiclient.components.EnvironmentVariablesWindow;
 import com.quillapiclient.db.EnvironmentDao;
+import com.quillapiclient.db.VariableUsageDao;
 import com.quillapiclient.objects.PostmanEnvironment;
 import com.quillapiclient.objects.PostmanEnvironmentValue;
+import com.quillapiclient.scripting.VariableScope;
+import com.quillapiclient.scripting.VariableScopeCache;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.event.FocusAdapter;
@@ -17,6 +20,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.DefaultListModel;
 import javax.swing.JLayeredPane;
@@ -63,6 +67,28 @@ public class EnvironmentListManager {
         }
     }
 
+    /**
+     * Lightweight DTO for a request that references variables. Owned by the
+     * controller layer so that view components never import the DAO package.
+     */
+    public static class VariableUsageRecord {
+
+        public final int itemId;
+        public final String collectionName;
+        public final String itemName;
+        public final List<String> variableNames;
+
+        public VariableUsageRecord(
+            VariableUsageDao.Usage usage,
+            List<String> variableNames
+        ) {
+            this.itemId = usage.itemId;
+            this.collectionName = usage.collectionName;
+            this.itemName = usage.itemName;
+            this.variableNames = variableNames;
+        }
+    }
+
     private final JList<String> list;
     private final DefaultListModel<String> listModel;
     private final java.util.List<EnvironmentInfo> environmentInfos;
@@ -181,6 +207,11 @@ public class EnvironmentListManager {
         return list;
     }
 
+    /** The environments in list order. */
+    public java.util.List<EnvironmentInfo> getEnvironmentInfos() {
+        return new ArrayList<>(environmentInfos);
+    }
+
     public EnvironmentInfo getEnvironmentInfoAt(int index) {
         if (index < 0 || index >= environmentInfos.size()) {
             return null;
@@ -322,6 +353,11 @@ public class EnvironmentListManager {
 
         boolean deleted = EnvironmentDao.deleteEnvironment(info.id);
         if (deleted) {
+            // The ID may be handed out again to an imported environment
+            VariableScopeCache.getDefault().remove(
+                VariableScope.ENVIRONMENT,
+                info.id
+            );
             if (activeEnvironmentId != null && activeEnvironmentId == info.id) {
                 activeEnvironmentId = null;
             }
@@ -424,7 +460,15 @@ public class EnvironmentListManager {
         int environmentId,
         List<PostmanEnvironmentValue> values
     ) {
-        return EnvironmentDao.replaceEnvironmentValues(environmentId, values);
+        boolean replaced = EnvironmentDao.replaceEnvironmentValues(
+            environmentId,
+            values
+        );
+        VariableScopeCache.getDefault().invalidate(
+            VariableScope.ENVIRONMENT,
+            environmentId
+        );
+        return replaced;
     }
 
     /**
@@ -434,10 +478,49 @@ public class EnvironmentListManager {
         int environmentId,
         List<Integer> valueIds
     ) {
-        return EnvironmentDao.deleteEnvironmentValuesByIds(
+        boolean deleted = EnvironmentDao.deleteEnvironmentValuesByIds(
             environmentId,
             valueIds
         );
+        VariableScopeCache.getDefault().invalidate(
+            VariableScope.ENVIRONMENT,
+            environmentId
+        );
+        return deleted;
+    }
+
+    /**
+     * Finds the requests whose URL, params, headers, body or auth reference
+     * a variable.
+     */
+    public List<VariableUsageRecord> getVariableUsages(String name) {
+        List<VariableUsageRecord> records = new ArrayList<>();
+        for (VariableUsageDao.Usage usage : VariableUsageDao.getUsages(name)) {
+            records.add(new VariableUsageRecord(usage, List.of(name)));
+        }
+        return records;
+    }
+
+    /**
+     * Finds the variable references of every request that neither this
+     * environment, the request's collection, the request itself nor the
+     * globals define.
+     */
+    public List<VariableUsageRecord> getUndefinedVariables(int environmentId) {
+        VariableScopeCache cache = VariableScopeCache.getDefault();
+        cache.flush(); // script changes still queued count as defined
+        Set<String> globals = cache.globals().values.keySet();
+        List<VariableUsageRecord> records = new ArrayList<>();
+        for (Map.Entry<VariableUsageDao.Usage, List<String>> entry : VariableUsageDao.getUndefinedUsages(
+            environmentId
+        ).entrySet()) {
+            List<String> names = entry.getValue();
+            names.removeAll(globals);
+            if (!names.isEmpty()) {
+                records.add(new VariableUsageRecord(entry.getKey(), names));
+            }
+        }
+        return records;
     }
 
     private void startInlineEdit(int index, EnvironmentInfo info) {
@@ -0,0 +1,100 @@
+package com.quillapiclient.controller;
+
+import com.quillapiclient.objects.LatencyWindow;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.SwingUtilities;
+
+/**
+ * Last-24-hours latency series for tree nodes, for the sparklines painted by
+ * {@link com.quillapiclient.components.MethodTreeCellRenderer}.
+ *
+ * <p>The renderer must never query the database while painting, so
+ * {@link #get} only reads the cache. A miss (or a stale entry) schedules a
+ * load on a single background thread and returns whatever is cached; when
+ * the load lands, {@code onUpdated} runs on the EDT to repaint. Only rows
+ * that are actually painted are ever loaded.
+ */
+public class LatencySparklineCache {
+
+    static final int WINDOW_SECONDS = 3600;
+    static final int WINDOW_COUNT = 24;
+
+    private final RequestController requestController;
+    private final Runnable onUpdated;
+    private final Map<Long, LatencyWindow[]> series =
+        new ConcurrentHashMap<>();
+    private final Set<Long> fresh = ConcurrentHashMap.newKeySet();
+    private final Set<Long> loading = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean updatePosted = new AtomicBoolean();
+    private final ExecutorService executor =
+        Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "latency-sparklines");
+            t.setDaemon(true);
+            return t;
+        });
+
+    public LatencySparklineCache(
+        RequestController requestController,
+        Runnable onUpdated
+    ) {
+        this.requestController = requestController;
+        this.onUpdated = onUpdated;
+    }
+
+    /**
+     * Returns the cached series for a node, or null if none is loaded yet.
+     * Schedules a (re)load when the entry is missing or stale.
+     */
+    public LatencyWindow[] get(TreeNodeData data) {
+        long key = key(data);
+        if (!fresh.contains(key) && loading.add(key)) {
+            TreeNodeData.Kind kind = data.kind;
+            int id = data.id;
+            executor.submit(() -> {
+                try {
+                    LatencyWindow[] loaded =
+                        requestController.loadLatencySeries(
+                            kind,
+                            id,
+                            WINDOW_SECONDS,
+                            WINDOW_COUNT
+                        );
+                    series.put(key, loaded);
+                    fresh.add(key);
+                } catch (RuntimeException e) {
+                    System.err.println(
+                        "Error loading latency sparkline: " + e.getMessage()
+                    );
+                    fresh.add(key); // don't retry on every repaint
+                } finally {
+                    loading.remove(key);
+                }
+                // Coalesce: one repaint covers every load finished before it
+                if (updatePosted.compareAndSet(false, true)) {
+                    SwingUtilities.invokeLater(() -> {
+                        updatePosted.set(false);
+                        onUpdated.run();
+                    });
+                }
+            });
+        }
+        return series.get(key);
+    }
+
+    /**
+     * Marks every entry stale (e.g. after a new response was saved). Stale
+     * series keep painting until their reload lands, so nothing flickers.
+     */
+    public void invalidateAll() {
+        fresh.clear();
+    }
+
+    private static long key(TreeNodeData data) {
+        return ((long) data.kind.ordinal() << 32) | (data.id & 0xffffffffL);
+    }
+}
@@ -2,8 +2,24 @@ package com.quillapiclient.controller;
 
 import com.quillapiclient.db.CollectionDao;
 import com.quillapiclient.db.EventDao;
+import com.quillapiclient.db.ItemDao;
+import com.quillapiclient.db.LiteConnection;
 import com.quillapiclient.db.RequestDao;
+import com.quillapiclient.db.ResponseRetention;
+import com.quillapiclient.db.ResponseRetentionDao;
+import com.quillapiclient.db.ResponseRetentionDao.RetentionPolicy;
+import com.quillapiclient.db.ResponseRollupDao;
+import com.quillapiclient.db.RetryPolicyDao;
+import com.quillapiclient.objects.LatencyWindow;
 import com.quillapiclient.objects.Request;
+import com.quillapiclient.scripting.VariableCompletionIndex;
+import com.quillapiclient.scripting.VariableScopeCache;
+import com.quillapiclient.server.RetryPolicy;
+import com.quillapiclient.utility.VariableTrie;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongConsumer;
 
 /**
  * Controller for request-level persistence operations.
@@ -11,6 +27,12 @@ import com.quillapiclient.objects.Request;
  */
 public class RequestController {
 
+    private final VariableCompletionIndex completionIndex =
+        new VariableCompletionIndex();
+    // Collection of the last request asked about, so typing does not query
+    private int scopeItemId = -1;
+    private int scopeCollectionId = -1;
+
     /**
      * Updates an existing request in the database.
      *
@@ -23,13 +45,15 @@ public class RequestController {
     }
 
     /**
-     * Loads a request from the database by its item ID.
+     * Loads a request from the database by its item ID. Sections are
+     * decoded on first access, so callers that only show one tab never pay
+     * for the others; the result must stay on the calling (EDT) thread.
      *
      * @param itemId the item ID to look up
      * @return the Request, or null if not found
      */
     public Request getRequestByItemId(int itemId) {
-        return RequestDao.getRequestByItemId(itemId);
+        return RequestDao.getLazyRequestByItemId(itemId);
     }
 
     /**
@@ -42,6 +66,198 @@ public class RequestController {
         return RequestDao.getRequestIdByItemId(itemId);
     }
 
+    /**
+     * Resolves the display name of a request item.
+     *
+     * @param itemId the item ID to look up
+     * @return the item name, or null if not found
+     */
+    public String getRequestName(int itemId) {
+        return ItemDao.getItemName(itemId);
+    }
+
+    /**
+     * Collects the variable names a request can resolve: globals, its
+     * collection's and its own variables, and the environment's. Served
+     * from the shared variable scope cache.
+     *
+     * @param itemId        the item ID of the request, or -1
+     * @param environmentId the active environment, or -1
+     * @return the defined names
+     */
+    public Set<String> getDefinedVariableNames(int itemId, int environmentId) {
+        VariableScopeCache cache = VariableScopeCache.getDefault();
+        scopeItemId = -1; // called on selection: look the collection up again
+        int collectionId = getCollectionId(itemId);
+        Set<String> names = new HashSet<>(cache.globals().values.keySet());
+        names.addAll(cache.collection(collectionId).values.keySet());
+        names.addAll(cache.environment(environmentId).values.keySet());
+        names.addAll(cache.item(itemId).values.keySet());
+        return names;
+    }
+
+    /**
+     * Completes a {@code {{variable}}} name over the scopes a request can
+     * resolve, reporting the scope that wins for each name.
+     *
+     * @param itemId        the item ID of the request, or -1
+     * @param environmentId the active environment, or -1
+     * @param prefix        the part of the name typed so far
+     * @param limit         the most completions to return
+     * @return the completions in name order
+     */
+    public List<VariableTrie.Completion> completeVariable(
+        int itemId,
+        int environmentId,
+        String prefix,
+        int limit
+    ) {
+        VariableScopeCache cache = VariableScopeCache.getDefault();
+        completionIndex.sync(
+            cache.globals(),
+            cache.collection(getCollectionId(itemId)),
+            cache.environment(environmentId),
+            cache.item(itemId)
+        );
+        return completionIndex.complete(prefix, limit);
+    }
+
+    /**
+     * Loads the response history retention policy set on a request or
+     * folder itself.
+     *
+     * @param itemId the request or folder item ID
+     * @param folder true if the item is a folder
+     * @return the policy, or null if it inherits one or has none
+     */
+    public RetentionPolicy getRetentionPolicy(int itemId, boolean folder) {
+        if (folder) {
+            return ResponseRetentionDao.getFolderPolicy(itemId);
+        }
+        int requestId = RequestDao.getRequestIdByItemId(itemId);
+        return requestId > 0
+            ? ResponseRetentionDao.getRequestPolicy(requestId)
+            : null;
+    }
+
+    /**
+     * Stores the retention policy of a request or folder and prunes the
+     * history it now covers in the background.
+     *
+     * @param itemId the request or folder item ID
+     * @param folder true if the item is a folder
+     * @param policy the new policy, or null to inherit the folder's again
+     * @return true if the policy was saved
+     */
+    public boolean saveRetentionPolicy(
+        int itemId,
+        boolean folder,
+        RetentionPolicy policy
+    ) {
+        List<Integer> requestIds;
+        if (folder) {
+            if (!ResponseRetentionDao.saveFolderPolicy(itemId, policy)) {
+                return false;
+            }
+            try {
+                requestIds = ResponseRetentionDao.getRequestIdsUnder(itemId);
+            } catch (java.sql.SQLException e) {
+                System.err.println(
+                    "Error listing requests under folder: " + e.getMessage()
+                );
+                e.printStackTrace();
+                return true; // saved; the next startup sweep applies it
+            }
+        } else {
+            int requestId = RequestDao.getRequestIdByItemId(itemId);
+            if (
+                requestId <= 0 ||
+                !ResponseRetentionDao.savePolicy(requestId, policy)
+            ) {
+                return false;
+            }
+            requestIds = List.of(requestId);
+        }
+        for (int requestId : requestIds) {
+            ResponseRetention.schedulePrune(requestId);
+        }
+        return true;
+    }
+
+    /**
+     * Rewrites the database in the background to release the space that
+     * deleted history still takes up.
+     *
+     * @param onDone called on a background thread with the bytes saved,
+     *               or -1 if compacting failed
+     */
+    public void compactDatabase(LongConsumer onDone) {
+        ResponseRetention.scheduleCompaction(onDone);
+    }
+
+    /**
+     * Loads the retry policy set on a request or folder itself.
+     *
+     * @param itemId the request or folder item ID
+     * @return the policy, or null if it inherits one or has none
+     */
+    public RetryPolicy getRetryPolicy(int itemId) {
+        return RetryPolicyDao.getPolicy(itemId);
+    }
+
+    /**
+     * Stores the retry policy of a request or folder.
+     *
+     * @param itemId the request or folder item ID
+     * @param policy the new policy, or null to inherit the folder's again
+     * @return true if the change was saved
+     */
+    public boolean saveRetryPolicy(int itemId, RetryPolicy policy) {
+        return policy != null
+            ? RetryPolicyDao.savePolicy(itemId, policy)
+            : RetryPolicyDao.deletePolicy(itemId);
+    }
+
+    /**
+     * Loads latency/error statistics for a tree node over the most recent
+     * {@code windowCount} windows, the last one containing now. Folders and
+     * collections merge the histograms of every request beneath them.
+     * Safe to call from a background thread: runs on its own connection.
+     *
+     * @param kind          the node kind
+     * @param id            collection ID or item ID, per {@code kind}
+     * @param windowSeconds window length, a multiple of one hour
+     * @param windowCount   number of windows
+     * @return the windows, oldest first
+     */
+    public LatencyWindow[] loadLatencySeries(
+        TreeNodeData.Kind kind,
+        int id,
+        int windowSeconds,
+        int windowCount
+    ) {
+        long now = System.currentTimeMillis() / 1000;
+        long from =
+            now -
+            Math.floorMod(now, windowSeconds) -
+            (long) windowSeconds * (windowCount - 1);
+        return LiteConnection.withNewConnection(conn ->
+            kind == TreeNodeData.Kind.COLLECTION
+                ? ResponseRollupDao.getCollectionSeries(
+                    id,
+                    from,
+                    windowSeconds,
+                    windowCount
+                )
+                : ResponseRollupDao.getItemSeries(
+                    id,
+                    from,
+                    windowSeconds,
+                    windowCount
+                )
+        );
+    }
+
     /**
      * Creates a new request in the database with a default GET method.
      *
@@ -91,4 +307,15 @@ public class RequestController {
             testScript != null && !testScript.isBlank() ? testScript : null
         );
     }
+
+    private int getCollectionId(int itemId) {
+        if (itemId <= 0) {
+            return -1;
+        }
+        if (itemId != scopeItemId) {
+            scopeCollectionId = CollectionDao.getCollectionIdByItemId(itemId);
+            scopeItemId = itemId;
+        }
+        return scopeCollectionId;
+    }
 }
@@ -0,0 +1,84 @@
+package com.quillapiclient.controller;
+
+import com.quillapiclient.scripting.ScriptVariableAnalyzer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The order a run's requests must keep, as a DAG over their positions in
+ * the tree. A request waits for an earlier one when the earlier one sets a
+ * variable it reads (a true dependency), reads a variable it sets, or sets
+ * the same variable, so every request sees the values it would have seen
+ * running strictly in order. A request whose scripts could not be
+ * analysed waits for all earlier requests and all later ones wait for it.
+ */
+class WorkflowPlan {
+
+    // By step, the earlier steps it waits for
+    private final int[][] predecessors;
+    private final int depth;
+
+    private WorkflowPlan(int[][] predecessors) {
+        this.predecessors = predecessors;
+        int[] level = new int[predecessors.length];
+        int longest = 0;
+        for (int step = 0; step < predecessors.length; step++) {
+            for (int before : predecessors[step]) {
+                level[step] = Math.max(level[step], level[before] + 1);
+            }
+            longest = Math.max(longest, level[step] + 1);
+        }
+        this.depth = longest;
+    }
+
+    /**
+     * Plans steps from their variable accesses, in run order.
+     *
+     * @param accesses what each step's templates and scripts read and
+     *                 write
+     */
+    static WorkflowPlan of(List<ScriptVariableAnalyzer.Access> accesses) {
+        int[][] predecessors = new int[accesses.size()][];
+        for (int step = 0; step < accesses.size(); step++) {
+            ScriptVariableAnalyzer.Access later = accesses.get(step);
+            List<Integer> waitsFor = new ArrayList<>();
+            for (int before = 0; before < step; before++) {
+                ScriptVariableAnalyzer.Access earlier = accesses.get(before);
+                if (
+                    later.uncertain ||
+                    earlier.uncertain ||
+                    intersects(earlier.writes, later.reads) ||
+                    intersects(earlier.reads, later.writes) ||
+                    intersects(earlier.writes, later.writes)
+                ) {
+                    waitsFor.add(before);
+                }
+            }
+            predecessors[step] = waitsFor
+                .stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+        }
+        return new WorkflowPlan(predecessors);
+    }
+
+    /** The earlier steps a step waits for. */
+    int[] predecessorsOf(int step) {
+        return predecessors[step];
+    }
+
+    int size() {
+        return predecessors.length;
+    }
+
+    /** Steps on the longest chain; equal to {@link #size} if sequential. */
+    int depth() {
+        return depth;
+    }
+
+    private static boolean intersects(Set<String> a, Set<String> b) {
+        return !Collections.disjoint(a, b);
+    }
+}
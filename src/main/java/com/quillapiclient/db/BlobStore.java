@@ -0,0 +1,284 @@
+package com.quillapiclient.db;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content-addressed store for large request and response bodies.
+ *
+ * <p>Bodies at or above {@link #thresholdBytes()} are written once as a file
+ * under {@code blobs/} next to {@code app.db}, named by the SHA-256 of their
+ * bytes, so byte-identical bodies share one file. The {@code blobs}
+ * table tracks each file's reference count; triggers on {@code responses}
+ * and {@code requests} keep it in step with the {@code body_hash} columns.
+ * {@link #collectGarbage()} deletes files that have had no references for
+ * longer than the grace period.
+ *
+ * <p>Files are never modified after they are written, so reads map them
+ * read-only instead of pulling the body through JDBC.
+ */
+public class BlobStore {
+
+    private static final int DEFAULT_THRESHOLD_BYTES = 256 * 1024;
+    private static final int THRESHOLD_BYTES = Integer.getInteger(
+        "quill.blob.threshold",
+        DEFAULT_THRESHOLD_BYTES
+    );
+
+    // An unreferenced blob may be about to be referenced by an insert that
+    // has stored it but not committed yet; only collect once it is this old.
+    private static final String GC_GRACE = "-10 minutes";
+
+    private static final Path BLOB_DIR = resolveBlobDir();
+
+    // Blobs the collector is deleting, each held locked until its file is
+    // gone; see collectGarbage()
+    private static final ConcurrentHashMap<String, Object> COLLECTING =
+        new ConcurrentHashMap<>();
+
+    private BlobStore() {}
+
+    /** Bodies of at least this many UTF-8 bytes go to the blob store. */
+    public static int thresholdBytes() {
+        return THRESHOLD_BYTES;
+    }
+
+    /**
+     * Stores a body and registers it in the {@code blobs} table with no
+     * references (the referencing row's trigger adds one). Writing a body
+     * that is already stored only refreshes its grace period. If the row
+     * had to be created, including when the collector deleted it between
+     * this insert and the refresh, the file is written even if it exists,
+     * since the collector may be about to delete it: the write waits for
+     * the collector to finish with it.
+     *
+     * @param conn connection the referencing row will be written on
+     * @param data UTF-8 bytes of the body
+     * @return the content hash to store in {@code body_hash}
+     */
+    static String put(Connection conn, byte[] data) throws SQLException {
+        String hash = sha256(data);
+        boolean created;
+        boolean registered;
+        do {
+            try (
+                PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT OR IGNORE INTO blobs (hash, size, ref_count, released_at) VALUES (?, ?, 0, CURRENT_TIMESTAMP)"
+                )
+            ) {
+                stmt.setString(1, hash);
+                stmt.setLong(2, data.length);
+                created = stmt.executeUpdate() > 0;
+            }
+            if (created) {
+                break;
+            }
+            // Refresh the grace period so the collector's delete no longer
+            // matches. No row updated means the collector deleted it after
+            // the insert was ignored: register it again.
+            try (
+                PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE blobs SET released_at = CASE WHEN ref_count <= 0 THEN CURRENT_TIMESTAMP ELSE released_at END WHERE hash = ?"
+                )
+            ) {
+                stmt.setString(1, hash);
+                registered = stmt.executeUpdate() > 0;
+            }
+        } while (!registered);
+
+        Path file = pathFor(hash);
+        if (created) {
+            Object collecting = COLLECTING.get(hash);
+            if (collecting != null) {
+                synchronized (collecting) {
+                    // Wait until the collector has deleted the file
+                }
+            }
+            writeAtomically(file, data);
+        } else if (!Files.exists(file)) {
+            writeAtomically(file, data);
+        }
+        return hash;
+    }
+
+    /**
+     * Reads a stored body as a string, mapping the file rather than
+     * copying it through a stream.
+     *
+     * @param hash content hash from a {@code body_hash} column
+     * @return the body, or null if the file is missing
+     */
+    static String readString(String hash) {
+        Path file = pathFor(hash);
+        if (!Files.exists(file)) {
+            System.err.println("Blob missing from store: " + hash);
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file)) {
+            long size = channel.size();
+            if (size == 0) {
+                return "";
+            }
+            MappedByteBuffer buffer = channel.map(
+                FileChannel.MapMode.READ_ONLY,
+                0,
+                size
+            );
+            return StandardCharsets.UTF_8.decode(buffer).toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading blob " + hash, e);
+        }
+    }
+
+    /**
+     * Reads a stored body's bytes.
+     *
+     * @param hash content hash from a {@code body_hash} column
+     * @return the bytes, or null if the file is missing
+     */
+    static byte[] readBytes(String hash) {
+        Path file = pathFor(hash);
+        if (!Files.exists(file)) {
+            System.err.println("Blob missing from store: " + hash);
+            return null;
+        }
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading blob " + hash, e);
+        }
+    }
+
+    /**
+     * Opens a stored body for reading, for callers that go through it once
+     * and need not hold it in memory.
+     *
+     * @param hash content hash from a {@code body_hash} column
+     * @return the stream, or null if the file is missing
+     */
+    static InputStream openStream(String hash) throws IOException {
+        Path file = pathFor(hash);
+        if (!Files.exists(file)) {
+            System.err.println("Blob missing from store: " + hash);
+            return null;
+        }
+        return Files.newInputStream(file);
+    }
+
+    /**
+     * Deletes blobs that have been unreferenced for longer than the grace
+     * period: the row first, then the file. Each blob is locked from
+     * before its row is deleted until its file is gone. A {@link #put}
+     * that creates the row again in between waits for that lock and then
+     * writes the file again. A put that finds the row still there
+     * refreshes its grace period, so the delete no longer matches it.
+     * The lock is per blob: a put only waits for it after its insert,
+     * so the collector is never waiting for that put's transaction.
+     *
+     * @return the number of blobs removed
+     */
+    public static int collectGarbage() throws SQLException {
+        Connection conn = LiteConnection.getConnection();
+        List<String> hashes = new ArrayList<>();
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "SELECT hash FROM blobs WHERE ref_count <= 0 AND released_at < datetime('now', ?)"
+            )
+        ) {
+            stmt.setString(1, GC_GRACE);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                hashes.add(rs.getString("hash"));
+            }
+        }
+
+        int removed = 0;
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "DELETE FROM blobs WHERE hash = ? AND ref_count <= 0 AND released_at < datetime('now', ?)"
+            )
+        ) {
+            for (String hash : hashes) {
+                Object lock = new Object();
+                synchronized (lock) {
+                    COLLECTING.put(hash, lock);
+                    try {
+                        stmt.setString(1, hash);
+                        stmt.setString(2, GC_GRACE);
+                        if (stmt.executeUpdate() == 0) {
+                            continue; // re-referenced since the scan
+                        }
+                        Files.deleteIfExists(pathFor(hash));
+                        removed++;
+                    } catch (IOException e) {
+                        System.err.println(
+                            "Error deleting blob " +
+                                hash +
+                                ": " +
+                                e.getMessage()
+                        );
+                    } finally {
+                        COLLECTING.remove(hash);
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    private static Path pathFor(String hash) {
+        // Two-character fan-out keeps directories small
+        return BLOB_DIR.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static void writeAtomically(Path file, byte[] data) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), "blob", ".tmp");
+            try {
+                Files.write(tmp, data, StandardOpenOption.TRUNCATE_EXISTING);
+                try {
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing blob " + file, e);
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Path resolveBlobDir() {
+        File dbFile = new File(LiteConnection.getDbPath());
+        File parent = dbFile.getAbsoluteFile().getParentFile();
+        return new File(parent, "blobs").toPath();
+    }
+}
@@ -1,6 +1,7 @@
 package com.quillapiclient.db;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -10,6 +11,9 @@ import java.sql.Statement;
  */
 public class DatabaseSchema {
 
+    // Fills variable_usages for the requests saved before it existed
+    static final String VARIABLE_USAGES_BACKFILL = "variable_usages_backfill";
+
     /**
      * Initializes the database schema if it doesn't exist.
      * Creates all necessary tables with indexes for optimal performance.
@@ -20,6 +24,18 @@ public class DatabaseSchema {
         Connection conn = LiteConnection.getConnection();
 
         try (Statement stmt = conn.createStatement()) {
+            // A new database can hand pages freed by retention back to the
+            // file system; the mode can only be set before any table exists
+            try (
+                ResultSet rs = stmt.executeQuery(
+                    "SELECT COUNT(*) FROM sqlite_master"
+                )
+            ) {
+                if (rs.next() && rs.getInt(1) == 0) {
+                    stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+                }
+            }
+
             // Enable WAL mode for better concurrency
             stmt.execute("PRAGMA journal_mode = WAL");
 
@@ -81,6 +97,7 @@ public class DatabaseSchema {
                         full_url_json TEXT,
                         full_body_json TEXT,
                         full_auth_json TEXT,
+                        body_hash TEXT,
                         created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
                         updated_at DATETIME DEFAULT CURRENT_TIMESTAMP,
                         FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE CASCADE
@@ -155,22 +172,45 @@ public class DatabaseSchema {
             );
 
             // Create responses table (stores API call responses)
-            // Linked to requests via request_id
+            // Linked to requests via request_id. Body is a BLOB encoded per
+            // body_encoding (see ResponseBodyCodec); body_size is the raw size.
+            // body_raw marks bodies stored as received rather than as UTF-8.
             stmt.execute(
                 """
                     CREATE TABLE IF NOT EXISTS responses (
                         id INTEGER PRIMARY KEY AUTOINCREMENT,
                         request_id INTEGER NOT NULL,
                         status_code INTEGER NOT NULL,
-                        body TEXT,
+                        body BLOB,
+                        body_encoding TEXT,
+                        body_size INTEGER,
+                        body_hash TEXT,
+                        body_raw INTEGER NOT NULL DEFAULT 0,
                         duration INTEGER,
-                        full_response_json TEXT,
+                        ttfb INTEGER,
                         created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
                         FOREIGN KEY (request_id) REFERENCES requests(id) ON DELETE CASCADE
                     )
                 """
             );
 
+            createVariableUsagesTable(stmt);
+            createMigrationsTable(stmt);
+            // Nothing stored yet, so nothing to index
+            stmt.execute(
+                "INSERT OR IGNORE INTO migrations (name, completed_at) VALUES ('" +
+                    VARIABLE_USAGES_BACKFILL +
+                    "', CURRENT_TIMESTAMP)"
+            );
+            createResponseRetentionTable(stmt);
+            createRetryPolicyTable(stmt);
+
+            createBlobStoreSchema(stmt);
+
+            createRollupTables(stmt);
+
+            createRunTables(stmt);
+
             // Create environments table
             stmt.execute(
                 """
@@ -317,6 +357,10 @@ public class DatabaseSchema {
         stmt.execute(
             "CREATE INDEX IF NOT EXISTS idx_responses_created_at ON responses(created_at DESC)"
         );
+        // Per-request history, newest first (retention pruning)
+        stmt.execute(
+            "CREATE INDEX IF NOT EXISTS idx_responses_request_created ON responses(request_id, created_at DESC, id DESC)"
+        );
 
         // Response header lookups
         stmt.execute(
@@ -339,6 +383,26 @@ public class DatabaseSchema {
         stmt.execute(
             "CREATE INDEX IF NOT EXISTS idx_environment_values_key ON environment_values(variable_key)"
         );
+
+        createVariableKeyIndexes(stmt);
+    }
+
+    /**
+     * Creates the unique {@code (scope, key)} indexes that per-key variable
+     * upserts resolve conflicts on. {@code variables} holds two kinds of
+     * scope, so it gets one partial index for each.
+     */
+    private static void createVariableKeyIndexes(Statement stmt)
+        throws SQLException {
+        stmt.execute(
+            "CREATE UNIQUE INDEX IF NOT EXISTS idx_environment_values_env_key ON environment_values(environment_id, variable_key)"
+        );
+        stmt.execute(
+            "CREATE UNIQUE INDEX IF NOT EXISTS idx_variables_collection_key ON variables(collection_id, variable_key) WHERE item_id IS NULL"
+        );
+        stmt.execute(
+            "CREATE UNIQUE INDEX IF NOT EXISTS idx_variables_item_key ON variables(item_id, variable_key) WHERE item_id IS NOT NULL"
+        );
     }
 
     /**
@@ -452,6 +516,453 @@ public class DatabaseSchema {
         }
     }
 
+    /**
+     * Creates the where-used index of {@code {{variable}}} references,
+     * keyed by name for lookups; the item index serves replacing a
+     * request's rows and the cascade on delete.
+     */
+    private static void createVariableUsagesTable(Statement stmt)
+        throws SQLException {
+        stmt.execute(
+            """
+                CREATE TABLE IF NOT EXISTS variable_usages (
+                    variable_name TEXT NOT NULL,
+                    item_id INTEGER NOT NULL,
+                    PRIMARY KEY (variable_name, item_id),
+                    FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE CASCADE
+                ) WITHOUT ROWID
+            """
+        );
+        stmt.execute(
+            "CREATE INDEX IF NOT EXISTS idx_variable_usages_item_id ON variable_usages(item_id)"
+        );
+    }
+
+    /**
+     * Creates the table of one-off data migrations that run in the
+     * background: a row with no {@code completed_at} is still to do.
+     */
+    private static void createMigrationsTable(Statement stmt)
+        throws SQLException {
+        stmt.execute(
+            """
+                CREATE TABLE IF NOT EXISTS migrations (
+                    name TEXT PRIMARY KEY,
+                    completed_at DATETIME
+                )
+            """
+        );
+    }
+
+    /** True if a background migration is recorded and not yet done. */
+    static boolean isMigrationPending(Connection conn, String name)
+        throws SQLException {
+        try (
+            java.sql.PreparedStatement stmt = conn.prepareStatement(
+                "SELECT 1 FROM migrations WHERE name = ? AND completed_at IS NULL"
+            )
+        ) {
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /** Records a background migration as done. */
+    static void completeMigration(Connection conn, String name)
+        throws SQLException {
+        try (
+            java.sql.PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE migrations SET completed_at = CURRENT_TIMESTAMP WHERE name = ?"
+            )
+        ) {
+            stmt.setString(1, name);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Creates the response retention policy tables, per request and per
+     * folder. A request without a row uses its closest folder's policy;
+     * with none at all, its whole history is kept.
+     */
+    private static void createResponseRetentionTable(Statement stmt)
+        throws SQLException {
+        stmt.execute(
+            """
+                CREATE TABLE IF NOT EXISTS response_retention (
+                    request_id INTEGER PRIMARY KEY,
+                    keep_last INTEGER,
+                    max_age_days INTEGER,
+                    FOREIGN KEY (request_id) REFERENCES requests(id) ON DELETE CASCADE
+                )
+            """
+        );
+        stmt.execute(
+            """
+                CREATE TABLE IF NOT EXISTS folder_retention (
+                    item_id INTEGER PRIMARY KEY,
+                    keep_last INTEGER,
+                    max_age_days INTEGER,
+                    FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE CASCADE
+                )
+            """
+        );
+    }
+
+    /**
+     * Brings an existing responses table up to the compressed-body layout:
+     * adds {@code body_encoding}/{@code body_size}, the retention tables and
+     * the history index, {@code body_raw}, and {@code ttfb} (time to first
+     * byte in ms, kept next to the total in {@code duration}). Existing rows
+     * keep {@code body_encoding = NULL} until
+     * {@link ResponseRetention#scheduleMaintenance()} compacts them,
+     * {@code body_raw = 0} since they only ever held decoded text, and
+     * {@code ttfb = NULL} since it was never measured.
+     */
+    public static void migrateResponsesTable() {
+        Connection conn = LiteConnection.getConnection();
+        try (Statement stmt = conn.createStatement()) {
+            if (!hasColumn(conn, "responses", "body_encoding")) {
+                stmt.execute(
+                    "ALTER TABLE responses ADD COLUMN body_encoding TEXT"
+                );
+                stmt.execute(
+                    "ALTER TABLE responses ADD COLUMN body_size INTEGER"
+                );
+                System.out.println("Migrated responses table schema");
+            }
+            if (!hasColumn(conn, "responses", "body_raw")) {
+                stmt.execute(
+                    "ALTER TABLE responses ADD COLUMN body_raw INTEGER NOT NULL DEFAULT 0"
+                );
+            }
+            if (!hasColumn(conn, "responses", "ttfb")) {
+                stmt.execute("ALTER TABLE responses ADD COLUMN ttfb INTEGER");
+            }
+            createResponseRetentionTable(stmt);
+            stmt.execute(
+                "CREATE INDEX IF NOT EXISTS idx_responses_request_created ON responses(request_id, created_at DESC, id DESC)"
+            );
+        } catch (SQLException e) {
+            System.err.println(
+                "Responses migration failed: " + e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Creates the blob store's reference table and the triggers that keep
+     * {@code ref_count} in step with {@code body_hash} on responses and
+     * requests. Dropping to zero references stamps {@code released_at}, which
+     * starts the garbage-collection grace period.
+     */
+    private static void createBlobStoreSchema(Statement stmt)
+        throws SQLException {
+        stmt.execute(
+            """
+                CREATE TABLE IF NOT EXISTS blobs (
+                    hash TEXT PRIMARY KEY,
+                    size INTEGER NOT NULL,
+                    ref_count INTEGER NOT NULL DEFAULT 0,
+                    released_at DATETIME
+                )
+            """
+        );
+
+        for (String table : new String[] { "responses", "requests" }) {
+            stmt.execute(
+                """
+                    CREATE TRIGGER IF NOT EXISTS %1$s_blob_ref_insert
+                    AFTER INSERT ON %1$s
+                    WHEN NEW.body_hash IS NOT NULL
+                    BEGIN
+                        UPDATE blobs SET ref_count = ref_count + 1, released_at = NULL
+                        WHERE hash = NEW.body_hash;
+                    END
+                """.formatted(table)
+            );
+            stmt.execute(
+                """
+                    CREATE TRIGGER IF NOT EXISTS %1$s_blob_ref_delete
+                    AFTER DELETE ON %1$s
+                    WHEN OLD.body_hash IS NOT NULL
+                    BEGIN
+                        UPDATE blobs SET ref_count = ref_count - 1,
+                            released_at = CASE WHEN ref_count - 1 <= 0 THEN CURRENT_TIMESTAMP ELSE released_at END
+                        WHERE hash = OLD.body_hash;
+                    END
+                """.formatted(table)
+            );
+            stmt.execute(
+                """
+                    CREATE TRIGGER IF NOT EXISTS %1$s_blob_ref_update
+                    AFTER UPDATE OF body_hash ON %1$s
+                    WHEN OLD.body_hash IS NOT NEW.body_hash
+                    BEGIN
+                        UPDATE blobs SET ref_count = ref_count - 1,
+                            released_at = CASE WHEN ref_count - 1 <= 0 THEN CURRENT_TIMESTAMP ELSE released_at END
+                        WHERE hash = OLD.body_hash;
+                        UPDATE blobs SET ref_count = ref_count + 1, released_at = NULL
+                        WHERE hash = NEW.body_hash;
+                    END
+                """.formatted(table)
+            );
+        }
+    }
+
+    /**
+     * Creates the hourly latency rollup tables (see ResponseRollupDao).
+     * Keyed by request so the primary key serves every range query.
+     */
+    private static void createRollupTables(Statement stmt)
+        throws SQLException {
+        stmt.execute(
+            """
+                CREATE TABLE IF NOT EXISTS response_rollups (
+                    request_id INTEGER NOT NULL,
+                    bucket_start INTEGER NOT NULL,
+                    count INTEGER NOT NULL DEFAULT 0,
+                    errors INTEGER NOT NULL DEFAULT 0,
+                    max_ms INTEGER NOT NULL DEFAULT 0,
+                    PRIMARY KEY (request_id, bucket_start),
+                    FOREIGN KEY (request_id) REFERENCES requests(id) ON DELETE CASCADE
+                )
+            """
+        );
+        stmt.execute(
+            """
+                CREATE TABLE IF NOT EXISTS response_rollup_bins (
+                    request_id INTEGER NOT NULL,
+                    bucket_start INTEGER NOT NULL,
+                    bin INTEGER NOT NULL,
+                    count INTEGER NOT NULL DEFAULT 0,
+                    PRIMARY KEY (request_id, bucket_start, bin),
+                    FOREIGN KEY (request_id) REFERENCES requests(id) ON DELETE CASCADE
+                )
+            """
+        );
+    }
+
+    /**
+     * Creates the collection runner tables (see RunDao): one row per run,
+     * and per iteration one compact row per request sent, keyed so a run's
+     * results read back in iteration order from the primary key.
+     */
+    private static void createRunTables(Statement stmt) throws SQLException {
+        stmt.execute(
+            """
+                CREATE TABLE IF NOT EXISTS runs (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    collection_id INTEGER NOT NULL,
+                    folder_id INTEGER,
+                    environment_id INTEGER,
+                    data_file TEXT,
+                    started_at INTEGER NOT NULL,
+                    finished_at INTEGER,
+                    iterations INTEGER NOT NULL DEFAULT 0,
+                    failed_iterations INTEGER NOT NULL DEFAULT 0,
+                    FOREIGN KEY (collection_id) REFERENCES collections(id) ON DELETE CASCADE
+                )
+            """
+        );
+        stmt.execute(
+            """
+                CREATE TABLE IF NOT EXISTS run_results (
+                    run_id INTEGER NOT NULL,
+                    iteration INTEGER NOT NULL,
+                    step INTEGER NOT NULL,
+                    item_id INTEGER NOT NULL,
+                    status_code INTEGER NOT NULL,
+                    duration_ms INTEGER NOT NULL,
+                    body_size INTEGER NOT NULL,
+                    PRIMARY KEY (run_id, iteration, step),
+                    FOREIGN KEY (run_id) REFERENCES runs(id) ON DELETE CASCADE
+                ) WITHOUT ROWID
+            """
+        );
+    }
+
+    /**
+     * Creates the retry policy table. A policy on a folder applies to every
+     * request beneath it that has none of its own.
+     */
+    private static void createRetryPolicyTable(Statement stmt)
+        throws SQLException {
+        stmt.execute(
+            """
+                CREATE TABLE IF NOT EXISTS retry_policies (
+                    item_id INTEGER PRIMARY KEY,
+                    max_retries INTEGER NOT NULL,
+                    retry_statuses TEXT,
+                    retry_connect_errors INTEGER NOT NULL DEFAULT 1,
+                    base_delay_ms INTEGER NOT NULL,
+                    max_delay_ms INTEGER NOT NULL,
+                    hedge_after_ms INTEGER NOT NULL DEFAULT 0,
+                    FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE CASCADE
+                )
+            """
+        );
+    }
+
+    /** Adds the retry policy table to an existing database. */
+    public static void migrateRetryPolicies() {
+        Connection conn = LiteConnection.getConnection();
+        try (Statement stmt = conn.createStatement()) {
+            createRetryPolicyTable(stmt);
+        } catch (SQLException e) {
+            System.err.println(
+                "Retry policy migration failed: " + e.getMessage()
+            );
+        }
+    }
+
+    /** Adds the collection runner tables to an existing database. */
+    public static void migrateRuns() {
+        Connection conn = LiteConnection.getConnection();
+        try (Statement stmt = conn.createStatement()) {
+            createRunTables(stmt);
+        } catch (SQLException e) {
+            System.err.println("Runs migration failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds the latency rollup tables to an existing database. They are
+     * backfilled from existing history by ResponseRetention's startup pass.
+     */
+    public static void migrateResponseRollups() {
+        Connection conn = LiteConnection.getConnection();
+        try (Statement stmt = conn.createStatement()) {
+            createRollupTables(stmt);
+        } catch (SQLException e) {
+            System.err.println(
+                "Response rollup migration failed: " + e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Adds the blob store to an existing database: {@code body_hash} on
+     * responses and requests, the {@code blobs} table and its triggers.
+     */
+    public static void migrateBlobStore() {
+        Connection conn = LiteConnection.getConnection();
+        try (Statement stmt = conn.createStatement()) {
+            for (String table : new String[] { "responses", "requests" }) {
+                if (!hasColumn(conn, table, "body_hash")) {
+                    stmt.execute(
+                        "ALTER TABLE " + table + " ADD COLUMN body_hash TEXT"
+                    );
+                }
+            }
+            createBlobStoreSchema(stmt);
+        } catch (SQLException e) {
+            System.err.println(
+                "Blob store migration failed: " + e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Adds the unique {@code (scope, key)} variable indexes to an existing
+     * database. Imports used to allow a key twice in one scope; only the
+     * newest row of each is kept, which is the one that won when the scope
+     * was loaded.
+     */
+    public static void migrateVariableKeys() {
+        Connection conn = LiteConnection.getConnection();
+        try (Statement stmt = conn.createStatement()) {
+            if (hasIndex(conn, "idx_environment_values_env_key")) {
+                return;
+            }
+            conn.setAutoCommit(false);
+            stmt.execute(
+                "DELETE FROM environment_values WHERE id NOT IN (SELECT MAX(id) FROM environment_values GROUP BY environment_id, variable_key)"
+            );
+            stmt.execute(
+                "DELETE FROM variables WHERE id NOT IN (SELECT MAX(id) FROM variables GROUP BY collection_id, item_id, variable_key)"
+            );
+            createVariableKeyIndexes(stmt);
+            conn.commit();
+            System.out.println("Migrated variable key indexes");
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException ignored) {
+                // rollback failure is non-recoverable
+            }
+            System.err.println(
+                "Variable key migration failed: " + e.getMessage()
+            );
+        } finally {
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // best-effort reset
+            }
+        }
+    }
+
+    /**
+     * Adds the variable where-used index to an existing database and marks
+     * it for filling by {@link VariableUsageDao#backfillIfPending()}, once.
+     */
+    public static void migrateVariableUsages() {
+        Connection conn = LiteConnection.getConnection();
+        try (Statement stmt = conn.createStatement()) {
+            createVariableUsagesTable(stmt);
+            createMigrationsTable(stmt);
+            stmt.execute(
+                "INSERT OR IGNORE INTO migrations (name) VALUES ('" +
+                    VARIABLE_USAGES_BACKFILL +
+                    "')"
+            );
+        } catch (SQLException e) {
+            System.err.println(
+                "Variable usages migration failed: " + e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Checks whether an index exists.
+     */
+    private static boolean hasIndex(Connection conn, String index)
+        throws SQLException {
+        try (
+            java.sql.PreparedStatement stmt = conn.prepareStatement(
+                "SELECT 1 FROM sqlite_master WHERE type = 'index' AND name = ?"
+            )
+        ) {
+            stmt.setString(1, index);
+            try (java.sql.ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Checks whether a table has a column.
+     */
+    static boolean hasColumn(Connection conn, String table, String column)
+        throws SQLException {
+        try (
+            Statement stmt = conn.createStatement();
+            java.sql.ResultSet rs = stmt.executeQuery(
+                "PRAGMA table_info(" + table + ")"
+            )
+        ) {
+            while (rs.next()) {
+                if (column.equals(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Drops all tables (use with caution - for testing/reset only).
      *
@@ -461,9 +972,19 @@ public class DatabaseSchema {
         Connection conn = LiteConnection.getConnection();
         try (Statement stmt = conn.createStatement()) {
             // Drop in reverse order of dependencies
+            stmt.execute("DROP TABLE IF EXISTS run_results");
+            stmt.execute("DROP TABLE IF EXISTS runs");
             stmt.execute("DROP TABLE IF EXISTS response_headers");
+            stmt.execute("DROP TABLE IF EXISTS response_retention");
+            stmt.execute("DROP TABLE IF EXISTS folder_retention");
+            stmt.execute("DROP TABLE IF EXISTS retry_policies");
+            stmt.execute("DROP TABLE IF EXISTS blobs");
+            stmt.execute("DROP TABLE IF EXISTS response_rollup_bins");
+            stmt.execute("DROP TABLE IF EXISTS response_rollups");
             stmt.execute("DROP TABLE IF EXISTS responses");
             stmt.execute("DROP TABLE IF EXISTS events");
+            stmt.execute("DROP TABLE IF EXISTS variable_usages");
+            stmt.execute("DROP TABLE IF EXISTS migrations");
             stmt.execute("DROP TABLE IF EXISTS variables");
             stmt.execute("DROP TABLE IF EXISTS environment_values");
             stmt.execute("DROP TABLE IF EXISTS environments");
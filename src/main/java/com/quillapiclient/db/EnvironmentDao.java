@@ -11,12 +11,24 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public class EnvironmentDao {
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
+    // A key repeated within one environment keeps its last value
+    private static final String VALUE_UPSERT_SQL =
+        "INSERT INTO environment_values (environment_id, variable_key, variable_value, variable_type, enabled, sort_order) " +
+        "VALUES (?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT(environment_id, variable_key) DO UPDATE SET " +
+        "variable_value = excluded.variable_value, variable_type = excluded.variable_type, " +
+        "enabled = excluded.enabled, sort_order = excluded.sort_order";
+
     public static int saveEnvironment(
         PostmanEnvironment environment,
         String fileName
@@ -171,30 +183,34 @@ public class EnvironmentDao {
         int environmentId,
         List<PostmanEnvironmentValue> values
     ) throws SQLException {
-        try (
-            PreparedStatement stmt = conn.prepareStatement(
-                "INSERT INTO environment_values (environment_id, variable_key, variable_value, variable_type, enabled, sort_order) " +
-                    "VALUES (?, ?, ?, ?, ?, ?)"
-            )
-        ) {
+        try (PreparedStatement stmt = conn.prepareStatement(VALUE_UPSERT_SQL)) {
             int sortOrder = 0;
             for (PostmanEnvironmentValue value : values) {
-                stmt.setInt(1, environmentId);
-                stmt.setString(2, value.getKey());
-                stmt.setString(3, value.getValue());
-                stmt.setString(4, value.getType());
-                if (value.getEnabled() != null) {
-                    stmt.setInt(5, value.getEnabled() ? 1 : 0);
-                } else {
-                    stmt.setNull(5, Types.INTEGER);
-                }
-                stmt.setInt(6, sortOrder++);
-                stmt.addBatch();
+                addValueUpsert(stmt, environmentId, value, sortOrder++);
             }
             stmt.executeBatch();
         }
     }
 
+    private static void addValueUpsert(
+        PreparedStatement stmt,
+        int environmentId,
+        PostmanEnvironmentValue value,
+        int sortOrder
+    ) throws SQLException {
+        stmt.setInt(1, environmentId);
+        stmt.setString(2, value.getKey());
+        stmt.setString(3, value.getValue());
+        stmt.setString(4, value.getType());
+        if (value.getEnabled() != null) {
+            stmt.setInt(5, value.getEnabled() ? 1 : 0);
+        } else {
+            stmt.setNull(5, Types.INTEGER);
+        }
+        stmt.setInt(6, sortOrder);
+        stmt.addBatch();
+    }
+
     public static List<EnvironmentInfo> getAllEnvironments() {
         List<EnvironmentInfo> environments = new ArrayList<>();
         Connection conn = LiteConnection.getConnection();
@@ -414,6 +430,13 @@ public class EnvironmentDao {
         }
     }
 
+    /**
+     * Makes an environment's values match {@code values}, in that order.
+     * Only rows that differ are written: changed or new keys are upserted
+     * and keys no longer listed are deleted, so saving a large environment
+     * after editing one value writes one row. A key listed twice keeps its
+     * last value.
+     */
     public static boolean replaceEnvironmentValues(
         int environmentId,
         List<PostmanEnvironmentValue> values
@@ -422,17 +445,51 @@ public class EnvironmentDao {
         try {
             conn.setAutoCommit(false);
 
+            Map<String, StoredValue> stored = loadStoredValues(
+                conn,
+                environmentId
+            );
+            Map<String, PostmanEnvironmentValue> wanted = new LinkedHashMap<>();
+            if (values != null) {
+                for (PostmanEnvironmentValue value : values) {
+                    wanted.remove(value.getKey()); // keep the last position
+                    wanted.put(value.getKey(), value);
+                }
+            }
+
             try (
+                PreparedStatement upsertStmt = conn.prepareStatement(
+                    VALUE_UPSERT_SQL
+                );
                 PreparedStatement deleteStmt = conn.prepareStatement(
-                    "DELETE FROM environment_values WHERE environment_id = ?"
+                    "DELETE FROM environment_values WHERE id = ?"
                 )
             ) {
-                deleteStmt.setInt(1, environmentId);
-                deleteStmt.executeUpdate();
-            }
-
-            if (values != null && !values.isEmpty()) {
-                saveEnvironmentValues(conn, environmentId, values);
+                int sortOrder = 0;
+                int upserts = 0;
+                for (PostmanEnvironmentValue value : wanted.values()) {
+                    StoredValue old = stored.remove(value.getKey());
+                    if (old == null || !old.matches(value, sortOrder)) {
+                        addValueUpsert(
+                            upsertStmt,
+                            environmentId,
+                            value,
+                            sortOrder
+                        );
+                        upserts++;
+                    }
+                    sortOrder++;
+                }
+                for (StoredValue old : stored.values()) {
+                    deleteStmt.setInt(1, old.id);
+                    deleteStmt.addBatch();
+                }
+                if (!stored.isEmpty()) {
+                    deleteStmt.executeBatch();
+                }
+                if (upserts > 0) {
+                    upsertStmt.executeBatch();
+                }
             }
 
             conn.commit();
@@ -475,6 +532,71 @@ public class EnvironmentDao {
         }
     }
 
+    private static Map<String, StoredValue> loadStoredValues(
+        Connection conn,
+        int environmentId
+    ) throws SQLException {
+        Map<String, StoredValue> stored = new HashMap<>();
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "SELECT id, variable_key, variable_value, variable_type, enabled, sort_order " +
+                    "FROM environment_values WHERE environment_id = ?"
+            )
+        ) {
+            stmt.setInt(1, environmentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int enabled = rs.getInt("enabled");
+                    Boolean isEnabled = rs.wasNull() ? null : enabled == 1;
+                    stored.put(
+                        rs.getString("variable_key"),
+                        new StoredValue(
+                            rs.getInt("id"),
+                            rs.getString("variable_value"),
+                            rs.getString("variable_type"),
+                            isEnabled,
+                            rs.getInt("sort_order")
+                        )
+                    );
+                }
+            }
+        }
+        return stored;
+    }
+
+    /** A row of environment_values, for comparing against edited values. */
+    private static class StoredValue {
+
+        final int id;
+        final String value;
+        final String type;
+        final Boolean enabled;
+        final int sortOrder;
+
+        StoredValue(
+            int id,
+            String value,
+            String type,
+            Boolean enabled,
+            int sortOrder
+        ) {
+            this.id = id;
+            this.value = value;
+            this.type = type;
+            this.enabled = enabled;
+            this.sortOrder = sortOrder;
+        }
+
+        boolean matches(PostmanEnvironmentValue other, int otherSortOrder) {
+            return (
+                sortOrder == otherSortOrder &&
+                Objects.equals(value, other.getValue()) &&
+                Objects.equals(type, other.getType()) &&
+                Objects.equals(enabled, other.getEnabled())
+            );
+        }
+    }
+
     public static class EnvironmentValueRecord {
 
         public final int id;
@@ -174,6 +174,24 @@ public class LiteConnection {
         return conn;
     }
 
+    /**
+     * True if {@code e}, or an exception it wraps, reports the database
+     * busy or locked by another connection: worth trying again later,
+     * unlike a constraint violation or a malformed statement.
+     */
+    public static boolean isBusy(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException) {
+                // Primary result code; extended codes keep it in the low byte
+                int code = ((SQLException) t).getErrorCode() & 0xff;
+                if (code == 5 || code == 6) { // SQLITE_BUSY, SQLITE_LOCKED
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Closes a connection, logging failures. Safe to call with null.
      * Does not touch the shared singleton — use {@link #closeConnection()} for that.
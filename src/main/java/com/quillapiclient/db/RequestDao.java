@@ -43,6 +43,14 @@ public class RequestDao {
                 ? request.getBody().getOptions().getRaw().getLanguage()
                 : null;
 
+        // Large raw bodies go to the blob store; the row keeps only the hash
+        StoredBody storedBody;
+        try {
+            storedBody = StoredBody.of(conn, bodyRaw);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error storing request body", e);
+        }
+
         // Serialize complex objects to JSON
         String fullUrlJson = null;
         String fullBodyJson = null;
@@ -52,10 +60,7 @@ public class RequestDao {
                 request.getUrl() != null
                     ? objectMapper.writeValueAsString(request.getUrl())
                     : null;
-            fullBodyJson =
-                request.getBody() != null
-                    ? objectMapper.writeValueAsString(request.getBody())
-                    : null;
+            fullBodyJson = serializeBody(request.getBody(), storedBody);
             fullAuthJson =
                 request.getAuth() != null
                     ? objectMapper.writeValueAsString(request.getAuth())
@@ -110,8 +115,8 @@ public class RequestDao {
             PreparedStatement stmt = conn.prepareStatement(
                 "INSERT INTO requests (item_id, method, url_raw, url_protocol, url_port, " +
                     "body_mode, body_raw, body_language, auth_type, auth_basic_username, " +
-                    "auth_basic_password, auth_bearer_token, full_url_json, full_body_json, full_auth_json) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    "auth_basic_password, auth_bearer_token, full_url_json, full_body_json, full_auth_json, body_hash) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
                 Statement.RETURN_GENERATED_KEYS
             )
         ) {
@@ -121,7 +126,7 @@ public class RequestDao {
             stmt.setString(4, urlProtocol);
             stmt.setString(5, urlPort);
             stmt.setString(6, bodyMode);
-            stmt.setString(7, bodyRaw);
+            stmt.setString(7, storedBody.raw);
             stmt.setString(8, bodyLanguage);
             stmt.setString(
                 9,
@@ -133,6 +138,7 @@ public class RequestDao {
             stmt.setString(13, fullUrlJson);
             stmt.setString(14, fullBodyJson);
             stmt.setString(15, fullAuthJson);
+            stmt.setString(16, storedBody.hash);
             stmt.executeUpdate();
 
             ResultSet rs = stmt.getGeneratedKeys();
@@ -212,20 +218,74 @@ public class RequestDao {
                 e.printStackTrace();
             }
         }
+
+        // Index {{variable}} references for where-used lookups
+        try {
+            VariableUsageDao.replaceUsages(
+                conn,
+                itemId,
+                VariableUsageDao.namesOf(
+                    request.getHeader(),
+                    urlRaw,
+                    fullUrlJson,
+                    bodyRaw,
+                    fullBodyJson,
+                    fullAuthJson
+                )
+            );
+        } catch (SQLException e) {
+            System.err.println(
+                "Error indexing request variables: " + e.getMessage()
+            );
+            e.printStackTrace();
+        }
     }
 
     /**
      * Gets a request by its item ID, including reconstructed URL, body, auth, headers, and query params.
+     * Every section is decoded before returning, so the result is safe to
+     * serialize or hand to another thread.
      *
      * @param itemId The item ID
      * @return The Request object, or null if not found
      */
     public static Request getRequestByItemId(int itemId) {
+        LazyRequest request = getLazyRequestByItemId(itemId);
+        if (request == null) {
+            return null;
+        }
+        try {
+            request.decodeAll();
+        } catch (Exception e) {
+            System.err.println(
+                "Error deserializing request data: " + e.getMessage()
+            );
+            e.printStackTrace();
+            return null;
+        }
+        return request;
+    }
+
+    /**
+     * Gets a request by its item ID without decoding its sections.
+     *
+     * <p>Only the method and raw URL are read up front. URL/auth JSON stay
+     * undecoded until first access, and the body columns, headers and query
+     * params are not even read until their section is asked for. Decoders
+     * read through {@link LiteConnection#getConnection()} at access time, so
+     * the request must be used on the thread that loaded it.
+     *
+     * @param itemId The item ID
+     * @return The lazy Request, or null if not found
+     */
+    public static LazyRequest getLazyRequestByItemId(int itemId) {
         Connection conn = LiteConnection.getConnection();
 
         try (
             PreparedStatement stmt = conn.prepareStatement(
-                "SELECT * FROM requests WHERE item_id = ?"
+                "SELECT id, method, url_raw, url_protocol, url_port, full_url_json, " +
+                    "auth_type, auth_basic_username, auth_basic_password, auth_bearer_token, " +
+                    "full_auth_json FROM requests WHERE item_id = ?"
             )
         ) {
             stmt.setInt(1, itemId);
@@ -235,31 +295,97 @@ public class RequestDao {
                 return null;
             }
 
-            Request request = new Request();
-            request.setMethod(rs.getString("method"));
-
-            // Reconstruct URL from JSON or individual fields
-            Url url = null;
+            int requestId = rs.getInt("id");
+            String urlRaw = rs.getString("url_raw");
+            String urlProtocol = rs.getString("url_protocol");
+            String urlPort = rs.getString("url_port");
             String fullUrlJson = rs.getString("full_url_json");
-            if (fullUrlJson != null && !fullUrlJson.isEmpty()) {
-                try {
-                    url = objectMapper.readValue(fullUrlJson, Url.class);
-                } catch (Exception e) {
-                    // Fallback to individual fields
-                    url = new Url();
-                    url.setRaw(rs.getString("url_raw"));
-                    url.setProtocol(rs.getString("url_protocol"));
-                    url.setPort(rs.getString("url_port"));
-                }
-            } else {
-                url = new Url();
-                url.setRaw(rs.getString("url_raw"));
-                url.setProtocol(rs.getString("url_protocol"));
-                url.setPort(rs.getString("url_port"));
+            AuthColumns authColumns = new AuthColumns(
+                rs.getString("auth_type"),
+                rs.getString("auth_basic_username"),
+                rs.getString("auth_basic_password"),
+                rs.getString("auth_bearer_token")
+            );
+            String fullAuthJson = rs.getString("full_auth_json");
+
+            return new LazyRequest(
+                rs.getString("method"),
+                urlRaw,
+                () ->
+                    decodeUrl(
+                        requestId,
+                        fullUrlJson,
+                        urlRaw,
+                        urlProtocol,
+                        urlPort
+                    ),
+                () -> loadBody(requestId),
+                () -> decodeAuth(fullAuthJson, authColumns),
+                () -> HeaderDao.getHeaders(requestId)
+            );
+        } catch (SQLException e) {
+            System.err.println(
+                "Error getting request by item ID from database: " +
+                    e.getMessage()
+            );
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Reconstructs the URL from its JSON column (or the individual fields)
+     * and attaches the query params stored for the request.
+     */
+    private static Url decodeUrl(
+        int requestId,
+        String fullUrlJson,
+        String urlRaw,
+        String urlProtocol,
+        String urlPort
+    ) {
+        Url url = null;
+        if (fullUrlJson != null && !fullUrlJson.isEmpty()) {
+            try {
+                url = objectMapper.readValue(fullUrlJson, Url.class);
+            } catch (Exception e) {
+                // Fallback to individual fields
+                url = null;
+            }
+        }
+        if (url == null) {
+            url = new Url();
+            url.setRaw(urlRaw);
+            url.setProtocol(urlProtocol);
+            url.setPort(urlPort);
+        }
+
+        List<Query> queries = QueryParamDao.getQueryParams(requestId);
+        if (queries != null && !queries.isEmpty()) {
+            url.setQuery(queries);
+        }
+        return url;
+    }
+
+    /**
+     * Reads and decodes the body columns for a request. Kept out of the
+     * selection query because bodies are the one column that can run to
+     * megabytes.
+     */
+    private static Body loadBody(int requestId) {
+        Connection conn = LiteConnection.getConnection();
+
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "SELECT body_mode, body_raw, full_body_json, body_hash FROM requests WHERE id = ?"
+            )
+        ) {
+            stmt.setInt(1, requestId);
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                return null;
             }
-            request.setUrl(url);
 
-            // Reconstruct Body from JSON or individual fields
             Body body = null;
             String fullBodyJson = rs.getString("full_body_json");
             if (fullBodyJson != null && !fullBodyJson.isEmpty()) {
@@ -267,60 +393,44 @@ public class RequestDao {
                     body = objectMapper.readValue(fullBodyJson, Body.class);
                 } catch (Exception e) {
                     // Fallback to individual fields
-                    body = new Body();
-                    body.setMode(rs.getString("body_mode"));
-                    body.setRaw(rs.getString("body_raw"));
                 }
-            } else {
+            }
+            if (body == null) {
                 body = new Body();
                 body.setMode(rs.getString("body_mode"));
                 body.setRaw(rs.getString("body_raw"));
             }
-            request.setBody(body);
 
-            // Reconstruct Auth from JSON or individual fields
-            Auth auth = null;
-            String fullAuthJson = rs.getString("full_auth_json");
-            if (fullAuthJson != null && !fullAuthJson.isEmpty()) {
-                try {
-                    auth = objectMapper.readValue(fullAuthJson, Auth.class);
-                } catch (Exception e) {
-                    // Fallback to individual fields
-                    auth = reconstructAuth(rs);
-                }
-            } else {
-                auth = reconstructAuth(rs);
+            // Raw text of a large body lives in the blob store
+            String bodyHash = rs.getString("body_hash");
+            if (bodyHash != null) {
+                body.setRaw(BlobStore.readString(bodyHash));
             }
-            request.setAuth(auth);
-
-            // Load headers
-            int requestId = rs.getInt("id");
-            List<Header> headers = HeaderDao.getHeaders(requestId);
-            request.setHeader(headers);
-
-            // Load query parameters
-            List<Query> queries = QueryParamDao.getQueryParams(requestId);
-            if (queries != null && !queries.isEmpty() && url != null) {
-                url.setQuery(queries);
-            }
-
-            return request;
+            return body;
         } catch (SQLException e) {
             System.err.println(
-                "Error getting request by item ID from database: " +
-                    e.getMessage()
-            );
-            e.printStackTrace();
-            return null;
-        } catch (Exception e) {
-            System.err.println(
-                "Error deserializing request data: " + e.getMessage()
+                "Error loading request body from database: " + e.getMessage()
             );
             e.printStackTrace();
             return null;
         }
     }
 
+    /**
+     * Reconstructs Auth from its JSON column, or the individual auth columns
+     * when there is no usable JSON.
+     */
+    private static Auth decodeAuth(String fullAuthJson, AuthColumns columns) {
+        if (fullAuthJson != null && !fullAuthJson.isEmpty()) {
+            try {
+                return objectMapper.readValue(fullAuthJson, Auth.class);
+            } catch (Exception e) {
+                // Fallback to individual fields
+            }
+        }
+        return reconstructAuth(columns);
+    }
+
     /**
      * Gets the request ID for a given item ID.
      *
@@ -408,6 +518,9 @@ public class RequestDao {
                     ? request.getBody().getOptions().getRaw().getLanguage()
                     : null;
 
+            // Large raw bodies go to the blob store; the row keeps only the hash
+            StoredBody storedBody = StoredBody.of(conn, bodyRaw);
+
             // Serialize complex objects to JSON
             String fullUrlJson = null;
             String fullBodyJson = null;
@@ -417,10 +530,7 @@ public class RequestDao {
                     request.getUrl() != null
                         ? objectMapper.writeValueAsString(request.getUrl())
                         : null;
-                fullBodyJson =
-                    request.getBody() != null
-                        ? objectMapper.writeValueAsString(request.getBody())
-                        : null;
+                fullBodyJson = serializeBody(request.getBody(), storedBody);
                 fullAuthJson =
                     request.getAuth() != null
                         ? objectMapper.writeValueAsString(request.getAuth())
@@ -481,7 +591,7 @@ public class RequestDao {
                     "UPDATE requests SET method = ?, url_raw = ?, url_protocol = ?, url_port = ?, " +
                         "body_mode = ?, body_raw = ?, body_language = ?, auth_type = ?, auth_basic_username = ?, " +
                         "auth_basic_password = ?, auth_bearer_token = ?, full_url_json = ?, full_body_json = ?, " +
-                        "full_auth_json = ?, updated_at = CURRENT_TIMESTAMP WHERE item_id = ?"
+                        "full_auth_json = ?, body_hash = ?, updated_at = CURRENT_TIMESTAMP WHERE item_id = ?"
                 )
             ) {
                 stmt.setString(1, method);
@@ -489,7 +599,7 @@ public class RequestDao {
                 stmt.setString(3, urlProtocol);
                 stmt.setString(4, urlPort);
                 stmt.setString(5, bodyMode);
-                stmt.setString(6, bodyRaw);
+                stmt.setString(6, storedBody.raw);
                 stmt.setString(7, bodyLanguage);
                 stmt.setString(8, authType);
                 stmt.setString(9, authBasicUsername);
@@ -498,7 +608,8 @@ public class RequestDao {
                 stmt.setString(12, fullUrlJson);
                 stmt.setString(13, fullBodyJson);
                 stmt.setString(14, fullAuthJson);
-                stmt.setInt(15, itemId);
+                stmt.setString(15, storedBody.hash);
+                stmt.setInt(16, itemId);
                 stmt.executeUpdate();
             }
 
@@ -578,6 +689,19 @@ public class RequestDao {
                 }
             }
 
+            VariableUsageDao.replaceUsages(
+                conn,
+                itemId,
+                VariableUsageDao.namesOf(
+                    request.getHeader(),
+                    urlRaw,
+                    fullUrlJson,
+                    bodyRaw,
+                    fullBodyJson,
+                    fullAuthJson
+                )
+            );
+
             conn.commit();
             return true;
         } catch (SQLException e) {
@@ -696,53 +820,109 @@ public class RequestDao {
     // -----------------------------------------------------------
 
     /**
-     * Reconstructs Auth object from database fields.
+     * Serializes a body for {@code full_body_json}. When the raw text went to
+     * the blob store it is left out of the JSON copy as well.
      */
-    private static Auth reconstructAuth(ResultSet rs) {
-        try {
-            String authTypeStr = rs.getString("auth_type");
-            AuthType authType = AuthType.fromDbKey(authTypeStr);
-            if (authType == AuthType.NONE) {
-                return null;
-            }
+    private static String serializeBody(Body body, StoredBody storedBody)
+        throws JsonProcessingException {
+        if (body == null) {
+            return null;
+        }
+        if (storedBody.hash == null) {
+            return objectMapper.writeValueAsString(body);
+        }
+        Body withoutRaw = objectMapper.convertValue(body, Body.class);
+        withoutRaw.setRaw(null);
+        return objectMapper.writeValueAsString(withoutRaw);
+    }
 
-            Auth auth = new Auth();
-            auth.setType(authType.getDbKey());
-
-            if (authType == AuthType.BASIC) {
-                List<Credential> basic = new ArrayList<>();
-                String username = rs.getString("auth_basic_username");
-                String password = rs.getString("auth_basic_password");
-                if (username != null) {
-                    Credential cred = new Credential();
-                    cred.setKey("username");
-                    cred.setValue(username);
-                    basic.add(cred);
-                }
-                if (password != null) {
-                    Credential cred = new Credential();
-                    cred.setKey("password");
-                    cred.setValue(password);
-                    basic.add(cred);
-                }
-                auth.setBasic(basic);
-            } else if (
-                authType == AuthType.BEARER || authType == AuthType.JWT_BEARER
-            ) {
-                List<Credential> bearer = new ArrayList<>();
-                String token = rs.getString("auth_bearer_token");
-                if (token != null) {
-                    Credential cred = new Credential();
-                    cred.setKey("token");
-                    cred.setValue(token);
-                    bearer.add(cred);
-                }
-                auth.setBearer(bearer);
+    /** Raw body as written to the row: inline text, or a blob store hash. */
+    private static class StoredBody {
+
+        final String raw;
+        final String hash;
+
+        private StoredBody(String raw, String hash) {
+            this.raw = raw;
+            this.hash = hash;
+        }
+
+        static StoredBody of(Connection conn, String bodyRaw)
+            throws SQLException {
+            if (bodyRaw == null) {
+                return new StoredBody(null, null);
             }
+            byte[] bytes = bodyRaw.getBytes(
+                java.nio.charset.StandardCharsets.UTF_8
+            );
+            if (bytes.length < BlobStore.thresholdBytes()) {
+                return new StoredBody(bodyRaw, null);
+            }
+            return new StoredBody(null, BlobStore.put(conn, bytes));
+        }
+    }
 
-            return auth;
-        } catch (SQLException e) {
+    /**
+     * Reconstructs Auth object from database fields.
+     */
+    private static Auth reconstructAuth(AuthColumns columns) {
+        AuthType authType = AuthType.fromDbKey(columns.type);
+        if (authType == AuthType.NONE) {
             return null;
         }
+
+        Auth auth = new Auth();
+        auth.setType(authType.getDbKey());
+
+        if (authType == AuthType.BASIC) {
+            List<Credential> basic = new ArrayList<>();
+            if (columns.basicUsername != null) {
+                Credential cred = new Credential();
+                cred.setKey("username");
+                cred.setValue(columns.basicUsername);
+                basic.add(cred);
+            }
+            if (columns.basicPassword != null) {
+                Credential cred = new Credential();
+                cred.setKey("password");
+                cred.setValue(columns.basicPassword);
+                basic.add(cred);
+            }
+            auth.setBasic(basic);
+        } else if (
+            authType == AuthType.BEARER || authType == AuthType.JWT_BEARER
+        ) {
+            List<Credential> bearer = new ArrayList<>();
+            if (columns.bearerToken != null) {
+                Credential cred = new Credential();
+                cred.setKey("token");
+                cred.setValue(columns.bearerToken);
+                bearer.add(cred);
+            }
+            auth.setBearer(bearer);
+        }
+
+        return auth;
+    }
+
+    /** Denormalized auth columns of a requests row, captured undecoded. */
+    private static class AuthColumns {
+
+        final String type;
+        final String basicUsername;
+        final String basicPassword;
+        final String bearerToken;
+
+        AuthColumns(
+            String type,
+            String basicUsername,
+            String basicPassword,
+            String bearerToken
+        ) {
+            this.type = type;
+            this.basicUsername = basicUsername;
+            this.basicPassword = basicPassword;
+            this.bearerToken = bearerToken;
+        }
     }
 }
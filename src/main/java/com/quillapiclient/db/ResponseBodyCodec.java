@@ -0,0 +1,199 @@
+package com.quillapiclient.db;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes response bodies for the {@code responses.body} BLOB column.
+ *
+ * <p>Bodies are stored as UTF-8 bytes, deflated when that actually saves
+ * space. Bodies over the {@link BlobStore} threshold are not stored in the
+ * row at all: the row holds {@code body_hash} and the encoding {@code blob}.
+ * {@code body_encoding} records which form a row holds; {@code NULL} marks a
+ * legacy row whose body is still plain TEXT. Rows with {@code body_raw = 1}
+ * hold the bytes exactly as received (decoded with the response charset);
+ * older rows hold the UTF-8 encoding of the decoded text.
+ */
+final class ResponseBodyCodec {
+
+    static final String ENCODING_IDENTITY = "identity";
+    static final String ENCODING_DEFLATE = "deflate";
+    static final String ENCODING_BLOB = "blob";
+
+    // Below this the deflate header costs more than it saves
+    private static final int MIN_DEFLATE_BYTES = 256;
+
+    private ResponseBodyCodec() {}
+
+    /**
+     * A body ready to bind: stored bytes, their encoding, the raw size, and
+     * the blob hash when the bytes live in the blob store instead.
+     */
+    static final class Encoded {
+
+        final byte[] data;
+        final String encoding;
+        final int size;
+        final String hash;
+
+        private Encoded(byte[] data, String encoding, int size, String hash) {
+            this.data = data;
+            this.encoding = encoding;
+            this.size = size;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Encodes a body for a row written on {@code conn}, moving it to the
+     * blob store when it is at or above the store's threshold.
+     */
+    static Encoded store(Connection conn, String body) throws SQLException {
+        if (body == null) {
+            return new Encoded(null, ENCODING_IDENTITY, 0, null);
+        }
+        return store(conn, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Like {@link #store(Connection, String)} for bytes as received. */
+    static Encoded store(Connection conn, byte[] raw) throws SQLException {
+        if (raw == null) {
+            return new Encoded(null, ENCODING_IDENTITY, 0, null);
+        }
+        if (raw.length >= BlobStore.thresholdBytes()) {
+            String hash = BlobStore.put(conn, raw);
+            return new Encoded(null, ENCODING_BLOB, raw.length, hash);
+        }
+        return encode(raw);
+    }
+
+    static Encoded encode(String body) {
+        if (body == null) {
+            return new Encoded(null, ENCODING_IDENTITY, 0, null);
+        }
+        return encode(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Encoded encode(byte[] raw) {
+        if (raw.length >= MIN_DEFLATE_BYTES) {
+            byte[] deflated = deflate(raw);
+            if (deflated.length < raw.length) {
+                return new Encoded(
+                    deflated,
+                    ENCODING_DEFLATE,
+                    raw.length,
+                    null
+                );
+            }
+        }
+        return new Encoded(raw, ENCODING_IDENTITY, raw.length, null);
+    }
+
+    /**
+     * Decodes a stored body; {@code hash} is only read for blob-encoded rows.
+     */
+    static String decode(byte[] data, String encoding, String hash) {
+        if (ENCODING_BLOB.equals(encoding)) {
+            return hash != null ? BlobStore.readString(hash) : null;
+        }
+        return decode(data, encoding);
+    }
+
+    /** Like {@link #decode(byte[], String, String)}, without decoding text. */
+    static byte[] decodeBytes(byte[] data, String encoding, String hash) {
+        if (ENCODING_BLOB.equals(encoding)) {
+            return hash != null ? BlobStore.readBytes(hash) : null;
+        }
+        if (data == null) {
+            return null;
+        }
+        return ENCODING_DEFLATE.equals(encoding) ? inflate(data) : data;
+    }
+
+    /**
+     * Like {@link #decodeBytes}, as a stream: a blob is read from its file
+     * and a deflated body inflated as it is read.
+     *
+     * @return the stream, or null if there is no body
+     */
+    static InputStream openStream(byte[] data, String encoding, String hash)
+        throws IOException {
+        if (ENCODING_BLOB.equals(encoding)) {
+            return hash != null ? BlobStore.openStream(hash) : null;
+        }
+        if (data == null) {
+            return null;
+        }
+        InputStream in = new ByteArrayInputStream(data);
+        return ENCODING_DEFLATE.equals(encoding)
+            ? new InflaterInputStream(in)
+            : in;
+    }
+
+    static String decode(byte[] data, String encoding) {
+        if (data == null) {
+            return null;
+        }
+        if (ENCODING_DEFLATE.equals(encoding)) {
+            return new String(inflate(data), StandardCharsets.UTF_8);
+        }
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(
+                Math.max(64, raw.length / 4)
+            );
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(
+                data.length * 4
+            );
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (
+                    n == 0 &&
+                    (inflater.needsInput() || inflater.needsDictionary())
+                ) {
+                    break; // truncated stream: keep what was recovered
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException(
+                "Corrupt deflated response body",
+                e
+            );
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package com.quillapiclient.db;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quillapiclient.objects.ResponseSummary;
 import com.quillapiclient.server.ApiResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -15,8 +22,6 @@ import java.util.Map;
  */
 public class ResponseDao {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-
     /**
      * Saves an API response to the database, linked to a request.
      *
@@ -47,36 +52,42 @@ public class ResponseDao {
         int requestId
     ) {
         try {
-            // Serialize full response to JSON for flexibility
-            String fullResponseJson = null;
-            try {
-                fullResponseJson = objectMapper.writeValueAsString(response);
-            } catch (JsonProcessingException e) {
-                System.err.println(
-                    "Error serializing response to JSON: " + e.getMessage()
-                );
-                e.printStackTrace();
-            }
+            // Body is stored compressed; headers live in response_headers,
+            // so no second JSON copy of the response is kept. Bytes as
+            // received are kept as-is so binary bodies survive a reload.
+            boolean raw = response.getRawBody() != null;
+            ResponseBodyCodec.Encoded body = raw
+                ? ResponseBodyCodec.store(conn, response.getRawBody())
+                : ResponseBodyCodec.store(conn, response.getBody());
 
             // Insert response
             int responseId = -1;
             try (
                 PreparedStatement stmt = conn.prepareStatement(
-                    "INSERT INTO responses (request_id, status_code, body, duration, full_response_json) " +
-                        "VALUES (?, ?, ?, ?, ?)",
+                    "INSERT INTO responses (request_id, status_code, body, body_encoding, body_size, body_hash, body_raw, duration, ttfb) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
                     Statement.RETURN_GENERATED_KEYS
                 )
             ) {
                 stmt.setInt(1, requestId);
                 stmt.setInt(2, response.getStatusCode());
-                stmt.setString(3, response.getBody());
-                stmt.setLong(4, response.getDuration());
-                stmt.setString(5, fullResponseJson);
+                stmt.setBytes(3, body.data);
+                stmt.setString(4, body.encoding);
+                stmt.setInt(5, body.size);
+                stmt.setString(6, body.hash);
+                stmt.setInt(7, raw ? 1 : 0);
+                stmt.setLong(8, response.getDuration());
+                if (response.getTimeToFirstByte() >= 0) {
+                    stmt.setLong(9, response.getTimeToFirstByte());
+                } else {
+                    stmt.setNull(9, Types.INTEGER);
+                }
                 stmt.executeUpdate();
 
                 ResultSet rs = stmt.getGeneratedKeys();
                 if (rs.next()) {
                     responseId = rs.getInt(1);
+                    response.setId(responseId);
                 } else {
                     System.err.println(
                         "Failed to get generated key for response"
@@ -120,6 +131,23 @@ public class ResponseDao {
                 }
             }
 
+            try {
+                ResponseRollupDao.record(
+                    conn,
+                    requestId,
+                    response.getStatusCode(),
+                    response.getDuration(),
+                    System.currentTimeMillis() / 1000
+                );
+            } catch (SQLException e) {
+                // Analytics only; the response itself is saved
+                System.err.println(
+                    "Error updating latency rollup: " + e.getMessage()
+                );
+                e.printStackTrace();
+            }
+
+            ResponseRetention.schedulePrune(requestId);
             return responseId;
         } catch (SQLException e) {
             System.err.println(
@@ -153,9 +181,11 @@ public class ResponseDao {
             }
 
             ApiResponse response = new ApiResponse();
+            response.setId(responseId);
             response.setStatusCode(rs.getInt("status_code"));
-            response.setBody(rs.getString("body"));
+            readBody(rs, response);
             response.setDuration(rs.getLong("duration"));
+            readTimeToFirstByte(rs, response);
 
             // Reconstruct headers
             Map<String, java.util.List<String>> headers = getResponseHeaders(
@@ -173,33 +203,160 @@ public class ResponseDao {
         }
     }
 
+    /**
+     * Reads the body of the current row into {@code response}, decoding it
+     * per {@code body_encoding}. Legacy rows (no encoding yet) still hold
+     * the body as plain TEXT; rows with {@code body_raw} hold the bytes as
+     * received, which the response decodes with its own charset.
+     */
+    private static void readBody(ResultSet rs, ApiResponse response)
+        throws SQLException {
+        String encoding = rs.getString("body_encoding");
+        if (encoding == null) {
+            response.setBody(rs.getString("body"));
+        } else if (rs.getInt("body_raw") == 1) {
+            response.setRawBody(
+                ResponseBodyCodec.decodeBytes(
+                    rs.getBytes("body"),
+                    encoding,
+                    rs.getString("body_hash")
+                )
+            );
+        } else {
+            response.setBody(
+                ResponseBodyCodec.decode(
+                    rs.getBytes("body"),
+                    encoding,
+                    rs.getString("body_hash")
+                )
+            );
+        }
+    }
+
+    /**
+     * Opens a stored response body as text, decoded as it is read, so a
+     * large body is never in memory whole. Bodies kept in the blob store
+     * are read from their file.
+     *
+     * @param responseId The response ID
+     * @return The reader (the caller closes it), or null if the response
+     *         does not exist or has no body
+     */
+    public static Reader openBody(int responseId) {
+        Connection conn = LiteConnection.getConnection();
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "SELECT body, body_encoding, body_raw, body_hash FROM responses WHERE id = ?"
+            )
+        ) {
+            stmt.setInt(1, responseId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                String encoding = rs.getString("body_encoding");
+                if (encoding == null) {
+                    String body = rs.getString("body");
+                    return body != null ? new StringReader(body) : null;
+                }
+                // Raw bytes decode with the response charset, like getBody
+                Charset charset = StandardCharsets.UTF_8;
+                if (rs.getInt("body_raw") == 1) {
+                    ApiResponse head = new ApiResponse();
+                    head.setHeaders(getResponseHeaders(responseId));
+                    charset = head.getCharset();
+                }
+                InputStream in = ResponseBodyCodec.openStream(
+                    rs.getBytes("body"),
+                    encoding,
+                    rs.getString("body_hash")
+                );
+                return in != null ? new InputStreamReader(in, charset) : null;
+            }
+        } catch (SQLException e) {
+            System.err.println(
+                "Error reading response body from database: " + e.getMessage()
+            );
+            e.printStackTrace();
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(
+                "Error opening body of response " + responseId,
+                e
+            );
+        }
+    }
+
+    /** Reads {@code ttfb}, which is NULL for rows saved before it existed. */
+    private static void readTimeToFirstByte(ResultSet rs, ApiResponse response)
+        throws SQLException {
+        long ttfb = rs.getLong("ttfb");
+        response.setTimeToFirstByte(rs.wasNull() ? -1 : ttfb);
+    }
+
     /**
      * Gets all responses for a specific request, ordered by creation time (newest first).
+     * Loads rows and their headers with one query each instead of one
+     * lookup per response; prefer {@link #getHistoryPage} for browsing.
      *
      * @param requestId The request ID
      * @return List of ApiResponse objects
      */
     public static List<ApiResponse> getResponsesByRequestId(int requestId) {
         List<ApiResponse> responses = new ArrayList<>();
+        Map<Integer, ApiResponse> byId = new HashMap<>();
         Connection conn = LiteConnection.getConnection();
 
         try (
             PreparedStatement stmt = conn.prepareStatement(
-                "SELECT id FROM responses WHERE request_id = ? ORDER BY created_at DESC"
+                "SELECT * FROM responses WHERE request_id = ? ORDER BY created_at DESC, id DESC"
+            )
+        ) {
+            stmt.setInt(1, requestId);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                ApiResponse response = new ApiResponse();
+                response.setId(rs.getInt("id"));
+                response.setStatusCode(rs.getInt("status_code"));
+                readBody(rs, response);
+                response.setDuration(rs.getLong("duration"));
+                readTimeToFirstByte(rs, response);
+                response.setHeaders(new HashMap<>());
+                responses.add(response);
+                byId.put(rs.getInt("id"), response);
+            }
+        } catch (SQLException e) {
+            System.err.println(
+                "Error getting responses by request ID from database: " +
+                    e.getMessage()
+            );
+            e.printStackTrace();
+            return responses;
+        }
+
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "SELECT h.response_id, h.header_key, h.header_value FROM response_headers h " +
+                    "JOIN responses r ON r.id = h.response_id " +
+                    "WHERE r.request_id = ? ORDER BY h.response_id, h.sort_order"
             )
         ) {
             stmt.setInt(1, requestId);
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                int responseId = rs.getInt("id");
-                ApiResponse response = getResponse(responseId);
+                ApiResponse response = byId.get(rs.getInt("response_id"));
                 if (response != null) {
-                    responses.add(response);
+                    response
+                        .getHeaders()
+                        .put(
+                            rs.getString("header_key"),
+                            splitHeaderValue(rs.getString("header_value"))
+                        );
                 }
             }
         } catch (SQLException e) {
             System.err.println(
-                "Error getting responses by request ID from database: " +
+                "Error getting response headers from database: " +
                     e.getMessage()
             );
             e.printStackTrace();
@@ -208,6 +365,72 @@ public class ResponseDao {
         return responses;
     }
 
+    /**
+     * Gets one page of a request's response history, newest first, without
+     * reading bodies or headers.
+     *
+     * <p>Keyset pagination on {@code (created_at, id)}: pass the last summary
+     * of the previous page as {@code after} (null for the first page). Each
+     * page is an index range scan on idx_responses_request_created, so deep
+     * pages cost the same as the first.
+     *
+     * @param requestId The request ID
+     * @param after     Last summary of the previous page, or null
+     * @param limit     Maximum number of summaries to return
+     * @return The page (empty once history is exhausted)
+     */
+    public static List<ResponseSummary> getHistoryPage(
+        int requestId,
+        ResponseSummary after,
+        int limit
+    ) {
+        List<ResponseSummary> page = new ArrayList<>();
+        Connection conn = LiteConnection.getConnection();
+
+        String sql =
+            "SELECT id, status_code, duration, body_size, created_at FROM responses " +
+            "WHERE request_id = ? " +
+            (after != null
+                ? "AND (created_at < ? OR (created_at = ? AND id < ?)) "
+                : "") +
+            "ORDER BY created_at DESC, id DESC LIMIT ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            stmt.setInt(i++, requestId);
+            if (after != null) {
+                stmt.setString(i++, after.createdAt);
+                stmt.setString(i++, after.createdAt);
+                stmt.setInt(i++, after.id);
+            }
+            stmt.setInt(i, limit);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                long size = rs.getLong("body_size");
+                if (rs.wasNull()) {
+                    size = -1; // legacy row not compacted yet
+                }
+                page.add(
+                    new ResponseSummary(
+                        rs.getInt("id"),
+                        rs.getInt("status_code"),
+                        rs.getLong("duration"),
+                        size,
+                        rs.getString("created_at")
+                    )
+                );
+            }
+        } catch (SQLException e) {
+            System.err.println(
+                "Error getting response history from database: " +
+                    e.getMessage()
+            );
+            e.printStackTrace();
+        }
+
+        return page;
+    }
+
     /**
      * Gets the most recent response for a specific request.
      *
@@ -215,18 +438,29 @@ public class ResponseDao {
      * @return The ApiResponse object, or null if not found
      */
     public static ApiResponse getLatestResponseByRequestId(int requestId) {
+        int responseId = getLatestResponseIdByRequestId(requestId);
+        return responseId > 0 ? getResponse(responseId) : null;
+    }
+
+    /**
+     * Gets the ID of the most recent response for a specific request,
+     * without loading its body or headers.
+     *
+     * @param requestId The request ID
+     * @return The response ID, or -1 if the request has no responses
+     */
+    public static int getLatestResponseIdByRequestId(int requestId) {
         Connection conn = LiteConnection.getConnection();
 
         try (
             PreparedStatement stmt = conn.prepareStatement(
-                "SELECT id FROM responses WHERE request_id = ? ORDER BY created_at DESC LIMIT 1"
+                "SELECT id FROM responses WHERE request_id = ? ORDER BY created_at DESC, id DESC LIMIT 1"
             )
         ) {
             stmt.setInt(1, requestId);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                int responseId = rs.getInt("id");
-                return getResponse(responseId);
+                return rs.getInt("id");
             }
         } catch (SQLException e) {
             System.err.println(
@@ -236,7 +470,7 @@ public class ResponseDao {
             e.printStackTrace();
         }
 
-        return null;
+        return -1;
     }
 
     /**
@@ -262,17 +496,7 @@ public class ResponseDao {
                 String key = rs.getString("header_key");
                 String value = rs.getString("header_value");
 
-                // Split comma-separated values back into list
-                if (value != null && !value.isEmpty()) {
-                    java.util.List<String> values = new ArrayList<>();
-                    String[] parts = value.split(", ");
-                    for (String part : parts) {
-                        values.add(part.trim());
-                    }
-                    headers.put(key, values);
-                } else {
-                    headers.put(key, new ArrayList<>());
-                }
+                headers.put(key, splitHeaderValue(value));
             }
         } catch (SQLException e) {
             System.err.println(
@@ -284,4 +508,15 @@ public class ResponseDao {
 
         return headers;
     }
+
+    /** Splits a stored comma-joined header value back into its values. */
+    private static List<String> splitHeaderValue(String value) {
+        List<String> values = new ArrayList<>();
+        if (value != null && !value.isEmpty()) {
+            for (String part : value.split(", ")) {
+                values.add(part.trim());
+            }
+        }
+        return values;
+    }
 }
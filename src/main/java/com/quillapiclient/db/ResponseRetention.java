@@ -0,0 +1,203 @@
+package com.quillapiclient.db;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Background enforcement of response history retention.
+ *
+ * <p>All work runs on one daemon thread, each task on its own connection via
+ * {@link LiteConnection#runWithNewConnection}. Saving a response schedules a
+ * prune of that request only; repeated saves for the same request coalesce
+ * into a single pending prune, and a prune that deleted anything also
+ * collects unreferenced blobs. {@link #scheduleMaintenance()} compacts legacy
+ * rows, sweeps every request and collects blobs once, at startup.
+ *
+ * <p>Deleted rows only free pages inside the database file. Databases
+ * created with incremental auto-vacuum (new ones, or older ones after
+ * {@link #scheduleCompaction}) hand them back to the file system: the
+ * startup pass releases them in batches, and a prune that deleted anything
+ * releases at most {@code quill.retention.vacuumPages} pages (default
+ * 1000), no more often than every
+ * {@code quill.retention.vacuumIntervalSeconds} (default 60), so the
+ * write lock is only ever held briefly.
+ */
+public class ResponseRetention {
+
+    private static final ExecutorService executor =
+        Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "response-retention");
+            t.setDaemon(true);
+            return t;
+        });
+
+    private static final Set<Integer> pendingPrunes =
+        ConcurrentHashMap.newKeySet();
+
+    private static final int VACUUM_PAGES = Integer.getInteger(
+        "quill.retention.vacuumPages",
+        1000
+    );
+    private static final long VACUUM_INTERVAL_MS = TimeUnit.SECONDS.toMillis(
+        Integer.getInteger("quill.retention.vacuumIntervalSeconds", 60)
+    );
+
+    // Only touched on the retention thread
+    private static long lastReclaim;
+
+    private ResponseRetention() {}
+
+    /**
+     * Schedules a prune of one request's history. No-op if a prune for the
+     * same request is already queued.
+     */
+    public static void schedulePrune(int requestId) {
+        if (requestId <= 0 || !pendingPrunes.add(requestId)) {
+            return;
+        }
+        submit(() -> {
+            pendingPrunes.remove(requestId);
+            LiteConnection.runWithNewConnection(conn -> {
+                if (ResponseRetentionDao.prune(requestId) > 0) {
+                    BlobStore.collectGarbage();
+                    reclaimIfDue();
+                }
+            });
+        });
+    }
+
+    /**
+     * Schedules the startup pass: backfills latency rollups (before pruning
+     * can discard history), compacts legacy response rows batch by batch,
+     * then applies every request's policy.
+     */
+    public static void scheduleMaintenance() {
+        submit(() -> {
+            int rolled = LiteConnection.withNewConnection(conn ->
+                ResponseRollupDao.backfillIfEmpty()
+            );
+            if (rolled > 0) {
+                System.out.println(
+                    "Backfilled latency rollups from " + rolled + " response(s)"
+                );
+            }
+
+            int compacted = 0;
+            int n;
+            do {
+                n = LiteConnection.withNewConnection(conn ->
+                    ResponseRetentionDao.compactLegacyBatch()
+                );
+                compacted += n;
+            } while (n > 0);
+            if (compacted > 0) {
+                System.out.println(
+                    "Compacted " + compacted + " stored response(s)"
+                );
+            }
+
+            int pruned = LiteConnection.withNewConnection(conn -> {
+                int total = 0;
+                for (int requestId : ResponseRetentionDao
+                    .getRequestIdsWithResponses()) {
+                    total += ResponseRetentionDao.prune(requestId);
+                }
+                return total;
+            });
+            if (pruned > 0) {
+                System.out.println(
+                    "Pruned " + pruned + " response(s) past retention"
+                );
+            }
+
+            int collected = LiteConnection.withNewConnection(conn ->
+                BlobStore.collectGarbage()
+            );
+            if (collected > 0) {
+                System.out.println(
+                    "Removed " + collected + " unreferenced blob(s)"
+                );
+            }
+
+            int released = 0;
+            do {
+                n = LiteConnection.withNewConnection(conn ->
+                    ResponseRetentionDao.reclaimFreePages(VACUUM_PAGES)
+                );
+                released += n;
+            } while (n > 0);
+            lastReclaim = System.currentTimeMillis();
+            if (released > 0) {
+                System.out.println("Released " + released + " free page(s)");
+            }
+        });
+    }
+
+    /**
+     * Schedules a full rewrite of the database, which releases all free
+     * space and enables incremental vacuuming from then on. Sends and
+     * saves wait while it runs; only start it at the user's request.
+     *
+     * @param onDone called on the retention thread with the bytes saved,
+     *               or -1 if the rewrite failed
+     */
+    public static void scheduleCompaction(LongConsumer onDone) {
+        submit(() -> {
+            long saved = -1;
+            try {
+                saved = LiteConnection.withNewConnection(conn ->
+                    ResponseRetentionDao.compactDatabase()
+                );
+                System.out.println("Compacted database by " + saved + " bytes");
+            } finally {
+                onDone.accept(saved);
+            }
+        });
+    }
+
+    /** Releases one batch of free pages, unless one was released lately. */
+    private static void reclaimIfDue() throws java.sql.SQLException {
+        long now = System.currentTimeMillis();
+        if (now - lastReclaim < VACUUM_INTERVAL_MS) {
+            return;
+        }
+        lastReclaim = now;
+        ResponseRetentionDao.reclaimFreePages(VACUUM_PAGES);
+    }
+
+    private static void submit(Runnable task) {
+        try {
+            executor.submit(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println(
+                        "Response retention task failed: " + e.getMessage()
+                    );
+                    e.printStackTrace();
+                }
+            });
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            // Shutting down; retention catches up on next start
+        }
+    }
+
+    /**
+     * Stops accepting work and waits briefly for the running batch to finish.
+     */
+    public static void shutdown(long timeoutSeconds) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.quillapiclient.db;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for response history retention.
+ * Stores per-request and per-folder policies and prunes/compacts the
+ * responses table in small batches so a background pass never holds the
+ * write lock for long. A request with no policy, and no folder above it
+ * with one, keeps all of its history.
+ */
+public class ResponseRetentionDao {
+
+    private static final int BATCH_SIZE = 200;
+
+    /**
+     * Retention policy for one request or folder. A null limit means "no
+     * limit"; a response is kept only if it satisfies every limit that is
+     * set.
+     */
+    public static class RetentionPolicy {
+
+        public final Integer keepLast;
+        public final Integer maxAgeDays;
+
+        public RetentionPolicy(Integer keepLast, Integer maxAgeDays) {
+            this.keepLast = keepLast;
+            this.maxAgeDays = maxAgeDays;
+        }
+
+        /** What a request gets when neither it nor a folder has a policy. */
+        public static RetentionPolicy keepAll() {
+            return new RetentionPolicy(null, null);
+        }
+    }
+
+    /**
+     * Gets the retention policy that applies to a request: its own, else
+     * that of the closest folder above it that has one, else keep all.
+     *
+     * @param requestId The request ID
+     * @return The policy (never null)
+     */
+    public static RetentionPolicy getPolicy(int requestId) {
+        Connection conn = LiteConnection.getConnection();
+
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "WITH RECURSIVE chain(id, parent_id, depth) AS (" +
+                    "SELECT i.id, i.parent_id, 1 FROM items i " +
+                    "JOIN requests r ON r.item_id = i.id WHERE r.id = ? " +
+                    "UNION ALL SELECT i.id, i.parent_id, c.depth + 1 " +
+                    "FROM items i JOIN chain c ON i.id = c.parent_id) " +
+                    "SELECT keep_last, max_age_days FROM (" +
+                    "SELECT 0 AS depth, keep_last, max_age_days " +
+                    "FROM response_retention WHERE request_id = ? " +
+                    "UNION ALL SELECT c.depth, f.keep_last, f.max_age_days " +
+                    "FROM chain c JOIN folder_retention f ON f.item_id = c.id) " +
+                    "ORDER BY depth LIMIT 1"
+            )
+        ) {
+            stmt.setInt(1, requestId);
+            stmt.setInt(2, requestId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return policyOf(rs);
+            }
+        } catch (SQLException e) {
+            System.err.println(
+                "Error getting retention policy from database: " +
+                    e.getMessage()
+            );
+            e.printStackTrace();
+        }
+        return RetentionPolicy.keepAll();
+    }
+
+    /**
+     * Gets the policy set on a request itself.
+     *
+     * @param requestId The request ID
+     * @return The policy, or null if the request has none of its own
+     */
+    public static RetentionPolicy getRequestPolicy(int requestId) {
+        return findPolicy(
+            "SELECT keep_last, max_age_days FROM response_retention WHERE request_id = ?",
+            requestId
+        );
+    }
+
+    /**
+     * Gets the policy set on a folder itself.
+     *
+     * @param itemId The folder item ID
+     * @return The policy, or null if the folder has none of its own
+     */
+    public static RetentionPolicy getFolderPolicy(int itemId) {
+        return findPolicy(
+            "SELECT keep_last, max_age_days FROM folder_retention WHERE item_id = ?",
+            itemId
+        );
+    }
+
+    /**
+     * Stores the retention policy for a request, replacing any previous one.
+     *
+     * @param requestId The request ID
+     * @param policy    The policy to store, or null to inherit its folder's
+     * @return true if saved
+     */
+    public static boolean savePolicy(int requestId, RetentionPolicy policy) {
+        return storePolicy(
+            "INSERT INTO response_retention (request_id, keep_last, max_age_days) VALUES (?, ?, ?) " +
+                "ON CONFLICT(request_id) DO UPDATE SET keep_last = excluded.keep_last, " +
+                "max_age_days = excluded.max_age_days",
+            "DELETE FROM response_retention WHERE request_id = ?",
+            requestId,
+            policy
+        );
+    }
+
+    /**
+     * Stores the retention policy of a folder, which applies to the requests
+     * beneath it that have none of their own.
+     *
+     * @param itemId The folder item ID
+     * @param policy The policy to store, or null to remove it
+     * @return true if saved
+     */
+    public static boolean saveFolderPolicy(int itemId, RetentionPolicy policy) {
+        return storePolicy(
+            "INSERT INTO folder_retention (item_id, keep_last, max_age_days) VALUES (?, ?, ?) " +
+                "ON CONFLICT(item_id) DO UPDATE SET keep_last = excluded.keep_last, " +
+                "max_age_days = excluded.max_age_days",
+            "DELETE FROM folder_retention WHERE item_id = ?",
+            itemId,
+            policy
+        );
+    }
+
+    /**
+     * Gets the IDs of the requests anywhere beneath a folder.
+     *
+     * @param itemId The folder item ID
+     */
+    public static List<Integer> getRequestIdsUnder(int itemId)
+        throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        Connection conn = LiteConnection.getConnection();
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "WITH RECURSIVE tree(id) AS (SELECT ? " +
+                    "UNION ALL SELECT i.id FROM items i JOIN tree t ON i.parent_id = t.id) " +
+                    "SELECT r.id FROM requests r JOIN tree t ON r.item_id = t.id"
+            )
+        ) {
+            stmt.setInt(1, itemId);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    private static RetentionPolicy findPolicy(String sql, int id) {
+        Connection conn = LiteConnection.getConnection();
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return policyOf(rs);
+            }
+        } catch (SQLException e) {
+            System.err.println(
+                "Error getting retention policy from database: " +
+                    e.getMessage()
+            );
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private static boolean storePolicy(
+        String upsertSql,
+        String deleteSql,
+        int id,
+        RetentionPolicy policy
+    ) {
+        Connection conn = LiteConnection.getConnection();
+
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                policy != null ? upsertSql : deleteSql
+            )
+        ) {
+            stmt.setInt(1, id);
+            if (policy != null) {
+                stmt.setObject(2, policy.keepLast);
+                stmt.setObject(3, policy.maxAgeDays);
+            }
+            stmt.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            System.err.println(
+                "Error saving retention policy to database: " + e.getMessage()
+            );
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private static RetentionPolicy policyOf(ResultSet rs) throws SQLException {
+        return new RetentionPolicy(
+            (Integer) rs.getObject("keep_last"),
+            (Integer) rs.getObject("max_age_days")
+        );
+    }
+
+    /**
+     * Deletes the responses of one request that fall outside its policy.
+     * Deletes in batches (each its own implicit transaction) so the EDT
+     * connection is never blocked for the whole prune. Response headers go
+     * with their response via ON DELETE CASCADE.
+     *
+     * @param requestId The request ID
+     * @return The number of responses deleted
+     */
+    public static int prune(int requestId) throws SQLException {
+        RetentionPolicy policy = getPolicy(requestId);
+        Connection conn = LiteConnection.getConnection();
+        int deleted = 0;
+
+        if (policy.keepLast != null) {
+            String sql =
+                "DELETE FROM responses WHERE id IN (" +
+                "SELECT id FROM responses WHERE request_id = ? " +
+                "ORDER BY created_at DESC, id DESC LIMIT ? OFFSET ?)";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int n;
+                do {
+                    stmt.setInt(1, requestId);
+                    stmt.setInt(2, BATCH_SIZE);
+                    stmt.setInt(3, Math.max(0, policy.keepLast));
+                    n = stmt.executeUpdate();
+                    deleted += n;
+                } while (n == BATCH_SIZE);
+            }
+        }
+
+        if (policy.maxAgeDays != null) {
+            String sql =
+                "DELETE FROM responses WHERE id IN (" +
+                "SELECT id FROM responses WHERE request_id = ? " +
+                "AND created_at < datetime('now', ?) LIMIT ?)";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int n;
+                do {
+                    stmt.setInt(1, requestId);
+                    stmt.setString(2, "-" + policy.maxAgeDays + " days");
+                    stmt.setInt(3, BATCH_SIZE);
+                    n = stmt.executeUpdate();
+                    deleted += n;
+                } while (n == BATCH_SIZE);
+            }
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Gets the IDs of every request that has stored responses.
+     */
+    public static List<Integer> getRequestIdsWithResponses()
+        throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        Connection conn = LiteConnection.getConnection();
+        try (
+            Statement stmt = conn.createStatement();
+            ResultSet rs = stmt.executeQuery(
+                "SELECT DISTINCT request_id FROM responses"
+            )
+        ) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Converts one batch of legacy rows (TEXT body, no {@code body_encoding})
+     * to the compressed BLOB form (or the blob store, for large bodies) and
+     * drops their {@code full_response_json} copy, if that column still
+     * exists.
+     *
+     * @return The number of rows compacted; 0 once nothing is left
+     */
+    public static int compactLegacyBatch() throws SQLException {
+        Connection conn = LiteConnection.getConnection();
+        boolean hasFullJson = DatabaseSchema.hasColumn(
+            conn,
+            "responses",
+            "full_response_json"
+        );
+
+        List<Integer> ids = new ArrayList<>();
+        List<String> bodies = new ArrayList<>();
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "SELECT id, body FROM responses WHERE body_encoding IS NULL LIMIT ?"
+            )
+        ) {
+            stmt.setInt(1, BATCH_SIZE);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getInt("id"));
+                bodies.add(rs.getString("body"));
+            }
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        String sql = hasFullJson
+            ? "UPDATE responses SET body = ?, body_encoding = ?, body_size = ?, body_hash = ?, full_response_json = NULL WHERE id = ?"
+            : "UPDATE responses SET body = ?, body_encoding = ?, body_size = ?, body_hash = ? WHERE id = ?";
+        boolean originalAutoCommit = conn.getAutoCommit();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            for (int i = 0; i < ids.size(); i++) {
+                ResponseBodyCodec.Encoded encoded = ResponseBodyCodec.store(
+                    conn,
+                    bodies.get(i)
+                );
+                stmt.setBytes(1, encoded.data);
+                stmt.setString(2, encoded.encoding);
+                stmt.setInt(3, encoded.size);
+                stmt.setString(4, encoded.hash);
+                stmt.setInt(5, ids.get(i));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(originalAutoCommit);
+        }
+        return ids.size();
+    }
+
+    /**
+     * Rewrites the whole database with {@code VACUUM}, releasing every free
+     * page, and switches it to {@code auto_vacuum = INCREMENTAL} so that
+     * {@link #reclaimFreePages} works from then on. This holds the write
+     * lock for as long as the rewrite takes, minutes for a large history,
+     * so it only runs when the user asks for it.
+     *
+     * @return The number of bytes the database shrank by
+     */
+    public static long compactDatabase() throws SQLException {
+        Connection conn = LiteConnection.getConnection();
+        try (Statement stmt = conn.createStatement()) {
+            long before = databaseBytes(stmt);
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            stmt.execute("VACUUM");
+            return before - databaseBytes(stmt);
+        }
+    }
+
+    /**
+     * Returns up to {@code maxPages} free pages to the file system. Does
+     * nothing unless incremental auto-vacuum is enabled.
+     *
+     * @return The number of pages released
+     */
+    public static int reclaimFreePages(int maxPages) throws SQLException {
+        Connection conn = LiteConnection.getConnection();
+        try (Statement stmt = conn.createStatement()) {
+            int before = freePages(stmt);
+            if (before == 0) {
+                return 0;
+            }
+            // Frees one page per result row, so read them all
+            if (
+                stmt.execute(
+                    "PRAGMA incremental_vacuum(" +
+                        Math.min(before, maxPages) +
+                        ")"
+                )
+            ) {
+                try (ResultSet rs = stmt.getResultSet()) {
+                    while (rs.next()) {
+                        // keep stepping
+                    }
+                }
+            }
+            return before - freePages(stmt);
+        }
+    }
+
+    private static long databaseBytes(Statement stmt) throws SQLException {
+        long pages;
+        try (ResultSet rs = stmt.executeQuery("PRAGMA page_count")) {
+            pages = rs.next() ? rs.getLong(1) : 0;
+        }
+        try (ResultSet rs = stmt.executeQuery("PRAGMA page_size")) {
+            return rs.next() ? pages * rs.getLong(1) : 0;
+        }
+    }
+
+    private static int freePages(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA freelist_count")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
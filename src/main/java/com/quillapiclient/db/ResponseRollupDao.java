@@ -0,0 +1,289 @@
+package com.quillapiclient.db;
+
+import com.quillapiclient.objects.LatencyWindow;
+import java.sql.*;
+
+/**
+ * Data Access Object for latency/error rollups of response history.
+ *
+ * <p>Every saved response adds itself to an hourly rollup for its request:
+ * count, error count and max duration in {@code response_rollups}, and one
+ * histogram bin in {@code response_rollup_bins}. Both writes are single
+ * UPSERT statements that increment in place, so concurrent savers never
+ * lose updates and nothing ever rescans {@code responses}. Rollups outlive
+ * retention pruning on purpose: trends stay visible after the bodies go.
+ *
+ * <p>Histogram bins are log-spaced ({@link #BIN_BASE} growth per bin), so
+ * percentiles are estimates within one bin width (~25%).
+ */
+public class ResponseRollupDao {
+
+    public static final int BUCKET_SECONDS = 3600;
+
+    private static final double BIN_BASE = 1.25;
+    private static final int NUM_BINS = 64;
+
+    // Scope seeds for getSeries: every items row under the seed is included
+    private static final String ITEM_SCOPE = "SELECT ?";
+    private static final String COLLECTION_SCOPE =
+        "SELECT id FROM items WHERE collection_id = ?";
+
+    /**
+     * Adds one response to its request's rollup for the current hour.
+     * Called from {@link ResponseDao} on the connection that saved it.
+     */
+    static void record(
+        Connection conn,
+        int requestId,
+        int statusCode,
+        long durationMs,
+        long epochSeconds
+    ) throws SQLException {
+        long bucket =
+            epochSeconds - Math.floorMod(epochSeconds, BUCKET_SECONDS);
+        int error = isError(statusCode) ? 1 : 0;
+
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO response_rollups (request_id, bucket_start, count, errors, max_ms) " +
+                    "VALUES (?, ?, 1, ?, ?) " +
+                    "ON CONFLICT(request_id, bucket_start) DO UPDATE SET " +
+                    "count = count + 1, errors = errors + excluded.errors, " +
+                    "max_ms = MAX(max_ms, excluded.max_ms)"
+            )
+        ) {
+            stmt.setInt(1, requestId);
+            stmt.setLong(2, bucket);
+            stmt.setInt(3, error);
+            stmt.setLong(4, durationMs);
+            stmt.executeUpdate();
+        }
+
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO response_rollup_bins (request_id, bucket_start, bin, count) " +
+                    "VALUES (?, ?, ?, 1) " +
+                    "ON CONFLICT(request_id, bucket_start, bin) DO UPDATE SET count = count + 1"
+            )
+        ) {
+            stmt.setInt(1, requestId);
+            stmt.setLong(2, bucket);
+            stmt.setInt(3, binFor(durationMs));
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Gets consecutive windows of rollup statistics for an item and every
+     * item beneath it (a request is its own subtree).
+     *
+     * @param itemId        folder or request item ID
+     * @param from          start of the first window, epoch seconds
+     * @param windowSeconds window length, a multiple of {@link #BUCKET_SECONDS}
+     * @param windowCount   number of windows
+     */
+    public static LatencyWindow[] getItemSeries(
+        int itemId,
+        long from,
+        int windowSeconds,
+        int windowCount
+    ) {
+        return getSeries(ITEM_SCOPE, itemId, from, windowSeconds, windowCount);
+    }
+
+    /**
+     * Like {@link #getItemSeries} for every request in a collection.
+     */
+    public static LatencyWindow[] getCollectionSeries(
+        int collectionId,
+        long from,
+        int windowSeconds,
+        int windowCount
+    ) {
+        return getSeries(
+            COLLECTION_SCOPE,
+            collectionId,
+            from,
+            windowSeconds,
+            windowCount
+        );
+    }
+
+    private static LatencyWindow[] getSeries(
+        String scopeSeed,
+        int scopeId,
+        long from,
+        int windowSeconds,
+        int windowCount
+    ) {
+        long to = from + (long) windowSeconds * windowCount;
+        long[] counts = new long[windowCount];
+        long[] errors = new long[windowCount];
+        long[] maxMs = new long[windowCount];
+        long[][] bins = new long[windowCount][NUM_BINS];
+
+        String scope =
+            "WITH RECURSIVE scope(id) AS (" +
+            scopeSeed +
+            " UNION SELECT i.id FROM items i JOIN scope s ON i.parent_id = s.id), " +
+            "reqs AS (SELECT r.id FROM requests r WHERE r.item_id IN (SELECT id FROM scope)) ";
+        Connection conn = LiteConnection.getConnection();
+
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                scope +
+                    "SELECT (bucket_start - ?) / ? AS w, SUM(count) AS n, SUM(errors) AS e, MAX(max_ms) AS mx " +
+                    "FROM response_rollups WHERE request_id IN (SELECT id FROM reqs) " +
+                    "AND bucket_start >= ? AND bucket_start < ? GROUP BY w"
+            )
+        ) {
+            stmt.setInt(1, scopeId);
+            stmt.setLong(2, from);
+            stmt.setInt(3, windowSeconds);
+            stmt.setLong(4, from);
+            stmt.setLong(5, to);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                int w = rs.getInt("w");
+                counts[w] = rs.getLong("n");
+                errors[w] = rs.getLong("e");
+                maxMs[w] = rs.getLong("mx");
+            }
+        } catch (SQLException e) {
+            System.err.println(
+                "Error getting latency rollups from database: " +
+                    e.getMessage()
+            );
+            e.printStackTrace();
+        }
+
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                scope +
+                    "SELECT (bucket_start - ?) / ? AS w, bin, SUM(count) AS n " +
+                    "FROM response_rollup_bins WHERE request_id IN (SELECT id FROM reqs) " +
+                    "AND bucket_start >= ? AND bucket_start < ? GROUP BY w, bin"
+            )
+        ) {
+            stmt.setInt(1, scopeId);
+            stmt.setLong(2, from);
+            stmt.setInt(3, windowSeconds);
+            stmt.setLong(4, from);
+            stmt.setLong(5, to);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                bins[rs.getInt("w")][rs.getInt("bin")] = rs.getLong("n");
+            }
+        } catch (SQLException e) {
+            System.err.println(
+                "Error getting latency histogram from database: " +
+                    e.getMessage()
+            );
+            e.printStackTrace();
+        }
+
+        LatencyWindow[] series = new LatencyWindow[windowCount];
+        for (int w = 0; w < windowCount; w++) {
+            series[w] = new LatencyWindow(
+                from + (long) w * windowSeconds,
+                counts[w],
+                errors[w],
+                percentile(bins[w], counts[w], maxMs[w], 0.50),
+                percentile(bins[w], counts[w], maxMs[w], 0.95),
+                percentile(bins[w], counts[w], maxMs[w], 0.99)
+            );
+        }
+        return series;
+    }
+
+    /**
+     * Fills the rollups from existing history the first time they are
+     * empty (databases created before rollups existed). One streaming pass
+     * over {@code responses}, inside a single transaction.
+     *
+     * @return the number of responses rolled up
+     */
+    public static int backfillIfEmpty() throws SQLException {
+        Connection conn = LiteConnection.getConnection();
+        try (
+            Statement stmt = conn.createStatement();
+            ResultSet rs = stmt.executeQuery(
+                "SELECT EXISTS(SELECT 1 FROM response_rollups) " +
+                    "OR NOT EXISTS(SELECT 1 FROM responses)"
+            )
+        ) {
+            if (rs.next() && rs.getInt(1) == 1) {
+                return 0;
+            }
+        }
+
+        int rolled = 0;
+        boolean originalAutoCommit = conn.getAutoCommit();
+        try (
+            Statement stmt = conn.createStatement();
+            ResultSet rs = stmt.executeQuery(
+                "SELECT request_id, status_code, duration, " +
+                    "CAST(strftime('%s', created_at) AS INTEGER) AS ts FROM responses"
+            )
+        ) {
+            conn.setAutoCommit(false);
+            while (rs.next()) {
+                record(
+                    conn,
+                    rs.getInt("request_id"),
+                    rs.getInt("status_code"),
+                    rs.getLong("duration"),
+                    rs.getLong("ts")
+                );
+                rolled++;
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(originalAutoCommit);
+        }
+        return rolled;
+    }
+
+    /** Failed sends are stored with synthetic 4xx/5xx codes, so they count too. */
+    private static boolean isError(int statusCode) {
+        return statusCode <= 0 || statusCode >= 400;
+    }
+
+    static int binFor(long durationMs) {
+        if (durationMs <= 1) {
+            return 0;
+        }
+        int bin = (int) Math.ceil(Math.log(durationMs) / Math.log(BIN_BASE));
+        return Math.min(bin, NUM_BINS - 1);
+    }
+
+    /** Upper bound of a bin, in milliseconds. */
+    private static long binUpperBound(int bin) {
+        return Math.round(Math.pow(BIN_BASE, bin));
+    }
+
+    private static long percentile(
+        long[] bins,
+        long count,
+        long maxMs,
+        double p
+    ) {
+        if (count <= 0) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(p * count);
+        long seen = 0;
+        for (int bin = 0; bin < bins.length; bin++) {
+            seen += bins[bin];
+            if (seen >= rank) {
+                // The true value is at most the bin's upper bound, and never
+                // above the largest duration seen in the window
+                return Math.min(binUpperBound(bin), maxMs);
+            }
+        }
+        return maxMs;
+    }
+}
@@ -0,0 +1,152 @@
+package com.quillapiclient.db;
+
+import com.quillapiclient.server.RetryPolicy;
+import java.sql.*;
+
+/**
+ * Data Access Object for retry policies. A policy belongs to a request or
+ * a folder item; a request without one of its own uses its nearest
+ * ancestor folder's.
+ */
+public class RetryPolicyDao {
+
+    private static final String COLUMNS =
+        "max_retries, retry_statuses, retry_connect_errors, " +
+        "base_delay_ms, max_delay_ms, hedge_after_ms";
+
+    /**
+     * Gets the policy set on an item itself.
+     *
+     * @param itemId The request or folder item ID
+     * @return The policy, or null if the item has none
+     */
+    public static RetryPolicy getPolicy(int itemId) {
+        Connection conn = LiteConnection.getConnection();
+
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "SELECT " + COLUMNS + " FROM retry_policies WHERE item_id = ?"
+            )
+        ) {
+            stmt.setInt(1, itemId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return policyOf(rs);
+            }
+        } catch (SQLException e) {
+            System.err.println(
+                "Error getting retry policy from database: " + e.getMessage()
+            );
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Gets the policy that applies to a request: its own, else that of
+     * the closest folder above it that has one.
+     *
+     * @param itemId The request item ID
+     * @return The policy, or {@link RetryPolicy#NONE} if none applies
+     */
+    public static RetryPolicy getEffectivePolicy(int itemId) {
+        Connection conn = LiteConnection.getConnection();
+
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "WITH RECURSIVE chain(id, parent_id, depth) AS (" +
+                    "SELECT id, parent_id, 0 FROM items WHERE id = ? " +
+                    "UNION ALL SELECT i.id, i.parent_id, c.depth + 1 " +
+                    "FROM items i JOIN chain c ON i.id = c.parent_id) " +
+                    "SELECT " +
+                    COLUMNS +
+                    " FROM chain c JOIN retry_policies p ON p.item_id = c.id " +
+                    "ORDER BY c.depth LIMIT 1"
+            )
+        ) {
+            stmt.setInt(1, itemId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return policyOf(rs);
+            }
+        } catch (SQLException e) {
+            System.err.println(
+                "Error getting retry policy from database: " + e.getMessage()
+            );
+            e.printStackTrace();
+        }
+        return RetryPolicy.NONE;
+    }
+
+    /**
+     * Stores the policy of an item, replacing any previous one.
+     *
+     * @param itemId The request or folder item ID
+     * @param policy The policy to store
+     * @return true if saved
+     */
+    public static boolean savePolicy(int itemId, RetryPolicy policy) {
+        Connection conn = LiteConnection.getConnection();
+
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "INSERT OR REPLACE INTO retry_policies (item_id, " +
+                    COLUMNS +
+                    ") VALUES (?, ?, ?, ?, ?, ?, ?)"
+            )
+        ) {
+            stmt.setInt(1, itemId);
+            stmt.setInt(2, policy.maxRetries);
+            stmt.setString(3, policy.formatStatuses());
+            stmt.setInt(4, policy.retryConnectErrors ? 1 : 0);
+            stmt.setLong(5, policy.baseDelayMs);
+            stmt.setLong(6, policy.maxDelayMs);
+            stmt.setLong(7, policy.hedgeAfterMs);
+            stmt.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            System.err.println(
+                "Error saving retry policy to database: " + e.getMessage()
+            );
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Removes the policy of an item, so it inherits its folder's again.
+     *
+     * @param itemId The request or folder item ID
+     * @return true if the statement ran
+     */
+    public static boolean deletePolicy(int itemId) {
+        Connection conn = LiteConnection.getConnection();
+
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "DELETE FROM retry_policies WHERE item_id = ?"
+            )
+        ) {
+            stmt.setInt(1, itemId);
+            stmt.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            System.err.println(
+                "Error deleting retry policy from database: " + e.getMessage()
+            );
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private static RetryPolicy policyOf(ResultSet rs) throws SQLException {
+        return new RetryPolicy(
+            rs.getInt("max_retries"),
+            RetryPolicy.parseStatuses(rs.getString("retry_statuses")),
+            rs.getInt("retry_connect_errors") != 0,
+            rs.getLong("base_delay_ms"),
+            rs.getLong("max_delay_ms"),
+            rs.getLong("hedge_after_ms")
+        );
+    }
+}
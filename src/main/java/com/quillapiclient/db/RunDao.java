@@ -0,0 +1,153 @@
+package com.quillapiclient.db;
+
+import java.sql.*;
+import java.util.List;
+
+/**
+ * Data Access Object for collection runs.
+ *
+ * <p>A run's iterations are stored as one small row per request sent:
+ * status, duration and body size. Bodies and headers are not kept, so a
+ * run over thousands of data rows costs a few dozen bytes per send rather
+ * than a response history entry each. Results are written in batches, one
+ * transaction per batch.
+ */
+public class RunDao {
+
+    /**
+     * Records the start of a run.
+     *
+     * @param folderId the folder run, or null for the whole collection
+     * @param dataFile path of the data file, or null
+     * @return the run ID, or -1 on failure
+     */
+    public static int createRun(
+        int collectionId,
+        Integer folderId,
+        int environmentId,
+        String dataFile
+    ) {
+        Connection conn = LiteConnection.getConnection();
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO runs (collection_id, folder_id, environment_id, data_file, started_at) " +
+                    "VALUES (?, ?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS
+            )
+        ) {
+            stmt.setInt(1, collectionId);
+            if (folderId != null) {
+                stmt.setInt(2, folderId);
+            } else {
+                stmt.setNull(2, Types.INTEGER);
+            }
+            if (environmentId > 0) {
+                stmt.setInt(3, environmentId);
+            } else {
+                stmt.setNull(3, Types.INTEGER);
+            }
+            stmt.setString(4, dataFile);
+            stmt.setLong(5, System.currentTimeMillis() / 1000);
+            stmt.executeUpdate();
+            ResultSet rs = stmt.getGeneratedKeys();
+            return rs.next() ? rs.getInt(1) : -1;
+        } catch (SQLException e) {
+            System.err.println("Error creating run: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /** Saves a batch of results in one transaction. */
+    public static void saveResults(int runId, List<StepRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Connection conn = LiteConnection.getConnection();
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "INSERT OR REPLACE INTO run_results " +
+                    "(run_id, iteration, step, item_id, status_code, duration_ms, body_size) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)"
+            )
+        ) {
+            conn.setAutoCommit(false);
+            for (StepRow row : rows) {
+                stmt.setInt(1, runId);
+                stmt.setInt(2, row.iteration);
+                stmt.setInt(3, row.step);
+                stmt.setInt(4, row.itemId);
+                stmt.setInt(5, row.statusCode);
+                stmt.setLong(6, row.durationMs);
+                stmt.setLong(7, row.bodySize);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException ignored) {
+                // rollback failure is non-recoverable
+            }
+            System.err.println("Error saving run results: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // best-effort reset
+            }
+        }
+    }
+
+    /** Records the end of a run and its totals. */
+    public static void finishRun(
+        int runId,
+        int iterations,
+        int failedIterations
+    ) {
+        Connection conn = LiteConnection.getConnection();
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE runs SET finished_at = ?, iterations = ?, failed_iterations = ? WHERE id = ?"
+            )
+        ) {
+            stmt.setLong(1, System.currentTimeMillis() / 1000);
+            stmt.setInt(2, iterations);
+            stmt.setInt(3, failedIterations);
+            stmt.setInt(4, runId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error finishing run: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /** One request sent in one iteration of a run. */
+    public static class StepRow {
+
+        public final int iteration;
+        public final int step; // position of the request in the run
+        public final int itemId;
+        public final int statusCode;
+        public final long durationMs;
+        public final long bodySize;
+
+        public StepRow(
+            int iteration,
+            int step,
+            int itemId,
+            int statusCode,
+            long durationMs,
+            long bodySize
+        ) {
+            this.iteration = iteration;
+            this.step = step;
+            this.itemId = itemId;
+            this.statusCode = statusCode;
+            this.durationMs = durationMs;
+            this.bodySize = bodySize;
+        }
+    }
+}
@@ -15,6 +15,18 @@ import java.util.Map;
  */
 public class VariableDao {
 
+    // A key repeated within one scope keeps its last value
+    private static final String COLLECTION_UPSERT_SQL =
+        "INSERT INTO variables (collection_id, item_id, variable_key, variable_value, variable_type) " +
+        "VALUES (?, ?, ?, ?, ?) " +
+        "ON CONFLICT(collection_id, variable_key) WHERE item_id IS NULL " +
+        "DO UPDATE SET variable_value = excluded.variable_value, variable_type = excluded.variable_type";
+    private static final String ITEM_UPSERT_SQL =
+        "INSERT INTO variables (collection_id, item_id, variable_key, variable_value, variable_type) " +
+        "VALUES (?, ?, ?, ?, ?) " +
+        "ON CONFLICT(item_id, variable_key) WHERE item_id IS NOT NULL " +
+        "DO UPDATE SET variable_value = excluded.variable_value, variable_type = excluded.variable_type";
+
     /**
      * Saves variables to the database (called within an existing transaction).
      */
@@ -27,8 +39,9 @@ public class VariableDao {
         for (Variable variable : variables) {
             try (
                 PreparedStatement stmt = conn.prepareStatement(
-                    "INSERT INTO variables (collection_id, item_id, variable_key, variable_value, variable_type) " +
-                        "VALUES (?, ?, ?, ?, ?)"
+                    collectionId != null
+                        ? COLLECTION_UPSERT_SQL
+                        : ITEM_UPSERT_SQL
                 )
             ) {
                 if (collectionId != null) {
@@ -4,7 +4,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -17,8 +19,9 @@ import java.util.Map;
  *   <li>Globals are kept in-memory only.</li>
  * </ul>
  *
- * <p>Every mutation is written to the database immediately so that
- * scripts running in separate requests see up-to-date values.</p>
+ * <p>Writes are per key: only the variables a script set or unset are
+ * upserted or deleted, relying on the unique {@code (scope, key)} indexes
+ * created by {@link DatabaseSchema}.</p>
  */
 public final class VariableScopeDao {
 
@@ -89,68 +92,115 @@ public final class VariableScopeDao {
     //  write
     // ---------------------------------------------------------------
 
-    public static void persistEnvironment(
-        int environmentId,
-        Map<String, String> vars
-    ) {
-        if (environmentId <= 0 || vars == null) return;
+    /**
+     * Applies per-key changes to scopes in a single transaction: a key
+     * mapped to a value is inserted or updated, a key mapped to null is
+     * deleted. Rows for other keys are left alone, so a disabled
+     * environment variable survives a script touching its neighbours.
+     *
+     * <p>Each scope is applied under its own savepoint. A scope whose
+     * changes fail for good, typically because its environment, collection
+     * or item was deleted meanwhile, is skipped; the others are still
+     * committed.
+     *
+     * @param changes by scope, in the order to apply them
+     * @return false if nothing was written because the database was busy,
+     *         so the changes are worth trying again; true otherwise
+     */
+    public static boolean applyChanges(List<ScopeChanges> changes) {
+        if (changes == null || changes.isEmpty()) return true;
+        Connection conn = LiteConnection.getConnection();
         try {
-            persistKeyValues(
-                "environment_values",
-                "environment_id",
-                environmentId,
-                vars,
-                "",
-                0
-            );
-        } catch (Exception e) {
+            conn.setAutoCommit(false);
+            for (ScopeChanges scope : changes) {
+                Savepoint savepoint = conn.setSavepoint();
+                try {
+                    applyScopeChanges(conn, scope);
+                    conn.releaseSavepoint(savepoint);
+                } catch (SQLException e) {
+                    if (LiteConnection.isBusy(e)) {
+                        throw e;
+                    }
+                    conn.rollback(savepoint);
+                    System.err.println(
+                        "[VariableScopeDao] Dropping changes to " +
+                            scope.kind +
+                            " " +
+                            scope.id +
+                            ": " +
+                            e.getMessage()
+                    );
+                }
+            }
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException ignored) {
+                // rollback failure is non-recoverable
+            }
             System.err.println(
-                "[VariableScopeDao] Error persisting environment " +
-                    environmentId +
-                    ": " +
+                "[VariableScopeDao] Error persisting variable changes: " +
                     e.getMessage()
             );
             e.printStackTrace();
+            return !LiteConnection.isBusy(e);
+        } finally {
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // best-effort reset
+            }
         }
     }
 
-    public static void persistCollection(
-        int collectionId,
-        Map<String, String> vars
-    ) {
-        if (collectionId <= 0 || vars == null) return;
-        try {
-            persistKeyValues(
-                "variables",
-                "collection_id",
-                collectionId,
-                vars,
-                "AND item_id IS NULL",
-                0
-            );
-        } catch (Exception e) {
-            System.err.println(
-                "[VariableScopeDao] Error persisting collection " +
-                    collectionId +
-                    ": " +
-                    e.getMessage()
-            );
-            e.printStackTrace();
+    /** Changes to one environment, collection or item. */
+    public static class ScopeChanges {
+
+        public final Kind kind;
+        public final int id;
+        /** Key to new value; a null value deletes the key. */
+        public final Map<String, String> changes;
+
+        public ScopeChanges(Kind kind, int id, Map<String, String> changes) {
+            this.kind = kind;
+            this.id = id;
+            this.changes = changes;
         }
     }
 
-    public static void persistItem(int itemId, Map<String, String> vars) {
-        if (itemId <= 0 || vars == null) return;
-        try {
-            persistKeyValues("variables", "item_id", itemId, vars, "", 0);
-        } catch (Exception e) {
-            System.err.println(
-                "[VariableScopeDao] Error persisting item " +
-                    itemId +
-                    ": " +
-                    e.getMessage()
-            );
-            e.printStackTrace();
+    /** Where a scope's rows live. */
+    public enum Kind {
+        ENVIRONMENT(
+            "INSERT INTO environment_values (environment_id, variable_key, variable_value, variable_type, enabled, sort_order) " +
+                "VALUES (?, ?, ?, 'string', 1, " +
+                "(SELECT COALESCE(MAX(sort_order), -1) + 1 FROM environment_values WHERE environment_id = ?)) " +
+                "ON CONFLICT(environment_id, variable_key) " +
+                "DO UPDATE SET variable_value = excluded.variable_value, enabled = 1",
+            "DELETE FROM environment_values WHERE environment_id = ? AND variable_key = ?"
+        ),
+        COLLECTION(
+            "INSERT INTO variables (collection_id, variable_key, variable_value, variable_type) " +
+                "VALUES (?, ?, ?, 'string') " +
+                "ON CONFLICT(collection_id, variable_key) WHERE item_id IS NULL " +
+                "DO UPDATE SET variable_value = excluded.variable_value",
+            "DELETE FROM variables WHERE collection_id = ? AND item_id IS NULL AND variable_key = ?"
+        ),
+        ITEM(
+            "INSERT INTO variables (item_id, variable_key, variable_value, variable_type) " +
+                "VALUES (?, ?, ?, 'string') " +
+                "ON CONFLICT(item_id, variable_key) WHERE item_id IS NOT NULL " +
+                "DO UPDATE SET variable_value = excluded.variable_value",
+            "DELETE FROM variables WHERE item_id = ? AND variable_key = ?"
+        );
+
+        final String upsertSql;
+        final String deleteSql;
+
+        Kind(String upsertSql, String deleteSql) {
+            this.upsertSql = upsertSql;
+            this.deleteSql = deleteSql;
         }
     }
 
@@ -176,66 +226,41 @@ public final class VariableScopeDao {
         return map;
     }
 
-    private static void persistKeyValues(
-        String table,
-        String foreignColumn,
-        int foreignId,
-        Map<String, String> vars,
-        String extraWhere,
-        int sortOrderStart
-    ) throws SQLException {
-        Connection conn = LiteConnection.getConnection();
-        try {
-            conn.setAutoCommit(false);
-
-            // delete existing rows for this scope
-            String delSql =
-                "DELETE FROM " +
-                table +
-                " WHERE " +
-                foreignColumn +
-                " = ?" +
-                (extraWhere.isEmpty() ? "" : " " + extraWhere);
-            try (PreparedStatement del = conn.prepareStatement(delSql)) {
-                del.setInt(1, foreignId);
-                del.executeUpdate();
-            }
-
-            // insert fresh batch
-            if (!vars.isEmpty()) {
-                String insSql =
-                    "INSERT INTO " +
-                    table +
-                    " (" +
-                    foreignColumn +
-                    ", variable_key, variable_value, variable_type, sort_order) " +
-                    "VALUES (?, ?, ?, 'string', ?)";
-                try (PreparedStatement ins = conn.prepareStatement(insSql)) {
-                    int order = sortOrderStart;
-                    for (Map.Entry<String, String> e : vars.entrySet()) {
-                        ins.setInt(1, foreignId);
-                        ins.setString(2, e.getKey());
-                        ins.setString(3, e.getValue());
-                        ins.setInt(4, order++);
-                        ins.addBatch();
+    private static void applyScopeChanges(Connection conn, ScopeChanges scope)
+        throws SQLException {
+        if (scope.id <= 0 || scope.changes.isEmpty()) return;
+        try (
+            PreparedStatement upsert = conn.prepareStatement(
+                scope.kind.upsertSql
+            );
+            PreparedStatement delete = conn.prepareStatement(
+                scope.kind.deleteSql
+            )
+        ) {
+            boolean upserts = false;
+            boolean deletes = false;
+            for (Map.Entry<String, String> e : scope.changes.entrySet()) {
+                if (e.getValue() != null) {
+                    upsert.setInt(1, scope.id);
+                    upsert.setString(2, e.getKey());
+                    upsert.setString(3, e.getValue());
+                    if (scope.kind == Kind.ENVIRONMENT) {
+                        upsert.setInt(4, scope.id); // for the sort order
                     }
-                    ins.executeBatch();
+                    upsert.addBatch();
+                    upserts = true;
+                } else {
+                    delete.setInt(1, scope.id);
+                    delete.setString(2, e.getKey());
+                    delete.addBatch();
+                    deletes = true;
                 }
             }
-
-            conn.commit();
-        } catch (SQLException e) {
-            try {
-                conn.rollback();
-            } catch (SQLException ignored) {
-                // rollback failure is non-recoverable
+            if (upserts) {
+                upsert.executeBatch();
             }
-            throw e;
-        } finally {
-            try {
-                conn.setAutoCommit(true);
-            } catch (SQLException ignored) {
-                // best-effort reset
+            if (deletes) {
+                delete.executeBatch();
             }
         }
     }
@@ -0,0 +1,302 @@
+package com.quillapiclient.db;
+
+import com.quillapiclient.objects.Header;
+import com.quillapiclient.utility.VariableReplacer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Where-used index of {@code {{variable}}} references: one row per
+ * variable name and request item in {@code variable_usages}, covering the
+ * URL (with its params), headers, body and auth.
+ *
+ * <p>Rows for a request are replaced in the same transaction that saves
+ * it, on import and on every edit, and cascade away with the item; an
+ * existing database is indexed once by {@link #backfillIfPending}. Lookups
+ * by name go straight to the table's primary key.
+ */
+public class VariableUsageDao {
+
+    private VariableUsageDao() {}
+
+    /** A request that references a variable. */
+    public static class Usage {
+
+        public final int itemId;
+        public final String collectionName;
+        public final String itemName;
+
+        public Usage(int itemId, String collectionName, String itemName) {
+            this.itemId = itemId;
+            this.collectionName = collectionName;
+            this.itemName = itemName;
+        }
+    }
+
+    /**
+     * Variable names referenced by a request's parts. Postman's dynamic
+     * variables ({@code {{$guid}}} and the like) are left out, since no
+     * scope defines them.
+     */
+    static Set<String> namesOf(List<Header> headers, String... texts) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String text : texts) {
+            addNames(names, text);
+        }
+        if (headers != null) {
+            for (Header header : headers) {
+                addNames(names, header.getKey());
+                addNames(names, header.getValue());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Replaces the index rows of one request (called within the
+     * transaction that saves it).
+     */
+    static void replaceUsages(Connection conn, int itemId, Set<String> names)
+        throws SQLException {
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "DELETE FROM variable_usages WHERE item_id = ?"
+            )
+        ) {
+            stmt.setInt(1, itemId);
+            stmt.executeUpdate();
+        }
+        if (names.isEmpty()) {
+            return;
+        }
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "INSERT OR IGNORE INTO variable_usages (variable_name, item_id) VALUES (?, ?)"
+            )
+        ) {
+            for (String name : names) {
+                stmt.setString(1, name);
+                stmt.setInt(2, itemId);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Gets the requests that reference a variable, by collection and name.
+     *
+     * @param variableName The name between the braces, trimmed
+     * @return The requests, or an empty list if none
+     */
+    public static List<Usage> getUsages(String variableName) {
+        List<Usage> usages = new ArrayList<>();
+        Connection conn = LiteConnection.getConnection();
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "SELECT u.item_id, c.name AS collection_name, i.name AS item_name " +
+                    "FROM variable_usages u " +
+                    "JOIN items i ON i.id = u.item_id " +
+                    "JOIN collections c ON c.id = i.collection_id " +
+                    "WHERE u.variable_name = ? " +
+                    "ORDER BY c.name, i.name"
+            )
+        ) {
+            stmt.setString(1, variableName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    usages.add(
+                        new Usage(
+                            rs.getInt("item_id"),
+                            rs.getString("collection_name"),
+                            rs.getString("item_name")
+                        )
+                    );
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println(
+                "Error loading variable usages from database: " +
+                    e.getMessage()
+            );
+            e.printStackTrace();
+        }
+        return usages;
+    }
+
+    /**
+     * Finds references no stored scope defines: not an enabled variable of
+     * the environment, nor a variable of the request's collection or of
+     * the request itself. Globals are not stored, so callers filter those.
+     *
+     * @param environmentId The environment to resolve against, or -1
+     * @return The undefined names per request, ordered by collection and
+     *         request name
+     */
+    public static Map<Usage, List<String>> getUndefinedUsages(
+        int environmentId
+    ) {
+        Map<Integer, Usage> byItem = new HashMap<>();
+        Map<Usage, List<String>> undefined = new LinkedHashMap<>();
+        Connection conn = LiteConnection.getConnection();
+        try (
+            PreparedStatement stmt = conn.prepareStatement(
+                "SELECT u.item_id, u.variable_name, c.name AS collection_name, i.name AS item_name " +
+                    "FROM variable_usages u " +
+                    "JOIN items i ON i.id = u.item_id " +
+                    "JOIN collections c ON c.id = i.collection_id " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM environment_values e " +
+                    "WHERE e.environment_id = ? AND e.enabled = 1 AND e.variable_key = u.variable_name) " +
+                    "AND NOT EXISTS (SELECT 1 FROM variables v " +
+                    "WHERE v.collection_id = i.collection_id AND v.item_id IS NULL AND v.variable_key = u.variable_name) " +
+                    "AND NOT EXISTS (SELECT 1 FROM variables v " +
+                    "WHERE v.item_id = u.item_id AND v.variable_key = u.variable_name) " +
+                    "ORDER BY c.name, i.name, u.variable_name"
+            )
+        ) {
+            stmt.setInt(1, environmentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int itemId = rs.getInt("item_id");
+                    Usage usage = byItem.get(itemId);
+                    if (usage == null) {
+                        usage = new Usage(
+                            itemId,
+                            rs.getString("collection_name"),
+                            rs.getString("item_name")
+                        );
+                        byItem.put(itemId, usage);
+                    }
+                    undefined
+                        .computeIfAbsent(usage, u -> new ArrayList<>())
+                        .add(rs.getString("variable_name"));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println(
+                "Error loading undefined variables from database: " +
+                    e.getMessage()
+            );
+            e.printStackTrace();
+        }
+        return undefined;
+    }
+
+    /**
+     * Indexes every stored request, once: on the first start after the
+     * table was added, as recorded by
+     * {@link DatabaseSchema#migrateVariableUsages()}. Bodies kept in the
+     * blob store are read back for it. Requests a save has indexed since
+     * are left alone, since their rows are newer than what was read here.
+     *
+     * @return The number of requests indexed
+     */
+    public static int backfillIfPending() throws SQLException {
+        Connection conn = LiteConnection.getConnection();
+        if (
+            !DatabaseSchema.isMigrationPending(
+                conn,
+                DatabaseSchema.VARIABLE_USAGES_BACKFILL
+            )
+        ) {
+            return 0;
+        }
+
+        Map<Integer, Set<String>> names = new LinkedHashMap<>();
+        try (Statement stmt = conn.createStatement()) {
+            try (
+                ResultSet rs = stmt.executeQuery(
+                    "SELECT item_id, url_raw, full_url_json, body_raw, body_hash, full_body_json, full_auth_json FROM requests"
+                )
+            ) {
+                while (rs.next()) {
+                    String bodyRaw = rs.getString("body_raw");
+                    String bodyHash = rs.getString("body_hash");
+                    if (bodyRaw == null && bodyHash != null) {
+                        bodyRaw = BlobStore.readString(bodyHash);
+                    }
+                    names.put(
+                        rs.getInt("item_id"),
+                        namesOf(
+                            null,
+                            rs.getString("url_raw"),
+                            rs.getString("full_url_json"),
+                            bodyRaw,
+                            rs.getString("full_body_json"),
+                            rs.getString("full_auth_json")
+                        )
+                    );
+                }
+            }
+            try (
+                ResultSet rs = stmt.executeQuery(
+                    "SELECT r.item_id, h.header_key, h.header_value FROM headers h " +
+                        "JOIN requests r ON r.id = h.request_id"
+                )
+            ) {
+                while (rs.next()) {
+                    Set<String> itemNames = names.get(rs.getInt("item_id"));
+                    if (itemNames != null) {
+                        addNames(itemNames, rs.getString("header_key"));
+                        addNames(itemNames, rs.getString("header_value"));
+                    }
+                }
+            }
+        }
+
+        int indexed = 0;
+        try {
+            conn.setAutoCommit(false);
+            Set<Integer> alreadyIndexed = new HashSet<>();
+            try (
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(
+                    "SELECT DISTINCT item_id FROM variable_usages"
+                )
+            ) {
+                while (rs.next()) {
+                    alreadyIndexed.add(rs.getInt(1));
+                }
+            }
+            for (Map.Entry<Integer, Set<String>> entry : names.entrySet()) {
+                if (
+                    !entry.getValue().isEmpty() &&
+                    !alreadyIndexed.contains(entry.getKey())
+                ) {
+                    replaceUsages(conn, entry.getKey(), entry.getValue());
+                    indexed++;
+                }
+            }
+            DatabaseSchema.completeMigration(
+                conn,
+                DatabaseSchema.VARIABLE_USAGES_BACKFILL
+            );
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        return indexed;
+    }
+
+    private static void addNames(Set<String> names, String text) {
+        for (String name : VariableReplacer.extractVariableNames(text)) {
+            if (!name.startsWith("$")) {
+                names.add(name);
+            }
+        }
+    }
+}
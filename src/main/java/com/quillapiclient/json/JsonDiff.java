@@ -0,0 +1,611 @@
+package com.quillapiclient.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Structural diff of two JSON documents, as a list of the paths where
+ * they differ ({@code $.items[3].id}).
+ *
+ * <p>Both documents are read token by token, in step: objects whose
+ * fields come in the same order, and arrays of anything but objects, are
+ * compared without building a tree, so memory does not grow with the
+ * body. Only when an object's
+ * field names fall out of step are the rest of that object's fields read
+ * into trees on both sides and matched by name.
+ *
+ * <p>Array elements are matched by index until two objects with
+ * different keys meet (the first of the {@code quill.diff.arrayKeys}
+ * fields an element has, {@code id} by default); from there on elements
+ * are matched by key, so an insertion does not make every later element
+ * differ. That alignment looks at most {@code quill.diff.alignWindow}
+ * elements ahead on each side: an element with no partner within the
+ * window counts as removed or added. Elements of arrays of objects are
+ * read one at a time as trees, so memory is bounded by the window, not
+ * the document. Numbers are compared by value, so {@code 1.0} equals
+ * {@code 1}. The diff stops after {@code maxDifferences} differences.
+ */
+public class JsonDiff {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern SIMPLE_NAME = Pattern.compile(
+        "[A-Za-z_$][A-Za-z0-9_$]*"
+    );
+    private static final int VALUE_CHARS = 120;
+    private static final String[] ARRAY_KEYS = System.getProperty(
+        "quill.diff.arrayKeys",
+        "id,_id,uuid,key"
+    ).split("\\s*,\\s*");
+    private static final int ALIGN_WINDOW = Integer.getInteger(
+        "quill.diff.alignWindow",
+        256
+    );
+
+    public enum Kind {
+        ADDED,
+        REMOVED,
+        CHANGED,
+    }
+
+    /** One place where the documents differ. */
+    public static class Difference {
+
+        public final String path;
+        public final Kind kind;
+        public final String left; // null when added
+        public final String right; // null when removed
+
+        public Difference(String path, Kind kind, String left, String right) {
+            this.path = path;
+            this.kind = kind;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    /** The differences found, about in document order. */
+    public static class Result {
+
+        public final List<Difference> differences;
+        public final boolean truncated; // stopped at the limit
+
+        public Result(List<Difference> differences, boolean truncated) {
+            this.differences = Collections.unmodifiableList(differences);
+            this.truncated = truncated;
+        }
+
+        public boolean isEqual() {
+            return differences.isEmpty();
+        }
+    }
+
+    // Thrown to unwind once the limit is reached
+    private static class LimitReached extends RuntimeException {
+
+        LimitReached() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final List<Difference> differences = new ArrayList<>();
+    private final int maxDifferences;
+
+    private JsonDiff(int maxDifferences) {
+        this.maxDifferences = maxDifferences;
+    }
+
+    /**
+     * Compares two JSON documents given as bytes (UTF-8, or UTF-16/32
+     * detected from the bytes).
+     *
+     * @throws IOException if either is not valid JSON
+     */
+    public static Result diff(byte[] left, byte[] right, int maxDifferences)
+        throws IOException {
+        try (
+            JsonParser leftParser = FACTORY.createParser(left);
+            JsonParser rightParser = FACTORY.createParser(right)
+        ) {
+            return diff(leftParser, rightParser, maxDifferences);
+        }
+    }
+
+    /**
+     * Compares two JSON documents given as text.
+     *
+     * @throws IOException if either is not valid JSON
+     */
+    public static Result diff(String left, String right, int maxDifferences)
+        throws IOException {
+        try (
+            JsonParser leftParser = FACTORY.createParser(left);
+            JsonParser rightParser = FACTORY.createParser(right)
+        ) {
+            return diff(leftParser, rightParser, maxDifferences);
+        }
+    }
+
+    /**
+     * Compares two JSON documents read from streams, so neither has to be
+     * in memory whole. Closes the readers.
+     *
+     * @throws IOException if either is not valid JSON or cannot be read
+     */
+    public static Result diff(Reader left, Reader right, int maxDifferences)
+        throws IOException {
+        try (
+            JsonParser leftParser = FACTORY.createParser(left);
+            JsonParser rightParser = FACTORY.createParser(right)
+        ) {
+            return diff(leftParser, rightParser, maxDifferences);
+        }
+    }
+
+    private static Result diff(
+        JsonParser left,
+        JsonParser right,
+        int maxDifferences
+    ) throws IOException {
+        JsonDiff diff = new JsonDiff(maxDifferences);
+        boolean truncated = false;
+        JsonToken leftToken = left.nextToken();
+        JsonToken rightToken = right.nextToken();
+        if (leftToken == null || rightToken == null) {
+            throw new IOException("No JSON value");
+        }
+        try {
+            diff.compare(left, right, "$");
+            // Read to the end, so trailing garbage counts as invalid
+            if (left.nextToken() != null || right.nextToken() != null) {
+                throw new IOException("Unexpected content after JSON value");
+            }
+        } catch (LimitReached e) {
+            truncated = true;
+        }
+        return new Result(diff.differences, truncated);
+    }
+
+    /** Compares the values both parsers are at, leaving them at their ends. */
+    private void compare(JsonParser left, JsonParser right, String path)
+        throws IOException {
+        JsonToken leftToken = left.currentToken();
+        JsonToken rightToken = right.currentToken();
+        if (
+            leftToken == JsonToken.START_OBJECT &&
+            rightToken == JsonToken.START_OBJECT
+        ) {
+            compareObjects(left, right, path);
+        } else if (
+            leftToken == JsonToken.START_ARRAY &&
+            rightToken == JsonToken.START_ARRAY
+        ) {
+            compareArrays(left, right, path);
+        } else if (leftToken.isScalarValue() && rightToken.isScalarValue()) {
+            if (!scalarsEqual(left, right)) {
+                add(path, Kind.CHANGED, summary(left), summary(right));
+            }
+        } else {
+            add(path, Kind.CHANGED, summary(left), summary(right));
+        }
+    }
+
+    private void compareObjects(
+        JsonParser left,
+        JsonParser right,
+        String path
+    ) throws IOException {
+        while (true) {
+            JsonToken leftToken = left.nextToken();
+            JsonToken rightToken = right.nextToken();
+            if (
+                leftToken == JsonToken.END_OBJECT &&
+                rightToken == JsonToken.END_OBJECT
+            ) {
+                return;
+            }
+            if (
+                leftToken == JsonToken.FIELD_NAME &&
+                rightToken == JsonToken.FIELD_NAME &&
+                left.currentName().equals(right.currentName())
+            ) {
+                String name = left.currentName();
+                left.nextToken();
+                right.nextToken();
+                compare(left, right, child(path, name));
+                continue;
+            }
+            // Out of step: match the remaining fields by name
+            Map<String, JsonNode> leftRest = readFields(left);
+            Map<String, JsonNode> rightRest = readFields(right);
+            for (Map.Entry<String, JsonNode> entry : leftRest.entrySet()) {
+                String name = entry.getKey();
+                JsonNode rightValue = rightRest.get(name);
+                if (rightValue == null) {
+                    add(
+                        child(path, name),
+                        Kind.REMOVED,
+                        summary(entry.getValue()),
+                        null
+                    );
+                } else {
+                    compareTrees(entry.getValue(), rightValue, child(path, name));
+                }
+            }
+            for (Map.Entry<String, JsonNode> entry : rightRest.entrySet()) {
+                if (!leftRest.containsKey(entry.getKey())) {
+                    add(
+                        child(path, entry.getKey()),
+                        Kind.ADDED,
+                        null,
+                        summary(entry.getValue())
+                    );
+                }
+            }
+            return;
+        }
+    }
+
+    private void compareArrays(JsonParser left, JsonParser right, String path)
+        throws IOException {
+        int index = 0;
+        while (true) {
+            JsonToken leftToken = left.nextToken();
+            JsonToken rightToken = right.nextToken();
+            boolean leftEnded = leftToken == JsonToken.END_ARRAY;
+            boolean rightEnded = rightToken == JsonToken.END_ARRAY;
+            if (leftEnded && rightEnded) {
+                return;
+            }
+            if (leftEnded) {
+                for (; rightToken != JsonToken.END_ARRAY; index++) {
+                    add(index(path, index), Kind.ADDED, null, summary(right));
+                    rightToken = right.nextToken();
+                }
+                return;
+            }
+            if (rightEnded) {
+                for (; leftToken != JsonToken.END_ARRAY; index++) {
+                    add(index(path, index), Kind.REMOVED, summary(left), null);
+                    leftToken = left.nextToken();
+                }
+                return;
+            }
+            if (
+                leftToken == JsonToken.START_OBJECT &&
+                rightToken == JsonToken.START_OBJECT
+            ) {
+                Element leftElement = new Element(index, MAPPER.readTree(left));
+                Element rightElement = new Element(
+                    index,
+                    MAPPER.readTree(right)
+                );
+                if (
+                    leftElement.key != null &&
+                    rightElement.key != null &&
+                    !leftElement.key.equals(rightElement.key)
+                ) {
+                    alignByKey(left, right, path, leftElement, rightElement);
+                    return;
+                }
+                compareTrees(
+                    leftElement.value,
+                    rightElement.value,
+                    index(path, index)
+                );
+            } else {
+                compare(left, right, index(path, index));
+            }
+            index++;
+        }
+    }
+
+    /** An array element read as a tree, with its key if it has one. */
+    private static class Element {
+
+        final int index;
+        final JsonNode value;
+        final String key; // "id=42", or null
+
+        Element(int index, JsonNode value) {
+            this.index = index;
+            this.value = value;
+            this.key = keyOf(value);
+        }
+
+        /** How the element is matched: its key, else its position. */
+        String matchKey() {
+            return key != null ? key : "#" + index;
+        }
+    }
+
+    /**
+     * Elements of one side still waiting for a partner. Several may share
+     * a key (an array with two {@code id=7} elements); those are matched
+     * in order, first with first.
+     */
+    private static class Waiting {
+
+        private final Map<String, ArrayDeque<Element>> byKey = new HashMap<>();
+        private final Set<Element> oldestFirst = new LinkedHashSet<>();
+
+        void add(Element element) {
+            byKey
+                .computeIfAbsent(element.matchKey(), key -> new ArrayDeque<>())
+                .addLast(element);
+            oldestFirst.add(element);
+        }
+
+        /** Takes the oldest element waiting with this key, or null. */
+        Element take(String key) {
+            ArrayDeque<Element> elements = byKey.get(key);
+            if (elements == null) {
+                return null;
+            }
+            Element element = elements.pollFirst();
+            if (elements.isEmpty()) {
+                byKey.remove(key);
+            }
+            oldestFirst.remove(element);
+            return element;
+        }
+
+        /** Takes the element that has waited longest. */
+        Element takeOldest() {
+            return take(oldestFirst.iterator().next().matchKey());
+        }
+
+        int size() {
+            return oldestFirst.size();
+        }
+
+        Iterable<Element> elements() {
+            return oldestFirst;
+        }
+    }
+
+    /**
+     * Matches the rest of two arrays by element key, starting with the
+     * first pair whose keys differed. Each side keeps the elements still
+     * waiting for a partner, oldest first; one that waits longer than the
+     * window is reported removed or added.
+     */
+    private void alignByKey(
+        JsonParser left,
+        JsonParser right,
+        String path,
+        Element firstLeft,
+        Element firstRight
+    ) throws IOException {
+        Waiting waitingLeft = new Waiting();
+        Waiting waitingRight = new Waiting();
+        Element nextLeft = firstLeft;
+        Element nextRight = firstRight;
+        int leftIndex = firstLeft.index;
+        int rightIndex = firstRight.index;
+        while (nextLeft != null || nextRight != null) {
+            if (nextLeft != null) {
+                match(path, nextLeft, waitingRight, waitingLeft, true);
+                leftIndex++;
+                nextLeft = readElement(left, leftIndex);
+            }
+            if (nextRight != null) {
+                match(path, nextRight, waitingLeft, waitingRight, false);
+                rightIndex++;
+                nextRight = readElement(right, rightIndex);
+            }
+            evict(path, waitingLeft, true);
+            evict(path, waitingRight, false);
+        }
+        for (Element element : waitingLeft.elements()) {
+            add(
+                elementPath(path, element),
+                Kind.REMOVED,
+                summary(element.value),
+                null
+            );
+        }
+        for (Element element : waitingRight.elements()) {
+            add(
+                elementPath(path, element),
+                Kind.ADDED,
+                null,
+                summary(element.value)
+            );
+        }
+    }
+
+    /** Compares an element with its partner, or leaves it waiting. */
+    private void match(
+        String path,
+        Element element,
+        Waiting otherWaiting,
+        Waiting ownWaiting,
+        boolean isLeft
+    ) throws IOException {
+        Element partner = otherWaiting.take(element.matchKey());
+        if (partner == null) {
+            ownWaiting.add(element);
+            return;
+        }
+        Element leftElement = isLeft ? element : partner;
+        Element rightElement = isLeft ? partner : element;
+        compareTrees(
+            leftElement.value,
+            rightElement.value,
+            elementPath(path, leftElement)
+        );
+    }
+
+    private void evict(String path, Waiting waiting, boolean isLeft) {
+        while (waiting.size() > ALIGN_WINDOW) {
+            Element element = waiting.takeOldest();
+            add(
+                elementPath(path, element),
+                isLeft ? Kind.REMOVED : Kind.ADDED,
+                isLeft ? summary(element.value) : null,
+                isLeft ? null : summary(element.value)
+            );
+        }
+    }
+
+    /** The next element of an array as a tree, or null at its end. */
+    private static Element readElement(JsonParser parser, int index)
+        throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_ARRAY) {
+            return null;
+        }
+        if (token == null) {
+            throw new IOException("Unexpected end of JSON array");
+        }
+        return new Element(index, MAPPER.readTree(parser));
+    }
+
+    private static String keyOf(JsonNode value) {
+        if (!value.isObject()) {
+            return null;
+        }
+        for (String name : ARRAY_KEYS) {
+            JsonNode key = value.get(name);
+            if (key != null && key.isValueNode() && !key.isNull()) {
+                return name + "=" + key.asText();
+            }
+        }
+        return null;
+    }
+
+    private static String elementPath(String path, Element element) {
+        return element.key != null
+            ? path + "[" + element.key + "]"
+            : index(path, element.index);
+    }
+
+    private void compareTrees(JsonNode left, JsonNode right, String path)
+        throws IOException {
+        if (left.isValueNode() && right.isValueNode()) {
+            // Cheap check first; traversing is only worth it for containers
+            if (left.equals(right)) {
+                return;
+            }
+        }
+        try (
+            JsonParser leftParser = left.traverse();
+            JsonParser rightParser = right.traverse()
+        ) {
+            leftParser.nextToken();
+            rightParser.nextToken();
+            compare(leftParser, rightParser, path);
+        }
+    }
+
+    /**
+     * Reads the rest of an object into trees, starting at the token the
+     * parser is at (a field name or the end of the object).
+     */
+    private static Map<String, JsonNode> readFields(JsonParser parser)
+        throws IOException {
+        Map<String, JsonNode> fields = new LinkedHashMap<>();
+        JsonToken token = parser.currentToken();
+        while (token == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            fields.put(name, MAPPER.readTree(parser));
+            token = parser.nextToken();
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new IOException("Malformed JSON object");
+        }
+        return fields;
+    }
+
+    private static boolean scalarsEqual(JsonParser left, JsonParser right)
+        throws IOException {
+        JsonToken leftToken = left.currentToken();
+        JsonToken rightToken = right.currentToken();
+        if (leftToken.isNumeric() && rightToken.isNumeric()) {
+            if (
+                leftToken == JsonToken.VALUE_NUMBER_INT &&
+                rightToken == JsonToken.VALUE_NUMBER_INT
+            ) {
+                return left.getText().equals(right.getText());
+            }
+            return left.getDecimalValue().compareTo(right.getDecimalValue()) ==
+                0;
+        }
+        return leftToken == rightToken && left.getText().equals(right.getText());
+    }
+
+    /** Short text for the value a parser is at; skips a container. */
+    private static String summary(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return "{...}";
+        }
+        if (token == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return "[...]";
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            return quote(parser.getText());
+        }
+        return shorten(parser.getText());
+    }
+
+    private static String summary(JsonNode node) {
+        if (node.isObject()) {
+            return "{...}";
+        }
+        if (node.isArray()) {
+            return "[...]";
+        }
+        if (node.isTextual()) {
+            return quote(node.asText());
+        }
+        return shorten(node.toString());
+    }
+
+    private static String quote(String text) {
+        return "\"" + shorten(text) + "\"";
+    }
+
+    private static String shorten(String text) {
+        return text.length() > VALUE_CHARS
+            ? text.substring(0, VALUE_CHARS) + "..."
+            : text;
+    }
+
+    private static String child(String path, String name) {
+        if (SIMPLE_NAME.matcher(name).matches()) {
+            return path + "." + name;
+        }
+        return path + "['" + name.replace("'", "\\'") + "']";
+    }
+
+    private static String index(String path, int index) {
+        return path + "[" + index + "]";
+    }
+
+    private void add(String path, Kind kind, String left, String right) {
+        if (differences.size() >= maxDifferences) {
+            throw new LimitReached();
+        }
+        differences.add(new Difference(path, kind, left, right));
+    }
+}
@@ -0,0 +1,712 @@
+package com.quillapiclient.json;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compiled JSONPath expression, evaluated against a {@link JsonTape}.
+ *
+ * <p>Supported syntax (the common subset of Goessner's JSONPath):
+ * <ul>
+ *   <li>{@code $} root; {@code .name}, {@code ['name']}, {@code ["name"]}
+ *   <li>{@code [0]}, {@code [-1]}, {@code [0,2]}, {@code ['a','b']},
+ *       slices {@code [1:3]}, {@code [:2]}, {@code [-2:]}
+ *   <li>wildcards {@code .*} and {@code [*]}; recursive descent
+ *       {@code ..name}, {@code ..*}, {@code ..[0]}
+ *   <li>filters {@code [?(@.status == 'FAILED')]} with {@code ==},
+ *       {@code !=}, {@code <}, {@code <=}, {@code >}, {@code >=},
+ *       {@code &&}, {@code ||}, parentheses and existence tests
+ *       {@code [?(@.id)]}. Paths inside a filter use names and indexes.
+ * </ul>
+ *
+ * <p>Evaluation moves a set of tape positions through the steps; subtrees
+ * that no step looks into are skipped via the tape's links, and only the
+ * scalars a filter compares are decoded.
+ */
+public class JsonPath {
+
+    /** Value of a filter path that selects nothing. */
+    private static final Object MISSING = new Object();
+    /** Value of a filter path that selects an object or array. */
+    private static final Object CONTAINER = new Object();
+    /** JSON null, as a filter value (Java null is not used). */
+    private static final Object JSON_NULL = new Object();
+
+    private final String expression;
+    private final List<Step> steps;
+
+    private JsonPath(String expression, List<Step> steps) {
+        this.expression = expression;
+        this.steps = steps;
+    }
+
+    /**
+     * Compiles an expression.
+     *
+     * @throws IllegalArgumentException with the position of a syntax error
+     */
+    public static JsonPath compile(String expression) {
+        return new JsonPath(expression, new Parser(expression).parsePath());
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    /**
+     * Evaluates the expression, checking for interruption between steps.
+     *
+     * @return matching value tokens in document order
+     * @throws InterruptedException if the thread was interrupted
+     */
+    public int[] select(JsonTape tape) throws InterruptedException {
+        Nodes current = new Nodes();
+        current.add(0);
+        for (Step step : steps) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            Nodes next = new Nodes();
+            for (int i = 0; i < current.size; i++) {
+                step.apply(tape, current.items[i], next);
+            }
+            if (step.mayDuplicate()) {
+                next.sortDistinct();
+            }
+            current = next;
+        }
+        return Arrays.copyOf(current.items, current.size);
+    }
+
+    // ---- evaluation ----
+
+    /** Growable list of token indexes. */
+    private static class Nodes {
+
+        int[] items = new int[16];
+        int size = 0;
+
+        void add(int token) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = token;
+        }
+
+        void sortDistinct() {
+            Arrays.sort(items, 0, size);
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (n == 0 || items[n - 1] != items[i]) {
+                    items[n++] = items[i];
+                }
+            }
+            size = n;
+        }
+    }
+
+    private interface Step {
+        void apply(JsonTape tape, int node, Nodes out);
+
+        default boolean mayDuplicate() {
+            return false;
+        }
+    }
+
+    /** Member values of an object, element values of an array. */
+    private static void children(JsonTape tape, int node, Nodes out) {
+        byte kind = tape.kind(node);
+        if (kind != JsonTape.OBJECT && kind != JsonTape.ARRAY) {
+            return;
+        }
+        int end = tape.endOf(node);
+        int i = node + 1;
+        while (i < end) {
+            if (tape.kind(i) == JsonTape.FIELD) {
+                i++;
+            }
+            out.add(i);
+            i = tape.next(i);
+        }
+    }
+
+    /** Value of a named member, or -1. */
+    private static int member(JsonTape tape, int node, int nameId) {
+        if (tape.kind(node) != JsonTape.OBJECT || nameId < 0) {
+            return -1;
+        }
+        int end = tape.endOf(node);
+        int i = node + 1;
+        while (i < end) {
+            if (tape.nameIdOf(i) == nameId) {
+                return i + 1;
+            }
+            i = tape.next(i + 1);
+        }
+        return -1;
+    }
+
+    /** Element values of an array, in order. */
+    private static Nodes elements(JsonTape tape, int node) {
+        Nodes elements = new Nodes();
+        if (tape.kind(node) == JsonTape.ARRAY) {
+            children(tape, node, elements);
+        }
+        return elements;
+    }
+
+    private static int element(JsonTape tape, int node, int index) {
+        if (tape.kind(node) != JsonTape.ARRAY) {
+            return -1;
+        }
+        if (index < 0) {
+            Nodes all = elements(tape, node);
+            int i = all.size + index;
+            return i >= 0 ? all.items[i] : -1;
+        }
+        int end = tape.endOf(node);
+        int i = node + 1;
+        for (int n = 0; i < end; n++) {
+            if (n == index) {
+                return i;
+            }
+            i = tape.next(i);
+        }
+        return -1;
+    }
+
+    private static class NameStep implements Step {
+
+        final String name;
+
+        NameStep(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void apply(JsonTape tape, int node, Nodes out) {
+            int value = member(tape, node, tape.findName(name));
+            if (value >= 0) {
+                out.add(value);
+            }
+        }
+    }
+
+    private static class IndexStep implements Step {
+
+        final int index;
+
+        IndexStep(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void apply(JsonTape tape, int node, Nodes out) {
+            int value = element(tape, node, index);
+            if (value >= 0) {
+                out.add(value);
+            }
+        }
+    }
+
+    private static class SliceStep implements Step {
+
+        final Integer from;
+        final Integer to;
+
+        SliceStep(Integer from, Integer to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void apply(JsonTape tape, int node, Nodes out) {
+            Nodes all = elements(tape, node);
+            int start = clamp(from, 0, all.size);
+            int end = clamp(to, all.size, all.size);
+            for (int i = start; i < end; i++) {
+                out.add(all.items[i]);
+            }
+        }
+
+        private static int clamp(Integer bound, int absent, int size) {
+            if (bound == null) {
+                return absent;
+            }
+            int value = bound < 0 ? size + bound : bound;
+            return Math.max(0, Math.min(size, value));
+        }
+    }
+
+    private static class UnionStep implements Step {
+
+        final List<Step> parts;
+
+        UnionStep(List<Step> parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        public void apply(JsonTape tape, int node, Nodes out) {
+            for (Step part : parts) {
+                part.apply(tape, node, out);
+            }
+        }
+    }
+
+    private static class FilterStep implements Step {
+
+        final Expr filter;
+
+        FilterStep(Expr filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public void apply(JsonTape tape, int node, Nodes out) {
+            Nodes candidates = new Nodes();
+            children(tape, node, candidates);
+            for (int i = 0; i < candidates.size; i++) {
+                if (filter.test(tape, candidates.items[i])) {
+                    out.add(candidates.items[i]);
+                }
+            }
+        }
+    }
+
+    /** {@code ..}: applies a step to a node and all its descendants. */
+    private static class RecursiveStep implements Step {
+
+        final Step inner;
+
+        RecursiveStep(Step inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public void apply(JsonTape tape, int node, Nodes out) {
+            byte kind = tape.kind(node);
+            if (kind != JsonTape.OBJECT && kind != JsonTape.ARRAY) {
+                return;
+            }
+            if (inner instanceof NameStep) {
+                // Every member with the name, in one scan of the subtree
+                int nameId = tape.findName(((NameStep) inner).name);
+                if (nameId < 0) {
+                    return;
+                }
+                int end = tape.endOf(node);
+                for (int i = node + 1; i < end; i++) {
+                    if (
+                        tape.kind(i) == JsonTape.FIELD &&
+                        tape.nameIdOf(i) == nameId
+                    ) {
+                        out.add(i + 1);
+                    }
+                }
+                return;
+            }
+            int end = tape.endOf(node);
+            inner.apply(tape, node, out);
+            for (int i = node + 1; i < end; i++) {
+                byte k = tape.kind(i);
+                if (k == JsonTape.OBJECT || k == JsonTape.ARRAY) {
+                    inner.apply(tape, i, out);
+                }
+            }
+        }
+
+        @Override
+        public boolean mayDuplicate() {
+            return true;
+        }
+    }
+
+    // ---- filter expressions ----
+
+    private interface Expr {
+        /** Truth of the expression for a candidate node. */
+        default boolean test(JsonTape tape, int node) {
+            Object value = value(tape, node);
+            return value != MISSING && value != Boolean.FALSE;
+        }
+
+        Object value(JsonTape tape, int node);
+    }
+
+    private static class Literal implements Expr {
+
+        final Object value;
+
+        Literal(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object value(JsonTape tape, int node) {
+            return value;
+        }
+    }
+
+    /** {@code @} followed by name and index steps. */
+    private static class RelativePath implements Expr {
+
+        final List<Step> steps;
+
+        RelativePath(List<Step> steps) {
+            this.steps = steps;
+        }
+
+        @Override
+        public Object value(JsonTape tape, int node) {
+            int current = node;
+            Nodes out = new Nodes();
+            for (Step step : steps) {
+                out.size = 0;
+                step.apply(tape, current, out);
+                if (out.size == 0) {
+                    return MISSING;
+                }
+                current = out.items[0];
+            }
+            byte kind = tape.kind(current);
+            if (kind == JsonTape.OBJECT || kind == JsonTape.ARRAY) {
+                return CONTAINER;
+            }
+            Object scalar = tape.scalar(current);
+            return scalar != null ? scalar : JSON_NULL;
+        }
+    }
+
+    private static class Comparison implements Expr {
+
+        final Expr left;
+        final String op;
+        final Expr right;
+
+        Comparison(Expr left, String op, Expr right) {
+            this.left = left;
+            this.op = op;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(JsonTape tape, int node) {
+            Object a = left.value(tape, node);
+            Object b = right.value(tape, node);
+            if (a == MISSING || b == MISSING) {
+                return op.equals("!=") && a != b;
+            }
+            int order;
+            if (a instanceof Double && b instanceof Double) {
+                order = Double.compare((Double) a, (Double) b);
+            } else if (a instanceof String && b instanceof String) {
+                order = ((String) a).compareTo((String) b);
+            } else {
+                // Mixed types are never equal and never ordered
+                boolean equal = a == b ||
+                    (a instanceof Boolean && a.equals(b));
+                return op.equals("==") ? equal : op.equals("!=") && !equal;
+            }
+            return switch (op) {
+                case "==" -> order == 0;
+                case "!=" -> order != 0;
+                case "<" -> order < 0;
+                case "<=" -> order <= 0;
+                case ">" -> order > 0;
+                default -> order >= 0;
+            };
+        }
+
+        @Override
+        public Object value(JsonTape tape, int node) {
+            return test(tape, node);
+        }
+    }
+
+    private static class Logical implements Expr {
+
+        final Expr left;
+        final boolean and;
+        final Expr right;
+
+        Logical(Expr left, boolean and, Expr right) {
+            this.left = left;
+            this.and = and;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(JsonTape tape, int node) {
+            return and
+                ? left.test(tape, node) && right.test(tape, node)
+                : left.test(tape, node) || right.test(tape, node);
+        }
+
+        @Override
+        public Object value(JsonTape tape, int node) {
+            return test(tape, node);
+        }
+    }
+
+    // ---- parsing ----
+
+    private static class Parser {
+
+        private final String s;
+        private int pos = 0;
+
+        Parser(String s) {
+            this.s = s.trim();
+        }
+
+        List<Step> parsePath() {
+            if (!s.startsWith("$")) {
+                throw error("Path must start with $");
+            }
+            pos = 1;
+            List<Step> steps = new ArrayList<>();
+            while (pos < s.length()) {
+                steps.add(parseStep(false));
+            }
+            return steps;
+        }
+
+        private Step parseStep(boolean relative) {
+            if (s.startsWith("..", pos) && !relative) {
+                pos += 2;
+                if (peek() == '[') {
+                    return new RecursiveStep(parseBracket(false));
+                }
+                return new RecursiveStep(parseDotted());
+            }
+            if (peek() == '.') {
+                pos++;
+                return parseDotted();
+            }
+            if (peek() == '[') {
+                return parseBracket(relative);
+            }
+            throw error("Expected '.' or '['");
+        }
+
+        private Step parseDotted() {
+            if (peek() == '*') {
+                pos++;
+                return JsonPath::children;
+            }
+            int start = pos;
+            while (
+                pos < s.length() &&
+                (Character.isLetterOrDigit(s.charAt(pos)) ||
+                    s.charAt(pos) == '_' ||
+                    s.charAt(pos) == '-' ||
+                    s.charAt(pos) == '$')
+            ) {
+                pos++;
+            }
+            if (pos == start) {
+                throw error("Expected a member name");
+            }
+            return new NameStep(s.substring(start, pos));
+        }
+
+        private Step parseBracket(boolean relative) {
+            expect('[');
+            skipSpaces();
+            Step step;
+            if (!relative && peek() == '?') {
+                pos++;
+                skipSpaces();
+                expect('(');
+                Expr filter = parseOr();
+                skipSpaces();
+                expect(')');
+                step = new FilterStep(filter);
+            } else if (!relative && peek() == '*') {
+                pos++;
+                step = JsonPath::children;
+            } else {
+                step = parseSelectors(relative);
+            }
+            skipSpaces();
+            expect(']');
+            return step;
+        }
+
+        private Step parseSelectors(boolean relative) {
+            List<Step> parts = new ArrayList<>();
+            do {
+                skipSpaces();
+                char c = peek();
+                if (c == '\'' || c == '"') {
+                    parts.add(new NameStep(parseString()));
+                } else {
+                    Integer from = peek() == ':' ? null : parseInt();
+                    skipSpaces();
+                    if (!relative && peek() == ':') {
+                        pos++;
+                        skipSpaces();
+                        Integer to = peek() == ']' ? null : parseInt();
+                        parts.add(new SliceStep(from, to));
+                    } else if (from != null) {
+                        parts.add(new IndexStep(from));
+                    } else {
+                        throw error("Expected an index");
+                    }
+                }
+                skipSpaces();
+            } while (!relative && consume(','));
+            return parts.size() == 1 ? parts.get(0) : new UnionStep(parts);
+        }
+
+        private Expr parseOr() {
+            Expr left = parseAnd();
+            while (consumeOperator("||")) {
+                left = new Logical(left, false, parseAnd());
+            }
+            return left;
+        }
+
+        private Expr parseAnd() {
+            Expr left = parseComparison();
+            while (consumeOperator("&&")) {
+                left = new Logical(left, true, parseComparison());
+            }
+            return left;
+        }
+
+        private Expr parseComparison() {
+            Expr left = parseOperand();
+            skipSpaces();
+            for (String op : new String[] { "==", "!=", "<=", ">=", "<", ">" }) {
+                if (s.startsWith(op, pos)) {
+                    pos += op.length();
+                    return new Comparison(left, op, parseOperand());
+                }
+            }
+            return left;
+        }
+
+        private Expr parseOperand() {
+            skipSpaces();
+            char c = peek();
+            if (c == '(') {
+                pos++;
+                Expr inner = parseOr();
+                skipSpaces();
+                expect(')');
+                return inner;
+            }
+            if (c == '@') {
+                pos++;
+                List<Step> steps = new ArrayList<>();
+                while (peek() == '.' || peek() == '[') {
+                    steps.add(parseStep(true));
+                }
+                return new RelativePath(steps);
+            }
+            if (c == '\'' || c == '"') {
+                return new Literal(parseString());
+            }
+            if (c == '-' || Character.isDigit(c)) {
+                int start = pos;
+                pos++;
+                while (
+                    pos < s.length() &&
+                    (Character.isDigit(s.charAt(pos)) ||
+                        ".eE+-".indexOf(s.charAt(pos)) >= 0)
+                ) {
+                    pos++;
+                }
+                try {
+                    return new Literal(Double.valueOf(s.substring(start, pos)));
+                } catch (NumberFormatException e) {
+                    throw error("Invalid number");
+                }
+            }
+            for (String word : new String[] { "true", "false", "null" }) {
+                if (s.startsWith(word, pos)) {
+                    pos += word.length();
+                    return switch (word) {
+                        case "true" -> new Literal(Boolean.TRUE);
+                        case "false" -> new Literal(Boolean.FALSE);
+                        default -> new Literal(JSON_NULL);
+                    };
+                }
+            }
+            throw error("Expected @, a string, a number, true, false or null");
+        }
+
+        private String parseString() {
+            char quote = s.charAt(pos++);
+            StringBuilder sb = new StringBuilder();
+            while (pos < s.length() && s.charAt(pos) != quote) {
+                char c = s.charAt(pos++);
+                if (c == '\\' && pos < s.length()) {
+                    c = s.charAt(pos++);
+                }
+                sb.append(c);
+            }
+            expect(quote);
+            return sb.toString();
+        }
+
+        private Integer parseInt() {
+            int start = pos;
+            if (peek() == '-') {
+                pos++;
+            }
+            while (pos < s.length() && Character.isDigit(s.charAt(pos))) {
+                pos++;
+            }
+            try {
+                return Integer.valueOf(s.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("Expected an index");
+            }
+        }
+
+        private boolean consumeOperator(String op) {
+            skipSpaces();
+            if (s.startsWith(op, pos)) {
+                pos += op.length();
+                return true;
+            }
+            return false;
+        }
+
+        private boolean consume(char c) {
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                throw error("Expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        private char peek() {
+            return pos < s.length() ? s.charAt(pos) : '\0';
+        }
+
+        private void skipSpaces() {
+            while (pos < s.length() && s.charAt(pos) == ' ') {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(
+                message + " at position " + (pos + 1)
+            );
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.quillapiclient.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structural index of a JSON document: one entry per token with its kind
+ * and char offset, built in a single streaming pass. Queries walk the tape
+ * instead of a {@code JsonNode} tree, and only the values they select are
+ * ever decoded (see {@link JsonPath}).
+ *
+ * <p>Per token the tape holds a kind byte, the offset of its first char and
+ * a link: for an object or array start, the index of the matching end (so
+ * a subtree is skipped in one step); for a field name, an id into the name
+ * table. Field names repeat heavily in API responses, so each distinct name
+ * is kept once. That is 9 bytes per token, against well over 100 for a
+ * tree node.
+ */
+public class JsonTape {
+
+    public static final byte OBJECT = 1;
+    public static final byte ARRAY = 2;
+    public static final byte END = 3;
+    public static final byte FIELD = 4;
+    public static final byte STRING = 5;
+    public static final byte NUMBER = 6;
+    public static final byte TRUE = 7;
+    public static final byte FALSE = 8;
+    public static final byte NULL = 9;
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final String text;
+    private byte[] kinds;
+    private int[] starts;
+    private int[] links;
+    private int size = 0;
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+
+    private JsonTape(String text) {
+        this.text = text;
+        // Roughly one token per 8 chars of typical API JSON
+        int capacity = Math.max(64, text.length() / 8);
+        this.kinds = new byte[capacity];
+        this.starts = new int[capacity];
+        this.links = new int[capacity];
+    }
+
+    /**
+     * Indexes the first JSON value in {@code text}. Checks for interruption
+     * as it goes, so a cancelled worker stops early.
+     *
+     * @throws IOException if the text is not valid JSON
+     * @throws InterruptedException if the thread was interrupted
+     */
+    public static JsonTape build(String text)
+        throws IOException, InterruptedException {
+        JsonTape tape = new JsonTape(text);
+        int[] open = new int[64]; // indexes of unclosed starts
+        int depth = 0;
+        try (JsonParser parser = FACTORY.createParser(text)) {
+            JsonToken token = parser.nextToken();
+            while (token != null) {
+                if (
+                    (tape.size & 0xFFFF) == 0 &&
+                    Thread.currentThread().isInterrupted()
+                ) {
+                    throw new InterruptedException();
+                }
+                int start = (int) parser.getTokenLocation().getCharOffset();
+                switch (token) {
+                    case START_OBJECT, START_ARRAY -> {
+                        if (depth == open.length) {
+                            open = Arrays.copyOf(open, depth * 2);
+                        }
+                        open[depth++] = tape.size;
+                        tape.add(
+                            token == JsonToken.START_OBJECT ? OBJECT : ARRAY,
+                            start,
+                            -1
+                        );
+                    }
+                    case END_OBJECT, END_ARRAY -> {
+                        int begin = open[--depth];
+                        tape.links[begin] = tape.size;
+                        tape.add(END, start, begin);
+                    }
+                    case FIELD_NAME -> tape.add(
+                        FIELD,
+                        start,
+                        tape.nameId(parser.getCurrentName())
+                    );
+                    case VALUE_STRING -> tape.add(STRING, start, -1);
+                    case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> tape.add(
+                        NUMBER,
+                        start,
+                        -1
+                    );
+                    case VALUE_TRUE -> tape.add(TRUE, start, -1);
+                    case VALUE_FALSE -> tape.add(FALSE, start, -1);
+                    case VALUE_NULL -> tape.add(NULL, start, -1);
+                    default -> {
+                        // Embedded objects never come from text input
+                    }
+                }
+                if (depth == 0) {
+                    break; // first root value only
+                }
+                token = parser.nextToken();
+            }
+        }
+        if (tape.size == 0) {
+            throw new IOException("No JSON value");
+        }
+        return tape;
+    }
+
+    private void add(byte kind, int start, int link) {
+        if (size == kinds.length) {
+            int capacity = size + (size >> 1);
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            links = Arrays.copyOf(links, capacity);
+        }
+        kinds[size] = kind;
+        starts[size] = start;
+        links[size] = link;
+        size++;
+    }
+
+    private int nameId(String name) {
+        Integer id = nameIds.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            nameIds.put(name, id);
+        }
+        return id;
+    }
+
+    /** The indexed text. */
+    public String getText() {
+        return text;
+    }
+
+    /** Number of tokens. */
+    public int size() {
+        return size;
+    }
+
+    public byte kind(int token) {
+        return kinds[token];
+    }
+
+    /** Id of a field name, or -1 if no field has that name. */
+    public int findName(String name) {
+        Integer id = nameIds.get(name);
+        return id != null ? id : -1;
+    }
+
+    /** Name id of a {@link #FIELD} token. */
+    public int nameIdOf(int token) {
+        return links[token];
+    }
+
+    public String name(int nameId) {
+        return names.get(nameId);
+    }
+
+    /** Token after the value starting at {@code token} (its subtree). */
+    public int next(int token) {
+        byte kind = kinds[token];
+        return kind == OBJECT || kind == ARRAY ? links[token] + 1 : token + 1;
+    }
+
+    /** Index of the end token closing an object or array. */
+    public int endOf(int token) {
+        return links[token];
+    }
+
+    /** Char offset where a value starts. */
+    public int startOffset(int token) {
+        return starts[token];
+    }
+
+    /**
+     * Char offset just past a value. Only containers record their end;
+     * scalars are measured from the text when asked.
+     */
+    public int endOffset(int token) {
+        byte kind = kinds[token];
+        if (kind == OBJECT || kind == ARRAY) {
+            return starts[links[token]] + 1;
+        }
+        int i = starts[token];
+        if (kind == STRING) {
+            i++;
+            while (text.charAt(i) != '"') {
+                i += text.charAt(i) == '\\' ? 2 : 1;
+            }
+            return i + 1;
+        }
+        while (i < text.length() && !isDelimiter(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c == ',' || c == '}' || c == ']' || c <= ' ';
+    }
+
+    /** The source text of a value. */
+    public String raw(int token) {
+        return text.substring(startOffset(token), endOffset(token));
+    }
+
+    /**
+     * A scalar's value: a String, a Double for numbers, a Boolean, or null
+     * for JSON null and for objects and arrays.
+     */
+    public Object scalar(int token) {
+        switch (kinds[token]) {
+            case STRING:
+                try (JsonParser parser = FACTORY.createParser(raw(token))) {
+                    parser.nextToken();
+                    return parser.getText();
+                } catch (IOException e) {
+                    return null; // already validated by build()
+                }
+            case NUMBER:
+                return Double.valueOf(raw(token));
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+}
@@ -15,6 +15,7 @@ public class ExecutionRequest {
     public final String username;
     public final String password;
     public final String token;
+    public final boolean stream; // show the response while it arrives
 
     public ExecutionRequest(
         String url,
@@ -25,7 +26,8 @@ public class ExecutionRequest {
         String authType,
         String username,
         String password,
-        String token
+        String token,
+        boolean stream
     ) {
         this.url = url;
         this.method = method;
@@ -36,5 +38,6 @@ public class ExecutionRequest {
         this.username = username;
         this.password = password;
         this.token = token;
+        this.stream = stream;
     }
 }
@@ -0,0 +1,37 @@
+package com.quillapiclient.objects;
+
+/**
+ * Latency and error statistics for one time window of response history,
+ * for a single request or merged across a folder or collection.
+ * Percentiles are estimated from a log-bucketed histogram and are -1 for
+ * windows with no responses.
+ */
+public class LatencyWindow {
+
+    public final long windowStart; // Epoch seconds
+    public final long count;
+    public final long errors;
+    public final long p50;
+    public final long p95;
+    public final long p99;
+
+    public LatencyWindow(
+        long windowStart,
+        long count,
+        long errors,
+        long p50,
+        long p95,
+        long p99
+    ) {
+        this.windowStart = windowStart;
+        this.count = count;
+        this.errors = errors;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+    }
+
+    public double errorRate() {
+        return count > 0 ? (double) errors / count : 0.0;
+    }
+}
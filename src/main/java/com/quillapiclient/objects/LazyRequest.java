@@ -0,0 +1,127 @@
+package com.quillapiclient.objects;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Request whose URL, body, auth and header sections are decoded on first
+ * access instead of when the row is read.
+ *
+ * <p>Selecting a request in the tree only needs the method and the raw URL
+ * to paint the top bar; the JSON columns behind the other sections (and the
+ * header/query-param rows) are only worth decoding once their tab is shown
+ * or the request is sent. Each section holds a decoder until its getter is
+ * first called, then caches the result and drops the decoder.
+ *
+ * <p>Not thread-safe: decoders read through the DAOs, so a lazy request is
+ * confined to the thread that owns its connection (in practice the EDT).
+ */
+public class LazyRequest extends Request {
+
+    private final String urlRaw;
+    private Supplier<Url> urlDecoder;
+    private Supplier<Body> bodyDecoder;
+    private Supplier<Auth> authDecoder;
+    private Supplier<List<Header>> headerDecoder;
+
+    public LazyRequest(
+        String method,
+        String urlRaw,
+        Supplier<Url> urlDecoder,
+        Supplier<Body> bodyDecoder,
+        Supplier<Auth> authDecoder,
+        Supplier<List<Header>> headerDecoder
+    ) {
+        this.method = method;
+        this.urlRaw = urlRaw;
+        this.urlDecoder = urlDecoder;
+        this.bodyDecoder = bodyDecoder;
+        this.authDecoder = authDecoder;
+        this.headerDecoder = headerDecoder;
+    }
+
+    /**
+     * Raw URL straight from the {@code url_raw} column, without decoding the
+     * full URL object. Reflects {@link #setUrl} once the URL has been replaced.
+     */
+    @JsonIgnore
+    public String getUrlRaw() {
+        if (urlDecoder == null) {
+            return url != null ? url.getRaw() : null;
+        }
+        return urlRaw;
+    }
+
+    @Override
+    public Url getUrl() {
+        if (urlDecoder != null) {
+            url = urlDecoder.get();
+            urlDecoder = null;
+        }
+        return url;
+    }
+
+    @Override
+    public void setUrl(Url url) {
+        urlDecoder = null;
+        this.url = url;
+    }
+
+    @Override
+    public Body getBody() {
+        if (bodyDecoder != null) {
+            body = bodyDecoder.get();
+            bodyDecoder = null;
+        }
+        return body;
+    }
+
+    @Override
+    public void setBody(Body body) {
+        bodyDecoder = null;
+        this.body = body;
+    }
+
+    @Override
+    public Auth getAuth() {
+        if (authDecoder != null) {
+            auth = authDecoder.get();
+            authDecoder = null;
+        }
+        return auth;
+    }
+
+    @Override
+    public void setAuth(Auth auth) {
+        authDecoder = null;
+        this.auth = auth;
+    }
+
+    @Override
+    public List<Header> getHeader() {
+        if (headerDecoder != null) {
+            header = headerDecoder.get();
+            headerDecoder = null;
+        }
+        return header;
+    }
+
+    @Override
+    public void setHeader(List<Header> header) {
+        headerDecoder = null;
+        this.header = header;
+    }
+
+    /**
+     * Decodes every section that has not been read yet, so the request can be
+     * handed to code that reads the public fields directly or outlives the
+     * connection the decoders would read through (export, serialization).
+     */
+    public void decodeAll() {
+        getUrl();
+        getBody();
+        getAuth();
+        getHeader();
+    }
+}
@@ -0,0 +1,29 @@
+package com.quillapiclient.objects;
+
+/**
+ * One row of response history without its body or headers.
+ * Also serves as the keyset cursor for the next page: pages continue after
+ * the last summary's {@code (createdAt, id)}.
+ */
+public class ResponseSummary {
+
+    public final int id;
+    public final int statusCode;
+    public final long duration;
+    public final long size; // Raw body size in bytes, -1 if not recorded
+    public final String createdAt;
+
+    public ResponseSummary(
+        int id,
+        int statusCode,
+        long duration,
+        long size,
+        String createdAt
+    ) {
+        this.id = id;
+        this.statusCode = statusCode;
+        this.duration = duration;
+        this.size = size;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,47 @@
+package com.quillapiclient.render;
+
+import com.quillapiclient.server.ApiResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.Supplier;
+import javax.swing.JComponent;
+
+/**
+ * Renders a response body of one kind of media type. Chosen per response
+ * by {@link RendererRegistry}.
+ *
+ * <p>Every renderer can write the body as text for the response editor.
+ * Renderers for content that reads better as something other than text
+ * (tables, images, hex) also provide a view. Both {@link #render} and
+ * {@link #prepareView} run on a background thread; only the supplier
+ * returned by {@code prepareView} runs on the EDT, and it should do no
+ * more than build the component.
+ */
+public interface BodyRenderer {
+    /** Short name shown to the user, e.g. "JSON". */
+    String getName();
+
+    /** RSyntaxTextArea syntax style for the text from {@link #render}. */
+    String getSyntaxStyle();
+
+    /**
+     * Writes the body as text. Implementations write as they go, so that
+     * exceptions thrown by {@code out} (the output cap, cancellation) stop
+     * the work part way.
+     *
+     * @param response a response with a non-empty body
+     * @param out      destination; left open
+     */
+    void render(ApiResponse response, Writer out) throws IOException;
+
+    /**
+     * Prepares a dedicated view of the body, doing any parsing or decoding
+     * now, off the EDT.
+     *
+     * @return a factory for the view, to call on the EDT, or null if this
+     *         renderer only produces text
+     */
+    default Supplier<JComponent> prepareView(ApiResponse response) {
+        return null;
+    }
+}
@@ -0,0 +1,174 @@
+package com.quillapiclient.render;
+
+import com.quillapiclient.server.ApiResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Guesses the media type of a body from its first {@link #SNIFF_BYTES}
+ * bytes, for responses without a usable {@code Content-Type}. Never looks
+ * further, so the cost is the same for a 1 KB body and a 1 GB one.
+ */
+final class BodySniffer {
+
+    static final int SNIFF_BYTES = 1024;
+
+    private BodySniffer() {}
+
+    /**
+     * @return a media type the registry knows (image types, JSON, NDJSON,
+     *         HTML, XML, {@code application/octet-stream}) or
+     *         {@code text/plain}
+     */
+    static String sniff(ApiResponse response) {
+        byte[] head = head(response);
+        if (head.length == 0) {
+            return "text/plain";
+        }
+
+        String image = imageType(head);
+        if (image != null) {
+            return image;
+        }
+        if (isBinary(head)) {
+            return "application/octet-stream";
+        }
+
+        int first = skipWhitespace(head, 0);
+        if (first == head.length) {
+            return "text/plain";
+        }
+        byte c = head[first];
+        if (c == '{' || c == '[') {
+            return isNdjson(head, first)
+                ? "application/x-ndjson"
+                : "application/json";
+        }
+        if (c == '<') {
+            String start = new String(
+                head,
+                first,
+                head.length - first,
+                StandardCharsets.ISO_8859_1
+            ).toLowerCase();
+            if (
+                start.startsWith("<!doctype html") ||
+                start.contains("<html") ||
+                start.contains("<body")
+            ) {
+                return "text/html";
+            }
+            return "application/xml";
+        }
+        return "text/plain";
+    }
+
+    /**
+     * The first bytes of the body. A body held only as text has just its
+     * first {@link #SNIFF_BYTES} chars encoded.
+     */
+    private static byte[] head(ApiResponse response) {
+        byte[] raw = response.getRawBody();
+        if (raw != null) {
+            return raw.length <= SNIFF_BYTES
+                ? raw
+                : Arrays.copyOf(raw, SNIFF_BYTES);
+        }
+        String body = response.getBody();
+        if (body == null) {
+            return new byte[0];
+        }
+        return body
+            .substring(0, Math.min(body.length(), SNIFF_BYTES))
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String imageType(byte[] b) {
+        if (startsWith(b, 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n')) {
+            return "image/png";
+        }
+        if (startsWith(b, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(b, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(b, 'B', 'M') && b.length >= 14 && isBinary(b)) {
+            return "image/bmp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] b, int... magic) {
+        if (b.length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((b[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True if the bytes contain NUL or are more than a tenth control
+     * characters other than tab, newline, carriage return, form feed and
+     * escape. UTF-8 text never trips this; most binary formats do.
+     */
+    private static boolean isBinary(byte[] b) {
+        int control = 0;
+        for (byte value : b) {
+            int c = value & 0xFF;
+            if (c == 0) {
+                return true;
+            }
+            if (
+                c < 0x20 &&
+                c != '\t' &&
+                c != '\n' &&
+                c != '\r' &&
+                c != '\f' &&
+                c != 0x1B
+            ) {
+                control++;
+            }
+        }
+        return control * 10 > b.length;
+    }
+
+    /**
+     * True if the first line is a complete object and the next non-blank
+     * line starts another one: one JSON value per line.
+     */
+    private static boolean isNdjson(byte[] b, int first) {
+        if (b[first] != '{') {
+            return false;
+        }
+        int newline = first;
+        while (newline < b.length && b[newline] != '\n') {
+            newline++;
+        }
+        if (newline == b.length) {
+            return false; // no second line within the sniffed prefix
+        }
+        int end = newline - 1;
+        while (end > first && (b[end] == '\r' || b[end] == ' ')) {
+            end--;
+        }
+        int next = skipWhitespace(b, newline);
+        return b[end] == '}' && next < b.length && b[next] == '{';
+    }
+
+    private static int skipWhitespace(byte[] b, int from) {
+        int i = from;
+        // UTF-8 byte order mark
+        if (i == 0 && startsWith(b, 0xEF, 0xBB, 0xBF)) {
+            i = 3;
+        }
+        while (i < b.length && (b[i] & 0xFF) <= ' ') {
+            i++;
+        }
+        return i;
+    }
+}
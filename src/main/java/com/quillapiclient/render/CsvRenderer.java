@@ -0,0 +1,176 @@
+package com.quillapiclient.render;
+
+import com.quillapiclient.server.ApiResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.swing.JComponent;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+
+/**
+ * Shows CSV (or TSV) bodies as a table, the first row being the header.
+ *
+ * <p>Preparing the view makes one pass over the body to record where each
+ * row starts (quoted fields may span lines) and the widest row. Cells are
+ * only split out when the table paints a row, so memory stays at one int
+ * per row on top of the body itself. The text form is the body unchanged.
+ */
+class CsvRenderer implements BodyRenderer {
+
+    private final char delimiter;
+
+    CsvRenderer(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    @Override
+    public String getName() {
+        return delimiter == '\t' ? "TSV" : "CSV";
+    }
+
+    @Override
+    public String getSyntaxStyle() {
+        return SyntaxConstants.SYNTAX_STYLE_CSV;
+    }
+
+    @Override
+    public void render(ApiResponse response, Writer out) throws IOException {
+        out.write(response.getBody());
+    }
+
+    @Override
+    public Supplier<JComponent> prepareView(ApiResponse response) {
+        CsvTableModel model = new CsvTableModel(response.getBody(), delimiter);
+        return () -> {
+            JTable table = new JTable(model);
+            table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+            table.setFillsViewportHeight(true);
+            return new JScrollPane(table);
+        };
+    }
+
+    /** Rows located up front, cells parsed on demand. */
+    static class CsvTableModel extends AbstractTableModel {
+
+        private final String text;
+        private final char delimiter;
+        private int[] rowStarts = new int[1024]; // row i spans [i, i + 1)
+        private int rowCount = 0; // data rows plus the header
+        private final int columnCount;
+        private final List<String> header;
+        private int cachedRow = -1;
+        private List<String> cachedCells;
+
+        CsvTableModel(String text, char delimiter) {
+            this.text = text;
+            this.delimiter = delimiter;
+            this.columnCount = index();
+            this.header = rowCount > 0 ? parseRow(0) : List.of();
+        }
+
+        /** Records row starts; returns the widest row's field count. */
+        private int index() {
+            int maxFields = 0;
+            int fields = 1;
+            boolean quoted = false;
+            int start = 0;
+            int length = text.length();
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c == '"') {
+                    quoted = !quoted; // "" inside quotes toggles twice
+                } else if (!quoted && c == delimiter) {
+                    fields++;
+                } else if (!quoted && c == '\n') {
+                    addRow(start);
+                    maxFields = Math.max(maxFields, fields);
+                    fields = 1;
+                    start = i + 1;
+                }
+            }
+            if (start < length) {
+                addRow(start);
+                maxFields = Math.max(maxFields, fields);
+            }
+            addRow(length); // end sentinel
+            rowCount--;
+            return maxFields;
+        }
+
+        private void addRow(int start) {
+            if (rowCount == rowStarts.length) {
+                rowStarts = Arrays.copyOf(rowStarts, rowCount * 2);
+            }
+            rowStarts[rowCount++] = start;
+        }
+
+        private List<String> parseRow(int row) {
+            int end = rowStarts[row + 1];
+            // Drop the line terminator
+            if (end > rowStarts[row] && text.charAt(end - 1) == '\n') {
+                end--;
+            }
+            if (end > rowStarts[row] && text.charAt(end - 1) == '\r') {
+                end--;
+            }
+            List<String> cells = new ArrayList<>();
+            StringBuilder cell = new StringBuilder();
+            boolean quoted = false;
+            for (int i = rowStarts[row]; i < end; i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < end && text.charAt(i + 1) == '"') {
+                        cell.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        cell.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == delimiter) {
+                    cells.add(cell.toString());
+                    cell.setLength(0);
+                } else {
+                    cell.append(c);
+                }
+            }
+            cells.add(cell.toString());
+            return cells;
+        }
+
+        @Override
+        public int getRowCount() {
+            return Math.max(0, rowCount - 1);
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columnCount;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return column < header.size()
+                ? header.get(column)
+                : super.getColumnName(column);
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            // JTable paints cell by cell along a row: keep the last one
+            if (row != cachedRow) {
+                cachedCells = parseRow(row + 1);
+                cachedRow = row;
+            }
+            return column < cachedCells.size() ? cachedCells.get(column) : "";
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.quillapiclient.render;
+
+import com.quillapiclient.server.ApiResponse;
+import java.awt.Font;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.Supplier;
+import javax.swing.JComponent;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+
+/**
+ * Shows binary bodies as a hex dump, 16 bytes per row.
+ *
+ * <p>The view is a table whose rows are formatted only when painted, so a
+ * body of any size opens at once and costs no more than its bytes. The
+ * text form is limited to the first {@link #TEXT_MAX_BYTES} bytes; the
+ * rest is only reachable through the view.
+ */
+class HexRenderer implements BodyRenderer {
+
+    static final int BYTES_PER_ROW = 16;
+    private static final int TEXT_MAX_BYTES = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    @Override
+    public String getName() {
+        return "Binary";
+    }
+
+    @Override
+    public String getSyntaxStyle() {
+        return SyntaxConstants.SYNTAX_STYLE_NONE;
+    }
+
+    @Override
+    public void render(ApiResponse response, Writer out) throws IOException {
+        byte[] data = response.getBodyBytes();
+        int length = Math.min(data.length, TEXT_MAX_BYTES);
+        for (int offset = 0; offset < length; offset += BYTES_PER_ROW) {
+            int end = Math.min(offset + BYTES_PER_ROW, length);
+            out.write(formatOffset(offset));
+            out.write("  ");
+            out.write(formatHex(data, offset, end));
+            out.write("  ");
+            out.write(formatAscii(data, offset, end));
+            out.write('\n');
+        }
+        if (data.length > length) {
+            out.write(
+                "\n... [" +
+                    (data.length - length) +
+                    " more bytes; see the hex view]\n"
+            );
+        }
+    }
+
+    @Override
+    public Supplier<JComponent> prepareView(ApiResponse response) {
+        byte[] data = response.getBodyBytes();
+        return () -> createView(data);
+    }
+
+    /** A hex table over {@code data}; call on the EDT. */
+    static JComponent createView(byte[] data) {
+        JTable table = new JTable(new HexTableModel(data));
+        table.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_LAST_COLUMN);
+        table.setFillsViewportHeight(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(90);
+        table.getColumnModel().getColumn(1).setPreferredWidth(420);
+        table.getColumnModel().getColumn(2).setPreferredWidth(160);
+        return new JScrollPane(table);
+    }
+
+    private static String formatOffset(int offset) {
+        return String.format("%08x", offset);
+    }
+
+    private static String formatHex(byte[] data, int start, int end) {
+        StringBuilder sb = new StringBuilder(BYTES_PER_ROW * 3 + 1);
+        for (int i = start; i < start + BYTES_PER_ROW; i++) {
+            if (i == start + BYTES_PER_ROW / 2) {
+                sb.append(' ');
+            }
+            if (i < end) {
+                sb.append(HEX[(data[i] >> 4) & 0xF]).append(HEX[data[i] & 0xF]);
+            } else {
+                sb.append("  ");
+            }
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static String formatAscii(byte[] data, int start, int end) {
+        StringBuilder sb = new StringBuilder(BYTES_PER_ROW);
+        for (int i = start; i < end; i++) {
+            int b = data[i] & 0xFF;
+            sb.append(b >= 0x20 && b < 0x7F ? (char) b : '.');
+        }
+        return sb.toString();
+    }
+
+    /** Formats each row from the bytes on demand. */
+    private static class HexTableModel extends AbstractTableModel {
+
+        private static final String[] COLUMN_NAMES = {
+            "Offset",
+            "Hex",
+            "ASCII",
+        };
+        private final byte[] data;
+
+        HexTableModel(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int getRowCount() {
+            return (data.length + BYTES_PER_ROW - 1) / BYTES_PER_ROW;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            int start = row * BYTES_PER_ROW;
+            int end = Math.min(start + BYTES_PER_ROW, data.length);
+            return switch (column) {
+                case 0 -> formatOffset(start);
+                case 1 -> formatHex(data, start, end);
+                default -> formatAscii(data, start, end);
+            };
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.quillapiclient.render;
+
+import com.quillapiclient.server.ApiResponse;
+import java.awt.BorderLayout;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.Supplier;
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.SwingConstants;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+
+/**
+ * Shows image bodies with ImageIO, which covers PNG, JPEG, GIF and BMP.
+ * Images ImageIO cannot decode (e.g. WebP, SVG as image) fall back to the
+ * hex view. The text form is the hex dump.
+ */
+class ImageRenderer implements BodyRenderer {
+
+    private final HexRenderer hex = new HexRenderer();
+
+    @Override
+    public String getName() {
+        return "Image";
+    }
+
+    @Override
+    public String getSyntaxStyle() {
+        return SyntaxConstants.SYNTAX_STYLE_NONE;
+    }
+
+    @Override
+    public void render(ApiResponse response, Writer out) throws IOException {
+        hex.render(response, out);
+    }
+
+    @Override
+    public Supplier<JComponent> prepareView(ApiResponse response) {
+        byte[] data = response.getBodyBytes();
+        BufferedImage image;
+        try {
+            image = ImageIO.read(new ByteArrayInputStream(data));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error decoding image: " + e.getMessage());
+            image = null;
+        }
+        if (image == null) {
+            return hex.prepareView(response);
+        }
+        BufferedImage decoded = image;
+        return () -> createView(decoded);
+    }
+
+    private static JComponent createView(BufferedImage image) {
+        JPanel panel = new JPanel(new BorderLayout());
+        JLabel info = new JLabel(
+            image.getWidth() + " x " + image.getHeight() + " px"
+        );
+        JLabel picture = new JLabel(new ImageIcon(image));
+        picture.setHorizontalAlignment(SwingConstants.CENTER);
+        picture.setVerticalAlignment(SwingConstants.TOP);
+        panel.add(info, BorderLayout.NORTH);
+        panel.add(new JScrollPane(picture), BorderLayout.CENTER);
+        return panel;
+    }
+}
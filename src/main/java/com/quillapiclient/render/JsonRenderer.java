@@ -0,0 +1,32 @@
+package com.quillapiclient.render;
+
+import com.quillapiclient.server.ApiResponse;
+import com.quillapiclient.utility.JsonStreamFormatter;
+import java.io.IOException;
+import java.io.Writer;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+
+/**
+ * Pretty-prints JSON with {@link JsonStreamFormatter}, or writes the body
+ * unchanged if it does not parse.
+ */
+class JsonRenderer implements BodyRenderer {
+
+    @Override
+    public String getName() {
+        return "JSON";
+    }
+
+    @Override
+    public String getSyntaxStyle() {
+        return SyntaxConstants.SYNTAX_STYLE_JSON;
+    }
+
+    @Override
+    public void render(ApiResponse response, Writer out) throws IOException {
+        String body = response.getBody();
+        if (!JsonStreamFormatter.prettyPrint(body, out)) {
+            out.write(body); // Write original if parsing fails
+        }
+    }
+}
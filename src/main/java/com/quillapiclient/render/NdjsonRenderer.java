@@ -0,0 +1,51 @@
+package com.quillapiclient.render;
+
+import com.quillapiclient.server.ApiResponse;
+import com.quillapiclient.utility.JsonStreamFormatter;
+import java.io.IOException;
+import java.io.Writer;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+
+/**
+ * Pretty-prints newline-delimited JSON one record at a time, so output
+ * starts with the first record however many follow. Lines that do not
+ * parse are written unchanged; blank lines are dropped.
+ */
+class NdjsonRenderer implements BodyRenderer {
+
+    @Override
+    public String getName() {
+        return "NDJSON";
+    }
+
+    @Override
+    public String getSyntaxStyle() {
+        return SyntaxConstants.SYNTAX_STYLE_JSON;
+    }
+
+    @Override
+    public void render(ApiResponse response, Writer out) throws IOException {
+        String body = response.getBody();
+        int start = 0;
+        boolean first = true;
+        while (start < body.length()) {
+            int end = body.indexOf('\n', start);
+            if (end < 0) {
+                end = body.length();
+            }
+            String line = body.substring(start, end).strip();
+            start = end + 1;
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (!first) {
+                out.write('\n');
+            }
+            first = false;
+            if (!JsonStreamFormatter.prettyPrint(line, out)) {
+                out.write(line);
+            }
+            out.write('\n');
+        }
+    }
+}
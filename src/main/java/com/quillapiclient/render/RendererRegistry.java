@@ -0,0 +1,166 @@
+package com.quillapiclient.render;
+
+import com.quillapiclient.server.ApiResponse;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+
+/**
+ * Picks the {@link BodyRenderer} for a response from its
+ * {@code Content-Type}.
+ *
+ * <p>Renderers are registered under a media type pattern: an exact type
+ * ({@code application/json}), a structured-syntax suffix
+ * ({@code *}{@code /*+json}, matching {@code application/problem+json})
+ * or a whole top-level type ({@code image/*}). Lookup tries them in that
+ * order. Responses with no {@code Content-Type}, an unregistered one, or
+ * one that says nothing about the format ({@code text/plain},
+ * {@code application/octet-stream}, which servers send for all sorts of
+ * content) are sniffed from the first bytes of the body with
+ * {@link BodySniffer}; the body is never scanned in full just to choose.
+ */
+public class RendererRegistry {
+
+    private static final RendererRegistry DEFAULT = createDefault();
+
+    private final Map<String, BodyRenderer> exact = new HashMap<>();
+    private final Map<String, BodyRenderer> suffixes = new HashMap<>();
+    private final Map<String, BodyRenderer> topLevel = new HashMap<>();
+    private BodyRenderer fallback;
+
+    /** The registry with the built-in renderers. */
+    public static RendererRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    private static RendererRegistry createDefault() {
+        RendererRegistry registry = new RendererRegistry();
+        BodyRenderer json = new JsonRenderer();
+        BodyRenderer xml = new XmlRenderer();
+        BodyRenderer ndjson = new NdjsonRenderer();
+        BodyRenderer csv = new CsvRenderer(',');
+        BodyRenderer hex = new HexRenderer();
+        BodyRenderer text = new TextRenderer(
+            "Text",
+            SyntaxConstants.SYNTAX_STYLE_NONE
+        );
+
+        registry.register("application/json", json);
+        registry.register("text/json", json);
+        registry.register("*/*+json", json);
+        registry.register("application/x-ndjson", ndjson);
+        registry.register("application/ndjson", ndjson);
+        registry.register("application/jsonl", ndjson);
+        registry.register("application/json-seq", ndjson);
+        registry.register("application/xml", xml);
+        registry.register("text/xml", xml);
+        registry.register("*/*+xml", xml);
+        registry.register(
+            "text/html",
+            new TextRenderer("HTML", SyntaxConstants.SYNTAX_STYLE_HTML)
+        );
+        registry.register(
+            "text/css",
+            new TextRenderer("CSS", SyntaxConstants.SYNTAX_STYLE_CSS)
+        );
+        BodyRenderer javascript = new TextRenderer(
+            "JavaScript",
+            SyntaxConstants.SYNTAX_STYLE_JAVASCRIPT
+        );
+        registry.register("text/javascript", javascript);
+        registry.register("application/javascript", javascript);
+        registry.register("text/csv", csv);
+        registry.register("application/csv", csv);
+        registry.register("text/tab-separated-values", new CsvRenderer('\t'));
+        registry.register("image/*", new ImageRenderer());
+        registry.register("application/octet-stream", hex);
+        registry.register("application/pdf", hex);
+        registry.register("application/zip", hex);
+        registry.register("application/gzip", hex);
+        registry.register("audio/*", hex);
+        registry.register("video/*", hex);
+        registry.register("font/*", hex);
+        registry.register("text/*", text);
+        registry.register("text/plain", text);
+        registry.setFallback(text);
+        return registry;
+    }
+
+    /**
+     * Registers a renderer, replacing any previous one for the pattern.
+     *
+     * @param pattern {@code type/subtype}, {@code *}{@code /*+suffix} or
+     *                {@code type/*}; case-insensitive
+     */
+    public void register(String pattern, BodyRenderer renderer) {
+        String key = pattern.toLowerCase(Locale.ROOT);
+        if (key.startsWith("*/*+")) {
+            suffixes.put(key.substring(4), renderer);
+        } else if (key.endsWith("/*")) {
+            topLevel.put(key.substring(0, key.length() - 2), renderer);
+        } else {
+            exact.put(key, renderer);
+        }
+    }
+
+    /** Renderer used when neither the header nor sniffing finds one. */
+    public void setFallback(BodyRenderer renderer) {
+        this.fallback = renderer;
+    }
+
+    /**
+     * Chooses the renderer for a response. Reads at most the first
+     * {@link BodySniffer#SNIFF_BYTES} bytes of the body.
+     */
+    public BodyRenderer select(ApiResponse response) {
+        String mediaType = mediaType(response.getContentType());
+        if (mediaType != null && !isUnspecific(mediaType)) {
+            BodyRenderer renderer = lookup(mediaType);
+            if (renderer != null) {
+                return renderer;
+            }
+        }
+        BodyRenderer sniffed = lookup(BodySniffer.sniff(response));
+        return sniffed != null ? sniffed : fallback;
+    }
+
+    /** Renderer registered for a media type, or null. */
+    public BodyRenderer lookup(String mediaType) {
+        BodyRenderer renderer = exact.get(mediaType);
+        if (renderer != null) {
+            return renderer;
+        }
+        int plus = mediaType.lastIndexOf('+');
+        if (plus >= 0) {
+            renderer = suffixes.get(mediaType.substring(plus + 1));
+            if (renderer != null) {
+                return renderer;
+            }
+        }
+        int slash = mediaType.indexOf('/');
+        return slash > 0 ? topLevel.get(mediaType.substring(0, slash)) : null;
+    }
+
+    /** {@code type/subtype} from a Content-Type value, lower-cased. */
+    static String mediaType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int semicolon = contentType.indexOf(';');
+        String type = (semicolon >= 0
+                ? contentType.substring(0, semicolon)
+                : contentType)
+            .trim()
+            .toLowerCase(Locale.ROOT);
+        return type.indexOf('/') > 0 ? type : null;
+    }
+
+    private static boolean isUnspecific(String mediaType) {
+        return (
+            mediaType.equals("text/plain") ||
+            mediaType.equals("application/octet-stream") ||
+            mediaType.equals("binary/octet-stream")
+        );
+    }
+}
@@ -0,0 +1,36 @@
+package com.quillapiclient.render;
+
+import com.quillapiclient.server.ApiResponse;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the body unchanged, highlighted with a fixed syntax style. Used
+ * for plain text, HTML, CSS, JavaScript and anything else that is already
+ * laid out by its author.
+ */
+class TextRenderer implements BodyRenderer {
+
+    private final String name;
+    private final String syntaxStyle;
+
+    TextRenderer(String name, String syntaxStyle) {
+        this.name = name;
+        this.syntaxStyle = syntaxStyle;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getSyntaxStyle() {
+        return syntaxStyle;
+    }
+
+    @Override
+    public void render(ApiResponse response, Writer out) throws IOException {
+        out.write(response.getBody());
+    }
+}
@@ -0,0 +1,32 @@
+package com.quillapiclient.render;
+
+import com.quillapiclient.server.ApiResponse;
+import com.quillapiclient.utility.XmlStreamFormatter;
+import java.io.IOException;
+import java.io.Writer;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+
+/**
+ * Pretty-prints XML with {@link XmlStreamFormatter}, or writes the body
+ * unchanged if it is not well-formed.
+ */
+class XmlRenderer implements BodyRenderer {
+
+    @Override
+    public String getName() {
+        return "XML";
+    }
+
+    @Override
+    public String getSyntaxStyle() {
+        return SyntaxConstants.SYNTAX_STYLE_XML;
+    }
+
+    @Override
+    public void render(ApiResponse response, Writer out) throws IOException {
+        String body = response.getBody();
+        if (!XmlStreamFormatter.prettyPrint(body, out)) {
+            out.write(body); // Write original if parsing fails
+        }
+    }
+}
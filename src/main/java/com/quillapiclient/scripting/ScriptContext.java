@@ -1,7 +1,7 @@
 package com.quillapiclient.scripting;
 
-import com.quillapiclient.db.VariableScopeDao;
 import com.quillapiclient.server.ApiResponse;
+import com.quillapiclient.server.StreamEvent;
 import java.util.Map;
 import org.graalvm.polyglot.HostAccess;
 
@@ -13,6 +13,7 @@ import org.graalvm.polyglot.HostAccess;
  *   pm.environment.get(key)        pm.environment.set(key, value)        pm.environment.unset(key)
  *   pm.collectionVariables.get(key)  pm.collectionVariables.set(k, v)    pm.collectionVariables.unset(k)
  *   pm.globals.get(key)            pm.globals.set(key, value)            pm.globals.unset(key)
+ *   pm.iterationData.get(key)      (the current data row of a collection run)
  * }</pre>
  *
  * <p>Future (stubs ready):</p>
@@ -32,50 +33,71 @@ public class ScriptContext {
     private final ScriptableVariableMap collectionVariables;
     private final ScriptableVariableMap itemVariables;
     private final ScriptableVariableMap globals;
+    // Narrowest of all: the run's data row, plus what this iteration set
+    private final ScriptableVariableMap iterationData;
 
     // --- future stubs ---
     private PendingRequestStub request;
     private PendingResponseStub response;
+    private StreamEventStub event; // set while an event script runs
 
     // --- context ids needed for persistence ---
     private final int collectionId;
     private final int itemId;
     private final int environmentId;
 
-    // Shared globals survive across requests within the same app session
-    private static final ScriptableVariableMap SHARED_GLOBALS =
-        new ScriptableVariableMap();
+    // --- the cached snapshots the scopes started from (or last saved) ---
+    private VariableScopeCache.Snapshot environmentSnapshot;
+    private VariableScopeCache.Snapshot collectionSnapshot;
+    private VariableScopeCache.Snapshot itemSnapshot;
+    private VariableScopeCache.Snapshot globalsSnapshot;
 
-    static {
-        System.out.println(
-            "[ScriptContext] SHARED_GLOBALS created: " +
-                System.identityHashCode(SHARED_GLOBALS)
-        );
+    /**
+     * Full constructor — seeds the scriptable maps with the environment,
+     * collection, item and global variables from the
+     * {@link VariableScopeCache}, which loads them from the DB on a miss.
+     */
+    public ScriptContext(int collectionId, int itemId, int environmentId) {
+        this(collectionId, itemId, environmentId, null);
     }
 
     /**
-     * Full constructor — loads environment, collection, and item variables from DB
-     * and seeds the scriptable maps.
+     * Like {@link #ScriptContext(int, int, int)} for one request of a
+     * collection run iteration. {@code iterationData} is shared by the
+     * iteration's requests in turn: it starts as the data row, and every
+     * variable a script sets or unsets is also applied to it, so the rest
+     * of the iteration resolves the values its own requests set even when
+     * parallel iterations set the same variables meanwhile.
+     *
+     * @param iterationData the iteration's variables, or null outside a run
      */
-    public ScriptContext(int collectionId, int itemId, int environmentId) {
+    public ScriptContext(
+        int collectionId,
+        int itemId,
+        int environmentId,
+        ScriptableVariableMap iterationData
+    ) {
         this.collectionId = collectionId;
         this.itemId = itemId;
         this.environmentId = environmentId;
 
+        VariableScopeCache cache = VariableScopeCache.getDefault();
+        this.environmentSnapshot = cache.environment(environmentId);
+        this.collectionSnapshot = cache.collection(collectionId);
+        this.itemSnapshot = cache.item(itemId);
+        this.globalsSnapshot = cache.globals();
+
         this.environment = new ScriptableVariableMap(
-            VariableScopeDao.loadEnvironment(environmentId)
+            environmentSnapshot.values
         );
         this.collectionVariables = new ScriptableVariableMap(
-            VariableScopeDao.loadCollection(collectionId)
-        );
-        this.itemVariables = new ScriptableVariableMap(
-            VariableScopeDao.loadItem(itemId)
-        );
-        this.globals = SHARED_GLOBALS;
-        System.out.println(
-            "[ScriptContext] constructor: globals hash=" +
-                System.identityHashCode(this.globals)
+            collectionSnapshot.values
         );
+        this.itemVariables = new ScriptableVariableMap(itemSnapshot.values);
+        this.globals = new ScriptableVariableMap(globalsSnapshot.values);
+        this.iterationData = iterationData != null
+            ? iterationData
+            : new ScriptableVariableMap();
     }
 
     // ---------------------------------------------------------------
@@ -114,6 +136,15 @@ public class ScriptContext {
         return globals;
     }
 
+    // ---------------------------------------------------------------
+    //  pm.iterationData  (empty outside a collection run)
+    // ---------------------------------------------------------------
+
+    @HostAccess.Export
+    public ScriptableVariableMap getIterationData() {
+        return iterationData;
+    }
+
     // ---------------------------------------------------------------
     //  pm.request  (stub)
     // ---------------------------------------------------------------
@@ -139,6 +170,20 @@ public class ScriptContext {
         this.response = new PendingResponseStub(apiResponse);
     }
 
+    // ---------------------------------------------------------------
+    //  pm.event  (one event of an event stream; null otherwise)
+    // ---------------------------------------------------------------
+
+    @HostAccess.Export
+    public StreamEventStub getEvent() {
+        return event;
+    }
+
+    /** Sets {@code pm.event} for the next script run; null clears it. */
+    void setEvent(StreamEvent event) {
+        this.event = event != null ? new StreamEventStub(event) : null;
+    }
+
     // ---------------------------------------------------------------
     //  persistence helpers (package-private, called by the orchestrator)
     // ---------------------------------------------------------------
@@ -152,38 +197,101 @@ public class ScriptContext {
         );
     }
 
+    /**
+     * Publishes the keys scripts changed to the {@link VariableScopeCache},
+     * which writes them through to the DB (globals excepted). Each scope
+     * then holds the published snapshot, including changes other sends
+     * made meanwhile.
+     */
     void persist() {
+        carryIntoIteration(environment);
+        carryIntoIteration(collectionVariables);
+        carryIntoIteration(itemVariables);
+        carryIntoIteration(globals);
+        VariableScopeCache cache = VariableScopeCache.getDefault();
         if (environment.isDirty() && environmentId > 0) {
-            VariableScopeDao.persistEnvironment(
+            environmentSnapshot = cache.update(
+                VariableScope.ENVIRONMENT,
                 environmentId,
-                environment.snapshot()
+                environment.changes()
             );
+            environment.reset(environmentSnapshot.values);
         }
         if (collectionVariables.isDirty() && collectionId > 0) {
-            VariableScopeDao.persistCollection(
+            collectionSnapshot = cache.update(
+                VariableScope.COLLECTION,
                 collectionId,
-                collectionVariables.snapshot()
+                collectionVariables.changes()
             );
+            collectionVariables.reset(collectionSnapshot.values);
         }
         if (itemVariables.isDirty() && itemId > 0) {
-            VariableScopeDao.persistItem(itemId, itemVariables.snapshot());
+            itemSnapshot = cache.update(
+                VariableScope.ITEM,
+                itemId,
+                itemVariables.changes()
+            );
+            itemVariables.reset(itemSnapshot.values);
+        }
+        if (globals.isDirty()) {
+            globalsSnapshot = cache.update(
+                VariableScope.GLOBALS,
+                0,
+                globals.changes()
+            );
+            globals.reset(globalsSnapshot.values);
+        }
+    }
+
+    private void carryIntoIteration(ScriptableVariableMap scope) {
+        if (!scope.isDirty()) {
+            return;
+        }
+        // Straight into the live map: the iteration layer is never saved
+        java.util.Map<String, String> live = iterationData.asLiveMap();
+        for (java.util.Map.Entry<String, String> change : scope
+            .changes()
+            .entrySet()) {
+            if (change.getValue() != null) {
+                live.put(change.getKey(), change.getValue());
+            } else {
+                live.remove(change.getKey());
+            }
         }
-        // globals are intentionally not persisted
     }
 
-    /** Merges all scopes into a flat map for {{variable}} resolution. */
+    /**
+     * Merges all scopes into a flat, unmodifiable map for {{variable}}
+     * resolution. Unless a script changed a scope that could not be saved,
+     * this is the cache's memoized view of the snapshots. In a collection
+     * run the iteration's variables are laid over it.
+     */
     java.util.Map<String, String> mergedForResolution() {
-        java.util.Map<String, String> merged = new java.util.LinkedHashMap<>();
-        merged.putAll(globals.asLiveMap());
-        merged.putAll(collectionVariables.asLiveMap());
-        merged.putAll(environment.asLiveMap());
-        merged.putAll(itemVariables.asLiveMap());
-        System.out.println(
-            "[ScriptContext] merged size: " +
-                merged.size() +
-                " keys: " +
-                merged.keySet()
-        );
+        java.util.Map<String, String> merged;
+        if (anyDirty()) {
+            merged = java.util.Collections.unmodifiableMap(
+                VariableScopeCache.merge(
+                    globals.asLiveMap(),
+                    collectionVariables.asLiveMap(),
+                    environment.asLiveMap(),
+                    itemVariables.asLiveMap()
+                )
+            );
+        } else {
+            merged = VariableScopeCache.getDefault().merged(
+                globalsSnapshot,
+                collectionSnapshot,
+                environmentSnapshot,
+                itemSnapshot
+            );
+        }
+        java.util.Map<String, String> iteration = iterationData.asLiveMap();
+        if (!iteration.isEmpty()) {
+            java.util.Map<String, String> withIteration =
+                new java.util.HashMap<>(merged);
+            withIteration.putAll(iteration);
+            merged = java.util.Collections.unmodifiableMap(withIteration);
+        }
         return merged;
     }
 
@@ -246,18 +354,61 @@ public class ScriptContext {
         @HostAccess.Export
         public Object json() {
             if (delegate == null || delegate.getBody() == null) return null;
+            return parseJson(delegate.getBody());
+        }
+    }
+
+    // ---------------------------------------------------------------
+    //  pm.event  stub
+    // ---------------------------------------------------------------
+
+    public static class StreamEventStub {
+
+        private final StreamEvent delegate;
+
+        StreamEventStub(StreamEvent delegate) {
+            this.delegate = delegate;
+        }
+
+        /** SSE event name; "message" for unnamed events and NDJSON. */
+        @HostAccess.Export
+        public String getType() {
+            return delegate.type != null ? delegate.type : "message";
+        }
+
+        @HostAccess.Export
+        public String getId() {
+            return delegate.id;
+        }
+
+        /** Position in the stream, from 0. */
+        @HostAccess.Export
+        public long getSequence() {
+            return delegate.sequence;
+        }
+
+        @HostAccess.Export
+        public String text() {
+            return delegate.data;
+        }
+
+        @HostAccess.Export
+        public Object json() {
+            return parseJson(delegate.data);
+        }
+    }
+
+    /** JSON text as a script value; non-JSON text is returned as is. */
+    private static Object parseJson(String text) {
+        try {
+            // Convert Java Map to a GraalJS-friendly object so scripts can use .property access
+            Map<String, Object> map = new org.json.JSONObject(text).toMap();
+            return org.graalvm.polyglot.proxy.ProxyObject.fromMap(map);
+        } catch (Exception e) {
             try {
-                // Convert Java Map to a GraalJS-friendly object so scripts can use .property access
-                Map<String, Object> map = new org.json.JSONObject(
-                    delegate.getBody()
-                ).toMap();
-                return org.graalvm.polyglot.proxy.ProxyObject.fromMap(map);
-            } catch (Exception e) {
-                try {
-                    return new org.json.JSONArray(delegate.getBody()).toList();
-                } catch (Exception e2) {
-                    return delegate.getBody();
-                }
+                return new org.json.JSONArray(text).toList();
+            } catch (Exception e2) {
+                return text;
             }
         }
     }
@@ -5,6 +5,8 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.graalvm.polyglot.Context;
@@ -21,7 +23,8 @@ import org.graalvm.polyglot.Value;
  *   <li>No file-system access (no {@code --experimental-options},
  *       no {@code io} language enabled)</li>
  *   <li>CPU time budget per script (default 5 seconds)</li>
- *   <li>Separate {@code Context} per execution – no muddling of state</li>
+ *   <li>Separate {@code Context} per execution – no muddling of state;
+ *       only the runs of one {@link RepeatedScript} share one</li>
  *   <li>Only whitelisted bindings reach the script</li>
  * </ul>
  */
@@ -94,6 +97,122 @@ public final class ScriptExecutor {
         }
     }
 
+    // ---------------------------------------------------------------
+    //  repeated runs
+    // ---------------------------------------------------------------
+
+    /**
+     * A script run many times in one context, such as once per event of a
+     * stream: the context is built and the script parsed on the first run
+     * only, instead of per run as {@link #execute} does. The body is
+     * wrapped in a function, so its top-level declarations start afresh on
+     * every run; the bindings are replaced before each one.
+     *
+     * <p>Runs must not overlap; call them from one thread at a time. Each
+     * run has the same time budget as {@link #execute}; a run that
+     * exceeds it is cancelled and the next run starts a new context.
+     * {@link #cancel} may be called from any thread.
+     */
+    public static final class RepeatedScript implements AutoCloseable {
+
+        private final String scriptBody;
+        private final List<String> logCollector;
+        private final ScheduledExecutorService watchdog;
+        private volatile Context ctx;
+        private Value function;
+        private ScriptException parseError;
+
+        public RepeatedScript(String scriptBody, List<String> logCollector) {
+            this.scriptBody = scriptBody;
+            this.logCollector = logCollector;
+            this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "quill-script-watchdog");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        /**
+         * Runs the script once with these bindings.
+         *
+         * @throws ScriptException if the script times out, throws, or
+         *                         fails to parse
+         */
+        public void run(ScriptBindings bindings) throws ScriptException {
+            if (parseError != null) {
+                throw parseError;
+            }
+            Context context = ctx;
+            try {
+                if (context == null) {
+                    context = buildContext(bindings, logCollector);
+                    ctx = context;
+                    try {
+                        // Only defines the function: any error is the parse
+                        function = context.eval(
+                            "js",
+                            "(function () {\n" + scriptBody + "\n})"
+                        );
+                    } catch (PolyglotException e) {
+                        parseError = new ScriptException(e.getMessage(), e);
+                        close();
+                        throw parseError;
+                    }
+                } else if (bindings != null) {
+                    Value jsBindings = context.getBindings("js");
+                    for (String name : bindings.names()) {
+                        jsBindings.putMember(name, bindings.get(name));
+                    }
+                }
+                Context running = context;
+                ScheduledFuture<?> timeout = watchdog.schedule(
+                    () -> running.close(true),
+                    SCRIPT_TIMEOUT_SECONDS,
+                    TimeUnit.SECONDS
+                );
+                try {
+                    function.execute();
+                } finally {
+                    timeout.cancel(false);
+                }
+            } catch (PolyglotException e) {
+                if (e.isCancelled()) {
+                    ctx = null; // closed: the next run builds a new one
+                    throw new ScriptException(
+                        "Script timed out after " +
+                            SCRIPT_TIMEOUT_SECONDS +
+                            " s or was cancelled"
+                    );
+                }
+                throw new ScriptException(e.getMessage(), e);
+            } catch (IllegalStateException e) {
+                // Closed by a timeout that fired as the last run ended
+                ctx = null;
+                throw new ScriptException("Script context closed", e);
+            }
+        }
+
+        /** Stops a run in progress, from any thread. */
+        public void cancel() {
+            Context context = ctx;
+            if (context != null) {
+                try {
+                    context.close(true);
+                } catch (IllegalStateException e) {
+                    // already closed
+                }
+            }
+        }
+
+        /** Stops any run in progress and releases the context. */
+        @Override
+        public void close() {
+            cancel();
+            ctx = null;
+            watchdog.shutdownNow();
+        }
+    }
+
     // ---------------------------------------------------------------
     //  context factory
     // ---------------------------------------------------------------
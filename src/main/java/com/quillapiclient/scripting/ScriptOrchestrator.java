@@ -1,8 +1,13 @@
 package com.quillapiclient.scripting;
 
 import com.quillapiclient.db.EventDao;
+import com.quillapiclient.server.StreamEvent;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Orchestrates the script-aware request execution flow:
@@ -31,16 +36,46 @@ import java.util.List;
  */
 public class ScriptOrchestrator {
 
+    // Events waiting for the per-event script; more are dropped
+    private static final int EVENT_QUEUE = Integer.getInteger(
+        "quill.stream.eventScriptQueue",
+        1024
+    );
+    // How long the end of a stream waits for queued event scripts
+    private static final int EVENT_DRAIN_SECONDS = Integer.getInteger(
+        "quill.stream.eventScriptDrainSeconds",
+        10
+    );
+
     private final int collectionId;
     private final Integer itemId;
     private final int environmentId;
     private final ScriptContext scriptContext;
     private final List<String> logs;
+    private String eventScript; // post-response script, if it uses pm.event
+    private boolean eventErrorLogged;
+    private ThreadPoolExecutor eventRunner; // runs eventScript, in order
+    private ScriptExecutor.RepeatedScript eventRuns; // its context, reused
+    private final AtomicLong droppedEvents = new AtomicLong();
 
     public ScriptOrchestrator(
         int collectionId,
         Integer itemId,
         int environmentId
+    ) {
+        this(collectionId, itemId, environmentId, null);
+    }
+
+    /**
+     * For one request of a collection run iteration: {@code pm.iterationData}
+     * is the iteration's variables, resolved above every other scope (see
+     * {@link ScriptContext#ScriptContext(int, int, int, ScriptableVariableMap)}).
+     */
+    public ScriptOrchestrator(
+        int collectionId,
+        Integer itemId,
+        int environmentId,
+        ScriptableVariableMap iterationData
     ) {
         this.collectionId = collectionId;
         this.itemId = itemId;
@@ -49,7 +84,8 @@ public class ScriptOrchestrator {
         this.scriptContext = new ScriptContext(
             collectionId,
             itemId != null ? itemId : 0,
-            environmentId
+            environmentId,
+            iterationData
         );
     }
 
@@ -74,6 +110,7 @@ public class ScriptOrchestrator {
     public void runPostResponse(
         com.quillapiclient.server.ApiResponse apiResponse
     ) {
+        finishEvents();
         scriptContext.hydrateResponse(apiResponse);
 
         String script = loadScript("test");
@@ -100,6 +137,78 @@ public class ScriptOrchestrator {
         persistIfDirty();
     }
 
+    /**
+     * Loads the post-response script for {@link #runOnEvent}. Only a
+     * script that mentions {@code pm.event} is run per event; others just
+     * run once at the end, as for any response. Call before the request,
+     * with a database connection available.
+     *
+     * @return true if events will run the script
+     */
+    public boolean prepareEventScript() {
+        String script = loadScript("test");
+        eventScript = script != null && script.contains("pm.event")
+            ? script
+            : null;
+        if (eventScript != null && eventRunner == null) {
+            eventRuns = new ScriptExecutor.RepeatedScript(eventScript, null);
+            eventRunner = new ThreadPoolExecutor(
+                1,
+                1,
+                1,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(EVENT_QUEUE),
+                r -> {
+                    Thread t = new Thread(r, "event-script");
+                    t.setDaemon(true);
+                    return t;
+                },
+                (task, executor) -> droppedEvents.incrementAndGet()
+            );
+            // Lets the thread go if the stream fails and is never finished
+            eventRunner.allowCoreThreadTimeOut(true);
+        }
+        return eventScript != null;
+    }
+
+    /**
+     * Queues the post-response script for one event of an event stream,
+     * with {@code pm.event} set to it. Called on the thread reading the
+     * stream; the scripts run in order on a thread of their own, so a slow
+     * script never holds up the HTTP client. The script is parsed once per
+     * stream and its context reused for every event. Events arriving while
+     * {@code quill.stream.eventScriptQueue} are already waiting are
+     * dropped and counted (see {@link #getDroppedEvents}). Console output
+     * is not collected and only the first error is logged, since a stream
+     * may run for hours; variable changes are persisted by
+     * {@link #runPostResponse} when the stream ends.
+     */
+    public void runOnEvent(StreamEvent event) {
+        if (eventScript == null || eventRunner == null) {
+            return;
+        }
+        eventRunner.execute(() -> runEventScript(event));
+    }
+
+    /** Events not given to the per-event script: its queue was full. */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    private void runEventScript(StreamEvent event) {
+        scriptContext.setEvent(event);
+        try {
+            eventRuns.run(buildBindings());
+        } catch (ScriptExecutor.ScriptException e) {
+            if (!eventErrorLogged) {
+                eventErrorLogged = true;
+                logs.add("[script-error] event: " + e.getMessage());
+            }
+        } finally {
+            scriptContext.setEvent(null);
+        }
+    }
+
     /**
      * Returns the merged variable map suitable for {@code {{variable}}} template
      * resolution during the HTTP call phase.
@@ -117,7 +226,80 @@ public class ScriptOrchestrator {
     //  internals
     // ---------------------------------------------------------------
 
+    /**
+     * Lets queued event scripts finish before the script context moves on.
+     * Past the drain time the rest are dropped and the running one is
+     * cancelled; either way no event script is running on return, since
+     * the script context and variable maps are not thread-safe.
+     */
+    private void finishEvents() {
+        if (eventRunner == null) {
+            return;
+        }
+        eventRunner.shutdown();
+        boolean interrupted = false;
+        try {
+            if (
+                !eventRunner.awaitTermination(
+                    EVENT_DRAIN_SECONDS,
+                    TimeUnit.SECONDS
+                )
+            ) {
+                logs.add(
+                    "[script-error] event: scripts still queued after " +
+                        EVENT_DRAIN_SECONDS +
+                        " s; stopped"
+                );
+                stopEvents();
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+            stopEvents();
+        }
+        // Cancelling makes the running script return promptly
+        while (!eventRunner.isTerminated()) {
+            try {
+                eventRunner.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        eventRuns.close();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        long dropped = droppedEvents.get();
+        if (dropped > 0) {
+            logs.add(
+                "[script] event: " +
+                    dropped +
+                    " event(s) not scripted, the script fell behind"
+            );
+        }
+    }
+
+    private void stopEvents() {
+        eventRunner.shutdownNow();
+        // Graal ignores the interrupt; cancelling the context stops it
+        eventRuns.cancel();
+    }
+
     private String loadScript(String eventType) {
+        return loadScript(collectionId, itemId, eventType);
+    }
+
+    /**
+     * The script a request runs for an event: its own, or the
+     * collection's if it has none.
+     *
+     * @param eventType "prerequest" or "test"
+     * @return the script, or null
+     */
+    public static String loadScript(
+        int collectionId,
+        Integer itemId,
+        String eventType
+    ) {
         if (collectionId <= 0) return null;
 
         // Try item-level script first, then fall back to collection-level
@@ -141,8 +323,10 @@ public class ScriptOrchestrator {
         );
         pmProps.put("variables", scriptContext.getItemVariables());
         pmProps.put("globals", scriptContext.getGlobals());
+        pmProps.put("iterationData", scriptContext.getIterationData());
         pmProps.put("request", scriptContext.getRequest());
         pmProps.put("response", scriptContext.getResponse());
+        pmProps.put("event", scriptContext.getEvent());
         return ScriptBindings.empty().with(
             "pm",
             org.graalvm.polyglot.proxy.ProxyObject.fromMap(pmProps)
@@ -0,0 +1,77 @@
+package com.quillapiclient.scripting;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds, without running a script, which variables it reads and which it
+ * sets or unsets through the {@code pm} scopes.
+ *
+ * <p>Only calls of the form {@code pm.<scope>.<method>("literal", ...)}
+ * are understood. Anything else that touches a scope, such as a name
+ * built at run time, a scope held in a local variable, {@code clear()} or
+ * {@code replaceIn()}, makes the result {@link Access#uncertain
+ * uncertain}: the script may read or write any variable. Mentions inside
+ * comments or strings count as well, which can only add accesses.
+ */
+public class ScriptVariableAnalyzer {
+
+    // pm.environment, pm.collectionVariables, pm.variables, ...
+    private static final Pattern SCOPE = Pattern.compile(
+        "\\bpm\\s*\\.\\s*(?:environment|collectionVariables|variables|globals|iterationData)\\b"
+    );
+    // .get("name") etc. right after the scope; groups 2-4 hold the name
+    private static final Pattern CALL = Pattern.compile(
+        "\\s*\\.\\s*(\\w+)\\s*\\(\\s*(?:'([^'\\\\\\n]*)'|\"([^\"\\\\\\n]*)\"|`([^`\\\\$]*)`)\\s*[,)]"
+    );
+
+    /** What one script, or several, may read and write. */
+    public static class Access {
+
+        public final Set<String> reads = new LinkedHashSet<>();
+        public final Set<String> writes = new LinkedHashSet<>();
+        // True if the script touches variables in a way not understood
+        public boolean uncertain;
+
+        /** Adds another access to this one. */
+        public Access add(Access other) {
+            reads.addAll(other.reads);
+            writes.addAll(other.writes);
+            uncertain |= other.uncertain;
+            return this;
+        }
+    }
+
+    /**
+     * Analyses a script.
+     *
+     * @param script the script, or null
+     * @return its variable accesses; empty for a null or blank script
+     */
+    public static Access analyze(String script) {
+        Access access = new Access();
+        if (script == null || script.isBlank()) {
+            return access;
+        }
+        Matcher scope = SCOPE.matcher(script);
+        Matcher call = CALL.matcher(script);
+        while (scope.find()) {
+            call.region(scope.end(), script.length());
+            if (!call.lookingAt()) {
+                access.uncertain = true; // aliased, or a name built at run time
+                continue;
+            }
+            String name = call.group(2) != null
+                ? call.group(2)
+                : call.group(3) != null ? call.group(3) : call.group(4);
+            switch (call.group(1)) {
+                case "get", "has" -> access.reads.add(name);
+                case "set", "unset" -> access.writes.add(name);
+                default -> access.uncertain = true;
+            }
+        }
+        return access;
+    }
+}
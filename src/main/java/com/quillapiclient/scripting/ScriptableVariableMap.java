@@ -20,7 +20,8 @@ import java.util.Map;
 public class ScriptableVariableMap {
 
     private final Map<String, String> delegate;
-    private boolean dirty;
+    // Keys set or unset since the last save; null marks an unset
+    private final Map<String, String> changes = new LinkedHashMap<>();
 
     public ScriptableVariableMap() {
         this.delegate = new LinkedHashMap<>();
@@ -39,21 +40,38 @@ public class ScriptableVariableMap {
 
     public void set(String key, String value) {
         if (key == null) return;
-        delegate.put(key, value != null ? value : "");
-        dirty = true;
+        String newValue = value != null ? value : "";
+        if (!newValue.equals(delegate.put(key, newValue))) {
+            changes.put(key, newValue);
+        }
     }
 
     public void unset(String key) {
         if (key == null) return;
         if (delegate.remove(key) != null) {
-            dirty = true;
+            changes.put(key, null);
         }
     }
 
     // ---- internal ----
 
     public boolean isDirty() {
-        return dirty;
+        return !changes.isEmpty();
+    }
+
+    /**
+     * Returns the keys set or unset since the last save, in the order they
+     * were first changed, with their current value (null if unset).
+     */
+    public Map<String, String> changes() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(changes));
+    }
+
+    /** Replaces all values with saved ones and forgets the changes. */
+    void reset(Map<String, String> saved) {
+        delegate.clear();
+        delegate.putAll(saved);
+        changes.clear();
     }
 
     /** Returns an unmodifiable snapshot. */
@@ -0,0 +1,88 @@
+package com.quillapiclient.scripting;
+
+import com.quillapiclient.utility.VariableTrie;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Completion over the variables a request can resolve: the globals, its
+ * collection, the active environment and the request itself, each name
+ * reported with the scope that wins and its value.
+ *
+ * <p>The names live in one {@link VariableTrie} with a layer per scope.
+ * {@link #sync} brings it up to date with the current
+ * {@link VariableScopeCache} snapshots: a scope whose snapshot version is
+ * unchanged costs nothing, and a changed one (a script set a variable,
+ * the environment was edited, another request or environment was
+ * selected) only touches the keys that differ between the two snapshots.
+ * The trie is never rebuilt. Safe to use from any thread.
+ */
+public class VariableCompletionIndex {
+
+    // Trie layers, widest first, as VariableScopeCache.merge applies them
+    private static final int GLOBALS = 0;
+    private static final int COLLECTION = 1;
+    private static final int ENVIRONMENT = 2;
+    private static final int ITEM = 3;
+
+    private final VariableTrie trie = new VariableTrie(
+        "Global",
+        "Collection",
+        "Environment",
+        "Request"
+    );
+    private final VariableScopeCache.Snapshot[] synced = {
+        VariableScopeCache.EMPTY,
+        VariableScopeCache.EMPTY,
+        VariableScopeCache.EMPTY,
+        VariableScopeCache.EMPTY,
+    };
+
+    /** Makes the index reflect these snapshots. */
+    public synchronized void sync(
+        VariableScopeCache.Snapshot globals,
+        VariableScopeCache.Snapshot collection,
+        VariableScopeCache.Snapshot environment,
+        VariableScopeCache.Snapshot item
+    ) {
+        sync(GLOBALS, globals);
+        sync(COLLECTION, collection);
+        sync(ENVIRONMENT, environment);
+        sync(ITEM, item);
+    }
+
+    /**
+     * Completes a variable name as of the last {@link #sync}.
+     *
+     * @param prefix what follows {@code {{}} so far
+     * @param limit  the most completions to return
+     * @return the completions in name order
+     */
+    public synchronized List<VariableTrie.Completion> complete(
+        String prefix,
+        int limit
+    ) {
+        return trie.complete(prefix, limit);
+    }
+
+    private void sync(int layer, VariableScopeCache.Snapshot snapshot) {
+        VariableScopeCache.Snapshot old = synced[layer];
+        if (old.version == snapshot.version) {
+            return;
+        }
+        Map<String, String> values = snapshot.values;
+        for (String name : old.values.keySet()) {
+            if (!values.containsKey(name)) {
+                trie.remove(layer, name);
+            }
+        }
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String name = entry.getKey();
+            String value = entry.getValue() != null ? entry.getValue() : "";
+            if (!value.equals(old.values.get(name))) {
+                trie.put(layer, name, value);
+            }
+        }
+        synced[layer] = snapshot;
+    }
+}
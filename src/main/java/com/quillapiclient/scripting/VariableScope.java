@@ -8,6 +8,8 @@ package com.quillapiclient.scripting;
  *        scoped to the currently active environment.</li>
  *   <li>{@code COLLECTION}   – persisted to the {@code variables} table with
  *        {@code collection_id} set and {@code item_id = NULL}.</li>
+ *   <li>{@code ITEM}         – persisted to the {@code variables} table with
+ *        {@code item_id} set.</li>
  *   <li>{@code GLOBALS}      – stored in-memory only; survive a single
  *        request/response cycle but not application restarts.</li>
  * </ul>
@@ -15,5 +17,6 @@ package com.quillapiclient.scripting;
 public enum VariableScope {
     ENVIRONMENT,
     COLLECTION,
+    ITEM,
     GLOBALS
 }
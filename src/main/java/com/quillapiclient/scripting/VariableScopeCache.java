@@ -0,0 +1,479 @@
+package com.quillapiclient.scripting;
+
+import com.quillapiclient.db.LiteConnection;
+import com.quillapiclient.db.VariableScopeDao;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of the variable scopes, so a send does not query
+ * SQLite for every scope it resolves.
+ *
+ * <p>Each environment, collection and item has an immutable
+ * {@link Snapshot} with a version. Changes replace the snapshot (copy on
+ * write); a send that already holds the old snapshot keeps using it. They
+ * are written through to SQLite by one background thread, per key: under
+ * load, changes queue up while a write runs and the next write applies
+ * them all in one transaction, each key once. Versions come from one counter, so a
+ * snapshot's version is unique across all scopes and a set of versions
+ * identifies a merged view: {@link #merged} is memoized on them, for the
+ * last {@code quill.variables.mergedEntries} combinations.
+ *
+ * <p>Writes that bypass the cache (the environment editor, deleting
+ * collections or items) must call {@link #invalidate} or {@link #clear}
+ * afterwards, and {@link #remove} for a deleted scope. Globals live only here and are never written to SQLite.
+ * Safe to use from any thread.
+ */
+public class VariableScopeCache {
+
+    private static final int MERGED_ENTRIES = Integer.getInteger(
+        "quill.variables.mergedEntries",
+        256
+    );
+
+    private static final VariableScopeCache DEFAULT = new VariableScopeCache(
+        MERGED_ENTRIES
+    );
+
+    /** An immutable view of one scope's variables. */
+    public static class Snapshot {
+
+        public final long version;
+        public final Map<String, String> values;
+
+        Snapshot(long version, Map<String, String> values) {
+            this.version = version;
+            this.values = Collections.unmodifiableMap(
+                new LinkedHashMap<>(values)
+            );
+        }
+    }
+
+    /** The snapshot of a missing scope (no environment selected etc.). */
+    public static final Snapshot EMPTY = new Snapshot(0, Map.of());
+
+    /** Identifies a scope: its kind and database ID. */
+    private static class ScopeKey {
+
+        final VariableScope scope;
+        final int id;
+
+        ScopeKey(VariableScope scope, int id) {
+            this.scope = scope;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ScopeKey)) return false;
+            ScopeKey other = (ScopeKey) o;
+            return scope == other.scope && id == other.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return scope.hashCode() * 31 + id;
+        }
+    }
+
+    /** Identifies a merged view by the versions it was built from. */
+    private static class MergedKey {
+
+        final long globals;
+        final long collection;
+        final long environment;
+        final long item;
+
+        MergedKey(long globals, long collection, long environment, long item) {
+            this.globals = globals;
+            this.collection = collection;
+            this.environment = environment;
+            this.item = item;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MergedKey)) return false;
+            MergedKey other = (MergedKey) o;
+            return (
+                globals == other.globals &&
+                collection == other.collection &&
+                environment == other.environment &&
+                item == other.item
+            );
+        }
+
+        @Override
+        public int hashCode() {
+            long h = globals;
+            h = h * 31 + collection;
+            h = h * 31 + environment;
+            h = h * 31 + item;
+            return Long.hashCode(h);
+        }
+    }
+
+    private final AtomicLong versions = new AtomicLong();
+    private final Map<ScopeKey, Snapshot> scopes = new ConcurrentHashMap<>();
+    // Bumped by invalidate/clear so a load racing with them is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+    private final int mergedEntries;
+    private final LinkedHashMap<MergedKey, Map<String, String>> merged;
+    private volatile Snapshot globals = EMPTY;
+
+    // Background write-through: changes queue per scope, merged per key
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+        r -> {
+            Thread t = new Thread(r, "variable-writer");
+            t.setDaemon(true);
+            return t;
+        }
+    );
+    private final AtomicBoolean writeQueued = new AtomicBoolean();
+    private final Object writeLock = new Object();
+    private Map<ScopeKey, Map<String, String>> pending = new LinkedHashMap<>();
+    private Map<ScopeKey, Map<String, String>> writing = Map.of();
+    private long writesDone = 0;
+
+    /**
+     * @param mergedEntries how many merged views to keep; 0 disables the
+     *                      memo
+     */
+    public VariableScopeCache(int mergedEntries) {
+        this.mergedEntries = mergedEntries;
+        this.merged = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /** The cache shared by all sends. */
+    public static VariableScopeCache getDefault() {
+        return DEFAULT;
+    }
+
+    public Snapshot environment(int environmentId) {
+        return get(VariableScope.ENVIRONMENT, environmentId);
+    }
+
+    public Snapshot collection(int collectionId) {
+        return get(VariableScope.COLLECTION, collectionId);
+    }
+
+    public Snapshot item(int itemId) {
+        return get(VariableScope.ITEM, itemId);
+    }
+
+    public Snapshot globals() {
+        return globals;
+    }
+
+    /**
+     * Applies a script's per-key changes to a scope: a key mapped to null
+     * is removed. The new snapshot is visible at once; the changes are
+     * written to SQLite in the background (globals excepted).
+     *
+     * @return the new snapshot; {@link #EMPTY} for a missing scope
+     */
+    public Snapshot update(
+        VariableScope scope,
+        int id,
+        Map<String, String> changes
+    ) {
+        if (scope == VariableScope.GLOBALS) {
+            synchronized (this) {
+                globals = apply(globals, changes);
+                return globals;
+            }
+        }
+        if (id <= 0) {
+            return EMPTY;
+        }
+        ScopeKey key = new ScopeKey(scope, id);
+        Snapshot updated;
+        // Queued and applied under one lock, so concurrent updates of a
+        // key reach the snapshot in the same order as SQLite; queued
+        // first, so a load from here on includes the changes
+        synchronized (writeLock) {
+            pending
+                .computeIfAbsent(key, k -> new LinkedHashMap<>())
+                .putAll(changes);
+            updated = scopes.computeIfPresent(key, (k, current) ->
+                apply(current, changes)
+            );
+        }
+        scheduleWrite();
+        return updated != null ? updated : get(scope, id);
+    }
+
+    /** Waits until every change queued so far is in SQLite. */
+    public void flush() {
+        try {
+            writer.submit(this::writePending).get();
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            writePending(); // shut down; write on the calling thread
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (java.util.concurrent.ExecutionException e) {
+            // writePending reports its own errors
+        }
+    }
+
+    /** Writes what is still queued and stops the background writer. */
+    public void shutdown(long timeoutSeconds) {
+        flush();
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The variables of all four scopes merged for {@code {{variable}}}
+     * resolution, narrowest last: globals, collection, environment, item.
+     * The map is shared and unmodifiable.
+     */
+    public Map<String, String> merged(
+        Snapshot globals,
+        Snapshot collection,
+        Snapshot environment,
+        Snapshot item
+    ) {
+        MergedKey key = new MergedKey(
+            globals.version,
+            collection.version,
+            environment.version,
+            item.version
+        );
+        synchronized (merged) {
+            Map<String, String> cached = merged.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Map<String, String> map = Collections.unmodifiableMap(
+            merge(
+                globals.values,
+                collection.values,
+                environment.values,
+                item.values
+            )
+        );
+        if (mergedEntries > 0) {
+            synchronized (merged) {
+                merged.put(key, map);
+                if (merged.size() > mergedEntries) {
+                    merged.remove(merged.keySet().iterator().next());
+                }
+            }
+        }
+        return map;
+    }
+
+    /** Drops one scope; it is reloaded from SQLite on next use. */
+    public void invalidate(VariableScope scope, int id) {
+        invalidations.incrementAndGet();
+        scopes.remove(new ScopeKey(scope, id));
+    }
+
+    /**
+     * Forgets a deleted scope: drops its snapshot and the changes still
+     * queued for it, which could no longer be written.
+     */
+    public void remove(VariableScope scope, int id) {
+        ScopeKey key = new ScopeKey(scope, id);
+        synchronized (writeLock) {
+            pending.remove(key);
+        }
+        invalidate(scope, id);
+    }
+
+    /** Drops every scope except globals. */
+    public void clear() {
+        invalidations.incrementAndGet();
+        scopes.clear();
+    }
+
+    /** Merges scope maps into a new map; later maps win. */
+    static Map<String, String> merge(
+        Map<String, String> globals,
+        Map<String, String> collection,
+        Map<String, String> environment,
+        Map<String, String> item
+    ) {
+        Map<String, String> merged = new LinkedHashMap<>();
+        merged.putAll(globals);
+        merged.putAll(collection);
+        merged.putAll(environment);
+        merged.putAll(item);
+        return merged;
+    }
+
+    private Snapshot get(VariableScope scope, int id) {
+        if (id <= 0) {
+            return EMPTY;
+        }
+        ScopeKey key = new ScopeKey(scope, id);
+        Snapshot snapshot = scopes.get(key);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        // Loaded outside any lock; two threads may both load on a miss
+        long generation = invalidations.get();
+        Map<String, String> values;
+        while (true) {
+            long writes;
+            synchronized (writeLock) {
+                writes = writesDone;
+            }
+            switch (scope) {
+                case ENVIRONMENT:
+                    values = VariableScopeDao.loadEnvironment(id);
+                    break;
+                case COLLECTION:
+                    values = VariableScopeDao.loadCollection(id);
+                    break;
+                default:
+                    values = VariableScopeDao.loadItem(id);
+                    break;
+            }
+            synchronized (writeLock) {
+                // A write finishing meanwhile may or may not be in values
+                if (writes == writesDone) {
+                    putChanges(values, writing.get(key));
+                    putChanges(values, pending.get(key));
+                    break;
+                }
+            }
+        }
+        Snapshot loaded = new Snapshot(versions.incrementAndGet(), values);
+        if (invalidations.get() != generation) {
+            return loaded; // may predate the write that invalidated it
+        }
+        Snapshot raced = scopes.putIfAbsent(key, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private Snapshot apply(Snapshot base, Map<String, String> changes) {
+        Map<String, String> values = new LinkedHashMap<>(base.values);
+        putChanges(values, changes);
+        return new Snapshot(versions.incrementAndGet(), values);
+    }
+
+    private static void putChanges(
+        Map<String, String> values,
+        Map<String, String> changes
+    ) {
+        if (changes == null) {
+            return;
+        }
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            if (change.getValue() != null) {
+                values.put(change.getKey(), change.getValue());
+            } else {
+                values.remove(change.getKey());
+            }
+        }
+    }
+
+    private void scheduleWrite() {
+        if (writeQueued.compareAndSet(false, true)) {
+            try {
+                writer.submit(this::writePending);
+            } catch (java.util.concurrent.RejectedExecutionException e) {
+                writePending(); // shut down; write on the calling thread
+            }
+        }
+    }
+
+    /**
+     * Writes every queued change in one transaction. Changes queued while
+     * it runs wait for the next call, which takes them all at once. A
+     * batch that finds the database busy goes back in front of the queue,
+     * under any newer changes, and is tried again with the next write or
+     * flush. Changes that cannot be written, such as those of a scope
+     * deleted meanwhile, are dropped rather than retried.
+     */
+    private void writePending() {
+        writeQueued.set(false);
+        List<VariableScopeDao.ScopeChanges> batch = new ArrayList<>();
+        synchronized (writeLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            writing = pending;
+            pending = new LinkedHashMap<>();
+            for (Map.Entry<ScopeKey, Map<String, String>> e : writing
+                .entrySet()) {
+                batch.add(
+                    new VariableScopeDao.ScopeChanges(
+                        kindOf(e.getKey().scope),
+                        e.getKey().id,
+                        e.getValue()
+                    )
+                );
+            }
+        }
+        boolean retry = false;
+        try {
+            retry = !LiteConnection.withNewConnection(conn ->
+                VariableScopeDao.applyChanges(batch)
+            );
+        } catch (RuntimeException e) {
+            System.err.println(
+                "[VariableScopeCache] Error writing variables: " +
+                    e.getMessage()
+            );
+            e.printStackTrace();
+            retry = LiteConnection.isBusy(e);
+        } finally {
+            synchronized (writeLock) {
+                if (retry) {
+                    Map<ScopeKey, Map<String, String>> requeued =
+                        new LinkedHashMap<>();
+                    for (Map.Entry<ScopeKey, Map<String, String>> e : writing
+                        .entrySet()) {
+                        requeued.put(
+                            e.getKey(),
+                            new LinkedHashMap<>(e.getValue())
+                        );
+                    }
+                    for (Map.Entry<ScopeKey, Map<String, String>> e : pending
+                        .entrySet()) {
+                        requeued
+                            .computeIfAbsent(
+                                e.getKey(),
+                                k -> new LinkedHashMap<>()
+                            )
+                            .putAll(e.getValue());
+                    }
+                    pending = requeued;
+                }
+                writing = Map.of();
+                writesDone++;
+            }
+        }
+    }
+
+    private static VariableScopeDao.Kind kindOf(VariableScope scope) {
+        switch (scope) {
+            case ENVIRONMENT:
+                return VariableScopeDao.Kind.ENVIRONMENT;
+            case COLLECTION:
+                return VariableScopeDao.Kind.COLLECTION;
+            default:
+                return VariableScopeDao.Kind.ITEM;
+        }
+    }
+}
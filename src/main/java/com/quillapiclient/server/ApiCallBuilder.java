@@ -8,6 +8,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpTimeoutException;
@@ -15,7 +16,15 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ApiCallBuilder {
 
@@ -29,6 +38,7 @@ public class ApiCallBuilder {
     private String token;
     private Map<String, String> queryParams;
     private Map<String, String> variables; // Variables for replacement
+    private RetryPolicy retryPolicy = RetryPolicy.NONE;
     private static final int DEFAULT_TIMEOUT_SECONDS = 30;
 
     private static final HttpClient httpClient = HttpClient.newBuilder()
@@ -120,6 +130,21 @@ public class ApiCallBuilder {
         return this;
     }
 
+    /**
+     * Sets how failed attempts are retried and slow ones hedged. Retries
+     * on a status code happen before the listener sees the response, so
+     * only the final attempt is streamed.
+     *
+     * @param retryPolicy the policy, or null for none
+     * @return This builder for method chaining
+     */
+    public ApiCallBuilder retryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy != null
+            ? retryPolicy
+            : RetryPolicy.NONE;
+        return this;
+    }
+
     // Parse headers from text (format: "Key: Value\nKey2: Value2")
     private void parseHeaders(String headersText) {
         String[] lines = headersText.split("\n");
@@ -256,6 +281,25 @@ public class ApiCallBuilder {
 
     // Execute the HTTP request
     public ApiResponse execute() {
+        return execute(null);
+    }
+
+    /**
+     * Executes the request, passing the headers and body to
+     * {@code listener} as they arrive. The returned response is complete,
+     * as with {@link #execute()}, except for event streams (SSE, NDJSON):
+     * those are parsed into events as they arrive and run until the server
+     * closes them or the listener stops them, and the response body holds
+     * the most recent events only. Either way the response records the
+     * time to first byte (until the headers arrived) and the total time.
+     * With a {@link #retryPolicy} the request may be sent more than once;
+     * the response says how often. Every send first waits for the
+     * {@link HostRateLimiter} of its host, and that wait is reported as
+     * the response's queue time, apart from the network time.
+     *
+     * @param listener receives the response while it streams in, or null
+     */
+    public ApiResponse execute(ResponseStreamListener listener) {
         if (url == null || url.trim().isEmpty()) {
             ApiResponse errorResponse = new ApiResponse();
             errorResponse.setStatusCode(400);
@@ -265,6 +309,7 @@ public class ApiCallBuilder {
             return errorResponse;
         }
 
+        HttpRequest request;
         try {
             resolveRequestTemplates();
 
@@ -320,40 +365,291 @@ public class ApiCallBuilder {
                 token
             );
 
-            HttpRequest request = requestBuilder.build();
+            request = requestBuilder.build();
+        } catch (URISyntaxException e) {
+            return errorResponse(e);
+        }
 
-            // Execute request
-            HttpResponse<String> response = httpClient.send(
-                request,
-                HttpResponse.BodyHandlers.ofString()
+        // Send, and send again while the policy allows it. The response
+        // returned is the last attempt's, with its own timings; the time
+        // spent waiting for the host's limiter is counted apart.
+        HostRateLimiter limiter = HostRateLimiter.of(request.uri());
+        RetryBudget budget = RetryBudget.getDefault();
+        budget.recordRequest();
+        long queued = 0;
+        for (int attempt = 1; ; attempt++) {
+            Exchange exchange = new Exchange(
+                listener,
+                limiter,
+                attempt <= retryPolicy.maxRetries
             );
+            ApiResponse response;
+            boolean retry;
+            try {
+                response = exchange.send(request);
+                retry = exchange.retrying;
+                // Honour Retry-After: the next send to the host waits
+                limiter.pauseFor(response);
+            } catch (IOException e) {
+                response = errorResponse(e);
+                retry =
+                    attempt <= retryPolicy.maxRetries &&
+                    retryPolicy.retryConnectErrors &&
+                    isConnectFailure(e) &&
+                    budget.tryAcquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                response = errorResponse(e);
+                retry = false;
+            }
+            queued += exchange.queuedNanos / 1_000_000;
+            response.setQueueTime(queued);
+            response.setAttempts(attempt);
+            response.setHedged(exchange.hedged);
+            if (!retry) {
+                return response;
+            }
+            try {
+                Thread.sleep(retryPolicy.delayBefore(attempt));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                ApiResponse interrupted = errorResponse(e);
+                interrupted.setQueueTime(queued);
+                interrupted.setAttempts(attempt);
+                return interrupted;
+            }
+        }
+    }
+
+    /**
+     * One attempt at a request: a single send, or with hedging two copies
+     * of which the first to get its headers is kept. Each copy first
+     * takes a slot and token from the host's limiter. The body handler
+     * decides while the headers are in, before the listener hears of the
+     * response, whether the attempt is to be retried; such a response and
+     * a hedge's losing copy have their bodies discarded unseen.
+     */
+    private class Exchange {
+
+        private final ResponseStreamListener listener;
+        private final HostRateLimiter limiter;
+        private final boolean mayRetry;
+        // The copy (0 or 1) whose headers arrived first, -1 until then
+        private final AtomicInteger claimed = new AtomicInteger(-1);
+        private final AtomicLong timeToFirstByte = new AtomicLong(-1);
+        private long sentAt;
+        volatile boolean retrying;
+        boolean hedged;
+        long queuedNanos;
+
+        Exchange(
+            ResponseStreamListener listener,
+            HostRateLimiter limiter,
+            boolean mayRetry
+        ) {
+            this.listener = listener;
+            this.limiter = limiter;
+            this.mayRetry = mayRetry;
+        }
+
+        ApiResponse send(HttpRequest request)
+            throws IOException, InterruptedException {
+            queuedNanos = limiter.acquire();
+            // Execute request. The body is kept as bytes: binary responses
+            // survive intact, and text is decoded with the declared charset.
+            sentAt = System.nanoTime();
+            HttpResponse<byte[]> response;
+            try {
+                boolean hedge =
+                    retryPolicy.hedgeAfterMs > 0 && isIdempotent(method);
+                response = hedge
+                    ? sendHedged(request)
+                    : httpClient.send(request, handler(0));
+            } finally {
+                limiter.release();
+            }
+            long total = (System.nanoTime() - sentAt) / 1_000_000;
 
             // Build response object
             ApiResponse apiResponse = new ApiResponse();
             apiResponse.setStatusCode(response.statusCode());
-            apiResponse.setBody(response.body());
             apiResponse.setHeaders(response.headers().map());
-
+            apiResponse.setRawBody(response.body());
+            apiResponse.setTimeToFirstByte(timeToFirstByte.get());
+            apiResponse.setDuration(total);
             return apiResponse;
-        } catch (HttpTimeoutException e) {
+        }
+
+        // Runs as soon as the headers of one copy are in
+        private HttpResponse.BodyHandler<byte[]> handler(int copy) {
+            return info -> {
+                if (!claimed.compareAndSet(-1, copy)) {
+                    // The other copy answered first
+                    return HttpResponse.BodySubscribers.replacing(null);
+                }
+                long millis = (System.nanoTime() - sentAt) / 1_000_000;
+                timeToFirstByte.set(millis);
+                if (
+                    mayRetry &&
+                    retryPolicy.retriesStatus(info.statusCode()) &&
+                    RetryBudget.getDefault().tryAcquire()
+                ) {
+                    retrying = true;
+                    return HttpResponse.BodySubscribers.replacing(null);
+                }
+                if (listener == null) {
+                    return HttpResponse.BodySubscribers.ofByteArray();
+                }
+                listener.onHeaders(
+                    info.statusCode(),
+                    info.headers().map(),
+                    millis
+                );
+                EventStreamParser.Format format = EventStreamParser.formatOf(
+                    info.headers().firstValue("Content-Type").orElse(null)
+                );
+                if (format != null) {
+                    EventStreamSubscriber events = new EventStreamSubscriber(
+                        format,
+                        listener
+                    );
+                    listener.onEventStream(events.getEvents(), events::stop);
+                    return events;
+                }
+                return new StreamingBodySubscriber(listener);
+            };
+        }
+
+        /**
+         * Sends the request, and a second copy if no headers arrived
+         * within the hedge delay and both the retry budget and the host's
+         * limiter allow it without waiting. Whichever copy answers first
+         * is the response; the other is cancelled.
+         */
+        private HttpResponse<byte[]> sendHedged(HttpRequest request)
+            throws IOException, InterruptedException {
+            CompletableFuture<HttpResponse<byte[]>> first =
+                httpClient.sendAsync(request, handler(0));
+            try {
+                first.get(retryPolicy.hedgeAfterMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                // Still waiting, or failed: await() reports a failure
+            } catch (InterruptedException e) {
+                first.cancel(true);
+                throw e;
+            }
+            if (
+                first.isDone() ||
+                claimed.get() >= 0 ||
+                !limiter.tryAcquire()
+            ) {
+                return await(first);
+            }
+            if (!RetryBudget.getDefault().tryAcquire()) {
+                limiter.release();
+                return await(first);
+            }
+
+            hedged = true;
+            CompletableFuture<HttpResponse<byte[]>> second =
+                httpClient.sendAsync(request, handler(1));
+            second.whenComplete((response, error) -> limiter.release());
+            CompletableFuture<HttpResponse<byte[]>> winner =
+                new CompletableFuture<>();
+            AtomicInteger failures = new AtomicInteger();
+            List<CompletableFuture<HttpResponse<byte[]>>> copies = List.of(
+                first,
+                second
+            );
+            for (int i = 0; i < copies.size(); i++) {
+                int copy = i;
+                copies.get(copy).whenComplete((response, error) -> {
+                    if (error == null) {
+                        if (claimed.get() == copy) {
+                            winner.complete(response);
+                        }
+                    } else if (
+                        claimed.get() == copy ||
+                        failures.incrementAndGet() == copies.size()
+                    ) {
+                        winner.completeExceptionally(error);
+                    }
+                });
+            }
+            try {
+                return await(winner);
+            } finally {
+                first.cancel(true);
+                second.cancel(true);
+            }
+        }
+    }
+
+    // Waits for an asynchronous send, rethrowing its failure as send() would
+    private static <T> T await(CompletableFuture<T> future)
+        throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            while (
+                (cause instanceof CompletionException ||
+                    cause instanceof ExecutionException) &&
+                cause.getCause() != null
+            ) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    // Failed before the request reached the server, so safe to send again
+    private static boolean isConnectFailure(IOException e) {
+        if (
+            e instanceof ConnectException ||
+            e instanceof HttpConnectTimeoutException
+        ) {
+            return true;
+        }
+        String message = e.getMessage();
+        return (
+            message != null &&
+            (message.contains("Connection refused") ||
+                message.contains("Network is unreachable"))
+        );
+    }
+
+    // Only these may be sent twice at once
+    private static boolean isIdempotent(String method) {
+        return switch (method) {
+            case "GET", "HEAD", "OPTIONS", "PUT", "DELETE", "TRACE" -> true;
+            default -> false;
+        };
+    }
+
+    // Makes up a response for a request that got none
+    private static ApiResponse errorResponse(Exception e) {
+        ApiResponse errorResponse = new ApiResponse();
+        if (e instanceof HttpTimeoutException) {
             // Handle timeout - return 408 Request Timeout
-            ApiResponse errorResponse = new ApiResponse();
             errorResponse.setStatusCode(408);
             errorResponse.setBody(
                 "{\"error\": \"Request Timeout\", \"message\": \"The request timed out after 30 seconds\"}"
             );
-            return errorResponse;
-        } catch (ConnectException e) {
+        } else if (e instanceof ConnectException) {
             // Handle connection refused - return 503 Service Unavailable
-            ApiResponse errorResponse = new ApiResponse();
             errorResponse.setStatusCode(503);
             errorResponse.setBody(
                 "{\"error\": \"Service Unavailable\", \"message\": \"Connection refused. The server may be down or unreachable.\"}"
             );
-            return errorResponse;
-        } catch (IOException e) {
+        } else if (e instanceof IOException) {
             // Handle other network/IO errors - return 0 (connection error) or 502 Bad Gateway
-            ApiResponse errorResponse = new ApiResponse();
             String errorMessage = e.getMessage();
             if (
                 errorMessage != null &&
@@ -376,19 +672,14 @@ public class ApiCallBuilder {
                         "\"}"
                 );
             }
-            return errorResponse;
-        } catch (InterruptedException e) {
+        } else if (e instanceof InterruptedException) {
             // Handle thread interruption
-            Thread.currentThread().interrupt();
-            ApiResponse errorResponse = new ApiResponse();
             errorResponse.setStatusCode(499);
             errorResponse.setBody(
                 "{\"error\": \"Client Closed Request\", \"message\": \"Request was interrupted\"}"
             );
-            return errorResponse;
-        } catch (URISyntaxException e) {
+        } else {
             // Handle invalid URL syntax
-            ApiResponse errorResponse = new ApiResponse();
             errorResponse.setStatusCode(400);
             errorResponse.setBody(
                 "{\"error\": \"Bad Request\", \"message\": \"Invalid URL: " +
@@ -397,8 +688,8 @@ public class ApiCallBuilder {
                         : "Malformed URL") +
                     "\"}"
             );
-            return errorResponse;
         }
+        return errorResponse;
     }
 
     // Debug: print all values being sent in the request
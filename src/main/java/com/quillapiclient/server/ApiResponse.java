@@ -1,16 +1,34 @@
 package com.quillapiclient.server;
 
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 
 public class ApiResponse {
+    private int id; // row id once saved to history, 0 before
     private int statusCode;
     private String body;
+    private byte[] rawBody; // bytes as received; body is decoded lazily
     private Map<String, java.util.List<String>> headers;
     private long duration; // Duration in milliseconds
+    private long timeToFirstByte = -1; // ms until headers, -1 if unknown
+    private int attempts = 1; // times sent, retries included
+    private boolean hedged; // a second copy was sent to cut latency
+    private long queueTime; // ms waited for the host's rate limiter
     
     public ApiResponse() {
     }
     
+    /** The {@code responses} row id, or 0 if not saved (yet). */
+    public int getId() {
+        return id;
+    }
+    
+    public void setId(int id) {
+        this.id = id;
+    }
+    
     public int getStatusCode() {
         return statusCode;
     }
@@ -19,12 +37,88 @@ public class ApiResponse {
         this.statusCode = statusCode;
     }
     
+    /**
+     * The body as text. A body set from raw bytes is decoded on first use,
+     * with the charset from {@code Content-Type} (UTF-8 if none is given).
+     */
     public String getBody() {
+        if (body == null && rawBody != null) {
+            body = new String(rawBody, getCharset());
+        }
         return body;
     }
     
     public void setBody(String body) {
         this.body = body;
+        this.rawBody = null;
+    }
+    
+    /** The body bytes as received, or null if the body was set as text. */
+    public byte[] getRawBody() {
+        return rawBody;
+    }
+    
+    /** Sets the body bytes as received; text is decoded on demand. */
+    public void setRawBody(byte[] rawBody) {
+        this.rawBody = rawBody;
+        this.body = null;
+    }
+    
+    /** The body bytes: as received, or the UTF-8 encoding of the text. */
+    public byte[] getBodyBytes() {
+        if (rawBody != null) {
+            return rawBody;
+        }
+        return body != null ? body.getBytes(StandardCharsets.UTF_8) : null;
+    }
+    
+    /** Size of the body in bytes, without decoding or encoding it. */
+    public int getBodySize() {
+        if (rawBody != null) {
+            return rawBody.length;
+        }
+        return body != null ? body.length() : 0;
+    }
+    
+    /** The first {@code Content-Type} header value, or null. */
+    public String getContentType() {
+        return getFirstHeader("Content-Type");
+    }
+    
+    /** The first value of a header, matched ignoring case, or null. */
+    public String getFirstHeader(String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (
+                name.equalsIgnoreCase(entry.getKey()) &&
+                entry.getValue() != null &&
+                !entry.getValue().isEmpty()
+            ) {
+                return entry.getValue().get(0);
+            }
+        }
+        return null;
+    }
+    
+    /** Charset named by {@code Content-Type}, or UTF-8. */
+    public Charset getCharset() {
+        String contentType = getContentType();
+        if (contentType != null) {
+            for (String param : contentType.split(";")) {
+                String trimmed = param.trim();
+                if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                    String name = trimmed.substring(8).replace("\"", "").trim();
+                    try {
+                        return Charset.forName(name);
+                    } catch (IllegalArgumentException e) {
+                        break; // unknown or malformed: fall back
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
     }
     
     public Map<String, java.util.List<String>> getHeaders() {
@@ -51,6 +145,45 @@ public class ApiResponse {
         this.duration = duration;
     }
     
+    /** Milliseconds until the headers arrived, or -1 if not measured. */
+    public long getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+    
+    public void setTimeToFirstByte(long timeToFirstByte) {
+        this.timeToFirstByte = timeToFirstByte;
+    }
+    
+    /**
+     * Milliseconds spent waiting for the host's rate limiter, over all
+     * attempts. Not part of {@link #getDuration()}, which is network time.
+     */
+    public long getQueueTime() {
+        return queueTime;
+    }
+    
+    public void setQueueTime(long queueTime) {
+        this.queueTime = queueTime;
+    }
+    
+    /** How many times the request was sent, counting the first. */
+    public int getAttempts() {
+        return attempts;
+    }
+    
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+    
+    /** True if a second copy was sent while the last attempt was slow. */
+    public boolean isHedged() {
+        return hedged;
+    }
+    
+    public void setHedged(boolean hedged) {
+        this.hedged = hedged;
+    }
+    
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -64,8 +197,8 @@ public class ApiResponse {
             }
         }
         
-        if (body != null) {
-            sb.append("\nBody:\n").append(body);
+        if (getBody() != null) {
+            sb.append("\nBody:\n").append(getBody());
         }
         
         return sb.toString();
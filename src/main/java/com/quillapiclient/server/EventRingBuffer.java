@@ -0,0 +1,82 @@
+package com.quillapiclient.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The most recent events of a stream, within a count and a size limit.
+ * Adding past either limit drops the oldest events, so a stream that runs
+ * for hours holds no more than one that ran for seconds. Events keep their
+ * stream-wide {@link StreamEvent#sequence}, which is also how they are
+ * looked up. Safe to use from any thread.
+ */
+public class EventRingBuffer {
+
+    private final StreamEvent[] slots;
+    private final long maxChars;
+    private long total = 0; // events ever added; next sequence
+    private int size = 0;
+    private long chars = 0; // data chars currently held
+
+    /**
+     * @param capacity most events kept
+     * @param maxChars most data chars kept across those events
+     */
+    public EventRingBuffer(int capacity, long maxChars) {
+        this.slots = new StreamEvent[capacity];
+        this.maxChars = maxChars;
+    }
+
+    /** Appends an event; its sequence must be {@link #getTotal()}. */
+    public synchronized void add(StreamEvent event) {
+        if (size == slots.length) {
+            dropOldest();
+        }
+        slots[(int) (total % slots.length)] = event;
+        total++;
+        size++;
+        chars += event.data.length();
+        while (chars > maxChars && size > 1) {
+            dropOldest();
+        }
+    }
+
+    private void dropOldest() {
+        int slot = (int) ((total - size) % slots.length);
+        chars -= slots[slot].data.length();
+        slots[slot] = null;
+        size--;
+    }
+
+    /** Number of events ever added. */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /** Number of events held. */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Sequence of the oldest event held. */
+    public synchronized long getFirst() {
+        return total - size;
+    }
+
+    /** The event with this sequence, or null if dropped or not yet seen. */
+    public synchronized StreamEvent get(long sequence) {
+        if (sequence < total - size || sequence >= total) {
+            return null;
+        }
+        return slots[(int) (sequence % slots.length)];
+    }
+
+    /** The events held, oldest first. */
+    public synchronized List<StreamEvent> snapshot() {
+        List<StreamEvent> events = new ArrayList<>(size);
+        for (long sequence = total - size; sequence < total; sequence++) {
+            events.add(slots[(int) (sequence % slots.length)]);
+        }
+        return events;
+    }
+}
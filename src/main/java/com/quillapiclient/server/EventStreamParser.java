@@ -0,0 +1,249 @@
+package com.quillapiclient.server;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Splits a streaming body into events as its bytes arrive: Server-Sent
+ * Events ({@code text/event-stream}, per the HTML spec's parsing rules)
+ * or newline-delimited JSON (one event per non-blank line). Both are
+ * UTF-8 by definition.
+ *
+ * <p>Only the current line and the current event's data are buffered,
+ * each capped at {@code maxEventChars}; anything past the cap is dropped
+ * and the event marked truncated, so one runaway line cannot grow memory
+ * without bound.
+ */
+class EventStreamParser {
+
+    enum Format {
+        SSE,
+        NDJSON,
+    }
+
+    static final String TRUNCATED_MARK = " ... [truncated]";
+
+    private final Format format;
+    private final int maxEventChars;
+    private final Consumer<StreamEvent> sink;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8
+        .newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars = CharBuffer.allocate(8 * 1024);
+    private ByteBuffer carry = ByteBuffer.allocate(0); // split character
+
+    private final StringBuilder line = new StringBuilder();
+    private boolean lineTruncated = false;
+    private boolean afterCarriageReturn = false;
+    private boolean started = false; // past a leading byte order mark
+
+    // SSE event being assembled
+    private final StringBuilder data = new StringBuilder();
+    private boolean hasData = false;
+    private boolean dataTruncated = false;
+    private String eventType;
+    private String lastEventId;
+
+    private long sequence = 0;
+
+    /**
+     * @param sink receives each event, on the thread that calls
+     *             {@link #feed}
+     */
+    EventStreamParser(
+        Format format,
+        int maxEventChars,
+        Consumer<StreamEvent> sink
+    ) {
+        this.format = format;
+        this.maxEventChars = maxEventChars;
+        this.sink = sink;
+    }
+
+    /** The event format of a {@code Content-Type}, or null if none. */
+    static Format formatOf(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        String type = contentType
+            .split(";", 2)[0].trim()
+            .toLowerCase(Locale.ROOT);
+        switch (type) {
+            case "text/event-stream":
+                return Format.SSE;
+            case "application/x-ndjson":
+            case "application/ndjson":
+            case "application/jsonl":
+            case "application/json-seq":
+            case "application/stream+json":
+                return Format.NDJSON;
+            default:
+                return null;
+        }
+    }
+
+    /** Parses the next piece of the body. */
+    void feed(ByteBuffer bytes) {
+        ByteBuffer in = bytes;
+        if (carry.hasRemaining()) {
+            in = ByteBuffer.allocate(carry.remaining() + bytes.remaining());
+            in.put(carry).put(bytes).flip();
+        }
+        CoderResult result;
+        do {
+            result = decoder.decode(in, chars, false);
+            chars.flip();
+            while (chars.hasRemaining()) {
+                accept(chars.get());
+            }
+            chars.clear();
+        } while (result.isOverflow());
+        // Whatever is left is the start of a character split across pieces
+        carry = ByteBuffer.allocate(in.remaining());
+        carry.put(in).flip();
+    }
+
+    /** The body ended: an unterminated last NDJSON line still counts. */
+    void finish() {
+        if (format == Format.NDJSON && line.length() > 0) {
+            endLine();
+        }
+        // An SSE event without its blank line is discarded, per the spec
+    }
+
+    private void accept(char c) {
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                return;
+            }
+        }
+        if (c == '\n' && afterCarriageReturn) {
+            afterCarriageReturn = false; // second half of CRLF
+            return;
+        }
+        afterCarriageReturn = c == '\r';
+        if (c == '\r' || c == '\n') {
+            endLine();
+            return;
+        }
+        if (line.length() < maxEventChars) {
+            line.append(c);
+        } else {
+            lineTruncated = true;
+        }
+    }
+
+    private void endLine() {
+        if (format == Format.NDJSON) {
+            // json-seq puts a record separator before each record
+            String text = line.toString().replace("\u001E", "").strip();
+            if (!text.isEmpty()) {
+                emit(
+                    null,
+                    null,
+                    lineTruncated ? text + TRUNCATED_MARK : text
+                );
+            }
+        } else {
+            sseLine();
+        }
+        line.setLength(0);
+        lineTruncated = false;
+    }
+
+    private void sseLine() {
+        if (line.length() == 0) {
+            dispatch();
+            return;
+        }
+        if (line.charAt(0) == ':') {
+            return; // comment, often a keep-alive
+        }
+        String field;
+        String value;
+        int colon = line.indexOf(":");
+        if (colon < 0) {
+            field = line.toString();
+            value = "";
+        } else {
+            field = line.substring(0, colon);
+            int start = colon + 1;
+            if (start < line.length() && line.charAt(start) == ' ') {
+                start++;
+            }
+            value = line.substring(start);
+        }
+        switch (field) {
+            case "data":
+                if (hasData) {
+                    appendData("\n");
+                }
+                hasData = true;
+                appendData(value);
+                dataTruncated |= lineTruncated;
+                break;
+            case "event":
+                eventType = value;
+                break;
+            case "id":
+                if (value.indexOf('\0') < 0) {
+                    lastEventId = value;
+                }
+                break;
+            default:
+                // "retry" is for reconnecting clients; others are ignored
+                break;
+        }
+    }
+
+    private void appendData(String value) {
+        int room = maxEventChars - data.length();
+        if (value.length() > room) {
+            data.append(value, 0, Math.max(room, 0));
+            dataTruncated = true;
+        } else {
+            data.append(value);
+        }
+    }
+
+    private void dispatch() {
+        if (hasData) {
+            String text = data.toString();
+            String type = eventType == null ||
+                eventType.isEmpty() ||
+                eventType.equals("message")
+                ? null
+                : eventType;
+            emit(
+                type,
+                lastEventId,
+                dataTruncated ? text + TRUNCATED_MARK : text
+            );
+        }
+        // The last event ID carries over to later events; the rest resets
+        data.setLength(0);
+        hasData = false;
+        dataTruncated = false;
+        eventType = null;
+    }
+
+    private void emit(String type, String id, String text) {
+        sink.accept(
+            new StreamEvent(
+                sequence++,
+                System.currentTimeMillis(),
+                type,
+                id,
+                text
+            )
+        );
+    }
+}
@@ -0,0 +1,146 @@
+package com.quillapiclient.server;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Reads an event stream (SSE or NDJSON) that may never end. Each event
+ * goes into an {@link EventRingBuffer} and to the listener as soon as it
+ * is parsed; the raw body is never kept, so memory stays flat however
+ * long the stream runs.
+ *
+ * <p>The stream ends when the server closes it or when {@link #stop()}
+ * is called (from any thread). Either way the body of the resulting
+ * response is the events still in the ring, written back out in the
+ * stream's own format.
+ */
+class EventStreamSubscriber implements HttpResponse.BodySubscriber<byte[]> {
+
+    static final int CAPACITY = Integer.getInteger(
+        "quill.events.capacity",
+        10_000
+    );
+    static final long MAX_CHARS = Long.getLong(
+        "quill.events.maxChars",
+        16L * 1024 * 1024
+    );
+    static final int MAX_EVENT_CHARS = Integer.getInteger(
+        "quill.events.maxEventChars",
+        256 * 1024
+    );
+
+    private final EventStreamParser.Format format;
+    private final ResponseStreamListener listener;
+    private final EventRingBuffer events = new EventRingBuffer(
+        CAPACITY,
+        MAX_CHARS
+    );
+    private final EventStreamParser parser;
+    private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+    private Flow.Subscription subscription; // guarded by this
+    private boolean stopped = false; // guarded by this
+
+    EventStreamSubscriber(
+        EventStreamParser.Format format,
+        ResponseStreamListener listener
+    ) {
+        this.format = format;
+        this.listener = listener;
+        this.parser = new EventStreamParser(format, MAX_EVENT_CHARS, event -> {
+            events.add(event);
+            listener.onEvent(event);
+        });
+    }
+
+    EventRingBuffer getEvents() {
+        return events;
+    }
+
+    @Override
+    public CompletionStage<byte[]> getBody() {
+        return body;
+    }
+
+    @Override
+    public synchronized void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        if (stopped) {
+            subscription.cancel();
+            return;
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        for (ByteBuffer item : items) {
+            parser.feed(item);
+        }
+        if (listener.isCancelled()) {
+            stop();
+            return;
+        }
+        synchronized (this) {
+            if (!stopped) {
+                subscription.request(1);
+            }
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        // Stopping cancels the subscription, which may surface as an error
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+        }
+        body.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        parser.finish();
+        finish();
+    }
+
+    /** Ends the stream, keeping the events received so far. */
+    void stop() {
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+        finish();
+    }
+
+    private void finish() {
+        StringBuilder text = new StringBuilder();
+        for (StreamEvent event : events.snapshot()) {
+            if (format == EventStreamParser.Format.NDJSON) {
+                text.append(event.data).append('\n');
+                continue;
+            }
+            if (event.id != null) {
+                text.append("id: ").append(event.id).append('\n');
+            }
+            if (event.type != null) {
+                text.append("event: ").append(event.type).append('\n');
+            }
+            for (String line : event.data.split("\n", -1)) {
+                text.append("data: ").append(line).append('\n');
+            }
+            text.append('\n');
+        }
+        body.complete(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
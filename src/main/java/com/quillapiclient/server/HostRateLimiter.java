@@ -0,0 +1,297 @@
+package com.quillapiclient.server;
+
+import java.net.URI;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Limits outbound traffic per host: how many requests may be in flight at
+ * once, and how many may start per second. Every send of
+ * {@link ApiCallBuilder} passes through it, so manual sends, environment
+ * fan-out and collection runs share one set of limits per host.
+ *
+ * <p>Both limits are lock-free. In-flight requests are an
+ * {@link AtomicInteger} taken with compare-and-set; a sender that finds
+ * no slot parks until a finishing request wakes it. The rate is a token
+ * bucket kept as one {@link AtomicLong}, the time up to which tokens are
+ * handed out (the generic cell rate algorithm): a send moves it one
+ * interval on with a single compare-and-set and sleeps until its reserved
+ * time, so senders never wait on each other. A streamed response keeps
+ * its slot until the stream ends.
+ *
+ * <p>A 429 or 503 response with {@code Retry-After} pauses the whole host
+ * until then, capped at {@code quill.host.maxRetryAfterSeconds} (default
+ * 120).
+ *
+ * <p>Limits come from {@code quill.host.maxInFlight} (default 32) and
+ * {@code quill.host.ratePerSecond} (default 0, unlimited), and per host
+ * from {@code quill.host.limits}, such as
+ * {@code api.partner.com=8:20,localhost:8080=64:0}: in-flight requests,
+ * then requests per second. A rate allows a burst of one second's worth.
+ */
+public class HostRateLimiter {
+
+    private static final int DEFAULT_MAX_IN_FLIGHT = Integer.getInteger(
+        "quill.host.maxInFlight",
+        32
+    );
+    private static final int DEFAULT_RATE = Integer.getInteger(
+        "quill.host.ratePerSecond",
+        0
+    );
+    private static final long MAX_RETRY_AFTER_NANOS =
+        TimeUnit.SECONDS.toNanos(
+            Integer.getInteger("quill.host.maxRetryAfterSeconds", 120)
+        );
+
+    private static final Map<String, int[]> CONFIGURED = parseLimits(
+        System.getProperty("quill.host.limits")
+    );
+    private static final ConcurrentHashMap<String, HostRateLimiter> HOSTS =
+        new ConcurrentHashMap<>();
+
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+    // Nanoseconds between tokens, 0 if the rate is unlimited
+    private final long interval;
+    // How far the schedule may run ahead of now: the burst, less one
+    private final long tolerance;
+    // System.nanoTime() the schedule has handed tokens out up to; a
+    // send may go at this time less the tolerance
+    private final AtomicLong scheduled = new AtomicLong(Long.MIN_VALUE / 2);
+
+    private HostRateLimiter(int maxInFlight, int ratePerSecond) {
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : Integer.MAX_VALUE;
+        this.interval = ratePerSecond > 0
+            ? TimeUnit.SECONDS.toNanos(1) / ratePerSecond
+            : 0;
+        this.tolerance = interval * Math.max(0, ratePerSecond - 1);
+    }
+
+    /** The limiter of the host a request goes to. */
+    public static HostRateLimiter of(URI uri) {
+        String host = keyOf(uri);
+        HostRateLimiter limiter = HOSTS.get(host);
+        if (limiter != null) {
+            return limiter;
+        }
+        return HOSTS.computeIfAbsent(host, key -> {
+            int[] limits = CONFIGURED.get(key);
+            if (limits == null && uri.getHost() != null) {
+                limits = CONFIGURED.get(uri.getHost().toLowerCase());
+            }
+            return limits != null
+                ? new HostRateLimiter(limits[0], limits[1])
+                : new HostRateLimiter(DEFAULT_MAX_IN_FLIGHT, DEFAULT_RATE);
+        });
+    }
+
+    /** host:port, the port filled in from the scheme if not given. */
+    private static String keyOf(URI uri) {
+        String host = uri.getHost() != null
+            ? uri.getHost().toLowerCase()
+            : String.valueOf(uri.getAuthority());
+        int port = uri.getPort();
+        if (port < 0) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return host + ":" + port;
+    }
+
+    /**
+     * Waits for an in-flight slot and a token. Every successful call must
+     * be followed by one {@link #release}.
+     *
+     * @return nanoseconds spent waiting
+     */
+    public long acquire() throws InterruptedException {
+        long start = System.nanoTime();
+        // The token first, so no slot sits idle while its holder sleeps
+        long wait = reserveToken() - start;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        acquireSlot();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Takes a slot and a token only if both are free right now, as for a
+     * hedged copy that is not worth waiting for.
+     *
+     * @return true if taken; then call {@link #release}
+     */
+    public boolean tryAcquire() {
+        if (!tryAcquireSlot()) {
+            return false;
+        }
+        for (;;) {
+            long now = System.nanoTime();
+            long current = scheduled.get();
+            if (current - tolerance > now) {
+                release();
+                return false;
+            }
+            if (
+                interval == 0 ||
+                scheduled.compareAndSet(
+                    current,
+                    Math.max(current, now) + interval
+                )
+            ) {
+                return true;
+            }
+        }
+    }
+
+    /** Gives back the slot of a finished request. */
+    public void release() {
+        inFlight.decrementAndGet();
+        Thread waiter = waiters.poll();
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    /**
+     * Starts no request to this host before {@code Retry-After} has
+     * passed, if the response is a 429 or 503 that has one.
+     *
+     * @return the pause in milliseconds, or 0 if there is none
+     */
+    public long pauseFor(ApiResponse response) {
+        int status = response.getStatusCode();
+        if (status != 429 && status != 503) {
+            return 0;
+        }
+        long pause = retryAfterNanos(response);
+        if (pause <= 0) {
+            return 0;
+        }
+        pause = Math.min(pause, MAX_RETRY_AFTER_NANOS);
+        // The next token handed out is then the one at "until"
+        long until = System.nanoTime() + pause;
+        scheduled.accumulateAndGet(until + tolerance, Math::max);
+        return TimeUnit.NANOSECONDS.toMillis(pause);
+    }
+
+    private void acquireSlot() throws InterruptedException {
+        Thread current = Thread.currentThread();
+        while (!tryAcquireSlot()) {
+            waiters.add(current);
+            // A release between the failed attempt and add() woke no one
+            if (inFlight.get() < maxInFlight) {
+                waiters.remove(current);
+                continue;
+            }
+            LockSupport.park(this);
+            waiters.remove(current);
+            if (Thread.interrupted()) {
+                // Pass on a wake-up this thread may have taken
+                if (inFlight.get() < maxInFlight) {
+                    Thread next = waiters.poll();
+                    if (next != null) {
+                        LockSupport.unpark(next);
+                    }
+                }
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private boolean tryAcquireSlot() {
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Reserves the next token; returns the nanoTime it may be used at. */
+    private long reserveToken() {
+        if (interval == 0) {
+            // Unlimited, but a Retry-After pause still holds
+            return scheduled.get();
+        }
+        for (;;) {
+            long now = System.nanoTime();
+            long current = scheduled.get();
+            long at = Math.max(now, current - tolerance);
+            long next = Math.max(current, at) + interval;
+            if (scheduled.compareAndSet(current, next)) {
+                return at;
+            }
+        }
+    }
+
+    // Retry-After is either seconds or an HTTP date
+    private static long retryAfterNanos(ApiResponse response) {
+        String value = response.getFirstHeader("Retry-After");
+        if (value == null) {
+            return 0;
+        }
+        value = value.trim();
+        try {
+            return TimeUnit.SECONDS.toNanos(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            // not seconds: try a date
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(
+                value,
+                DateTimeFormatter.RFC_1123_DATE_TIME
+            );
+            return TimeUnit.MILLISECONDS.toNanos(
+                at.toInstant().toEpochMilli() - System.currentTimeMillis()
+            );
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    // "host[:port]=inFlight:rate,..." into host:port -> {inFlight, rate}
+    private static Map<String, int[]> parseLimits(String text) {
+        Map<String, int[]> limits = new ConcurrentHashMap<>();
+        if (text == null || text.isBlank()) {
+            return limits;
+        }
+        for (String entry : text.split(",")) {
+            int eq = entry.indexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            String host = entry.substring(0, eq).trim().toLowerCase();
+            String[] values = entry.substring(eq + 1).split(":");
+            try {
+                limits.put(
+                    host,
+                    new int[] {
+                        Integer.parseInt(values[0].trim()),
+                        values.length > 1
+                            ? Integer.parseInt(values[1].trim())
+                            : DEFAULT_RATE,
+                    }
+                );
+            } catch (NumberFormatException e) {
+                System.err.println(
+                    "Ignoring host limit \"" + entry.trim() + "\""
+                );
+            }
+        }
+        return limits;
+    }
+}
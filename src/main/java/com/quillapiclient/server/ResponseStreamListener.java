@@ -0,0 +1,48 @@
+package com.quillapiclient.server;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receives a response while it arrives, for
+ * {@link ApiCallBuilder#execute(ResponseStreamListener)}: the headers,
+ * then either the body bytes or, for event streams, parsed events.
+ * Methods are called on the HTTP client's threads, so implementations
+ * hand the data over to the EDT themselves.
+ */
+public interface ResponseStreamListener {
+    /**
+     * The status line and headers arrived.
+     *
+     * @param timeToFirstByte milliseconds from sending the request
+     */
+    void onHeaders(
+        int statusCode,
+        Map<String, List<String>> headers,
+        long timeToFirstByte
+    );
+
+    /** More body bytes arrived; the array is the listener's to keep. */
+    void onBody(byte[] data);
+
+    /**
+     * The body is an event stream (SSE or NDJSON), which may never end.
+     * Called once, after {@link #onHeaders}; from then on the body comes
+     * as {@link #onEvent} calls instead of {@link #onBody}.
+     *
+     * @param events the most recent events, kept up to date as they arrive
+     * @param stop   ends the stream; may be called from any thread
+     */
+    default void onEventStream(EventRingBuffer events, Runnable stop) {}
+
+    /** An event was parsed from an event stream. */
+    default void onEvent(StreamEvent event) {}
+
+    /**
+     * True once the listener no longer wants the body; the download then
+     * stops and the response keeps the bytes received so far.
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
@@ -0,0 +1,64 @@
+package com.quillapiclient.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps retries and hedges at a share of all requests, so a failing server
+ * sees at most a few percent more traffic instead of every client
+ * multiplying its load by the retry count. Each request sent adds a
+ * fraction of a token, each retry or hedge takes a whole one; a small
+ * reserve lets the first failures retry before any tokens are earned.
+ *
+ * <p>Tuned with {@code quill.retry.budgetPercent} (tokens per 100
+ * requests, default 20) and {@code quill.retry.budgetMax} (the most
+ * tokens saved up, default 100). Shared by all requests of the process.
+ */
+public class RetryBudget {
+
+    // Hundredths of a token, so a percentage deposit stays an integer
+    private static final long UNIT = 100;
+    private static final int RESERVE = 10;
+
+    private static final RetryBudget DEFAULT = new RetryBudget(
+        Integer.getInteger("quill.retry.budgetPercent", 20),
+        Integer.getInteger("quill.retry.budgetMax", 100)
+    );
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    RetryBudget(int percent, int maxTokens) {
+        this.deposit = Math.max(0, percent);
+        this.capacity = Math.max(1, maxTokens) * UNIT;
+        this.balance = new AtomicLong(Math.min(RESERVE * UNIT, capacity));
+    }
+
+    public static RetryBudget getDefault() {
+        return DEFAULT;
+    }
+
+    /** Counts a request sent for the first time. */
+    public void recordRequest() {
+        balance.accumulateAndGet(deposit, (current, add) ->
+            Math.min(capacity, current + add)
+        );
+    }
+
+    /**
+     * Takes a token for a retry or hedge.
+     *
+     * @return false if the budget is spent; then do not retry
+     */
+    public boolean tryAcquire() {
+        for (;;) {
+            long current = balance.get();
+            if (current < UNIT) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - UNIT)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.quillapiclient.server;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How {@link ApiCallBuilder} retries and hedges one request. Retries wait
+ * an exponentially growing, fully jittered delay: before retry {@code n}
+ * a random time between 0 and {@code min(maxDelayMs, baseDelayMs * 2^(n-1))},
+ * so clients that failed together do not come back together. Every retry
+ * and hedge also needs a token from the shared {@link RetryBudget}.
+ */
+public class RetryPolicy {
+
+    /** No retries, no hedging: what requests without a policy get. */
+    public static final RetryPolicy NONE = new RetryPolicy(
+        0,
+        Set.of(),
+        false,
+        0,
+        0,
+        0
+    );
+
+    public final int maxRetries;
+    // Status codes worth another try, e.g. 429, 502, 503, 504
+    public final Set<Integer> retryStatuses;
+    // Retry when the connection could not be made; the server never saw it
+    public final boolean retryConnectErrors;
+    public final long baseDelayMs;
+    public final long maxDelayMs;
+    // Send a second copy after this long without headers; 0 = never
+    public final long hedgeAfterMs;
+
+    public RetryPolicy(
+        int maxRetries,
+        Set<Integer> retryStatuses,
+        boolean retryConnectErrors,
+        long baseDelayMs,
+        long maxDelayMs,
+        long hedgeAfterMs
+    ) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryStatuses = Collections.unmodifiableSet(
+            new TreeSet<>(retryStatuses)
+        );
+        this.retryConnectErrors = retryConnectErrors;
+        this.baseDelayMs = Math.max(0, baseDelayMs);
+        this.maxDelayMs = Math.max(this.baseDelayMs, maxDelayMs);
+        this.hedgeAfterMs = Math.max(0, hedgeAfterMs);
+    }
+
+    /** True if a response with this status should be tried again. */
+    public boolean retriesStatus(int statusCode) {
+        return maxRetries > 0 && retryStatuses.contains(statusCode);
+    }
+
+    /**
+     * A jittered delay to wait before a retry.
+     *
+     * @param retry 1 for the first retry, 2 for the second, ...
+     */
+    public long delayBefore(int retry) {
+        long ceiling = baseDelayMs;
+        for (int i = 1; i < retry && ceiling < maxDelayMs; i++) {
+            ceiling *= 2;
+        }
+        ceiling = Math.min(ceiling, maxDelayMs);
+        return ceiling > 0
+            ? ThreadLocalRandom.current().nextLong(ceiling + 1)
+            : 0;
+    }
+
+    /**
+     * Parses status codes separated by commas or spaces, such as
+     * {@code "429, 502 503"}. Anything that is not a status code is
+     * skipped.
+     */
+    public static Set<Integer> parseStatuses(String text) {
+        Set<Integer> statuses = new TreeSet<>();
+        if (text == null) {
+            return statuses;
+        }
+        for (String part : text.split("[,\\s]+")) {
+            try {
+                int status = Integer.parseInt(part.trim());
+                if (status >= 100 && status <= 599) {
+                    statuses.add(status);
+                }
+            } catch (NumberFormatException e) {
+                // not a status code: skip it
+            }
+        }
+        return statuses;
+    }
+
+    /** The status codes as {@link #parseStatuses} reads them back. */
+    public String formatStatuses() {
+        StringBuilder text = new StringBuilder();
+        for (int status : retryStatuses) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(status);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,28 @@
+package com.quillapiclient.server;
+
+/**
+ * One event from a streaming response: a Server-Sent Event, or one line
+ * of newline-delimited JSON.
+ */
+public class StreamEvent {
+
+    public final long sequence; // 0 for the first event of the stream
+    public final long receivedAt; // epoch milliseconds
+    public final String type; // SSE event name; null for "message" and NDJSON
+    public final String id; // SSE last event ID, or null
+    public final String data;
+
+    public StreamEvent(
+        long sequence,
+        long receivedAt,
+        String type,
+        String id,
+        String data
+    ) {
+        this.sequence = sequence;
+        this.receivedAt = receivedAt;
+        this.type = type;
+        this.id = id;
+        this.data = data;
+    }
+}
@@ -0,0 +1,64 @@
+package com.quillapiclient.server;
+
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Collects a response body like {@code BodySubscribers.ofByteArray()},
+ * passing each piece to a {@link ResponseStreamListener} as it arrives.
+ * Pieces are requested one at a time, so a listener that cancels stops
+ * the download at the next one.
+ */
+class StreamingBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+
+    private final ResponseStreamListener listener;
+    private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+    private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+    private Flow.Subscription subscription;
+
+    StreamingBodySubscriber(ResponseStreamListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public CompletionStage<byte[]> getBody() {
+        return body;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        for (ByteBuffer item : items) {
+            byte[] data = new byte[item.remaining()];
+            item.get(data);
+            received.write(data, 0, data.length);
+            listener.onBody(data);
+        }
+        if (listener.isCancelled()) {
+            subscription.cancel();
+            body.complete(received.toByteArray());
+            return;
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        body.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        body.complete(received.toByteArray());
+    }
+}
@@ -0,0 +1,65 @@
+package com.quillapiclient.utility;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer that forwards at most {@code cap} characters and then throws
+ * {@link CapReachedException}, unwinding whatever formatter is writing.
+ * The exception is an IOException so it passes unwrapped through Jackson
+ * generators and other writers that declare IOException.
+ */
+class CappedWriter extends Writer {
+
+    /** Thrown once the cap is reached; the capped prefix was written. */
+    static class CapReachedException extends IOException {
+
+        CapReachedException(long cap) {
+            super("Output cap of " + cap + " characters reached");
+        }
+    }
+
+    private final Writer out;
+    private final long cap;
+    private long written = 0;
+
+    CappedWriter(Writer out, long cap) {
+        this.out = out;
+        this.cap = cap;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int allowed = (int) Math.min(len, cap - written);
+        if (allowed > 0) {
+            out.write(cbuf, off, allowed);
+            written += allowed;
+        }
+        if (allowed < len) {
+            throw new CapReachedException(cap);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        int allowed = (int) Math.min(len, cap - written);
+        if (allowed > 0) {
+            out.write(str, off, allowed);
+            written += allowed;
+        }
+        if (allowed < len) {
+            throw new CapReachedException(cap);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /** Does not close the underlying writer. */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
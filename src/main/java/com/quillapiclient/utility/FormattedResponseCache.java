@@ -0,0 +1,254 @@
+package com.quillapiclient.utility;
+
+import com.quillapiclient.server.ApiResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formatted text of recently shown responses, keyed by response ID, so
+ * going back to a response shows it without loading or formatting it
+ * again.
+ *
+ * <p>Entries are kept in least-recently-used order within a memory budget
+ * ({@code quill.formatCache.maxBytes}) that counts both the formatted text
+ * and the response it came from. An entry pushed out of memory can spill
+ * its text to a temp file when a disk budget is set
+ * ({@code quill.formatCache.diskBytes}, off by default); a disk hit still
+ * skips formatting, but the response itself is reloaded from history.
+ *
+ * <p>A saved response never changes, and its ID is never handed out
+ * again ({@code responses.id} is {@code AUTOINCREMENT}), so entries never
+ * go stale. Safe to use from any thread.
+ */
+public class FormattedResponseCache {
+
+    private static final long MAX_BYTES = Long.getLong(
+        "quill.formatCache.maxBytes",
+        64L * 1024 * 1024
+    );
+    private static final long DISK_MAX_BYTES = Long.getLong(
+        "quill.formatCache.diskBytes",
+        0L
+    );
+
+    private static final FormattedResponseCache DEFAULT =
+        new FormattedResponseCache(MAX_BYTES, DISK_MAX_BYTES);
+
+    /** A response kept in memory with its formatted text. */
+    private static class Entry {
+
+        final ApiResponse response;
+        final String text;
+        final long bytes;
+
+        Entry(ApiResponse response, String text) {
+            this.response = response;
+            this.text = text;
+            // Chars are two bytes; the body is counted twice for its
+            // bytes and the text decoded from them
+            this.bytes = 2L * text.length() + 2L * response.getBodySize();
+        }
+    }
+
+    /** Formatted text spilled to a file. */
+    private static class Spilled {
+
+        final Path file;
+        final long bytes;
+
+        Spilled(Path file, long bytes) {
+            this.file = file;
+            this.bytes = bytes;
+        }
+    }
+
+    private final long maxBytes;
+    private final long diskMaxBytes;
+    private final LinkedHashMap<Integer, Entry> memory = new LinkedHashMap<>(
+        16,
+        0.75f,
+        true
+    );
+    private final LinkedHashMap<Integer, Spilled> disk = new LinkedHashMap<>(
+        16,
+        0.75f,
+        true
+    );
+    private long memoryBytes = 0;
+    private long diskBytes = 0;
+    private Path spillDirectory;
+
+    /**
+     * @param maxBytes     memory budget; 0 disables the cache
+     * @param diskMaxBytes disk budget for spilled text; 0 disables spilling
+     */
+    public FormattedResponseCache(long maxBytes, long diskMaxBytes) {
+        this.maxBytes = maxBytes;
+        this.diskMaxBytes = diskMaxBytes;
+    }
+
+    /** The cache shared by the response views. */
+    public static FormattedResponseCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Largest text worth collecting for {@link #put}: a single entry may
+     * take at most a quarter of the memory budget.
+     */
+    public long getMaxEntryChars() {
+        return maxBytes / 8;
+    }
+
+    /** The response with this ID if it is still in memory, else null. */
+    public synchronized ApiResponse getResponse(int responseId) {
+        Entry entry = memory.get(responseId);
+        return entry != null ? entry.response : null;
+    }
+
+    /**
+     * The formatted text of the response with this ID, from memory or
+     * from its spill file, or null if it is not cached.
+     */
+    public String getText(int responseId) {
+        Path file;
+        synchronized (this) {
+            Entry entry = memory.get(responseId);
+            if (entry != null) {
+                return entry.text;
+            }
+            Spilled spilled = disk.get(responseId);
+            if (spilled == null) {
+                return null;
+            }
+            file = spilled.file;
+        }
+        try {
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // Deleted by clear() meanwhile, or lost: treat as a miss
+            return null;
+        }
+    }
+
+    /**
+     * Caches the formatted text of a saved response. Responses without an
+     * ID, and entries over a quarter of the budget, are not kept.
+     */
+    public void put(ApiResponse response, String text) {
+        int responseId = response.getId();
+        if (
+            responseId <= 0 ||
+            maxBytes <= 0 ||
+            text.length() > getMaxEntryChars()
+        ) {
+            return;
+        }
+        Entry entry = new Entry(response, text);
+        if (entry.bytes > maxBytes / 4) {
+            return;
+        }
+        List<Map.Entry<Integer, Entry>> evicted = new ArrayList<>();
+        synchronized (this) {
+            removeSpilled(responseId);
+            Entry previous = memory.put(responseId, entry);
+            if (previous != null) {
+                memoryBytes -= previous.bytes;
+            }
+            memoryBytes += entry.bytes;
+            Iterator<Map.Entry<Integer, Entry>> eldest = memory
+                .entrySet()
+                .iterator();
+            while (memoryBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<Integer, Entry> e = eldest.next();
+                eldest.remove();
+                memoryBytes -= e.getValue().bytes;
+                evicted.add(e);
+            }
+        }
+        // File writes happen outside the lock so lookups never wait on them
+        for (Map.Entry<Integer, Entry> e : evicted) {
+            spill(e.getKey(), e.getValue().text);
+        }
+    }
+
+    /** Drops every entry. */
+    public synchronized void clear() {
+        memory.clear();
+        memoryBytes = 0;
+        for (Integer responseId : new ArrayList<>(disk.keySet())) {
+            removeSpilled(responseId);
+        }
+    }
+
+    private void spill(int responseId, String text) {
+        if (diskMaxBytes <= 0) {
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > diskMaxBytes / 4) {
+            return;
+        }
+        Path file;
+        try {
+            file = Files.createTempFile(spillDirectory(), "response-", ".txt");
+            file.toFile().deleteOnExit();
+            Files.write(file, bytes);
+        } catch (IOException e) {
+            System.err.println(
+                "Error spilling formatted response: " + e.getMessage()
+            );
+            return;
+        }
+        synchronized (this) {
+            if (memory.containsKey(responseId)) {
+                // Put back in memory while the file was being written
+                deleteQuietly(file);
+                return;
+            }
+            removeSpilled(responseId);
+            disk.put(responseId, new Spilled(file, bytes.length));
+            diskBytes += bytes.length;
+            Iterator<Map.Entry<Integer, Spilled>> eldest = disk
+                .entrySet()
+                .iterator();
+            while (diskBytes > diskMaxBytes && eldest.hasNext()) {
+                Spilled spilled = eldest.next().getValue();
+                eldest.remove();
+                diskBytes -= spilled.bytes;
+                deleteQuietly(spilled.file);
+            }
+        }
+    }
+
+    private synchronized Path spillDirectory() throws IOException {
+        if (spillDirectory == null) {
+            spillDirectory = Files.createTempDirectory("quill-format-cache-");
+            spillDirectory.toFile().deleteOnExit();
+        }
+        return spillDirectory;
+    }
+
+    private void removeSpilled(int responseId) {
+        Spilled spilled = disk.remove(responseId);
+        if (spilled != null) {
+            diskBytes -= spilled.bytes;
+            deleteQuietly(spilled.file);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Temp file; deleteOnExit gets it otherwise
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.quillapiclient.utility;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads the rows of a runner data file one at a time: a JSON file holding
+ * an array of objects, or a CSV (TSV for {@code .tsv}) file whose first row
+ * names the columns. Only the current row is ever in memory, so a file
+ * may hold any number of rows.
+ *
+ * <p>Every value is a string, as variables are: JSON numbers and booleans
+ * keep their text, nested objects and arrays become their JSON text, and
+ * null becomes empty. A CSV row shorter than the header leaves the missing
+ * columns empty. Not thread-safe.
+ */
+public abstract class IterationDataReader implements Closeable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    /** Opens a data file, choosing the format by its extension. */
+    public static IterationDataReader open(File file) throws IOException {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".json")) {
+            return new JsonRows(MAPPER.createParser(file));
+        }
+        Reader reader = new BufferedReader(
+            new InputStreamReader(
+                new FileInputStream(file),
+                StandardCharsets.UTF_8
+            ),
+            BUFFER_CHARS
+        );
+        try {
+            return new CsvRows(reader, name.endsWith(".tsv") ? '\t' : ',');
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next row.
+     *
+     * @return the row's values by column name, in file order, or null
+     *         after the last row
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public abstract Map<String, String> next() throws IOException;
+
+    private static class JsonRows extends IterationDataReader {
+
+        private final JsonParser parser;
+        private int index = 0;
+
+        JsonRows(JsonParser parser) throws IOException {
+            this.parser = parser;
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                parser.close();
+                throw new IOException(
+                    "A JSON data file must hold an array of objects"
+                );
+            }
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException(
+                    "Element " + index + " of the data file is not an object"
+                );
+            }
+            index++;
+            Map<String, String> row = new LinkedHashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                row.put(name, valueOf(parser.nextToken()));
+            }
+            return row;
+        }
+
+        private String valueOf(JsonToken token) throws IOException {
+            return switch (token) {
+                case VALUE_NULL -> "";
+                case START_OBJECT, START_ARRAY -> parser
+                    .readValueAsTree()
+                    .toString();
+                default -> parser.getText();
+            };
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    /** RFC 4180: quoted fields may hold delimiters, quotes and newlines. */
+    private static class CsvRows extends IterationDataReader {
+
+        private final Reader in;
+        private final char delimiter;
+        private final List<String> header;
+        private final StringBuilder field = new StringBuilder();
+        private int rowNumber = 0;
+
+        CsvRows(Reader in, char delimiter) throws IOException {
+            this.in = in;
+            this.delimiter = delimiter;
+            List<String> names = readRow();
+            if (names == null) {
+                throw new IOException("The data file is empty");
+            }
+            if (!names.isEmpty() && names.get(0).startsWith("\uFEFF")) {
+                names.set(0, names.get(0).substring(1));
+            }
+            this.header = names;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            List<String> fields = readRow();
+            if (fields == null) {
+                return null;
+            }
+            Map<String, String> row = new LinkedHashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                row.put(header.get(i), i < fields.size() ? fields.get(i) : "");
+            }
+            return row;
+        }
+
+        /** The fields of the next non-blank line, or null at the end. */
+        private List<String> readRow() throws IOException {
+            int c = in.read();
+            while (c == '\r' || c == '\n') {
+                c = in.read();
+            }
+            if (c < 0) {
+                return null;
+            }
+            rowNumber++;
+            List<String> fields = new ArrayList<>();
+            field.setLength(0);
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        throw new IOException(
+                            "Unclosed quote in row " + rowNumber
+                        );
+                    }
+                    if (c == '"') {
+                        c = in.read();
+                        if (c != '"') {
+                            quoted = false;
+                            continue; // c follows the closing quote
+                        }
+                    }
+                    field.append((char) c);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == delimiter) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r' || c < 0) {
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+                c = in.read();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
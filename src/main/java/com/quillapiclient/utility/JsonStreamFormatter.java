@@ -0,0 +1,78 @@
+package com.quillapiclient.utility;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Pretty-prints JSON by copying parser tokens straight to a pretty-printing
+ * generator, so memory use stays constant however large the document is
+ * (no {@code JsonNode} tree is built).
+ *
+ * <p>Output matches {@code ObjectMapper.readTree} followed by
+ * {@code writerWithDefaultPrettyPrinter()}: the same default pretty
+ * printer, and numbers are copied through the same int/long/double
+ * conversions. Only the first root value is printed; trailing content is
+ * ignored, as readTree does. One difference: duplicate object keys are
+ * all kept, where the tree kept only the last.
+ */
+public class JsonStreamFormatter {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * Writes {@code json} pretty-printed to {@code out}. The input is first
+     * checked with a token-only pass (no values are decoded), so malformed
+     * JSON is rejected before anything is written and the caller can fall
+     * back to showing it raw.
+     *
+     * @param json the JSON text
+     * @param out  destination; left open
+     * @return false (having written nothing) if the JSON is malformed
+     * @throws IOException only if {@code out} fails
+     */
+    public static boolean prettyPrint(String json, Writer out)
+        throws IOException {
+        if (!isWellFormed(json)) {
+            return false;
+        }
+        try (
+            JsonParser parser = FACTORY.createParser(json);
+            JsonGenerator generator = FACTORY.createGenerator(out)
+        ) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.useDefaultPrettyPrinter();
+            parser.nextToken();
+            try {
+                generator.copyCurrentStructure(parser);
+            } catch (JsonProcessingException e) {
+                // The check pass skips string contents, so a bad escape
+                // can still surface here, after output has started
+                generator.flush();
+                out.write(
+                    "\n\n[Invalid JSON: " + e.getOriginalMessage() + "]\n"
+                );
+            }
+        }
+        return true;
+    }
+
+    /** True if the text starts with one complete, valid JSON value. */
+    static boolean isWellFormed(String json) {
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            if (parser.nextToken() == null) {
+                return false;
+            }
+            parser.skipChildren(); // tokenizes (and so validates) the rest
+            return true;
+        } catch (JsonProcessingException e) {
+            return false;
+        } catch (IOException e) {
+            // String input never does I/O
+            return false;
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.quillapiclient.utility;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quillapiclient.render.BodyRenderer;
+import com.quillapiclient.render.RendererRegistry;
 import com.quillapiclient.server.ApiResponse;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
@@ -13,7 +17,12 @@ import java.util.Map;
  */
 public class ResponseFormatter {
 
-    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    // Hard cap on formatted output; beyond this the viewer gets a notice
+    private static final long DEFAULT_MAX_OUTPUT_CHARS = 16L * 1024 * 1024;
+    public static final long MAX_OUTPUT_CHARS = Long.getLong(
+        "quill.format.maxChars",
+        DEFAULT_MAX_OUTPUT_CHARS
+    );
 
     // Common constants to reduce duplication
     public static final String NO_RESPONSE_MESSAGE =
@@ -34,19 +43,85 @@ public class ResponseFormatter {
         ApiResponse response,
         String timestampMessage
     ) {
-        if (response == null) {
-            return NO_RESPONSE_MESSAGE;
+        StringWriter out = new StringWriter();
+        try {
+            formatResponse(response, timestampMessage, out);
+        } catch (IOException e) {
+            // StringWriter never throws
+            throw new UncheckedIOException(e);
         }
+        return out.toString();
+    }
+
+    /**
+     * Formats an ApiResponse incrementally into {@code out}. Output is
+     * written as it is produced (pretty-printed JSON goes straight to the
+     * writer), so a chunking writer can show the start of a large response
+     * before the rest is formatted. Exceptions thrown by {@code out} are
+     * propagated rather than treated as a formatting failure, which lets a
+     * writer abort the work by throwing.
+     *
+     * @param response The ApiResponse to format
+     * @param timestampMessage Optional custom message for the timestamp line
+     * @param out Destination for the formatted text
+     */
+    public static void formatResponse(
+        ApiResponse response,
+        String timestampMessage,
+        Writer out
+    ) throws IOException {
+        formatResponse(response, timestampMessage, out, MAX_OUTPUT_CHARS);
+    }
 
-        StringBuilder responseText = new StringBuilder();
+    /**
+     * Like {@link #formatResponse(ApiResponse, String, Writer)} with an
+     * explicit cap on the formatted body, for destinations that can hold
+     * more than the editor (e.g. the file-backed large-response viewer).
+     *
+     * @param maxOutputChars Body output beyond this is replaced by a notice
+     */
+    public static void formatResponse(
+        ApiResponse response,
+        String timestampMessage,
+        Writer out,
+        long maxOutputChars
+    ) throws IOException {
+        BodyRenderer renderer = response != null
+            ? RendererRegistry.getDefault().select(response)
+            : null;
+        formatResponse(
+            response,
+            timestampMessage,
+            out,
+            maxOutputChars,
+            renderer
+        );
+    }
+
+    /**
+     * Like {@link #formatResponse(ApiResponse, String, Writer, long)} with
+     * the body renderer already chosen (see {@link RendererRegistry}).
+     *
+     * @param renderer Writes the body; ignored when there is none
+     */
+    public static void formatResponse(
+        ApiResponse response,
+        String timestampMessage,
+        Writer out,
+        long maxOutputChars,
+        BodyRenderer renderer
+    ) throws IOException {
+        if (response == null) {
+            out.write(NO_RESPONSE_MESSAGE);
+            return;
+        }
 
         // Headers section
         if (response.getHeaders() != null && !response.getHeaders().isEmpty()) {
-            responseText
-                .append("HEADERS (")
-                .append(response.getHeaders().size())
+            out.append("HEADERS (")
+                .append(String.valueOf(response.getHeaders().size()))
                 .append("):\n");
-            responseText.append(SEPARATOR_SHORT).append("\n");
+            out.append(SEPARATOR_SHORT).append("\n");
 
             for (Map.Entry<String, java.util.List<String>> entry : response
                 .getHeaders()
@@ -54,50 +129,42 @@ public class ResponseFormatter {
                 String key = entry.getKey();
                 String values = String.join(", ", entry.getValue());
 
-                responseText
-                    .append(key)
-                    .append(": ")
-                    .append(values)
-                    .append("\n");
+                out.append(key).append(": ").append(values).append("\n");
             }
-            responseText.append("\n");
+            out.append("\n");
         }
 
-        // Body section
-        if (response.getBody() != null && !response.getBody().isEmpty()) {
-            String body = response.getBody();
-            responseText
-                .append("BODY (")
-                .append(body.length())
-                .append(" chars):\n");
-            responseText.append(SEPARATOR_SHORT).append("\n");
-
-            // Check most-specific format first to avoid false matches
-            if (isHtml(body)) {
-                responseText.append(
-                    "<!DOCTYPE html>\n<!-- HTML Content (truncated) -->\n"
-                );
-                responseText.append(truncateText(body, 2000));
-            } else if (isXml(body)) {
-                responseText.append(formatXml(body));
-            } else if (isJson(body)) {
-                responseText.append(formatJson(body));
-            } else {
-                responseText.append(truncateText(body, 5000)); // Truncate other content
+        // Body section. The size check avoids decoding binary bodies,
+        // which only the renderer should look at.
+        int bodySize = response.getBodySize();
+        if (bodySize > 0) {
+            out.append("BODY (")
+                .append(formatSize(bodySize))
+                .append(", ")
+                .append(renderer.getName())
+                .append("):\n");
+            out.append(SEPARATOR_SHORT).append("\n");
+
+            try (
+                CappedWriter capped = new CappedWriter(out, maxOutputChars)
+            ) {
+                renderer.render(response, capped);
+            } catch (CappedWriter.CapReachedException e) {
+                out.append("\n\n... [Formatted output truncated at ")
+                    .append(String.valueOf(maxOutputChars))
+                    .append(" characters. Export the response to see all of it.]");
+                return;
             }
 
             // Add download/export option for large responses
-            if (body.length() > 10000) {
-                responseText
-                    .append("\n\nNote: Response is large (")
-                    .append(body.length())
-                    .append(" chars). Consider exporting to a file.");
+            if (bodySize > 10000) {
+                out.append("\n\nNote: Response is large (")
+                    .append(formatSize(bodySize))
+                    .append("). Consider exporting to a file.");
             }
         } else {
-            responseText.append("BODY: (empty)\n");
+            out.append("BODY: (empty)\n");
         }
-
-        return responseText.toString();
     }
 
     /**
@@ -143,144 +210,13 @@ public class ResponseFormatter {
         }
     }
 
-    /**
-     * Checks if a string is JSON.
-     *
-     * @param text The text to check
-     * @return true if the text appears to be JSON
-     */
-    private static boolean isJson(String text) {
-        if (text == null || text.trim().isEmpty()) return false;
-        String trimmed = text.trim();
-        return (
-            (trimmed.startsWith("{") && trimmed.endsWith("}")) ||
-            (trimmed.startsWith("[") && trimmed.endsWith("]"))
-        );
-    }
-
-    /**
-     * Checks if a string is XML.
-     *
-     * @param text The text to check
-     * @return true if the text appears to be XML
-     */
-    private static boolean isXml(String text) {
-        if (text == null || text.trim().isEmpty()) return false;
-        String trimmed = text.trim();
-        return (
-            trimmed.startsWith("<?xml") ||
-            (trimmed.startsWith("<") && trimmed.endsWith(">"))
-        );
-    }
-
-    /**
-     * Checks if a string is HTML.
-     *
-     * @param text The text to check
-     * @return true if the text appears to be HTML
-     */
-    private static boolean isHtml(String text) {
-        if (text == null || text.trim().isEmpty()) return false;
-        String trimmed = text.trim().toLowerCase();
-        return (
-            trimmed.startsWith("<!doctype html") ||
-            trimmed.contains("<html") ||
-            trimmed.contains("<body")
-        );
-    }
-
-    /**
-     * Formats JSON with simple indentation.
-     *
-     * @param json The JSON string to format
-     * @return Formatted JSON string
-     */
-    private static String formatJson(String json) {
-        try {
-            JsonNode jsonNode = JSON_MAPPER.readTree(json);
-            return JSON_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(
-                jsonNode
-            );
-        } catch (Exception e) {
-            return json; // Return original if formatting fails
-        }
-    }
-
-    /**
-     * Formats XML with simple indentation.
-     *
-     * @param xml The XML string to format
-     * @return Formatted XML string
-     */
-    private static String formatXml(String xml) {
-        try {
-            // Simple XML formatting
-            StringBuilder formatted = new StringBuilder();
-            int indentLevel = 0;
-
-            String[] lines = xml.replaceAll("><", ">\n<").split("\n");
-            for (String line : lines) {
-                String trimmed = line.trim();
-                if (trimmed.isEmpty()) continue;
-
-                if (trimmed.startsWith("</")) {
-                    indentLevel--;
-                }
-
-                formatted
-                    .append(getIndent(indentLevel))
-                    .append(trimmed)
-                    .append("\n");
-
-                if (
-                    trimmed.startsWith("<") &&
-                    !trimmed.startsWith("</") &&
-                    !trimmed.endsWith("/>") &&
-                    !trimmed.contains("?>")
-                ) {
-                    indentLevel++;
-                }
-            }
-            return formatted.toString();
-        } catch (Exception e) {
-            return xml; // Return original if formatting fails
-        }
-    }
-
-    /**
-     * Truncates text to a maximum length.
-     *
-     * @param text The text to truncate
-     * @param maxLength Maximum length
-     * @return Truncated text with indicator
-     */
-    private static String truncateText(String text, int maxLength) {
-        if (text.length() <= maxLength) return text;
-        return (
-            text.substring(0, maxLength) +
-            "\n\n... [Content truncated. " +
-            (text.length() - maxLength) +
-            " more characters]"
-        );
-    }
-
-    /**
-     * Gets indentation string for a given level.
-     *
-     * @param level Indentation level
-     * @return Indentation string
-     */
-    private static String getIndent(int level) {
-        return "  ".repeat(Math.max(0, level));
-    }
-
     /**
      * Formats size in bytes/KB/MB.
      *
      * @param charCount Character count
      * @return Formatted size string
      */
-    public static String formatSize(int charCount) {
+    public static String formatSize(long charCount) {
         if (charCount < 1024) {
             return charCount + " bytes";
         } else if (charCount < 1024 * 1024) {
@@ -0,0 +1,227 @@
+package com.quillapiclient.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prefix trie of variable names for {@code {{variable}}} completion. A
+ * name can have a value in each of a fixed number of layers (the variable
+ * scopes, narrowest last); a completion reports the narrowest layer that
+ * defines the name, the one resolution would use.
+ *
+ * <p>Children are kept in sorted arrays, so completions come out in name
+ * order and a lookup costs one binary search per character of the prefix
+ * plus the names returned, whatever the trie holds. Values are changed
+ * one name at a time. Not thread-safe.
+ */
+public class VariableTrie {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final String[] layerNames;
+    private final Node root = new Node();
+
+    /** A name the prefix completes to, and where its value comes from. */
+    public static class Completion {
+
+        public final String name;
+        public final String scope;
+        public final String value;
+
+        public Completion(String name, String scope, String value) {
+            this.name = name;
+            this.scope = scope;
+            this.value = value;
+        }
+    }
+
+    private static class Node {
+
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        String[] values; // per layer; null while no layer defines the name
+        int size; // names ending at or below this node
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node addChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int at = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newKeys[at] = c;
+            newChildren[at] = new Node();
+            System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+            System.arraycopy(
+                children,
+                at,
+                newChildren,
+                at + 1,
+                children.length - at
+            );
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[at];
+        }
+
+        void removeChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index < 0) {
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(
+                keys,
+                index + 1,
+                newKeys,
+                index,
+                keys.length - index - 1
+            );
+            System.arraycopy(
+                children,
+                index + 1,
+                newChildren,
+                index,
+                children.length - index - 1
+            );
+            keys = newKeys;
+            children = newChildren;
+        }
+    }
+
+    /**
+     * @param layerNames the layers' names, widest first; a completion's
+     *                   scope is one of these
+     */
+    public VariableTrie(String... layerNames) {
+        this.layerNames = layerNames.clone();
+    }
+
+    /** The number of names defined in any layer. */
+    public int size() {
+        return root.size;
+    }
+
+    /**
+     * Sets a name's value in one layer.
+     *
+     * @param value the value, or null to remove the name from the layer
+     */
+    public void put(int layer, String name, String value) {
+        if (value == null) {
+            remove(layer, name);
+            return;
+        }
+        Node[] path = new Node[name.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < name.length(); i++) {
+            node = node.addChild(name.charAt(i));
+            path[i + 1] = node;
+        }
+        if (node.values == null) {
+            node.values = new String[layerNames.length];
+            for (Node onPath : path) {
+                onPath.size++;
+            }
+        }
+        node.values[layer] = value;
+    }
+
+    /** Removes a name from one layer; other layers keep theirs. */
+    public void remove(int layer, String name) {
+        Node[] path = new Node[name.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < name.length(); i++) {
+            node = node.child(name.charAt(i));
+            if (node == null) {
+                return;
+            }
+            path[i + 1] = node;
+        }
+        if (node.values == null || node.values[layer] == null) {
+            return;
+        }
+        node.values[layer] = null;
+        for (String value : node.values) {
+            if (value != null) {
+                return;
+            }
+        }
+        node.values = null;
+        for (Node onPath : path) {
+            onPath.size--;
+        }
+        // Drop the branch the name no longer needs
+        for (int i = name.length(); i > 0; i--) {
+            if (path[i].size == 0) {
+                path[i - 1].removeChild(name.charAt(i - 1));
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Completes a prefix.
+     *
+     * @param prefix the start of the name; empty lists every name
+     * @param limit  the most completions to return
+     * @return the completions in name order
+     */
+    public List<Completion> complete(String prefix, int limit) {
+        List<Completion> completions = new ArrayList<>();
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node != null && limit > 0) {
+            complete(node, new StringBuilder(prefix), limit, completions);
+        }
+        return completions;
+    }
+
+    private void complete(
+        Node node,
+        StringBuilder name,
+        int limit,
+        List<Completion> completions
+    ) {
+        if (node.values != null) {
+            for (int layer = node.values.length - 1; layer >= 0; layer--) {
+                if (node.values[layer] != null) {
+                    completions.add(
+                        new Completion(
+                            name.toString(),
+                            layerNames[layer],
+                            node.values[layer]
+                        )
+                    );
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < node.keys.length; i++) {
+            if (completions.size() >= limit) {
+                return;
+            }
+            name.append(node.keys[i]);
+            complete(node.children[i], name, limit, completions);
+            name.setLength(name.length() - 1);
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.quillapiclient.utility;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Pretty-prints XML from StAX events, writing each node as it is read, so
+ * memory use stays constant however large the document is (SOAP envelopes
+ * of tens of MB included).
+ *
+ * <p>Elements that only contain other elements are indented one level per
+ * depth. Once an element has shown non-whitespace text or CDATA it is
+ * treated as mixed content: the rest of it is written exactly as parsed,
+ * so text keeps its own whitespace and a short {@code <a>text</a>} stays
+ * on one line. Empty elements become {@code <a/>}. Comments, CDATA and
+ * processing instructions are kept.
+ *
+ * <p>Output goes straight to the caller's writer (not through an
+ * XMLStreamWriter), so an exception thrown by the writer, such as the
+ * output cap, reaches the caller unwrapped.
+ */
+public class XmlStreamFormatter {
+
+    private static final String INDENT = "  ";
+    private static final String REPORT_CDATA =
+        "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // Responses are untrusted: never resolve DTDs or external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(
+            XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+            false
+        );
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        // The JDK parser folds CDATA into plain text unless asked not to
+        if (factory.isPropertySupported(REPORT_CDATA)) {
+            factory.setProperty(REPORT_CDATA, true);
+        }
+        return factory;
+    }
+
+    /** Per open element: whether it has child nodes / is mixed content. */
+    private static class Frame {
+
+        boolean hasChildren;
+        boolean mixed;
+    }
+
+    /**
+     * Writes {@code xml} pretty-printed to {@code out}. The input is first
+     * checked with a parse-only pass, so malformed XML is rejected before
+     * anything is written and the caller can fall back to showing it raw.
+     *
+     * @param xml the XML text
+     * @param out destination; left open
+     * @return false (having written nothing) if the XML is malformed
+     * @throws IOException only if {@code out} fails
+     */
+    public static boolean prettyPrint(String xml, Writer out)
+        throws IOException {
+        if (!isWellFormed(xml)) {
+            return false;
+        }
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(openReader(xml));
+            write(reader, out);
+        } catch (XMLStreamException e) {
+            // Already validated; only reachable on parser disagreement
+            out.write("\n\n[Invalid XML: " + e.getMessage() + "]\n");
+        } finally {
+            closeQuietly(reader);
+        }
+        return true;
+    }
+
+    /** True if the text parses as a complete XML document. */
+    static boolean isWellFormed(String xml) {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(openReader(xml));
+            while (reader.hasNext()) {
+                reader.next();
+            }
+            return true;
+        } catch (XMLStreamException | RuntimeException e) {
+            return false;
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    private static void write(XMLStreamReader reader, Writer out)
+        throws XMLStreamException, IOException {
+        Deque<Frame> open = new ArrayDeque<>();
+        boolean startTagOpen = false; // "<name ..." written, '>' pending
+        boolean wroteAny = false;
+
+        if (reader.getVersion() != null) {
+            out.write("<?xml version=\"");
+            out.write(reader.getVersion());
+            out.write('"');
+            if (reader.getCharacterEncodingScheme() != null) {
+                out.write(" encoding=\"");
+                out.write(reader.getCharacterEncodingScheme());
+                out.write('"');
+            }
+            if (reader.standaloneSet()) {
+                out.write(
+                    reader.isStandalone()
+                        ? " standalone=\"yes\""
+                        : " standalone=\"no\""
+                );
+            }
+            out.write("?>");
+            wroteAny = true;
+        }
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            Frame parent = open.peek();
+
+            if (startTagOpen && event != XMLStreamConstants.END_ELEMENT) {
+                out.write('>');
+                startTagOpen = false;
+            }
+
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT -> {
+                    startNode(parent, open.size(), out, wroteAny);
+                    out.write('<');
+                    writeName(reader.getPrefix(), reader.getLocalName(), out);
+                    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                        String prefix = reader.getNamespacePrefix(i);
+                        out.write(
+                            prefix == null || prefix.isEmpty()
+                                ? " xmlns"
+                                : " xmlns:" + prefix
+                        );
+                        writeAttributeValue(reader.getNamespaceURI(i), out);
+                    }
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        out.write(' ');
+                        writeName(
+                            reader.getAttributePrefix(i),
+                            reader.getAttributeLocalName(i),
+                            out
+                        );
+                        writeAttributeValue(reader.getAttributeValue(i), out);
+                    }
+                    open.push(new Frame());
+                    startTagOpen = true;
+                    wroteAny = true;
+                }
+                case XMLStreamConstants.END_ELEMENT -> {
+                    Frame frame = open.pop();
+                    if (startTagOpen) {
+                        out.write("/>");
+                        startTagOpen = false;
+                    } else {
+                        if (frame.hasChildren && !frame.mixed) {
+                            newline(open.size(), out);
+                        }
+                        out.write("</");
+                        writeName(
+                            reader.getPrefix(),
+                            reader.getLocalName(),
+                            out
+                        );
+                        out.write('>');
+                    }
+                }
+                case XMLStreamConstants.CHARACTERS,
+                    XMLStreamConstants.SPACE -> {
+                    // Whitespace between elements is layout; we re-indent
+                    if (
+                        parent != null &&
+                        (parent.mixed || !reader.isWhiteSpace())
+                    ) {
+                        parent.mixed = true;
+                        writeEscaped(
+                            reader.getTextCharacters(),
+                            reader.getTextStart(),
+                            reader.getTextLength(),
+                            out
+                        );
+                    }
+                }
+                case XMLStreamConstants.CDATA -> {
+                    if (parent != null) {
+                        parent.mixed = true;
+                    }
+                    out.write("<![CDATA[");
+                    out.write(
+                        reader.getTextCharacters(),
+                        reader.getTextStart(),
+                        reader.getTextLength()
+                    );
+                    out.write("]]>");
+                }
+                case XMLStreamConstants.ENTITY_REFERENCE -> {
+                    if (parent != null) {
+                        parent.mixed = true;
+                    }
+                    out.write('&');
+                    out.write(reader.getLocalName());
+                    out.write(';');
+                }
+                case XMLStreamConstants.COMMENT -> {
+                    startNode(parent, open.size(), out, wroteAny);
+                    out.write("<!--");
+                    out.write(reader.getText());
+                    out.write("-->");
+                    wroteAny = true;
+                }
+                case XMLStreamConstants.PROCESSING_INSTRUCTION -> {
+                    startNode(parent, open.size(), out, wroteAny);
+                    out.write("<?");
+                    out.write(reader.getPITarget());
+                    String data = reader.getPIData();
+                    if (data != null && !data.isEmpty()) {
+                        out.write(' ');
+                        out.write(data);
+                    }
+                    out.write("?>");
+                    wroteAny = true;
+                }
+                case XMLStreamConstants.DTD -> {
+                    startNode(parent, open.size(), out, wroteAny);
+                    out.write(reader.getText());
+                    wroteAny = true;
+                }
+                default -> {
+                    // START_DOCUMENT / END_DOCUMENT carry no output
+                }
+            }
+        }
+        out.write('\n');
+    }
+
+    /** Starts a markup node on its own line unless inside mixed content. */
+    private static void startNode(
+        Frame parent,
+        int depth,
+        Writer out,
+        boolean wroteAny
+    ) throws IOException {
+        if (parent != null) {
+            parent.hasChildren = true;
+            if (parent.mixed) {
+                return;
+            }
+        }
+        if (wroteAny) {
+            newline(depth, out);
+        }
+    }
+
+    private static void newline(int depth, Writer out) throws IOException {
+        out.write('\n');
+        for (int i = 0; i < depth; i++) {
+            out.write(INDENT);
+        }
+    }
+
+    private static void writeName(String prefix, String localName, Writer out)
+        throws IOException {
+        if (prefix != null && !prefix.isEmpty()) {
+            out.write(prefix);
+            out.write(':');
+        }
+        out.write(localName);
+    }
+
+    private static void writeAttributeValue(String value, Writer out)
+        throws IOException {
+        out.write("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.write("&amp;");
+                case '<' -> out.write("&lt;");
+                case '"' -> out.write("&quot;");
+                case '\n' -> out.write("&#10;");
+                case '\r' -> out.write("&#13;");
+                case '\t' -> out.write("&#9;");
+                default -> out.write(c);
+            }
+        }
+        out.write('"');
+    }
+
+    private static void writeEscaped(
+        char[] text,
+        int start,
+        int length,
+        Writer out
+    ) throws IOException {
+        int runStart = start;
+        int end = start + length;
+        for (int i = start; i < end; i++) {
+            String entity = switch (text[i]) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                default -> null;
+            };
+            if (entity != null) {
+                out.write(text, runStart, i - runStart);
+                out.write(entity);
+                runStart = i + 1;
+            }
+        }
+        out.write(text, runStart, end - runStart);
+    }
+
+    /** A reader past any leading whitespace, which StAX rejects. */
+    private static Reader openReader(String xml) {
+        int start = 0;
+        while (start < xml.length() && xml.charAt(start) <= ' ') {
+            start++;
+        }
+        StringReader reader = new StringReader(xml);
+        try {
+            reader.skip(start);
+        } catch (IOException e) {
+            // StringReader never throws here
+        }
+        return reader;
+    }
+
+    private static void closeQuietly(XMLStreamReader reader) {
+        if (reader == null) {
+            return;
+        }
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            // Nothing to release for in-memory input
+        }
+    }
+}
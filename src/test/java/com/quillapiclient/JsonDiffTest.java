@@ -0,0 +1,171 @@
+package com.quillapiclient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.quillapiclient.json.JsonDiff;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Structural diff of JSON documents, mostly the alignment of arrays of
+ * keyed objects: an insertion must not make every later element differ,
+ * elements sharing a key pair up in order, and an element with no partner
+ * within {@code quill.diff.alignWindow} (256 by default) counts as removed
+ * or added.
+ */
+public class JsonDiffTest {
+
+    @Test
+    void insertionBeforeKeyedElementsIsOneAddition() throws IOException {
+        JsonDiff.Result result = diff(
+            "[{\"id\":1,\"v\":\"a\"},{\"id\":2,\"v\":\"b\"},{\"id\":3,\"v\":\"c\"}]",
+            "[{\"id\":0,\"v\":\"z\"},{\"id\":1,\"v\":\"a\"},{\"id\":2,\"v\":\"b\"},{\"id\":3,\"v\":\"c\"}]"
+        );
+
+        assertEquals(List.of("ADDED $[id=0]"), describe(result));
+        assertFalse(result.truncated);
+    }
+
+    @Test
+    void insertionStillReportsChangedElements() throws IOException {
+        JsonDiff.Result result = diff(
+            "[{\"id\":1,\"v\":\"a\"},{\"id\":2,\"v\":\"b\"}]",
+            "[{\"id\":0,\"v\":\"z\"},{\"id\":1,\"v\":\"a\"},{\"id\":2,\"v\":\"B\"}]"
+        );
+
+        assertEquals(
+            List.of("ADDED $[id=0]", "CHANGED $[id=2].v"),
+            sorted(describe(result))
+        );
+    }
+
+    @Test
+    void duplicateKeysPairUpInOrder() throws IOException {
+        JsonDiff.Result result = diff(
+            "[{\"id\":1},{\"id\":2,\"v\":2},{\"id\":2,\"v\":3},{\"id\":4}]",
+            "[{\"id\":9},{\"id\":2,\"v\":2},{\"id\":2,\"v\":3},{\"id\":4}]"
+        );
+
+        assertEquals(
+            List.of("ADDED $[id=9]", "REMOVED $[id=1]"),
+            sorted(describe(result))
+        );
+    }
+
+    @Test
+    void duplicateKeyWithoutPartnerIsReported() throws IOException {
+        JsonDiff.Result result = diff(
+            "[{\"id\":0},{\"id\":2,\"v\":2},{\"id\":2,\"v\":3}]",
+            "[{\"id\":1},{\"id\":2,\"v\":2}]"
+        );
+
+        assertEquals(
+            List.of("ADDED $[id=1]", "REMOVED $[id=0]", "REMOVED $[id=2]"),
+            sorted(describe(result))
+        );
+    }
+
+    @Test
+    void elementBeyondTheWindowIsRemovedAndAdded() throws IOException {
+        // "shared" is first on the left and last on the right, 300
+        // elements apart: more than the window looks ahead
+        StringBuilder left = new StringBuilder("[{\"id\":\"shared\"}");
+        StringBuilder right = new StringBuilder("[");
+        for (int i = 0; i < 300; i++) {
+            left.append(",{\"id\":\"left").append(i).append("\"}");
+            right.append("{\"id\":\"right").append(i).append("\"},");
+        }
+        left.append("]");
+        right.append("{\"id\":\"shared\"}]");
+
+        List<String> found = describe(diff(left.toString(), right.toString()));
+
+        assertTrue(found.contains("REMOVED $[id=shared]"));
+        assertTrue(found.contains("ADDED $[id=shared]"));
+        assertEquals(602, found.size());
+    }
+
+    @Test
+    void elementWithinTheWindowIsMatched() throws IOException {
+        StringBuilder left = new StringBuilder("[{\"id\":\"shared\"}");
+        StringBuilder right = new StringBuilder("[");
+        for (int i = 0; i < 10; i++) {
+            left.append(",{\"id\":\"left").append(i).append("\"}");
+            right.append("{\"id\":\"right").append(i).append("\"},");
+        }
+        left.append("]");
+        right.append("{\"id\":\"shared\"}]");
+
+        List<String> found = describe(diff(left.toString(), right.toString()));
+
+        assertFalse(found.contains("REMOVED $[id=shared]"));
+        assertFalse(found.contains("ADDED $[id=shared]"));
+        assertEquals(20, found.size());
+    }
+
+    @Test
+    void numbersCompareByValue() throws IOException {
+        assertTrue(diff("{\"a\":1,\"b\":[1,2]}", "{\"a\":1.0,\"b\":[1.0,2]}")
+            .isEqual());
+        assertTrue(diff(
+            "[{\"id\":2,\"n\":1},{\"id\":1,\"n\":10}]",
+            "[{\"id\":1,\"n\":1.0E1},{\"id\":2,\"n\":1.0}]"
+        ).isEqual());
+        assertEquals(
+            List.of("CHANGED $.a"),
+            describe(diff("{\"a\":1}", "{\"a\":1.5}"))
+        );
+    }
+
+    @Test
+    void stopsAtMaxDifferences() throws IOException {
+        JsonDiff.Result result = JsonDiff.diff(
+            bytes("[1,2,3,4,5]"),
+            bytes("[6,7,8,9,10]"),
+            2
+        );
+
+        assertEquals(2, result.differences.size());
+        assertTrue(result.truncated);
+    }
+
+    @Test
+    void exactlyMaxDifferencesIsNotTruncated() throws IOException {
+        JsonDiff.Result result = JsonDiff.diff(
+            bytes("[1,2,3]"),
+            bytes("[1,7,8]"),
+            2
+        );
+
+        assertEquals(2, result.differences.size());
+        assertFalse(result.truncated);
+    }
+
+    private static JsonDiff.Result diff(String left, String right)
+        throws IOException {
+        return JsonDiff.diff(bytes(left), bytes(right), 10_000);
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> describe(JsonDiff.Result result) {
+        List<String> found = new ArrayList<>();
+        for (JsonDiff.Difference difference : result.differences) {
+            found.add(difference.kind + " " + difference.path);
+        }
+        return found;
+    }
+
+    private static List<String> sorted(List<String> found) {
+        List<String> copy = new ArrayList<>(found);
+        copy.sort(null);
+        return copy;
+    }
+}
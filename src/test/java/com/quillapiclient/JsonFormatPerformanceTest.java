@@ -0,0 +1,179 @@
+package com.quillapiclient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quillapiclient.utility.JsonStreamFormatter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the streaming JSON pretty-printer against the old
+ * readTree-and-reserialize path on 1 MB, 50 MB and 200 MB payloads.
+ * Reports wall time and bytes allocated by the formatting thread; output
+ * goes to a counting sink so the result string itself is not measured.
+ * Sizes the heap cannot hold are skipped (the tree path needs roughly ten
+ * times the payload).
+ *
+ * <p>Excluded from the default Surefire run ({@code mvn test}) via the
+ * {@code benchmark} tag. Run explicitly with:
+ * {@code mvn test -Dgroups=benchmark -Dsurefire.excludedGroups=}
+ */
+@Tag("benchmark")
+public class JsonFormatPerformanceTest {
+
+    private static final long MB = 1024 * 1024;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void streamingOutputMatchesTreeOutput() throws Exception {
+        String json = generatePayload(MB);
+
+        StringWriter streamed = new StringWriter();
+        assertTrue(JsonStreamFormatter.prettyPrint(json, streamed));
+        String tree = MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(
+            MAPPER.readTree(json)
+        );
+
+        assertEquals(tree, streamed.toString());
+    }
+
+    @Test
+    void streamingAllocatesLessThanTreeAcrossSizes() throws Exception {
+        for (long size : new long[] { MB, 50 * MB, 200 * MB }) {
+            if (Runtime.getRuntime().maxMemory() < size * 4) {
+                System.out.printf(
+                    "[bench] json format %d MB: skipped, heap too small%n",
+                    size / MB
+                );
+                continue;
+            }
+            String json = generatePayload(size);
+
+            Measurement streaming = measure(out ->
+                JsonStreamFormatter.prettyPrint(json, out)
+            );
+            report("streaming", size, streaming);
+
+            if (Runtime.getRuntime().maxMemory() < size * 12) {
+                System.out.printf(
+                    "[bench] json format %d MB tree: skipped, heap too small%n",
+                    size / MB
+                );
+                continue;
+            }
+            Measurement tree = measure(out -> {
+                JsonNode node = MAPPER.readTree(json);
+                MAPPER.writerWithDefaultPrettyPrinter().writeValue(out, node);
+                return true;
+            });
+            report("tree", size, tree);
+
+            assertEquals(
+                tree.outputChars,
+                streaming.outputChars,
+                "both paths should produce the same amount of output"
+            );
+            assertTrue(
+                streaming.allocatedBytes < tree.allocatedBytes,
+                "streaming should allocate less than building a tree"
+            );
+        }
+    }
+
+    private interface Formatter {
+        boolean format(Writer out) throws IOException;
+    }
+
+    private static class Measurement {
+
+        long millis;
+        long allocatedBytes;
+        long outputChars;
+    }
+
+    private static Measurement measure(Formatter formatter) throws IOException {
+        CountingWriter out = new CountingWriter();
+        System.gc();
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        formatter.format(out);
+        Measurement m = new Measurement();
+        m.millis = (System.nanoTime() - start) / 1_000_000;
+        m.allocatedBytes = allocatedBytes() - allocatedBefore;
+        m.outputChars = out.count;
+        return m;
+    }
+
+    private static void report(String path, long size, Measurement m) {
+        System.out.printf(
+            "[bench] json format %d MB %s: %d ms, allocated %d MB, output %d chars%n",
+            size / MB,
+            path,
+            m.millis,
+            m.allocatedBytes / MB,
+            m.outputChars
+        );
+    }
+
+    private static long allocatedBytes() {
+        return (
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()
+        ).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /** An array of mixed-type records totalling about {@code size} chars. */
+    private static String generatePayload(long size) throws IOException {
+        StringWriter out = new StringWriter((int) size + 1024);
+        try (JsonGenerator gen = new JsonFactory().createGenerator(out)) {
+            gen.writeStartArray();
+            for (int i = 0; out.getBuffer().length() < size; i++) {
+                gen.writeStartObject();
+                gen.writeNumberField("id", i);
+                gen.writeStringField("name", "item-" + i);
+                gen.writeNumberField("price", i * 0.25);
+                gen.writeBooleanField("active", i % 3 == 0);
+                gen.writeNullField("deletedAt");
+                gen.writeArrayFieldStart("tags");
+                gen.writeString("alpha");
+                gen.writeString("beta");
+                gen.writeEndArray();
+                gen.writeObjectFieldStart("owner");
+                gen.writeStringField("email", "user" + i + "@example.com");
+                gen.writeNumberField("score", (long) i * 1_000_003L);
+                gen.writeEndObject();
+                gen.writeEndObject();
+                if (i % 64 == 0) {
+                    gen.flush();
+                }
+            }
+            gen.writeEndArray();
+        }
+        return out.toString();
+    }
+
+    /** Discards output, counting characters. */
+    private static class CountingWriter extends Writer {
+
+        long count;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}